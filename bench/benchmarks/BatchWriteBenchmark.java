@@ -0,0 +1,123 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import database.Database;
+import entityClasses.Reply;
+
+/*******
+ * <p> Title: BatchWriteBenchmark Class. </p>
+ *
+ * <p> Description: Measures what JDBC batching saves when many rows are written at once.  One
+ * call of the benchmark body writes the same 2000 replies again, either one auto-commit MERGE
+ * per row through saveReply, or through saveReplies with the batch size given by the
+ * "batchSize" parameter.  A batch size of 0 stands for the row-at-a-time saveReply loop, so
+ * one run compares it with each batch size.  The score is the time to write all the rows.</p>
+ *
+ * <p> Run it with the benchmark source folder and the project on the class path, as
+ * java benchmarks.BatchWriteBenchmark [-p batchSize=0,1,50,500]; see BenchmarkRunner.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class BatchWriteBenchmark {
+
+	private static final int ROWS = 2000;
+
+	private final int batchSize;
+	private final Path directory;
+	private final Database database;
+	private final List<Reply> replies = new ArrayList<>();
+
+	/*******
+	 * <p> Method: void main(String[] args) </p>
+	 *
+	 * <p> Description: Runs the benchmark with each batch size and writes the results.</p>
+	 *
+	 * @param args the options described in BenchmarkRunner
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(BatchWriteBenchmark.class.getName(), args);
+		for (String batchSize : runner.getParameter("batchSize", "0", "1", "50",
+				String.valueOf(Database.DEFAULT_BATCH_SIZE))) {
+			BatchWriteBenchmark benchmark = new BatchWriteBenchmark(Integer.parseInt(batchSize));
+			try {
+				benchmark.run(runner, Map.of("batchSize", batchSize));
+			} finally {
+				benchmark.close();
+			}
+		}
+		runner.finish();
+	}
+
+	/*******
+	 * <p> Method: BatchWriteBenchmark(int batchSize) </p>
+	 *
+	 * <p> Description: Creates an empty database in a new temporary directory and the replies
+	 * to write to it.</p>
+	 *
+	 * @param batchSize the rows per JDBC batch, or 0 to write one row per saveReply
+	 * @throws IOException if the directory cannot be created
+	 * @throws SQLException if the database cannot be opened
+	 */
+	public BatchWriteBenchmark(int batchSize) throws IOException, SQLException {
+		this.batchSize = batchSize;
+		this.directory = Files.createTempDirectory("batch-write-benchmark");
+		this.database = new Database("jdbc:h2:" + directory.resolve("benchmark").toAbsolutePath(),
+				1, 4, 5000);
+		database.connectToDatabase();
+		for (int i = 0; i < ROWS; i++) {
+			replies.add(new Reply("REPLY_" + i, "Reply body " + i, "user" + (i % 10), "POST_" + (i % 5)));
+		}
+	}
+
+	/*******
+	 * <p> Method: void run(BenchmarkRunner runner, Map&lt;String, String&gt; params) </p>
+	 *
+	 * <p> Description: Runs the benchmark if the command line selects it.</p>
+	 *
+	 * @param runner the harness
+	 * @param params the parameter values to report the scores under
+	 * @throws Exception if a benchmark fails
+	 */
+	public void run(BenchmarkRunner runner, Map<String, String> params) throws Exception {
+		runner.run("writeReplies", params, () -> {
+			if (batchSize == 0) {
+				for (Reply reply : replies) {
+					database.saveReply(reply);
+				}
+			} else {
+				database.saveReplies(replies, batchSize);
+			}
+			return replies;
+		});
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Closes the database and deletes its directory.</p>
+	 *
+	 * @throws IOException if the files cannot be deleted
+	 */
+	public void close() throws IOException {
+		database.closeConnection();
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+}
@@ -0,0 +1,346 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/*******
+ * <p> Title: BenchmarkRunner Class. </p>
+ *
+ * <p> Description: A minimal timing loop for the benchmarks in this source folder.  Each
+ * benchmark runs a number of warmup iterations whose results are thrown away, then a number of
+ * measurement iterations, each calling the benchmark body for a fixed time.  The score is the
+ * mean time of one call over the measurement iterations, with the error as the half-width of
+ * its 99.9% confidence interval.</p>
+ *
+ * <p> The options are:</p>
+ * <ul>
+ * <li> a regular expression selecting the benchmarks to run, matched against their names</li>
+ * <li> -wi count, -i count: warmup and measurement iterations (default 3 and 5)</li>
+ * <li> -w time, -r time: length of each warmup and measurement iteration, as 500ms or 2s
+ * (default 1s)</li>
+ * <li> -p name=value,value: the values of a parameter, replacing the suite's defaults</li>
+ * <li> -rff file: where the results table is written (default bench-result.txt)</li>
+ * <li> -prof gc: also reports the number and total time of the garbage collections that ran
+ * during the measurement iterations.  Only java.lang.management is used, which has no count of
+ * the bytes a thread allocates, so unlike JMH's profiler there is no allocation rate.</li>
+ * </ul>
+ *
+ * <p> This is not JMH, and its scores are only good for comparing two runs of the same
+ * benchmark on the same machine.  The benchmarks run one after another in the JVM that started
+ * them, with no forks, so the JIT compiler's profile of one benchmark carries over into the
+ * next; a single thread calls the body; and a result is kept alive by a volatile comparison
+ * rather than a blackhole.  Where the order matters, select one benchmark per run with the
+ * regular expression.  These limits are printed with every report.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class BenchmarkRunner {
+
+	/*******
+	 * <p> Title: Body Interface. </p>
+	 *
+	 * <p> Description: One call of a benchmark.  The result is consumed so that the JIT compiler
+	 * cannot remove the work that produced it.</p>
+	 */
+	@FunctionalInterface
+	public interface Body {
+		/*******
+		 * <p> Method: Object run() </p>
+		 * @return anything the call computed, or null
+		 * @throws Exception to stop the benchmark
+		 */
+		Object run() throws Exception;
+	}
+
+	private static final String LIMITS = "In-JVM timing loop, not JMH: no forks, one thread, benchmarks share "
+			+ "the JIT profile of those run before them; compare scores only between runs on the same machine.";
+
+	// Two-sided 99.9% Student t quantiles by degrees of freedom
+	private static final int[] T_DEGREES = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 12, 15, 20, 25, 30, 40, 60, 120 };
+	private static final double[] T_QUANTILES = { 636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408,
+			5.041, 4.781, 4.587, 4.318, 4.073, 3.850, 3.725, 3.646, 3.551, 3.460, 3.373 };
+	private static final double T_QUANTILE_LIMIT = 3.291;
+
+	// Compared with each result, so the JIT compiler must keep the result; never equal to one
+	private static volatile Object sentinel = new Object();
+	private static Object sink;
+
+	private final String suite;
+	private Pattern include = Pattern.compile(".*");
+	private int warmupIterations = 3;
+	private int measurementIterations = 5;
+	private long warmupNanos = TimeUnit.SECONDS.toNanos(1);
+	private long measurementNanos = TimeUnit.SECONDS.toNanos(1);
+	private final Map<String, List<String>> parameters = new LinkedHashMap<>();
+	private Path resultFile = Paths.get("bench-result.txt");
+	private boolean gcProfiler = false;
+	// The rows of the results table: a name, then the count, score, error and unit
+	private final List<String[]> rows = new ArrayList<>();
+
+	/*******
+	 * <p> Method: BenchmarkRunner(String suite, String[] args) </p>
+	 *
+	 * <p> Description: Reads the options of one run.</p>
+	 *
+	 * @param suite the class the benchmarks belong to; their names are suite.method
+	 * @param args the command line
+	 * @throws IllegalArgumentException for an unknown or malformed option
+	 */
+	public BenchmarkRunner(String suite, String[] args) {
+		this.suite = suite;
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (!option.startsWith("-")) {
+				include = Pattern.compile(option);
+				continue;
+			}
+			if (i + 1 == args.length) {
+				throw new IllegalArgumentException("Option " + option + " needs a value");
+			}
+			String value = args[++i];
+			switch (option) {
+			case "-wi":
+				warmupIterations = Integer.parseInt(value);
+				break;
+			case "-i":
+				measurementIterations = Integer.parseInt(value);
+				break;
+			case "-w":
+				warmupNanos = parseTime(value);
+				break;
+			case "-r":
+				measurementNanos = parseTime(value);
+				break;
+			case "-p":
+				int equals = value.indexOf('=');
+				if (equals < 1) throw new IllegalArgumentException("Expected -p name=value,value: " + value);
+				parameters.put(value.substring(0, equals), Arrays.asList(value.substring(equals + 1).split(",")));
+				break;
+			case "-rff":
+				resultFile = Paths.get(value);
+				break;
+			case "-prof":
+				if (!value.equals("gc")) throw new IllegalArgumentException("Unknown profiler " + value);
+				gcProfiler = true;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + option);
+			}
+		}
+		if (warmupIterations < 0 || measurementIterations < 1) {
+			throw new IllegalArgumentException("At least one measurement iteration is needed");
+		}
+		System.out.println("# " + LIMITS);
+	}
+
+	/*******
+	 * <p> Method: List&lt;String&gt; getParameter(String name, String... defaults) </p>
+	 *
+	 * @param name the parameter
+	 * @param defaults the values used when the command line does not give any
+	 * @return the values to run the benchmarks with
+	 */
+	public List<String> getParameter(String name, String... defaults) {
+		return parameters.getOrDefault(name, Arrays.asList(defaults));
+	}
+
+	/*******
+	 * <p> Method: boolean includes(String benchmark) </p>
+	 *
+	 * @param benchmark the name of a benchmark method
+	 * @return true if the command line selects it; a suite can skip the setup of the others
+	 */
+	public boolean includes(String benchmark) {
+		return include.matcher(suite + "." + benchmark).find();
+	}
+
+	/*******
+	 * <p> Method: void run(String benchmark, Map&lt;String, String&gt; params, Body body) </p>
+	 *
+	 * <p> Description: Measures one benchmark with one set of parameter values, if the command
+	 * line selects it, and prints its score.</p>
+	 *
+	 * @param benchmark the name of the benchmark method
+	 * @param params the parameter values it runs with, as they should be reported
+	 * @param body one call of the benchmark
+	 * @throws Exception if the body throws
+	 */
+	public void run(String benchmark, Map<String, String> params, Body body) throws Exception {
+		if (!includes(benchmark)) return;
+		String name = suite.substring(suite.lastIndexOf('.') + 1) + "." + benchmark
+				+ (params.isEmpty() ? "" : " " + params);
+		System.out.println("# Benchmark: " + name);
+		// So that one benchmark does not pay for the garbage of the last
+		System.gc();
+		for (int i = 1; i <= warmupIterations; i++) {
+			System.out.printf(Locale.ROOT, "# Warmup Iteration %3d: %.3f us/op%n", i,
+					iterate(body, warmupNanos).microsPerCall());
+		}
+		double[] scores = new double[measurementIterations];
+		long collections = 0;
+		long collectionMillis = 0;
+		for (int i = 0; i < measurementIterations; i++) {
+			Iteration iteration = iterate(body, measurementNanos);
+			scores[i] = iteration.microsPerCall();
+			collections += iteration.collections;
+			collectionMillis += iteration.collectionMillis;
+			System.out.printf(Locale.ROOT, "Iteration %3d: %.3f us/op%n", i + 1, scores[i]);
+		}
+		rows.add(row(name, scores, "us/op"));
+		if (gcProfiler) {
+			rows.add(new String[] { name + " gc.count", String.format(Locale.ROOT, " %4d %14d %14s  %s",
+					scores.length, collections, "", "counts") });
+			rows.add(new String[] { name + " gc.time", String.format(Locale.ROOT, " %4d %14d %14s  %s",
+					scores.length, collectionMillis, "", "ms") });
+		}
+		System.out.printf(Locale.ROOT, "Result: %.3f ±(99.9%%) %.3f us/op%n%n", mean(scores),
+				confidenceHalfWidth(scores));
+	}
+
+	/*******
+	 * <p> Method: void finish() </p>
+	 *
+	 * <p> Description: Prints the table of all scores and writes it to the results file.</p>
+	 *
+	 * @throws IOException if the results file cannot be written
+	 */
+	public void finish() throws IOException {
+		List<String> report = new ArrayList<>();
+		report.add("# " + LIMITS);
+		report.add("# " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+				+ ", " + warmupIterations + " x " + formatTime(warmupNanos) + " warmup, "
+				+ measurementIterations + " x " + formatTime(measurementNanos) + " measured");
+		int width = "Benchmark".length();
+		for (String[] row : rows) width = Math.max(width, row[0].length());
+		String column = "%-" + width + "s";
+		report.add(String.format(column + " %4s %14s %14s  %s", "Benchmark", "Cnt", "Score", "Error", "Units"));
+		for (String[] row : rows) report.add(String.format(column, row[0]) + row[1]);
+		for (String line : report) System.out.println(line);
+		Files.write(resultFile, report, StandardCharsets.UTF_8);
+		System.out.println("\nResults written to " + resultFile.toAbsolutePath());
+	}
+
+	/*
+	 * Calls the body until the time is up, at least once, and measures the calls together with
+	 * the collections that ran meanwhile.
+	 */
+	private static Iteration iterate(Body body, long nanos) throws Exception {
+		Iteration iteration = new Iteration();
+		long collectionsBefore = collections();
+		long collectionMillisBefore = collectionMillis();
+		long start = System.nanoTime();
+		do {
+			consume(body.run());
+			iteration.calls++;
+			iteration.nanos = System.nanoTime() - start;
+		} while (iteration.nanos < nanos);
+		iteration.collections = collections() - collectionsBefore;
+		iteration.collectionMillis = collectionMillis() - collectionMillisBefore;
+		return iteration;
+	}
+
+	private static long collections() {
+		long count = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, collector.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long collectionMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, collector.getCollectionTime());
+		}
+		return millis;
+	}
+
+	private static void consume(Object result) {
+		if (result == sentinel) sink = result;
+	}
+
+	private static long parseTime(String value) {
+		String number = value.replaceAll("[a-z]+$", "");
+		String unit = value.substring(number.length());
+		long amount = Long.parseLong(number.trim());
+		switch (unit) {
+		case "ms":
+			return TimeUnit.MILLISECONDS.toNanos(amount);
+		case "s":
+		case "":
+			return TimeUnit.SECONDS.toNanos(amount);
+		case "m":
+		case "min":
+			return TimeUnit.MINUTES.toNanos(amount);
+		default:
+			throw new IllegalArgumentException("Unknown time unit in " + value);
+		}
+	}
+
+	private static String formatTime(long nanos) {
+		return nanos % 1_000_000_000L == 0 ? nanos / 1_000_000_000L + " s" : nanos / 1_000_000L + " ms";
+	}
+
+	private static String[] row(String name, double[] values, String unit) {
+		return new String[] { name, String.format(Locale.ROOT, " %4d %14.3f ± %12.3f  %s", values.length,
+				mean(values), confidenceHalfWidth(values), unit) };
+	}
+
+	/*
+	 * One timed iteration: the calls made, how long they took, and the garbage collections that
+	 * ran meanwhile.
+	 */
+	private static class Iteration {
+		long calls = 0;
+		long nanos = 0;
+		long collections = 0;
+		long collectionMillis = 0;
+
+		double microsPerCall() {
+			return nanos / 1000.0 / calls;
+		}
+	}
+
+	private static double mean(double[] values) {
+		double sum = 0;
+		for (double value : values) sum += value;
+		return sum / values.length;
+	}
+
+	// Half-width of the 99.9% confidence interval of the mean; NaN with one value
+	private static double confidenceHalfWidth(double[] values) {
+		int n = values.length;
+		if (n < 2) return Double.NaN;
+		double mean = mean(values);
+		double squares = 0;
+		for (double value : values) squares += (value - mean) * (value - mean);
+		return tQuantile(n - 1) * Math.sqrt(squares / (n - 1)) / Math.sqrt(n);
+	}
+
+	// The quantile of the largest tabulated degrees of freedom not above the given one
+	private static double tQuantile(int degrees) {
+		if (degrees > T_DEGREES[T_DEGREES.length - 1] * 2) return T_QUANTILE_LIMIT;
+		double quantile = T_QUANTILES[0];
+		for (int i = 0; i < T_DEGREES.length && T_DEGREES[i] <= degrees; i++) {
+			quantile = T_QUANTILES[i];
+		}
+		return quantile;
+	}
+}
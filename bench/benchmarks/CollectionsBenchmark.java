@@ -0,0 +1,188 @@
+package benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import entityClasses.Parameter;
+import entityClasses.ParameterCollection;
+import entityClasses.Post;
+import entityClasses.PostCollection;
+import entityClasses.Reply;
+import entityClasses.ReplyCollection;
+import entityClasses.Request;
+import entityClasses.RequestCollection;
+import entityClasses.Thread;
+import entityClasses.ThreadCollection;
+
+/*******
+ * <p> Title: CollectionsBenchmark Class. </p>
+ *
+ * <p> Description: Measures the in-memory queries of the entityClasses collections, which the
+ * post lists and dialogs call on every refresh:</p>
+ * <ul>
+ * <li> PostCollection: searchPosts, getPostsByThread, getRecentPosts</li>
+ * <li> searchPostsFullScan: the same search done by checking every post with
+ * Post.matchesSearch, as searchPosts did before PostSearchIndex</li>
+ * <li> ReplyCollection: getRepliesForPost, getUnreadReplyCountForPost, getReplyCountsByPost</li>
+ * <li> getRepliesForPostFullScan: the same lookup done by filtering and sorting every reply, as
+ * getRepliesForPost did before the per-post index</li>
+ * <li> ThreadCollection: getThreadByTitle</li>
+ * <li> RequestCollection: getOpenRequests</li>
+ * <li> ParameterCollection: getParametersByThread</li>
+ * </ul>
+ *
+ * <p> The "replies" parameter sets the size of the forum: n replies over n / 10 posts in 50
+ * threads, with n / 100 staff requests and 100 grading parameters.  One reply in ten is
+ * feedback and half are unread, and posts and replies are a minute apart so that sorting by
+ * time has work to do.  Posts, threads and search words are picked with a fixed seed, so every
+ * run makes the same calls.  The two FullScan benchmarks answer an indexed call the old way,
+ * so the gain from each index can be read off one run.</p>
+ *
+ * <p> Run it with the benchmark source folder and the project on the class path, as
+ * java benchmarks.CollectionsBenchmark [regex] [-p replies=1000,100000,1000000] [-prof gc];
+ * see BenchmarkRunner.  With -prof gc each score comes with the number and time of the garbage
+ * collections it caused.  A million replies need a heap of about 1 GB.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class CollectionsBenchmark {
+
+	private static final int THREADS = 50;
+	private static final int PARAMETERS = 100;
+	private static final int RECENT_POSTS = 20;
+	private static final long SEED = 42;
+	// Words the titles and bodies are made of, and the keywords searched for
+	private static final String[] WORDS = { "array", "loop", "recursion", "pointer", "exception",
+			"interface", "thread", "database", "query", "index", "deadline", "grading", "lecture",
+			"homework", "project", "compile", "debug", "test", "merge", "branch" };
+
+	private final int postCount;
+	private final PostCollection posts = new PostCollection();
+	private final ReplyCollection replies = new ReplyCollection();
+	private final ThreadCollection threads = new ThreadCollection();
+	private final RequestCollection requests = new RequestCollection();
+	private final ParameterCollection parameters = new ParameterCollection();
+	private final SplittableRandom random = new SplittableRandom(SEED);
+
+	/*******
+	 * <p> Method: void main(String[] args) </p>
+	 *
+	 * <p> Description: Runs the selected benchmarks at each forum size and writes the results.</p>
+	 *
+	 * @param args the options described in BenchmarkRunner
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(CollectionsBenchmark.class.getName(), args);
+		for (String replies : runner.getParameter("replies", "1000", "100000", "1000000")) {
+			new CollectionsBenchmark(Integer.parseInt(replies)).run(runner, Map.of("replies", replies));
+		}
+		runner.finish();
+	}
+
+	/*******
+	 * <p> Method: CollectionsBenchmark(int replyCount) </p>
+	 *
+	 * <p> Description: Fills the collections.</p>
+	 *
+	 * @param replyCount the number of replies; there are a tenth as many posts
+	 */
+	public CollectionsBenchmark(int replyCount) {
+		this.postCount = Math.max(10, replyCount / 10);
+		LocalDateTime start = LocalDateTime.of(2026, 1, 12, 8, 0);
+		for (int i = 0; i < THREADS; i++) {
+			threads.addThread(new Thread("THREAD_" + i, threadTitle(i), "Discussion thread " + i, "staff0"));
+		}
+		for (int i = 0; i < postCount; i++) {
+			Post post = new Post("POST_" + i, words(4), words(30), "student" + (i % 500), threadTitle(i % THREADS));
+			post.setCreatedAt(start.plusMinutes(i));
+			posts.addPost(post);
+		}
+		for (int i = 0; i < replyCount; i++) {
+			Reply reply = new Reply("REPLY_" + i, words(15), "student" + random.nextInt(500),
+					"POST_" + random.nextInt(postCount), i % 10 == 0);
+			reply.setCreatedAt(start.plusMinutes(i));
+			reply.setRead(i % 2 == 0);
+			replies.addReply(reply);
+		}
+		for (int i = 0; i < Math.max(10, replyCount / 100); i++) {
+			Request request = new Request("REQUEST_" + i, "Request " + i, words(10),
+					Request.RequestCategory.values()[i % Request.RequestCategory.values().length], "staff" + (i % 20));
+			if (i % 3 == 0) request.setStatus(Request.RequestStatus.CLOSED);
+			requests.addRequest(request);
+		}
+		for (int i = 0; i < PARAMETERS; i++) {
+			parameters.addParameter(new Parameter("PARAM_" + i, "Parameter " + i, words(8), i % 4 != 0,
+					"staff" + (i % 20), 2, 3, List.of(WORDS[i % WORDS.length]), "THREAD_" + (i % THREADS), new ArrayList<>()));
+		}
+	}
+
+	/*******
+	 * <p> Method: void run(BenchmarkRunner runner, Map&lt;String, String&gt; params) </p>
+	 *
+	 * <p> Description: Runs every benchmark the command line selects.</p>
+	 *
+	 * @param runner the harness
+	 * @param params the parameter values to report the scores under
+	 * @throws Exception if a benchmark fails
+	 */
+	public void run(BenchmarkRunner runner, Map<String, String> params) throws Exception {
+		runner.run("searchPosts", params,
+				() -> posts.searchPosts(WORDS[random.nextInt(WORDS.length)], threadTitle(random.nextInt(THREADS))));
+		runner.run("searchPostsFullScan", params,
+				() -> searchByScan(WORDS[random.nextInt(WORDS.length)], threadTitle(random.nextInt(THREADS))));
+		runner.run("getPostsByThread", params, () -> posts.getPostsByThread(threadTitle(random.nextInt(THREADS))));
+		runner.run("getRecentPosts", params, () -> posts.getRecentPosts(RECENT_POSTS));
+		runner.run("getRepliesForPost", params, () -> replies.getRepliesForPost(randomPostId()));
+		runner.run("getRepliesForPostFullScan", params, () -> repliesByScan(randomPostId()));
+		runner.run("getUnreadReplyCountForPost", params,
+				() -> replies.getUnreadReplyCountForPost(randomPostId(), "student" + random.nextInt(500)));
+		runner.run("getReplyCountsByPost", params, replies::getReplyCountsByPost);
+		runner.run("getThreadByTitle", params, () -> threads.getThreadByTitle(threadTitle(random.nextInt(THREADS))));
+		runner.run("getOpenRequests", params, requests::getOpenRequests);
+		runner.run("getParametersByThread", params,
+				() -> parameters.getParametersByThread("THREAD_" + random.nextInt(THREADS)));
+	}
+
+	// A search without the index: every post is checked, and the hits sorted newest first
+	private List<Post> searchByScan(String keyword, String thread) {
+		return posts.getAllPosts().stream()
+				.filter(post -> post.matchesSearch(keyword) && thread.equals(post.getThread()))
+				.sorted(Comparator.comparing(Post::getCreatedAt).reversed())
+				.collect(Collectors.toList());
+	}
+
+	// The regular replies of a post without the index, oldest first
+	private List<Reply> repliesByScan(String postId) {
+		return replies.getAllReplies().stream()
+				.filter(reply -> postId.equals(reply.getParentPostId()) && !reply.isFeedback())
+				.sorted(Comparator.comparing(Reply::getCreatedAt))
+				.collect(Collectors.toList());
+	}
+
+	private String randomPostId() {
+		return "POST_" + random.nextInt(postCount);
+	}
+
+	private String words(int count) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			if (i > 0) text.append(' ');
+			text.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return text.toString();
+	}
+
+	private static String threadTitle(int i) {
+		return "Thread " + i;
+	}
+}
@@ -0,0 +1,164 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import database.Database;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/*******
+ * <p> Title: ConnectionPoolBenchmark Class. </p>
+ *
+ * <p> Description: Measures how the throughput of concurrent callers grows with the size of
+ * the connection pool.  One call of the benchmark body is one round: each of the worker
+ * threads runs one loadAllPosts and one saveReply, and the round ends when all of them have
+ * finished.  A pool of one serializes the round, while larger pools let the calls overlap, so
+ * the time per round should fall as the "poolSize" parameter grows towards the number of
+ * workers.</p>
+ *
+ * <p> The database holds 300 posts, so that loadAllPosts has real work to do, and the replies
+ * written by the rounds.  The pool's peak active count is printed after each run.</p>
+ *
+ * <p> Run it with the benchmark source folder and the project on the class path, as
+ * java benchmarks.ConnectionPoolBenchmark [-p poolSize=1,2,4] [-p workers=4]; see
+ * BenchmarkRunner.  The harness itself calls the body from one thread; the workers are this
+ * class's own.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class ConnectionPoolBenchmark {
+
+	private static final int POSTS = 300;
+
+	private final int workers;
+	private final Path directory;
+	private final Database database;
+	private final ExecutorService executor;
+	private final AtomicLong replies = new AtomicLong();
+
+	/*******
+	 * <p> Method: void main(String[] args) </p>
+	 *
+	 * <p> Description: Runs the benchmark with each pool size and writes the results.</p>
+	 *
+	 * @param args the options described in BenchmarkRunner
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(ConnectionPoolBenchmark.class.getName(), args);
+		for (String workers : runner.getParameter("workers", "4")) {
+			for (String poolSize : runner.getParameter("poolSize", "1", "2", "4")) {
+				ConnectionPoolBenchmark benchmark = new ConnectionPoolBenchmark(Integer.parseInt(poolSize),
+						Integer.parseInt(workers));
+				try {
+					benchmark.fill();
+					Map<String, String> params = new LinkedHashMap<>();
+					params.put("poolSize", poolSize);
+					params.put("workers", workers);
+					benchmark.run(runner, params);
+				} finally {
+					benchmark.close();
+				}
+			}
+		}
+		runner.finish();
+	}
+
+	/*******
+	 * <p> Method: ConnectionPoolBenchmark(int poolSize, int workers) </p>
+	 *
+	 * <p> Description: Creates an empty database in a new temporary directory.</p>
+	 *
+	 * @param poolSize the largest number of connections in use at once
+	 * @param workers the number of threads calling the database in each round
+	 * @throws IOException if the directory cannot be created
+	 * @throws SQLException if the database cannot be opened
+	 */
+	public ConnectionPoolBenchmark(int poolSize, int workers) throws IOException, SQLException {
+		this.workers = workers;
+		this.directory = Files.createTempDirectory("connection-pool-benchmark");
+		this.database = new Database("jdbc:h2:" + directory.resolve("benchmark").toAbsolutePath(),
+				1, poolSize, 10_000);
+		database.connectToDatabase();
+		this.executor = Executors.newFixedThreadPool(workers);
+	}
+
+	/*******
+	 * <p> Method: void fill() </p>
+	 *
+	 * <p> Description: Writes the posts the workers load.</p>
+	 *
+	 * @throws SQLException if a row cannot be written
+	 */
+	public void fill() throws SQLException {
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < POSTS; i++) {
+			posts.add(new Post("POST_" + i, "Title " + i, "Body of post " + i, "user" + (i % 10), "General"));
+		}
+		database.savePosts(posts);
+	}
+
+	/*******
+	 * <p> Method: void run(BenchmarkRunner runner, Map&lt;String, String&gt; params) </p>
+	 *
+	 * <p> Description: Runs the benchmark if the command line selects it, then prints the
+	 * pool's counters.</p>
+	 *
+	 * @param runner the harness
+	 * @param params the parameter values to report the scores under
+	 * @throws Exception if a benchmark fails
+	 */
+	public void run(BenchmarkRunner runner, Map<String, String> params) throws Exception {
+		runner.run("loadAndSaveRound", params, () -> {
+			List<Future<?>> round = new ArrayList<>();
+			for (int t = 0; t < workers; t++) {
+				round.add(executor.submit(() -> {
+					long n = replies.getAndIncrement();
+					database.loadAllPosts();
+					database.saveReply(new Reply("REPLY_" + n, "Reply body", "user" + (n % 10),
+							"POST_" + (n % POSTS)));
+					return null;
+				}));
+			}
+			for (Future<?> call : round) {
+				call.get();
+			}
+			return round;
+		});
+		System.out.println("# " + database.getConnectionPool() + "\n");
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Stops the workers, closes the database and deletes its directory.</p>
+	 *
+	 * @throws IOException if the files cannot be deleted
+	 */
+	public void close() throws IOException {
+		executor.shutdownNow();
+		database.closeConnection();
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+}
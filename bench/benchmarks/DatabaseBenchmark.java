@@ -0,0 +1,257 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import database.Database;
+import entityClasses.Parameter;
+import entityClasses.ParameterCategory;
+import entityClasses.Post;
+import entityClasses.Reply;
+import entityClasses.Thread;
+import entityClasses.User;
+
+/*******
+ * <p> Title: DatabaseBenchmark Class. </p>
+ *
+ * <p> Description: Measures the persistence layer: database.Database against an H2 file in a
+ * temporary directory, so the user's own ~/FoundationDatabase is never touched.  The database
+ * is filled once for each value of the "rows" parameter and the benchmarks then run in turn
+ * against it:</p>
+ * <ul>
+ * <li> savePost, saveReply: one row rewritten with MERGE, picked at random</li>
+ * <li> queuePost: the same write handed to the write-behind queue, which is what the caller
+ * pays when the row is written later on the queue's own thread</li>
+ * <li> loadAllPosts, loadAllReplies: every row of the table</li>
+ * <li> loadPostsPage: the first page of the post list, whose cost should stay flat as the
+ * forum grows while loadAllPosts grows with it</li>
+ * <li> saveParameter, loadAllParameters: one grading parameter with its categories, and all
+ * of them</li>
+ * <li> authenticate, loginStudent: the login lookups of one account</li>
+ * <li> getPostCountForThread: the count of one thread</li>
+ * <li> getPostCountsByThread: the counts of every thread in one grouped query</li>
+ * </ul>
+ *
+ * <p> With "rows" at n the database holds n posts, n replies, n / 100 accounts and n / 1000
+ * grading parameters, with at least 100 accounts and 10 parameters, and the posts and
+ * parameters are spread over 20 threads.  The saves rewrite existing rows, so the size stays
+ * the same however long the run.  Rows are picked with a fixed seed, so every run makes the same calls.</p>
+ *
+ * <p> Run it with the benchmark source folder and the project on the class path, as
+ * java benchmarks.DatabaseBenchmark [regex] [-p rows=1000,100000,1000000] [-wi 3] [-i 5]
+ * [-r 1s] [-rff result.txt]; see BenchmarkRunner.  Filling a million rows takes a few
+ * minutes and loadAllPosts at that size needs a heap of about 2 GB.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class DatabaseBenchmark {
+
+	private static final int THREADS = 20;
+	private static final int CATEGORIES_PER_PARAMETER = 3;
+	// Rows written per transaction while filling, so a million rows do not share one transaction
+	private static final int FILL_CHUNK = 10_000;
+	private static final long SEED = 42;
+	private static final int PAGE_SIZE = 25;
+
+	private final int rows;
+	private final int users;
+	private final int parameters;
+	private final Path directory;
+	private final Database database;
+	private final SplittableRandom random = new SplittableRandom(SEED);
+
+	/*******
+	 * <p> Method: void main(String[] args) </p>
+	 *
+	 * <p> Description: Runs the selected benchmarks at each data size and writes the results.</p>
+	 *
+	 * @param args the options described in BenchmarkRunner
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(DatabaseBenchmark.class.getName(), args);
+		for (String rows : runner.getParameter("rows", "1000", "100000", "1000000")) {
+			DatabaseBenchmark benchmark = new DatabaseBenchmark(Integer.parseInt(rows));
+			try {
+				benchmark.fill();
+				benchmark.run(runner, Map.of("rows", rows));
+			} finally {
+				benchmark.close();
+			}
+		}
+		runner.finish();
+	}
+
+	/*******
+	 * <p> Method: DatabaseBenchmark(int rows) </p>
+	 *
+	 * <p> Description: Creates an empty database in a new temporary directory.</p>
+	 *
+	 * @param rows the number of posts and of replies to fill it with
+	 * @throws IOException if the directory cannot be created
+	 * @throws SQLException if the database cannot be opened
+	 */
+	public DatabaseBenchmark(int rows) throws IOException, SQLException {
+		this.rows = rows;
+		this.users = Math.max(100, rows / 100);
+		this.parameters = Math.max(10, rows / 1000);
+		this.directory = Files.createTempDirectory("database-benchmark");
+		this.database = new Database("jdbc:h2:" + directory.resolve("benchmark").toAbsolutePath(),
+				1, 4, 5000);
+		database.connectToDatabase();
+	}
+
+	/*******
+	 * <p> Method: void fill() </p>
+	 *
+	 * <p> Description: Writes the accounts, posts, replies and grading parameters.</p>
+	 *
+	 * @throws SQLException if a row cannot be written
+	 */
+	public void fill() throws SQLException {
+		long start = System.nanoTime();
+		List<User> accounts = new ArrayList<>();
+		for (int i = 0; i < users; i++) {
+			accounts.add(new User(userName(i), password(i), "First" + i, "", "Last" + i, "",
+					userName(i) + "@example.edu", false, i % 10 != 0, i % 10 == 0));
+		}
+		database.registerUsers(accounts);
+		for (int i = 0; i < THREADS; i++) {
+			database.saveThread(new Thread("THREAD_" + i, threadTitle(i), "Discussion thread " + i, userName(0)));
+		}
+
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			posts.add(post(i));
+			if (posts.size() == FILL_CHUNK || i == rows - 1) {
+				database.savePosts(posts);
+				posts.clear();
+			}
+		}
+		List<Reply> replies = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			replies.add(reply(i));
+			if (replies.size() == FILL_CHUNK || i == rows - 1) {
+				database.saveReplies(replies);
+				replies.clear();
+			}
+		}
+		for (int i = 0; i < parameters; i++) {
+			database.saveParameter(parameter(i, 1.0));
+		}
+		System.out.printf("# Filled %d posts, %d replies, %d accounts and %d parameters in %.1f s%n%n",
+				rows, rows, users, parameters, (System.nanoTime() - start) / 1e9);
+	}
+
+	/*******
+	 * <p> Method: void run(BenchmarkRunner runner, Map&lt;String, String&gt; params) </p>
+	 *
+	 * <p> Description: Runs every benchmark the command line selects.</p>
+	 *
+	 * @param runner the harness
+	 * @param params the parameter values to report the scores under
+	 * @throws Exception if a benchmark fails
+	 */
+	public void run(BenchmarkRunner runner, Map<String, String> params) throws Exception {
+		runner.run("savePost", params, () -> {
+			Post post = post(random.nextInt(rows));
+			database.savePost(post);
+			return post;
+		});
+		runner.run("queuePost", params, () -> {
+			Post post = post(random.nextInt(rows));
+			database.getWriteBehindQueue().queuePost(post);
+			return post;
+		});
+		runner.run("saveReply", params, () -> {
+			Reply reply = reply(random.nextInt(rows));
+			database.saveReply(reply);
+			return reply;
+		});
+		runner.run("loadAllPosts", params, database::loadAllPosts);
+		runner.run("loadAllReplies", params, database::loadAllReplies);
+		runner.run("loadPostsPage", params, () -> database.loadPostsPage(null, null, null, PAGE_SIZE));
+		runner.run("saveParameter", params, () -> {
+			// A new weight for one category, so each save writes one changed row
+			Parameter parameter = parameter(random.nextInt(parameters), 1.0 + random.nextInt(100) / 100.0);
+			database.saveParameter(parameter);
+			return parameter;
+		});
+		runner.run("loadAllParameters", params, database::loadAllParameters);
+		runner.run("authenticate", params, () -> {
+			int user = random.nextInt(users);
+			return database.authenticate(userName(user), password(user));
+		});
+		runner.run("loginStudent", params, () -> {
+			int user = random.nextInt(users);
+			return database.loginStudent(new User(userName(user), password(user), "", "", "", "", "",
+					false, true, false));
+		});
+		runner.run("getPostCountForThread", params,
+				() -> database.getPostCountForThread(threadTitle(random.nextInt(THREADS))));
+		runner.run("getPostCountsByThread", params, database::getPostCountsByThread);
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Closes the database and deletes its directory.</p>
+	 *
+	 * @throws IOException if the files cannot be deleted
+	 */
+	public void close() throws IOException {
+		database.closeConnection();
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private Post post(int i) {
+		StringBuilder body = new StringBuilder("Body of post ").append(i).append('.');
+		// Around 200 characters, as a typical question is
+		while (body.length() < 200) body.append(" The details of the question go here.");
+		return new Post("POST_" + i, "Title of post " + i, body.toString(), userName(i % users),
+				threadTitle(i % THREADS));
+	}
+
+	private Reply reply(int i) {
+		return new Reply("REPLY_" + i, "Reply body " + i + ", answering the question above.",
+				userName(i % users), "POST_" + (i % rows), i % 10 == 0);
+	}
+
+	private Parameter parameter(int i, double firstWeight) {
+		List<ParameterCategory> categories = new ArrayList<>();
+		categories.add(new ParameterCategory("Category 0", firstWeight));
+		for (int c = 1; c < CATEGORIES_PER_PARAMETER; c++) {
+			categories.add(new ParameterCategory("Category " + c, 1.0));
+		}
+		return new Parameter("PARAM_" + i, "Parameter " + i, "Grading parameter " + i, true,
+				userName(0), 2, 3, List.of("topic"), "THREAD_" + (i % THREADS), categories);
+	}
+
+	private static String userName(int i) {
+		return "user" + i;
+	}
+
+	private static String password(int i) {
+		return "Password" + i + "!";
+	}
+
+	private static String threadTitle(int i) {
+		return "Thread " + i;
+	}
+}
@@ -0,0 +1,204 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import database.ConnectionPool;
+import database.Database;
+import entityClasses.Post;
+import entityClasses.Reply;
+import entityClasses.Thread;
+import entityClasses.User;
+
+/*******
+ * <p> Title: StatementCacheBenchmark Class. </p>
+ *
+ * <p> Description: Measures what the per-connection statement cache saves on the queries the
+ * application runs most often.  The "statementCache" parameter is the number of statements
+ * each pooled connection keeps; 0 turns the cache off, so every call parses its SQL again.
+ * Each benchmark is one call of:</p>
+ * <ul>
+ * <li> doesUserExist, authenticate: the account lookups of the login page</li>
+ * <li> loadPostsPage: the first page of a thread's post list</li>
+ * <li> loadRepliesPage: the first page of the replies to a post</li>
+ * <li> getReplyCountsForPosts: the reply counts shown beside one page of posts</li>
+ * <li> getPostCountForThread: the count of one thread</li>
+ * <li> saveReply: one reply rewritten with MERGE</li>
+ * </ul>
+ *
+ * <p> The database is small, 200 accounts, 2000 posts over 20 threads and 10000 replies, so
+ * that parsing is a visible share of each call.  The statement cache hit ratio of each run is
+ * printed after its scores.</p>
+ *
+ * <p> Run it with the benchmark source folder and the project on the class path, as
+ * java benchmarks.StatementCacheBenchmark [regex] [-p statementCache=0,64]; see
+ * BenchmarkRunner.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class StatementCacheBenchmark {
+
+	private static final int USERS = 200;
+	private static final int THREADS = 20;
+	private static final int POSTS = 2000;
+	private static final int REPLIES = 10_000;
+	private static final int PAGE_SIZE = 20;
+	private static final long SEED = 42;
+
+	private final Path directory;
+	private final Database database;
+	private final SplittableRandom random = new SplittableRandom(SEED);
+
+	/*******
+	 * <p> Method: void main(String[] args) </p>
+	 *
+	 * <p> Description: Runs the selected benchmarks with each cache size and writes the results.</p>
+	 *
+	 * @param args the options described in BenchmarkRunner
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner(StatementCacheBenchmark.class.getName(), args);
+		for (String size : runner.getParameter("statementCache", "0",
+				String.valueOf(ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE))) {
+			StatementCacheBenchmark benchmark = new StatementCacheBenchmark(Integer.parseInt(size));
+			try {
+				benchmark.fill();
+				benchmark.run(runner, Map.of("statementCache", size));
+			} finally {
+				benchmark.close();
+			}
+		}
+		runner.finish();
+	}
+
+	/*******
+	 * <p> Method: StatementCacheBenchmark(int statementCacheSize) </p>
+	 *
+	 * <p> Description: Creates an empty database in a new temporary directory.</p>
+	 *
+	 * @param statementCacheSize the number of statements cached per connection; 0 for none
+	 * @throws IOException if the directory cannot be created
+	 * @throws SQLException if the database cannot be opened
+	 */
+	public StatementCacheBenchmark(int statementCacheSize) throws IOException, SQLException {
+		this.directory = Files.createTempDirectory("statement-cache-benchmark");
+		this.database = new Database("jdbc:h2:" + directory.resolve("benchmark").toAbsolutePath(),
+				1, 1, 5000, statementCacheSize);
+		database.connectToDatabase();
+	}
+
+	/*******
+	 * <p> Method: void fill() </p>
+	 *
+	 * <p> Description: Writes the accounts, threads, posts and replies.</p>
+	 *
+	 * @throws SQLException if a row cannot be written
+	 */
+	public void fill() throws SQLException {
+		List<User> accounts = new ArrayList<>();
+		for (int i = 0; i < USERS; i++) {
+			accounts.add(new User(userName(i), password(i), "First" + i, "", "Last" + i, "",
+					userName(i) + "@example.edu", false, true, false));
+		}
+		database.registerUsers(accounts);
+		for (int i = 0; i < THREADS; i++) {
+			database.saveThread(new Thread("THREAD_" + i, threadTitle(i), "Discussion thread " + i, userName(0)));
+		}
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < POSTS; i++) {
+			posts.add(new Post(postId(i), "Title of post " + i, "Body of post " + i, userName(i % USERS),
+					threadTitle(i % THREADS)));
+		}
+		database.savePosts(posts);
+		List<Reply> replies = new ArrayList<>();
+		for (int i = 0; i < REPLIES; i++) {
+			replies.add(reply(i));
+		}
+		database.saveReplies(replies);
+	}
+
+	/*******
+	 * <p> Method: void run(BenchmarkRunner runner, Map&lt;String, String&gt; params) </p>
+	 *
+	 * <p> Description: Runs every benchmark the command line selects, then prints the hit
+	 * ratio of the statement cache.</p>
+	 *
+	 * @param runner the harness
+	 * @param params the parameter values to report the scores under
+	 * @throws Exception if a benchmark fails
+	 */
+	public void run(BenchmarkRunner runner, Map<String, String> params) throws Exception {
+		runner.run("doesUserExist", params, () -> database.doesUserExist(userName(random.nextInt(USERS))));
+		runner.run("authenticate", params, () -> {
+			int user = random.nextInt(USERS);
+			return database.authenticate(userName(user), password(user));
+		});
+		runner.run("loadPostsPage", params,
+				() -> database.loadPostsPage(threadTitle(random.nextInt(THREADS)), null, null, PAGE_SIZE));
+		runner.run("loadRepliesPage", params,
+				() -> database.loadRepliesPage(postId(random.nextInt(POSTS)), null, null, PAGE_SIZE));
+		runner.run("getReplyCountsForPosts", params, () -> {
+			int first = random.nextInt(POSTS - PAGE_SIZE);
+			List<String> page = new ArrayList<>();
+			for (int i = first; i < first + PAGE_SIZE; i++) page.add(postId(i));
+			return database.getReplyCountsForPosts(page);
+		});
+		runner.run("getPostCountForThread", params,
+				() -> database.getPostCountForThread(threadTitle(random.nextInt(THREADS))));
+		runner.run("saveReply", params, () -> {
+			Reply reply = reply(random.nextInt(REPLIES));
+			database.saveReply(reply);
+			return reply;
+		});
+		System.out.println("# " + database.getConnectionPool() + "\n");
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Closes the database and deletes its directory.</p>
+	 *
+	 * @throws IOException if the files cannot be deleted
+	 */
+	public void close() throws IOException {
+		database.closeConnection();
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private Reply reply(int i) {
+		return new Reply("REPLY_" + i, "Reply body " + i, userName(i % USERS), postId(i % POSTS));
+	}
+
+	private static String postId(int i) {
+		return "POST_" + i;
+	}
+
+	private static String userName(int i) {
+		return "user" + i;
+	}
+
+	private static String password(int i) {
+		return "Password" + i + "!";
+	}
+
+	private static String threadTitle(int i) {
+		return "Thread " + i;
+	}
+}
@@ -0,0 +1,600 @@
+package loadTesting;
+
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import database.Database;
+import entityClasses.Parameter;
+import entityClasses.ParameterCategory;
+import entityClasses.ParameterCollection;
+import entityClasses.Post;
+import entityClasses.PostCollection;
+import entityClasses.Reply;
+import entityClasses.ReplyCollection;
+import entityClasses.Request;
+import entityClasses.RequestCollection;
+import entityClasses.Thread;
+import entityClasses.ThreadCollection;
+import entityClasses.User;
+
+/*******
+ * <p> Title: ForumDataGenerator Class. </p>
+ *
+ * <p> Description: Fills a forum with synthetic data for load and scale testing: accounts,
+ * threads, posts, replies with feedback and read flags, grading parameters with categories,
+ * and staff requests.  The same seed and settings always give the same forum, row for row, so
+ * a slow run can be repeated exactly.</p>
+ *
+ * <p> The data follows the shape of a real course forum rather than being uniform:</p>
+ * <ul>
+ * <li> Thread popularity is Zipfian: the k-th thread gets posts in proportion to 1 / k^s,
+ * with s set by setThreadSkew; the first thread is "General".</li>
+ * <li> Student activity is Zipfian in the same way (setAuthorSkew), so a few students write
+ * much of the forum.</li>
+ * <li> Replies go to posts by a Zipfian popularity (setPostSkew), so most posts get a few
+ * replies and some get very many; which posts are popular is itself random.</li>
+ * <li> Post and reply lengths have a long Pareto tail (setLengthTail) above a short minimum,
+ * cut off at Post.MAX_BODY_LENGTH and Reply.MAX_BODY_LENGTH.</li>
+ * <li> Posts are spread over the term in order of their IDs, and each reply comes some hours
+ * after its post.  A share of the replies is staff feedback (setFeedbackShare) and a share is
+ * read (setReadShare).</li>
+ * </ul>
+ *
+ * <p> The rows are produced in chunks and handed to a Sink, which can write them to a Database
+ * with its batched inserts (into(Database)) or add them to the in-memory collections.  Only a
+ * chunk and one number per post are held at a time, so a million replies take a few minutes
+ * to write and little memory.  The IDs follow the POST_1, REPLY_1 form the collections
+ * generate, and are meant for an empty database.</p>
+ *
+ * <p> Run main to fill a database file from the command line:
+ * java loadTesting.ForumDataGenerator databaseFile [-seed n] [-students n] [-staff n]
+ * [-threads n] [-posts n] [-replies n] [-parameters n] [-requests n]</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class ForumDataGenerator {
+
+	/*******
+	 * <p> Title: Sink Interface. </p>
+	 *
+	 * <p> Description: Receives the generated rows, a chunk at a time, in the order accounts,
+	 * threads, grading parameters, requests, posts, replies.  Every post of a reply has been
+	 * handed over before the reply.</p>
+	 */
+	public interface Sink {
+		/*******
+		 * <p> Method: void users(List&lt;User&gt; users) </p>
+		 * @param users the next chunk of accounts
+		 * @throws SQLException if they cannot be stored
+		 */
+		void users(List<User> users) throws SQLException;
+
+		/*******
+		 * <p> Method: void threads(List&lt;Thread&gt; threads) </p>
+		 * @param threads the next chunk of threads
+		 * @throws SQLException if they cannot be stored
+		 */
+		void threads(List<Thread> threads) throws SQLException;
+
+		/*******
+		 * <p> Method: void parameters(List&lt;Parameter&gt; parameters) </p>
+		 * @param parameters the next chunk of grading parameters
+		 * @throws SQLException if they cannot be stored
+		 */
+		void parameters(List<Parameter> parameters) throws SQLException;
+
+		/*******
+		 * <p> Method: void requests(List&lt;Request&gt; requests) </p>
+		 * @param requests the next chunk of staff requests
+		 * @throws SQLException if they cannot be stored
+		 */
+		void requests(List<Request> requests) throws SQLException;
+
+		/*******
+		 * <p> Method: void posts(List&lt;Post&gt; posts) </p>
+		 * @param posts the next chunk of posts
+		 * @throws SQLException if they cannot be stored
+		 */
+		void posts(List<Post> posts) throws SQLException;
+
+		/*******
+		 * <p> Method: void replies(List&lt;Reply&gt; replies) </p>
+		 * @param replies the next chunk of replies
+		 * @throws SQLException if they cannot be stored
+		 */
+		void replies(List<Reply> replies) throws SQLException;
+	}
+
+	// Rows handed to the sink at a time; each chunk is one transaction in a database
+	private static final int CHUNK_SIZE = 10_000;
+	// The shortest post and reply bodies; the Pareto tail starts here
+	private static final int MIN_POST_LENGTH = 40;
+	private static final int MIN_REPLY_LENGTH = 15;
+	// The mean time from a post to a reply to it
+	private static final double MEAN_REPLY_DELAY_MINUTES = 12 * 60;
+
+	private static final String[] WORDS = { "array", "loop", "recursion", "pointer", "exception",
+			"interface", "class", "object", "method", "thread", "database", "query", "index", "table",
+			"deadline", "grading", "lecture", "homework", "project", "compile", "debug", "test",
+			"merge", "branch", "commit", "stack", "queue", "heap", "tree", "graph", "hash", "sort",
+			"search", "string", "list", "map", "set", "null", "error", "output", "input", "file",
+			"user", "login", "password", "button", "window", "scene", "controller", "model", "view",
+			"why", "how", "does", "the", "my", "is", "not", "working", "when", "I", "try", "to", "a",
+			"with", "in", "for", "on", "after", "before", "help", "question", "example", "code" };
+	private static final String[] THREAD_TOPICS = { "General", "Homework", "Projects", "Exams",
+			"Lectures", "Labs", "Java", "Databases", "JavaFX", "Testing", "Git", "Tools", "Career",
+			"Study Groups", "Announcements", "Off Topic" };
+	private static final String[] CATEGORY_NAMES = { "Participation", "Quality", "Timeliness",
+			"Helpfulness", "Clarity", "Citations", "Effort" };
+
+	private final long seed;
+	// Sizes
+	private int students = 500;
+	private int staff = 10;
+	private int threads = 16;
+	private int posts = 5_000;
+	private int replies = 50_000;
+	private int parameters = 20;
+	private int requests = 100;
+	// Zipf exponents; 0 is uniform
+	private double threadSkew = 1.0;
+	private double authorSkew = 0.8;
+	private double postSkew = 1.0;
+	// The Pareto index of body lengths; smaller is a longer tail
+	private double lengthTail = 1.2;
+	// Shares of the replies and requests
+	private double feedbackShare = 0.1;
+	private double readShare = 0.7;
+	private double closedRequestShare = 0.4;
+	// When the first post is written, and how many weeks the posts are spread over
+	private LocalDateTime termStart = LocalDateTime.of(2026, 8, 17, 8, 0);
+	private int termWeeks = 16;
+
+	/*******
+	 * <p> Method: ForumDataGenerator(long seed) </p>
+	 *
+	 * <p> Description: Creates a generator with the default settings, which describe one class
+	 * of 500 students over a 16-week term.</p>
+	 *
+	 * @param seed the seed every random choice follows
+	 */
+	public ForumDataGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/*******
+	 * <p> Method: void main(String[] args) </p>
+	 *
+	 * <p> Description: Fills the H2 database file named by the first argument, which should
+	 * not exist yet, and prints how long it took.</p>
+	 *
+	 * @param args the database file followed by -name value settings
+	 * @throws Exception if the database cannot be written
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0 || args.length % 2 == 0) {
+			System.err.println("Usage: java loadTesting.ForumDataGenerator databaseFile [-seed n] [-students n] "
+					+ "[-staff n] [-threads n] [-posts n] [-replies n] [-parameters n] [-requests n]");
+			System.exit(1);
+		}
+		long seed = 1;
+		for (int i = 1; i < args.length; i += 2) {
+			if (args[i].equals("-seed")) seed = Long.parseLong(args[i + 1]);
+		}
+		ForumDataGenerator generator = new ForumDataGenerator(seed);
+		for (int i = 1; i < args.length; i += 2) {
+			int value = Integer.parseInt(args[i + 1]);
+			switch (args[i]) {
+			case "-seed": break;
+			case "-students": generator.setStudents(value); break;
+			case "-staff": generator.setStaff(value); break;
+			case "-threads": generator.setThreads(value); break;
+			case "-posts": generator.setPosts(value); break;
+			case "-replies": generator.setReplies(value); break;
+			case "-parameters": generator.setParameters(value); break;
+			case "-requests": generator.setRequests(value); break;
+			default: throw new IllegalArgumentException("Unknown setting " + args[i]);
+			}
+		}
+		Database database = new Database("jdbc:h2:" + Paths.get(args[0]).toAbsolutePath(),
+				1, 4, 30_000);
+		database.connectToDatabase();
+		try {
+			long start = System.nanoTime();
+			generator.generate(into(database));
+			System.out.printf(Locale.ROOT, "Generated %s in %.1f s%n", generator, (System.nanoTime() - start) / 1e9);
+		} finally {
+			database.closeConnection();
+		}
+	}
+
+	/*******
+	 * <p> Method: Sink into(Database database) </p>
+	 *
+	 * <p> Description: A sink that writes each chunk in one transaction, with the batched
+	 * registerUsers, savePosts and saveReplies for the large tables.</p>
+	 *
+	 * @param database an empty database to fill
+	 * @return the sink
+	 */
+	public static Sink into(Database database) {
+		return new Sink() {
+			@Override
+			public void users(List<User> users) throws SQLException {
+				database.registerUsers(users);
+			}
+
+			@Override
+			public void threads(List<Thread> threads) throws SQLException {
+				database.inTransaction(() -> {
+					for (Thread thread : threads) database.saveThread(thread);
+				});
+			}
+
+			@Override
+			public void parameters(List<Parameter> parameters) throws SQLException {
+				database.inTransaction(() -> {
+					for (Parameter parameter : parameters) database.saveParameter(parameter);
+				});
+			}
+
+			@Override
+			public void requests(List<Request> requests) throws SQLException {
+				database.inTransaction(() -> {
+					for (Request request : requests) database.saveRequest(request);
+				});
+			}
+
+			@Override
+			public void posts(List<Post> posts) throws SQLException {
+				database.savePosts(posts);
+			}
+
+			@Override
+			public void replies(List<Reply> replies) throws SQLException {
+				database.saveReplies(replies);
+			}
+		};
+	}
+
+	/*******
+	 * <p> Method: Sink into(PostCollection posts, ReplyCollection replies, ThreadCollection threads,
+	 * RequestCollection requests, ParameterCollection parameters) </p>
+	 *
+	 * <p> Description: A sink that adds the rows to in-memory collections, as a page does after
+	 * loading them.  Accounts are not kept.</p>
+	 *
+	 * @param posts receives the posts
+	 * @param replies receives the replies
+	 * @param threads receives the threads
+	 * @param requests receives the staff requests
+	 * @param parameters receives the grading parameters
+	 * @return the sink
+	 */
+	public static Sink into(PostCollection posts, ReplyCollection replies, ThreadCollection threads,
+			RequestCollection requests, ParameterCollection parameters) {
+		return new Sink() {
+			@Override
+			public void users(List<User> users) { }
+
+			@Override
+			public void threads(List<Thread> chunk) { chunk.forEach(threads::addThread); }
+
+			@Override
+			public void parameters(List<Parameter> chunk) { chunk.forEach(parameters::addParameter); }
+
+			@Override
+			public void requests(List<Request> chunk) { chunk.forEach(requests::addRequest); }
+
+			@Override
+			public void posts(List<Post> chunk) { chunk.forEach(posts::addPost); }
+
+			@Override
+			public void replies(List<Reply> chunk) { chunk.forEach(replies::addReply); }
+		};
+	}
+
+	/*******
+	 * <p> Method: void generate(Sink sink) </p>
+	 *
+	 * <p> Description: Generates the whole forum and hands it to the sink.</p>
+	 *
+	 * @param sink receives the rows
+	 * @throws SQLException if the sink cannot store a chunk
+	 */
+	public void generate(Sink sink) throws SQLException {
+		// Each kind of row has a stream of its own, so changing one count leaves the others alone
+		generateUsers(sink);
+		generateThreads(sink, new SplittableRandom(seed ^ 0x7468726561647300L));
+		generateParameters(sink, new SplittableRandom(seed ^ 0x706172616d730000L));
+		generateRequests(sink, new SplittableRandom(seed ^ 0x7265717565737400L));
+		long[] postMinutes = generatePosts(sink, new SplittableRandom(seed ^ 0x706f737473000000L));
+		generateReplies(sink, postMinutes, new SplittableRandom(seed ^ 0x7265706c69657300L));
+	}
+
+	/*******
+	 * <p> Method: String studentName(int i) </p>
+	 *
+	 * @param i from 0 to getStudents() - 1
+	 * @return the userName of a generated student
+	 */
+	public static String studentName(int i) {
+		return String.format("student%05d", i);
+	}
+
+	/*******
+	 * <p> Method: String staffName(int i) </p>
+	 *
+	 * @param i from 0 to getStaff() - 1
+	 * @return the userName of a generated staff member
+	 */
+	public static String staffName(int i) {
+		return String.format("staff%03d", i);
+	}
+
+	/*******
+	 * <p> Method: String passwordFor(String userName) </p>
+	 *
+	 * @param userName a generated account
+	 * @return its password, which meets the rules of the new-account page
+	 */
+	public static String passwordFor(String userName) {
+		return "Pw!" + userName + "9A";
+	}
+
+	/*******
+	 * <p> Method: String threadTitle(int i) </p>
+	 *
+	 * @param i from 0 to getThreads() - 1, most popular first
+	 * @return the title of a generated thread
+	 */
+	public static String threadTitle(int i) {
+		String topic = THREAD_TOPICS[i % THREAD_TOPICS.length];
+		return i < THREAD_TOPICS.length ? topic : topic + " " + (i / THREAD_TOPICS.length + 1);
+	}
+
+	// Settings, used by the next generate; the field declarations hold the defaults
+	public void setStudents(int students) { this.students = atLeast(1, students, "students"); }
+	public void setStaff(int staff) { this.staff = atLeast(1, staff, "staff"); }
+	public void setThreads(int threads) { this.threads = atLeast(1, threads, "threads"); }
+	public void setPosts(int posts) { this.posts = atLeast(1, posts, "posts"); }
+	public void setReplies(int replies) { this.replies = atLeast(0, replies, "replies"); }
+	public void setParameters(int parameters) { this.parameters = atLeast(0, parameters, "parameters"); }
+	public void setRequests(int requests) { this.requests = atLeast(0, requests, "requests"); }
+	public void setThreadSkew(double threadSkew) { this.threadSkew = threadSkew; }
+	public void setAuthorSkew(double authorSkew) { this.authorSkew = authorSkew; }
+	public void setPostSkew(double postSkew) { this.postSkew = postSkew; }
+	public void setLengthTail(double lengthTail) { this.lengthTail = lengthTail; }
+	public void setFeedbackShare(double feedbackShare) { this.feedbackShare = feedbackShare; }
+	public void setReadShare(double readShare) { this.readShare = readShare; }
+	public void setClosedRequestShare(double closedRequestShare) { this.closedRequestShare = closedRequestShare; }
+	public void setTermStart(LocalDateTime termStart) { this.termStart = termStart; }
+	public void setTermWeeks(int termWeeks) { this.termWeeks = atLeast(1, termWeeks, "termWeeks"); }
+
+	// Getters
+	public int getStudents() { return students; }
+	public int getStaff() { return staff; }
+	public int getThreads() { return threads; }
+	public int getPosts() { return posts; }
+	public int getReplies() { return replies; }
+	public int getParameters() { return parameters; }
+	public int getRequests() { return requests; }
+
+	/*******
+	 * <p> Method: String toString() </p>
+	 *
+	 * @return the size of the forum, suitable for logging
+	 */
+	@Override
+	public String toString() {
+		return String.format("forum[seed=%d, students=%d, staff=%d, threads=%d, posts=%d, replies=%d, "
+				+ "parameters=%d, requests=%d]", seed, students, staff, threads, posts, replies, parameters, requests);
+	}
+
+	private void generateUsers(Sink sink) throws SQLException {
+		List<User> chunk = new ArrayList<>();
+		// One admin, then the staff, then the students
+		chunk.add(new User("admin", passwordFor("admin"), "Course", "", "Admin", "", "admin@example.edu",
+				true, false, false));
+		for (int i = 0; i < staff + students; i++) {
+			boolean isStaff = i < staff;
+			String userName = isStaff ? staffName(i) : studentName(i - staff);
+			chunk.add(new User(userName, passwordFor(userName), (isStaff ? "Staff" : "Student") + i, "",
+					"Tester", "", userName + "@example.edu", false, !isStaff, isStaff));
+			if (chunk.size() == CHUNK_SIZE) {
+				sink.users(chunk);
+				chunk = new ArrayList<>();
+			}
+		}
+		if (!chunk.isEmpty()) sink.users(chunk);
+	}
+
+	private void generateThreads(Sink sink, SplittableRandom random) throws SQLException {
+		List<Thread> chunk = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread("THREAD_" + (i + 1), threadTitle(i),
+					"Questions and discussion about " + threadTitle(i) + ".", staffName(random.nextInt(staff)));
+			// A few of the quieter threads are closed
+			if (i >= 4 && random.nextInt(10) == 0) thread.setStatus(Thread.ThreadStatus.CLOSED);
+			chunk.add(thread);
+		}
+		sink.threads(chunk);
+	}
+
+	private void generateParameters(Sink sink, SplittableRandom random) throws SQLException {
+		List<Parameter> chunk = new ArrayList<>();
+		for (int i = 0; i < parameters; i++) {
+			int categoryCount = 2 + random.nextInt(4);
+			List<ParameterCategory> categories = new ArrayList<>();
+			for (int c = 0; c < categoryCount; c++) {
+				// Equal weights that add up to 1.0
+				categories.add(new ParameterCategory(CATEGORY_NAMES[(i + c) % CATEGORY_NAMES.length],
+						1.0 / categoryCount));
+			}
+			List<String> topics = new ArrayList<>();
+			for (int t = random.nextInt(4); t > 0; t--) topics.add(WORDS[random.nextInt(WORDS.length)]);
+			chunk.add(new Parameter("PARAM_" + (i + 1), "Week " + (i % termWeeks + 1) + " participation " + (i + 1),
+					text(random, 60 + random.nextInt(200)), random.nextInt(5) != 0, staffName(random.nextInt(staff)),
+					1 + random.nextInt(3), 1 + random.nextInt(5), topics, "THREAD_" + (random.nextInt(threads) + 1),
+					categories));
+			if (chunk.size() == CHUNK_SIZE) {
+				sink.parameters(chunk);
+				chunk = new ArrayList<>();
+			}
+		}
+		if (!chunk.isEmpty()) sink.parameters(chunk);
+	}
+
+	private void generateRequests(Sink sink, SplittableRandom random) throws SQLException {
+		Request.RequestCategory[] categories = Request.RequestCategory.values();
+		long termMinutes = termWeeks * 7L * 24 * 60;
+		List<Request> chunk = new ArrayList<>();
+		for (int i = 0; i < requests; i++) {
+			String creator = staffName(random.nextInt(staff));
+			Request request = new Request("REQUEST_" + (i + 1), capitalize(text(random, 20 + random.nextInt(60))),
+					text(random, 80 + random.nextInt(400)), categories[random.nextInt(categories.length)], creator);
+			LocalDateTime created = termStart.plusMinutes(termMinutes * i / Math.max(1, requests));
+			request.setCreatedAt(created);
+			if (random.nextDouble() < closedRequestShare) {
+				request.setStatus(Request.RequestStatus.CLOSED);
+				request.setClosedByUsername("admin");
+				request.setClosedAt(created.plusHours(1 + random.nextInt(72)));
+				request.setResolutionNotes(capitalize(text(random, 30 + random.nextInt(120))));
+			}
+			chunk.add(request);
+			if (chunk.size() == CHUNK_SIZE) {
+				sink.requests(chunk);
+				chunk = new ArrayList<>();
+			}
+		}
+		if (!chunk.isEmpty()) sink.requests(chunk);
+	}
+
+	/*
+	 * Returns the minute of the term each post was written in, for timing its replies.
+	 */
+	private long[] generatePosts(Sink sink, SplittableRandom random) throws SQLException {
+		Zipf threadPopularity = new Zipf(threads, threadSkew, null);
+		Zipf authors = new Zipf(students, authorSkew, random);
+		long termMinutes = termWeeks * 7L * 24 * 60;
+		long[] postMinutes = new long[posts];
+		List<Post> chunk = new ArrayList<>();
+		for (int i = 0; i < posts; i++) {
+			postMinutes[i] = termMinutes * i / posts + random.nextInt(30);
+			Post post = new Post("POST_" + (i + 1), title(random),
+					text(random, paretoLength(random, MIN_POST_LENGTH, Post.MAX_BODY_LENGTH)),
+					studentName(authors.sample(random)), threadTitle(threadPopularity.sample(random)));
+			post.setCreatedAt(termStart.plusMinutes(postMinutes[i]));
+			if (random.nextInt(50) == 0) post.setDeleted(true);
+			chunk.add(post);
+			if (chunk.size() == CHUNK_SIZE) {
+				sink.posts(chunk);
+				chunk = new ArrayList<>();
+			}
+		}
+		if (!chunk.isEmpty()) sink.posts(chunk);
+		return postMinutes;
+	}
+
+	private void generateReplies(Sink sink, long[] postMinutes, SplittableRandom random) throws SQLException {
+		Zipf parents = new Zipf(posts, postSkew, random);
+		Zipf authors = new Zipf(students, authorSkew, random);
+		List<Reply> chunk = new ArrayList<>();
+		for (int i = 0; i < replies; i++) {
+			int post = parents.sample(random);
+			boolean feedback = random.nextDouble() < feedbackShare;
+			String author = feedback ? staffName(random.nextInt(staff)) : studentName(authors.sample(random));
+			Reply reply = new Reply("REPLY_" + (i + 1),
+					text(random, paretoLength(random, MIN_REPLY_LENGTH, Reply.MAX_BODY_LENGTH)), author,
+					"POST_" + (post + 1), feedback);
+			// Replies come hours after their post, exponentially distributed
+			long delay = 1 + (long) (-MEAN_REPLY_DELAY_MINUTES * Math.log(1 - random.nextDouble()));
+			reply.setCreatedAt(termStart.plusMinutes(postMinutes[post] + delay));
+			reply.setRead(random.nextDouble() < readShare);
+			if (random.nextInt(100) == 0) reply.setDeleted(true);
+			chunk.add(reply);
+			if (chunk.size() == CHUNK_SIZE) {
+				sink.replies(chunk);
+				chunk = new ArrayList<>();
+			}
+		}
+		if (!chunk.isEmpty()) sink.replies(chunk);
+	}
+
+	private String title(SplittableRandom random) {
+		String title = capitalize(text(random, 15 + random.nextInt(60)));
+		return title.length() > Post.MAX_TITLE_LENGTH ? title.substring(0, Post.MAX_TITLE_LENGTH) : title;
+	}
+
+	// A length of at least min with a Pareto tail, no longer than max
+	private int paretoLength(SplittableRandom random, int min, int max) {
+		double length = min / Math.pow(1 - random.nextDouble(), 1 / lengthTail);
+		return (int) Math.min(length, max);
+	}
+
+	// Words from the vocabulary, exactly length characters long
+	private static String text(SplittableRandom random, int length) {
+		StringBuilder text = new StringBuilder(length + 16);
+		while (text.length() < length) {
+			if (text.length() > 0) text.append(random.nextInt(12) == 0 ? ". " : " ");
+			text.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		text.setLength(length);
+		return text.toString().trim();
+	}
+
+	private static String capitalize(String text) {
+		return text.isEmpty() ? text : Character.toUpperCase(text.charAt(0)) + text.substring(1);
+	}
+
+	private static int atLeast(int minimum, int value, String name) {
+		if (value < minimum) throw new IllegalArgumentException(name + " must be at least " + minimum + ": " + value);
+		return value;
+	}
+
+	/*
+	 * Draws ranks 0 to n - 1 with probability in proportion to 1 / (rank + 1)^skew, by binary
+	 * search of the cumulative weights.  With a random generator the ranks are shuffled onto the
+	 * items, so the most popular item is not always the first.
+	 */
+	private static class Zipf {
+		final double[] cumulative;
+		final int[] items;
+
+		Zipf(int n, double skew, SplittableRandom shuffle) {
+			cumulative = new double[n];
+			double total = 0;
+			for (int rank = 0; rank < n; rank++) {
+				total += 1 / Math.pow(rank + 1, skew);
+				cumulative[rank] = total;
+			}
+			items = new int[n];
+			for (int i = 0; i < n; i++) items[i] = i;
+			if (shuffle != null) {
+				for (int i = n - 1; i > 0; i--) {
+					int j = shuffle.nextInt(i + 1);
+					int swap = items[i];
+					items[i] = items[j];
+					items[j] = swap;
+				}
+			}
+		}
+
+		int sample(SplittableRandom random) {
+			double target = random.nextDouble() * cumulative[cumulative.length - 1];
+			int rank = Arrays.binarySearch(cumulative, target);
+			if (rank < 0) rank = -rank - 1;
+			return items[Math.min(rank, items.length - 1)];
+		}
+	}
+}
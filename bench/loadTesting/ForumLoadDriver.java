@@ -0,0 +1,591 @@
+package loadTesting;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import applicationMain.FoundationsMain;
+import database.Database;
+import database.WriteBehindQueue;
+import entityClasses.Post;
+import entityClasses.PostCollection;
+import entityClasses.Reply;
+import entityClasses.ReplyCollection;
+import guiStaff.ModelStaffHome;
+import guiStudent.ModelStudentHome;
+
+/*******
+ * <p> Title: ForumLoadDriver Class. </p>
+ *
+ * <p> Description: Simulates a class of students and staff using the forum at the same time,
+ * without JavaFX, and reports how the model layer and the database hold up.  Each session is a
+ * thread that logs in and then repeats what a user does in the home pages, with a random pause
+ * between steps:</p>
+ * <ul>
+ * <li> A student browses the first page of posts or searches, opens one of the posts found,
+ * marks its replies read, sometimes replies, and sometimes writes a post of their own.</li>
+ * <li> A staff member browses, opens a post, marks its replies read, and sometimes leaves
+ * private feedback on it.</li>
+ * </ul>
+ *
+ * <p> Every step makes the calls the matching controller makes, on ModelStudentHome,
+ * ModelStaffHome, their PostCollection and ReplyCollection, and the Database behind
+ * FoundationsMain.database.  The collections are not thread-safe; the application only touches
+ * them from the JavaFX application thread.  Here one fair lock stands in for that thread, so
+ * every step that reads or changes a collection waits its turn; the wait is part of its latency
+ * and is also reported on its own, as the mean "Wait ms".  Paging, counts and the write-behind queue run outside the lock, as
+ * they would with one client per user.</p>
+ *
+ * <p> The report gives, for each operation, its count, errors, throughput and latency
+ * percentiles, counted from the end of the warm-up except for the logins, followed by the write-behind queue's totals once it has been flushed.  An
+ * error is a step that throws, a login that fails, a create the collection rejects, or a new
+ * post or reply given an ID another session was already given.  The models log and swallow
+ * SQLExceptions, so those show on the error stream and as failed queued writes.</p>
+ *
+ * <p> Run it with the benchmark source folder and the project on the class path:
+ * java loadTesting.ForumLoadDriver [-db file] [-seed n] [-students n] [-staff n] [-threads n]
+ * [-posts n] [-replies n] [-duration s] [-warmup s] [-think ms] [-searchShare p]
+ * [-replyShare p] [-postShare p] [-feedbackShare p].  Without -db, or when the file does not
+ * exist yet, the database is first filled by ForumDataGenerator with the given seed and sizes,
+ * with the term ending now so new posts come first.  The sessions log in as the generated
+ * accounts, so a database from elsewhere needs the same account names.  The defaults are a
+ * class of 500 writing before a deadline: a pause of a second on average, and one visit in
+ * three ends with a new post.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class ForumLoadDriver {
+
+	/*******
+	 * <p> Title: Operation Enumeration. </p>
+	 *
+	 * <p> Description: The steps a session takes, in the order they are reported.</p>
+	 */
+	public enum Operation { LOGIN, BROWSE, SEARCH, OPEN_POST, MARK_READ, REPLY, CREATE_POST, FEEDBACK }
+
+	// What a step does; it returns null when it succeeds and the error otherwise
+	private interface Step {
+		String run();
+	}
+
+	// How often the progress line is printed
+	private static final long PROGRESS_MILLIS = 10_000;
+	// Error messages listed in the report for each operation
+	private static final int ERROR_SAMPLES = 5;
+	private static final String[] KEYWORDS = { "array", "loop", "recursion", "exception", "thread",
+			"database", "query", "deadline", "grading", "homework", "project", "compile", "debug",
+			"test", "merge", "null", "error", "login", "window", "help" };
+
+	private final Database database;
+	private final long seed;
+	// Sessions
+	private int students = 500;
+	private int staff = 10;
+	// The threads new posts go to, as ForumDataGenerator names them
+	private int threads = 16;
+	// How long the sessions run, and how much of the start is left out of the report
+	private long durationSeconds = 60;
+	private long warmupSeconds = 10;
+	// The mean pause between steps; pauses are exponential
+	private long thinkMillis = 1000;
+	// Shares of the visits that search rather than browse, reply, write a post, and leave feedback
+	private double searchShare = 0.3;
+	private double replyShare = 0.4;
+	private double postShare = 0.3;
+	private double feedbackShare = 0.5;
+
+	// Stands in for the JavaFX application thread, the only one that touches the collections
+	private final ReentrantLock applicationThread = new ReentrantLock(true);
+	// The IDs handed out to new posts and replies, to catch two sessions given the same one
+	private final Set<String> createdIds = ConcurrentHashMap.newKeySet();
+	private final Map<String, LongAdder> errorMessages = new ConcurrentHashMap<>();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private long measureStartNanos;
+	private long endNanos;
+
+	/*******
+	 * <p> Method: ForumLoadDriver(Database database, long seed) </p>
+	 *
+	 * <p> Description: Creates a driver for a connected database.  The models are pointed at
+	 * it by the first run.</p>
+	 *
+	 * @param database the database the sessions use
+	 * @param seed the seed the sessions' choices follow
+	 */
+	public ForumLoadDriver(Database database, long seed) {
+		this.database = database;
+		this.seed = seed;
+	}
+
+	/*******
+	 * <p> Method: void main(String[] args) </p>
+	 *
+	 * <p> Description: Fills a database if needed, runs the sessions and prints the report.</p>
+	 *
+	 * @param args -name value settings
+	 * @throws Exception if the database cannot be opened or filled
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length % 2 != 0) {
+			System.err.println("Usage: java loadTesting.ForumLoadDriver [-db file] [-seed n] [-students n] "
+					+ "[-staff n] [-threads n] [-posts n] [-replies n] [-duration s] [-warmup s] [-think ms] "
+					+ "[-searchShare p] [-replyShare p] [-postShare p] [-feedbackShare p]");
+			System.exit(1);
+		}
+		Path file = null;
+		long seed = 1;
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals("-db")) file = Paths.get(args[i + 1]).toAbsolutePath();
+			if (args[i].equals("-seed")) seed = Long.parseLong(args[i + 1]);
+		}
+		Path directory = file == null ? Files.createTempDirectory("forum-load") : null;
+		if (file == null) file = directory.resolve("forum");
+		boolean empty = !Files.exists(Paths.get(file + ".mv.db"));
+
+		Database database = new Database("jdbc:h2:" + file, Database.DEFAULT_MIN_POOL_SIZE,
+				Database.DEFAULT_MAX_POOL_SIZE, Database.DEFAULT_CHECKOUT_TIMEOUT_MILLIS);
+		database.connectToDatabase();
+		try {
+			ForumDataGenerator generator = new ForumDataGenerator(seed);
+			ForumLoadDriver driver = new ForumLoadDriver(database, seed);
+			for (int i = 0; i < args.length; i += 2) {
+				String value = args[i + 1];
+				switch (args[i]) {
+				case "-db": case "-seed": break;
+				case "-students":
+					generator.setStudents(Integer.parseInt(value));
+					driver.setStudents(Integer.parseInt(value));
+					break;
+				case "-staff":
+					generator.setStaff(Integer.parseInt(value));
+					driver.setStaff(Integer.parseInt(value));
+					break;
+				case "-threads":
+					generator.setThreads(Integer.parseInt(value));
+					driver.setThreads(Integer.parseInt(value));
+					break;
+				case "-posts": generator.setPosts(Integer.parseInt(value)); break;
+				case "-replies": generator.setReplies(Integer.parseInt(value)); break;
+				case "-duration": driver.setDurationSeconds(Long.parseLong(value)); break;
+				case "-warmup": driver.setWarmupSeconds(Long.parseLong(value)); break;
+				case "-think": driver.setThinkMillis(Long.parseLong(value)); break;
+				case "-searchShare": driver.setSearchShare(Double.parseDouble(value)); break;
+				case "-replyShare": driver.setReplyShare(Double.parseDouble(value)); break;
+				case "-postShare": driver.setPostShare(Double.parseDouble(value)); break;
+				case "-feedbackShare": driver.setFeedbackShare(Double.parseDouble(value)); break;
+				default: throw new IllegalArgumentException("Unknown setting " + args[i]);
+				}
+			}
+			if (empty) {
+				// End the term now, so the posts written during the run are the newest
+				int termWeeks = 16;
+				generator.setTermWeeks(termWeeks);
+				generator.setTermStart(LocalDateTime.now().minusWeeks(termWeeks));
+				long start = System.nanoTime();
+				generator.generate(ForumDataGenerator.into(database));
+				System.out.printf(Locale.ROOT, "Generated %s in %.1f s%n", generator, (System.nanoTime() - start) / 1e9);
+			}
+			driver.run();
+		} finally {
+			database.closeConnection();
+			if (directory != null) delete(directory);
+		}
+	}
+
+	/*******
+	 * <p> Method: void run() </p>
+	 *
+	 * <p> Description: Loads the models, runs every session for the warm-up and the duration,
+	 * waits for them to stop and for the queued writes to reach the database, and prints the
+	 * report.</p>
+	 *
+	 * @throws InterruptedException if the driver is interrupted while it waits
+	 */
+	public void run() throws InterruptedException {
+		// The models read FoundationsMain.database once, when they are first used
+		FoundationsMain.database = database;
+		ModelStudentHome.getPostCollection();
+		ModelStaffHome.getPostCollection();
+
+		SplittableRandom random = new SplittableRandom(seed);
+		List<Session> sessions = new ArrayList<>();
+		for (int i = 0; i < staff; i++) {
+			sessions.add(new Session(ForumDataGenerator.staffName(i), true, random.split()));
+		}
+		for (int i = 0; i < students; i++) {
+			sessions.add(new Session(ForumDataGenerator.studentName(i), false, random.split()));
+		}
+		System.out.printf(Locale.ROOT, "Running %d students and %d staff for %d s after a %d s warm-up%n",
+				students, staff, durationSeconds, warmupSeconds);
+
+		long startNanos = System.nanoTime();
+		measureStartNanos = startNanos + warmupSeconds * 1_000_000_000L;
+		endNanos = measureStartNanos + durationSeconds * 1_000_000_000L;
+		List<java.lang.Thread> workers = new ArrayList<>();
+		for (Session session : sessions) {
+			java.lang.Thread worker = new java.lang.Thread(session::run, session.userName);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+		long lastCompleted = 0;
+		while (System.nanoTime() < endNanos) {
+			java.lang.Thread.sleep(Math.max(1, Math.min(PROGRESS_MILLIS, (endNanos - System.nanoTime()) / 1_000_000)));
+			long done = completed.get();
+			System.out.printf(Locale.ROOT, "# %4d s: %d steps (%d in the last interval), %d errors, %d writes queued%n",
+					(System.nanoTime() - startNanos) / 1_000_000_000L, done, done - lastCompleted, failed.get(),
+					database.getWriteBehindQueue().getQueueDepth());
+			lastCompleted = done;
+		}
+		for (java.lang.Thread worker : workers) worker.join();
+		long flushStart = System.nanoTime();
+		database.flushQueuedWrites();
+		long flushNanos = System.nanoTime() - flushStart;
+
+		report(sessions);
+		WriteBehindQueue queue = database.getWriteBehindQueue();
+		System.out.printf(Locale.ROOT, "%nWrite-behind queue: %d queued, %d merged, %d written, %d failed; "
+				+ "%d flushes averaging %.1f ms, the longest %.1f ms; the final flush took %.1f ms%n",
+				queue.getQueuedCount(), queue.getMergedCount(), queue.getWrittenCount(), queue.getFailedCount(),
+				queue.getFlushCount(), queue.getAverageFlushMillis(), queue.getMaxFlushMillis(), flushNanos / 1e6);
+	}
+
+	// Settings, used by the next run; the field declarations hold the defaults
+	public void setStudents(int students) { this.students = students; }
+	public void setStaff(int staff) { this.staff = staff; }
+	public void setThreads(int threads) { this.threads = threads; }
+	public void setDurationSeconds(long durationSeconds) { this.durationSeconds = durationSeconds; }
+	public void setWarmupSeconds(long warmupSeconds) { this.warmupSeconds = warmupSeconds; }
+	public void setThinkMillis(long thinkMillis) { this.thinkMillis = thinkMillis; }
+	public void setSearchShare(double searchShare) { this.searchShare = searchShare; }
+	public void setReplyShare(double replyShare) { this.replyShare = replyShare; }
+	public void setPostShare(double postShare) { this.postShare = postShare; }
+	public void setFeedbackShare(double feedbackShare) { this.feedbackShare = feedbackShare; }
+
+	private void report(List<Session> sessions) {
+		double seconds = durationSeconds;
+		System.out.printf(Locale.ROOT, "%n%-12s %9s %7s %9s %9s %9s %9s %9s %9s %9s %9s%n", "Operation", "Count",
+				"Errors", "Ops/s", "Wait ms", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms");
+		long totalCount = 0;
+		long totalErrors = 0;
+		for (Operation operation : Operation.values()) {
+			int o = operation.ordinal();
+			int count = 0;
+			long errors = 0;
+			long waits = 0;
+			for (Session session : sessions) {
+				count += session.counts[o];
+				errors += session.errors[o];
+				waits += session.waits[o];
+			}
+			if (count == 0) continue;
+			long[] latencies = new long[count];
+			int next = 0;
+			for (Session session : sessions) {
+				System.arraycopy(session.latencies[o], 0, latencies, next, session.counts[o]);
+				next += session.counts[o];
+			}
+			Arrays.sort(latencies);
+			long sum = 0;
+			for (long latency : latencies) sum += latency;
+			System.out.printf(Locale.ROOT, "%-12s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+					operation.name().toLowerCase(Locale.ROOT), count, errors, count / seconds, waits / 1e6 / count,
+					sum / 1e6 / count,
+					percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+					percentile(latencies, 0.999), latencies[count - 1] / 1e6);
+			totalCount += count;
+			totalErrors += errors;
+		}
+		System.out.printf(Locale.ROOT, "%-12s %9d %7d %9.1f%n", "total", totalCount, totalErrors, totalCount / seconds);
+
+		if (!errorMessages.isEmpty()) {
+			System.out.printf("%nErrors:%n");
+			Map<String, Integer> listed = new TreeMap<>();
+			errorMessages.entrySet().stream()
+					.sorted(Comparator.comparing((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum()).reversed())
+					.forEach(entry -> {
+						String operation = entry.getKey().substring(0, entry.getKey().indexOf(':'));
+						if (listed.merge(operation, 1, Integer::sum) <= ERROR_SAMPLES) {
+							System.out.printf("%8d  %s%n", entry.getValue().sum(), entry.getKey());
+						}
+					});
+		}
+	}
+
+	// The latency below which the given share of the sorted latencies fall, in milliseconds
+	private static double percentile(long[] sorted, double share) {
+		int rank = (int) Math.ceil(share * sorted.length);
+		return sorted[Math.max(0, rank - 1)] / 1e6;
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	/*******
+	 * <p> Title: Session Class. </p>
+	 *
+	 * <p> Description: One simulated user.  The latencies are kept per session, so recording
+	 * one takes no lock, and merged for the report.</p>
+	 */
+	private class Session {
+		private final String userName;
+		private final boolean isStaff;
+		private final SplittableRandom random;
+		private final long[][] latencies = new long[Operation.values().length][16];
+		private final int[] counts = new int[Operation.values().length];
+		private final int[] errors = new int[Operation.values().length];
+		private final long[] waits = new long[Operation.values().length];
+		// Time the current step has spent waiting for the application thread
+		private long waitNanos;
+		// The posts found by the last browse or search, and the post now open
+		private List<Post> found = new ArrayList<>();
+		private String openPostId;
+
+		private Session(String userName, boolean isStaff, SplittableRandom random) {
+			this.userName = userName;
+			this.isStaff = isStaff;
+			this.random = random;
+		}
+
+		private void run() {
+			step(Operation.LOGIN, this::login);
+			while (pause()) {
+				if (isStaff) staffVisit();
+				else studentVisit();
+			}
+		}
+
+		private void studentVisit() {
+			if (random.nextDouble() < searchShare) step(Operation.SEARCH, this::search);
+			else step(Operation.BROWSE, this::browse);
+			if (!found.isEmpty() && pause()) {
+				openPostId = found.get(random.nextInt(found.size())).getPostId();
+				if (step(Operation.OPEN_POST, this::openPost) && pause()) {
+					step(Operation.MARK_READ, this::markRead);
+					if (random.nextDouble() < replyShare && pause()) step(Operation.REPLY, this::reply);
+				}
+			}
+			if (random.nextDouble() < postShare && pause()) step(Operation.CREATE_POST, this::createPost);
+		}
+
+		private void staffVisit() {
+			step(Operation.BROWSE, this::browse);
+			if (!found.isEmpty() && pause()) {
+				openPostId = found.get(random.nextInt(found.size())).getPostId();
+				if (step(Operation.OPEN_POST, this::openPost) && pause()) {
+					step(Operation.MARK_READ, this::markRead);
+					if (random.nextDouble() < feedbackShare && pause()) step(Operation.FEEDBACK, this::feedback);
+				}
+			}
+		}
+
+		// Times one step and records it if it started after the warm-up; true if it succeeded
+		private boolean step(Operation operation, Step step) {
+			long start = System.nanoTime();
+			waitNanos = 0;
+			String error;
+			try {
+				error = step.run();
+			} catch (RuntimeException e) {
+				error = e.toString();
+			}
+			long nanos = System.nanoTime() - start;
+			// The logins all fall in the warm-up, so they are always recorded
+			if (operation == Operation.LOGIN || start >= measureStartNanos && start < endNanos) {
+				int o = operation.ordinal();
+				waits[o] += waitNanos;
+				if (counts[o] == latencies[o].length) latencies[o] = Arrays.copyOf(latencies[o], counts[o] * 2);
+				latencies[o][counts[o]++] = nanos;
+				completed.incrementAndGet();
+				if (error != null) {
+					errors[o]++;
+					failed.incrementAndGet();
+					errorMessages.computeIfAbsent(operation.name().toLowerCase(Locale.ROOT) + ": " + error,
+							key -> new LongAdder()).increment();
+				}
+			}
+			return error == null;
+		}
+
+		// Takes the application thread for a step that uses the collections
+		private void enter() {
+			long start = System.nanoTime();
+			applicationThread.lock();
+			waitNanos += System.nanoTime() - start;
+		}
+
+		// Waits as a user would between steps; false once the run is over
+		private boolean pause() {
+			long remaining = endNanos - System.nanoTime();
+			if (remaining <= 0) return false;
+			long millis = Math.round(-thinkMillis * Math.log(1 - random.nextDouble()));
+			try {
+				java.lang.Thread.sleep(Math.min(millis, remaining / 1_000_000));
+			} catch (InterruptedException e) {
+				java.lang.Thread.currentThread().interrupt();
+				return false;
+			}
+			return System.nanoTime() < endNanos;
+		}
+
+		private String login() {
+			return database.authenticate(userName, ForumDataGenerator.passwordFor(userName)) == null
+					? "login failed" : null;
+		}
+
+		// The first page of the post list with its reply counts, as the home page shows it
+		private String browse() {
+			if (isStaff) {
+				found = ModelStaffHome.loadPostsPage(null);
+				ModelStaffHome.getReplyCounts(found);
+			} else {
+				found = ModelStudentHome.loadPostsPage(null);
+				ModelStudentHome.getReplyCounts(found);
+				ModelStudentHome.getUnreadReplyCounts(found, userName);
+			}
+			return found.isEmpty() ? "no posts" : null;
+		}
+
+		private String search() {
+			String keyword = KEYWORDS[random.nextInt(KEYWORDS.length)];
+			enter();
+			try {
+				found = ModelStudentHome.getPostCollection().searchPosts(keyword, "All");
+			} finally {
+				applicationThread.unlock();
+			}
+			return null;
+		}
+
+		// Refreshes the collections and reads the post with its replies and visible feedback
+		private String openPost() {
+			enter();
+			try {
+				if (isStaff) ModelStaffHome.refreshPostsFromDatabase();
+				else ModelStudentHome.refreshFromDatabase();
+				Post post = posts().getPostById(openPostId);
+				if (post == null) return "post not found after refresh";
+				replies().getRepliesForPost(openPostId);
+				replies().getFeedbackForPost(openPostId, userName, post.getAuthorUsername());
+				return null;
+			} finally {
+				applicationThread.unlock();
+			}
+		}
+
+		private String markRead() {
+			List<Reply> unread;
+			enter();
+			try {
+				unread = replies().getUnreadRepliesForPost(openPostId, userName);
+				replies().markRepliesAsRead(openPostId, userName);
+			} finally {
+				applicationThread.unlock();
+			}
+			for (Reply reply : unread) saveReply(reply);
+			return null;
+		}
+
+		private String reply() {
+			String body = words(5 + random.nextInt(40));
+			Reply reply;
+			enter();
+			try {
+				String replyIdOrError = replies().createReply(body, userName, openPostId);
+				if (!replyIdOrError.startsWith("REPLY_")) return replyIdOrError;
+				reply = replies().getReplyById(replyIdOrError);
+			} finally {
+				applicationThread.unlock();
+			}
+			saveReply(reply);
+			return claim(reply.getReplyId());
+		}
+
+		private String createPost() {
+			String title = words(3 + random.nextInt(6));
+			String body = words(10 + random.nextInt(80));
+			String thread = ForumDataGenerator.threadTitle(random.nextInt(threads));
+			Post post;
+			enter();
+			try {
+				PostCollection posts = ModelStudentHome.getPostCollection();
+				String postIdOrError = posts.createPost(title, body, userName, thread);
+				if (!postIdOrError.startsWith("POST_")) return postIdOrError;
+				post = posts.getPostById(postIdOrError);
+			} finally {
+				applicationThread.unlock();
+			}
+			ModelStudentHome.savePostToDatabase(post);
+			return claim(post.getPostId());
+		}
+
+		private String feedback() {
+			String body = words(10 + random.nextInt(60));
+			Reply reply;
+			enter();
+			try {
+				String replyIdOrError = replies().createFeedback(body, userName, openPostId);
+				if (!replyIdOrError.startsWith("REPLY_")) return replyIdOrError;
+				reply = replies().getReplyById(replyIdOrError);
+			} finally {
+				applicationThread.unlock();
+			}
+			saveReply(reply);
+			return claim(reply.getReplyId());
+		}
+
+		// The student and staff pages each have their own collections
+		private PostCollection posts() {
+			return isStaff ? ModelStaffHome.getPostCollection() : ModelStudentHome.getPostCollection();
+		}
+
+		private ReplyCollection replies() {
+			return isStaff ? ModelStaffHome.getReplyCollection() : ModelStudentHome.getReplyCollection();
+		}
+
+		private void saveReply(Reply reply) {
+			if (isStaff) ModelStaffHome.saveReplyToDatabase(reply);
+			else ModelStudentHome.saveReplyToDatabase(reply);
+		}
+
+		// A new ID must not have been handed out before; if it was, one save overwrites the other
+		private String claim(String id) {
+			return createdIds.add(id) ? null : id.substring(0, id.indexOf('_')) + " ID handed out twice";
+		}
+
+		private String words(int count) {
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < count; i++) {
+				if (i > 0) text.append(' ');
+				text.append(KEYWORDS[random.nextInt(KEYWORDS.length)]);
+			}
+			return text.toString();
+		}
+	}
+}
@@ -30,11 +30,28 @@ public class PasswordEvaluator {
 	public static boolean foundNumericDigit = false;
 	public static boolean foundSpecialChar = false;
 	public static boolean foundLongEnough = false;
-	private static String inputLine = "";				// The input line
-	private static char currentChar;					// The current character in the line
-	private static int currentCharNdx;					// The index of the current character
-	private static boolean running;						// The flag that specifies if the FSM is 
+	
+	/*
+	 * The working state of one evaluation.  It belongs to an instance, so that validatePassword
+	 * can be called from many threads at once; evaluatePassword copies the results into the
+	 * public attributes above when it is done.
+	 */
+	private final boolean trace;						// Print the FSM trace to the console?
+	private String inputLine = "";						// The input line
+	private char currentChar;							// The current character in the line
+	private int currentCharNdx;							// The index of the current character
+	private boolean running;							// The flag that specifies if the FSM is 
 														// running
+	private int indexOfError = -1;
+	private boolean upperCase = false;
+	private boolean lowerCase = false;
+	private boolean numericDigit = false;
+	private boolean specialChar = false;
+	private boolean longEnough = false;
+	
+	private PasswordEvaluator(boolean trace) {
+		this.trace = trace;
+	}
 	
 	/*
 	 * This private method displays the input line and then on a line under it displays the input
@@ -45,7 +62,7 @@ public class PasswordEvaluator {
 	 * 
 	 */
 
-	private static void displayInputState() {
+	private void displayInputState() {
 		// Display the entire input line
 		System.out.println(inputLine);
 		System.out.println(inputLine.substring(0,currentCharNdx) + "?");
@@ -54,9 +71,38 @@ public class PasswordEvaluator {
 	}
 	
 	public static String evaluatePassword(String input) {
-		// The following are the local variable used to perform the Directed Graph simulation
+		PasswordEvaluator evaluator = new PasswordEvaluator(true);
+		String result = evaluator.evaluate(input);
+		
+		// Publish the details of this evaluation for the GUI
 		passwordErrorMessage = "";
-		passwordIndexofError = 0;			// Initialize the IndexofError
+		passwordInput = input;
+		passwordIndexofError = evaluator.indexOfError;
+		foundUpperCase = evaluator.upperCase;
+		foundLowerCase = evaluator.lowerCase;
+		foundNumericDigit = evaluator.numericDigit;
+		foundSpecialChar = evaluator.specialChar;
+		foundLongEnough = evaluator.longEnough;
+		return result;
+	}
+	
+	/**********
+	 * <p> Method: validatePassword(String input) </p>
+	 * 
+	 * <p> Description: Applies the same rules as evaluatePassword without printing the trace
+	 * and without touching the public attributes, so it is safe to call from many threads at
+	 * once, e.g. when a bulk import validates thousands of accounts in parallel.</p>
+	 * 
+	 * @param input		The password to check
+	 * @return			An empty string if the password is valid, else the error description
+	 */
+	public static String validatePassword(String input) {
+		return new PasswordEvaluator(false).evaluate(input);
+	}
+	
+	private String evaluate(String input) {
+		// The following are the local variable used to perform the Directed Graph simulation
+		indexOfError = 0;					// Initialize the IndexofError
 		inputLine = input;					// Save the reference to the input line as a global
 		currentCharNdx = 0;					// The index of the current character
 		
@@ -70,15 +116,13 @@ public class PasswordEvaluator {
 		// The Directed Graph simulation continues until the end of the input is reached or at some 
 		// state the current character does not match any valid transition to a next state.  This
 		// local variable is a working copy of the input.
-		passwordInput = input;				// Save a copy of the input
 		
 		// The following are the attributes associated with each of the requirements
-		foundUpperCase = false;				// Reset the Boolean flag
-		foundLowerCase = false;				// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundSpecialChar = false;			// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundLongEnough = false;			// Reset the Boolean flag
+		upperCase = false;					// Reset the Boolean flag
+		lowerCase = false;					// Reset the Boolean flag
+		numericDigit = false;				// Reset the Boolean flag
+		specialChar = false;				// Reset the Boolean flag
+		longEnough = false;					// Reset the Boolean flag
 		
 		// This flag determines whether the directed graph (FSM) loop is operating or not
 		running = true;						// Start the loop
@@ -86,32 +130,32 @@ public class PasswordEvaluator {
 		// The Directed Graph simulation continues until the end of the input is reached or at some
 		// state the current character does not match any valid transition
 		while (running) {
-			displayInputState();
+			if (trace) displayInputState();
 			// The cascading if statement sequentially tries the current character against all of
 			// the valid transitions, each associated with one of the requirements
 			if (currentChar >= 'A' && currentChar <= 'Z') {
-				System.out.println("Upper case letter found");
-				foundUpperCase = true;
+				if (trace) System.out.println("Upper case letter found");
+				upperCase = true;
 			} else if (currentChar >= 'a' && currentChar <= 'z') {
-				System.out.println("Lower case letter found");
-				foundLowerCase = true;
+				if (trace) System.out.println("Lower case letter found");
+				lowerCase = true;
 			} else if (currentChar >= '0' && currentChar <= '9') {
-				System.out.println("Digit found");
-				foundNumericDigit = true;
+				if (trace) System.out.println("Digit found");
+				numericDigit = true;
 			} else if ("~`!@#$%^&*()_-+={}[]|\\:;\"'<>,.?/".indexOf(currentChar) >= 0) {
-				System.out.println("Special character found");
-				foundSpecialChar = true;
+				if (trace) System.out.println("Special character found");
+				specialChar = true;
 			} else {
-				passwordIndexofError = currentCharNdx;
+				indexOfError = currentCharNdx;
 				return "*** Error *** An invalid character has been found!";
 			}
-			// if password is at most 32 characters set foundLongEnough to true
+			// if password is at most 32 characters set longEnough to true
 			if (currentCharNdx <= 31) {
-				System.out.println("At most 32 characters found");
-				foundLongEnough = true;
+				if (trace) System.out.println("At most 32 characters found");
+				longEnough = true;
 			} else {
-				System.out.println("Password must be at most 32 characters.");
-				foundLongEnough = false;
+				if (trace) System.out.println("Password must be at most 32 characters.");
+				longEnough = false;
 			}
 			
 			// Go to the next character if there is one
@@ -121,32 +165,32 @@ public class PasswordEvaluator {
 			else
 				currentChar = input.charAt(currentCharNdx);
 			
-			System.out.println();
+			if (trace) System.out.println();
 		}
 		
 		// Construct a String with a list of the requirement elements that were found.
 		String errMessage = "";
-		if (!foundUpperCase)
+		if (!upperCase)
 			errMessage += "Must have at least 1 upper case letter;\n";
 		
-		if (!foundLowerCase)
+		if (!lowerCase)
 			errMessage += "Must have at least 1 lower case letter;\n";
 		
-		if (!foundNumericDigit)
+		if (!numericDigit)
 			errMessage += "Must have at least 1 numeric digit;\n";
 			
-		if (!foundSpecialChar)
+		if (!specialChar)
 			errMessage += "Must have at least 1 special character;\n";
 		
-		// Display the string if !foundLongEnough
-		if (!foundLongEnough)
+		// Display the string if !longEnough
+		if (!longEnough)
 			errMessage += "Must be at most 32 characters;\n";
 		
 		if (errMessage == "")
 			return "";
 		
 		// If it gets here, there something was not found, so return an appropriate message
-		passwordIndexofError = currentCharNdx;
+		indexOfError = currentCharNdx;
 		return errMessage;
 	}
 }
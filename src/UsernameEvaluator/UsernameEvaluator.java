@@ -21,20 +21,33 @@ public class UsernameEvaluator {
 	public static String userNameRecognizerErrorMessage = "";	// The error message text
 	public static String userNameRecognizerInput = "";			// The input being processed
 	public static int userNameRecognizerIndexofError = -1;		// The index of error location
-	private static int state = 0;						// The current state value
-	private static int nextState = 0;					// The next state value
-	private static boolean finalState = false;			// Is this state a final state?
-	private static String inputLine = "";				// The input line
-	private static char currentChar;					// The current character in the line
-	private static int currentCharNdx;					// The index of the current character
-	private static boolean running;						// The flag that specifies if the FSM is 
+	
+	/*
+	 * The working state of one run of the FSM.  It belongs to an instance, so that
+	 * validateUserName can be called from many threads at once; checkForValidUserName copies the
+	 * results into the public attributes above when it is done.
+	 */
+	private final boolean trace;						// Print the FSM trace to the console?
+	private String errorMessage = "";					// The error message text
+	private int indexOfError = -1;						// The index of error location
+	private int state = 0;								// The current state value
+	private int nextState = 0;							// The next state value
+	private boolean finalState = false;					// Is this state a final state?
+	private String inputLine = "";						// The input line
+	private char currentChar;							// The current character in the line
+	private int currentCharNdx;							// The index of the current character
+	private boolean running;							// The flag that specifies if the FSM is 
 														// running
-	private static int userNameSize = 0;			// A numeric value may not exceed 16 characters
+	private int userNameSize = 0;					// A numeric value may not exceed 16 characters
+	
+	private UsernameEvaluator(boolean trace) {
+		this.trace = trace;
+	}
 	
 	
 	
 	// Private method to display debugging data
-	private static void displayDebuggingInfo() {
+	private void displayDebuggingInfo() {
 		// Display the current state of the FSM as part of an execution trace
 		if (currentCharNdx >= inputLine.length())
 			// display the line with the current state numbers aligned
@@ -48,7 +61,7 @@ public class UsernameEvaluator {
 		}
 		
 	// Private method to move to the next character within the limits of the input line
-	private static void moveToNextCharacter() {
+	private void moveToNextCharacter() {
 		currentCharNdx++;
 		if (currentCharNdx < inputLine.length())
 			currentChar = inputLine.charAt(currentCharNdx);
@@ -67,9 +80,34 @@ public class UsernameEvaluator {
 	 * 						with a helpful description of the error
 	 */
 	public static String checkForValidUserName(String input) {
+		UsernameEvaluator evaluator = new UsernameEvaluator(true);
+		String result = evaluator.recognize(input);
+		
+		// Publish the details of this run for the GUI
+		userNameRecognizerInput = input;
+		userNameRecognizerErrorMessage = evaluator.errorMessage;
+		userNameRecognizerIndexofError = evaluator.indexOfError;
+		return result;
+	}
+	
+	/**********
+	 * <p> Method: validateUserName(String input) </p>
+	 * 
+	 * <p> Description: Applies the same rules as checkForValidUserName without printing the
+	 * trace and without touching the public attributes, so it is safe to call from many threads
+	 * at once, e.g. when a bulk import validates thousands of accounts in parallel.</p>
+	 * 
+	 * @param input		The UserName to check
+	 * @return			An empty string if the UserName is valid, else the error description
+	 */
+	public static String validateUserName(String input) {
+		return new UsernameEvaluator(false).recognize(input);
+	}
+	
+	private String recognize(String input) {
 		// Check to ensure that there is input to process
 		if(input.length() <= 0) {
-			userNameRecognizerIndexofError = 0;	// Error at first character;
+			indexOfError = 0;	// Error at first character;
 			return "\n*** ERROR *** The input is empty";
 		}
 		
@@ -82,10 +120,9 @@ public class UsernameEvaluator {
 		// The Finite State Machines continues until the end of the input is reached or at some 
 		// state the current character does not match any valid transition to a next state
 
-		userNameRecognizerInput = input;	// Save a copy of the input
 		running = true;						// Start the loop
 		nextState = -1;						// There is no next state
-		System.out.println("\nCurrent Final Input  Next  Date\nState   State Char  State  Size");
+		if (trace) System.out.println("\nCurrent Final Input  Next  Date\nState   State Char  State  Size");
 		
 		// This is the place where semantic actions for a transition to the initial state occur
 		
@@ -181,7 +218,7 @@ public class UsernameEvaluator {
 			}
 			
 			if (running) {
-				displayDebuggingInfo();
+				if (trace) displayDebuggingInfo();
 				// When the processing of a state has finished, the FSM proceeds to the next
 				// character in the input and if there is one, it fetches that character and
 				// updates the currentChar.  If there is no next character the currentChar is
@@ -200,24 +237,24 @@ public class UsernameEvaluator {
 			// Should the FSM get here, the loop starts again
 	
 		}
-		displayDebuggingInfo();
+		if (trace) displayDebuggingInfo();
 		
-		System.out.println("The loop has ended.");
+		if (trace) System.out.println("The loop has ended.");
 		
 		// When the FSM halts, we must determine if the situation is an error or not.  That depends
 		// of the current state of the FSM and whether or not the whole string has been consumed.
 		// This switch directs the execution to separate code for each of the FSM states and that
 		// makes it possible for this code to display a very specific error message to improve the
 		// user experience.
-		userNameRecognizerIndexofError = currentCharNdx;	// Set index of a possible error;
-		userNameRecognizerErrorMessage = "\n*** ERROR *** ";
+		indexOfError = currentCharNdx;	// Set index of a possible error;
+		errorMessage = "\n*** ERROR *** ";
 		
 		// The following code is a slight variation to support just console output.
 		switch (state) {
 		case 0:
 			// State 0 is not a final state, so we can return a very specific error message
-			userNameRecognizerErrorMessage += "A UserName must start with A-Z or a-z.\n";
-			return userNameRecognizerErrorMessage;
+			errorMessage += "A UserName must start with A-Z or a-z.\n";
+			return errorMessage;
 
 		case 1:
 			// State 1 is a final state.  Check to see if the UserName length is valid.  If so we
@@ -225,33 +262,33 @@ public class UsernameEvaluator {
 
 			if (userNameSize < 4) {
 				// UserName is too small
-				userNameRecognizerErrorMessage += "A UserName must have at least 4 characters.\n";
-				return userNameRecognizerErrorMessage;
+				errorMessage += "A UserName must have at least 4 characters.\n";
+				return errorMessage;
 			}
 			else if (userNameSize > 16) {
 				// UserName is too long
-				userNameRecognizerErrorMessage += 
+				errorMessage += 
 					"A UserName must have no more than 16 characters.\n";
-				return userNameRecognizerErrorMessage;
+				return errorMessage;
 			}
 			else if (currentCharNdx < input.length()) {
 				// There are characters remaining in the input, so the input is not valid
-				userNameRecognizerErrorMessage += 
+				errorMessage += 
 					"A UserName character may only contain the characters A-Z, a-z, 0-9, -, _, or .\n";
-				return userNameRecognizerErrorMessage;
+				return errorMessage;
 			}
 			else {
 					// UserName is valid
-					userNameRecognizerIndexofError = -1;
-					userNameRecognizerErrorMessage = "";
-					return userNameRecognizerErrorMessage;
+					indexOfError = -1;
+					errorMessage = "";
+					return errorMessage;
 			}
 
 		case 2:
 			// State 2 is not a final state, so we can return a very specific error message
-			userNameRecognizerErrorMessage +=
+			errorMessage +=
 				"A UserName character after a -, _, or . must be A-Z, a-z, or 0-9.\n";
-			return userNameRecognizerErrorMessage;
+			return errorMessage;
 			
 		default:
 			// This is for the case where we have a state that is outside of the valid range.
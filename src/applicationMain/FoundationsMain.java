@@ -1,7 +1,11 @@
 package applicationMain;
 	
+import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
 import database.Database;
+import database.SlowQueryLog;
 import javafx.application.Application;
 import javafx.stage.Stage;
 import javafx.scene.control.Alert;
@@ -70,6 +74,15 @@ public class FoundationsMain extends Application {
 	public final static double WINDOW_WIDTH = 800;
 	public final static double WINDOW_HEIGHT = 600;
 
+	// Set to true on the command line to collect the query metrics, which cost a few microseconds
+	// on every database call, and to log slow statements
+	private final static String QUERY_METRICS_PROPERTY = "foundations.queryMetrics";
+	// How often the query metrics are appended to QUERY_METRICS_FILE in the user's home directory
+	private final static long QUERY_METRICS_DUMP_MILLIS = TimeUnit.MINUTES.toMillis(15);
+	private final static String QUERY_METRICS_FILE = "FoundationDatabase.metrics.log";
+	// Statements slower than SlowQueryLog.DEFAULT_THRESHOLD_MILLIS are logged to this file
+	private final static String SLOW_QUERY_FILE = "FoundationDatabase.slow.log";
+
 	// These attributes establish the database and the fixed reference to it for the rest of the
 	// application so we do not need to keep passing the reference in parameters to the rest of the
 	// system for other methods that need it can access it.
@@ -85,6 +98,22 @@ public class FoundationsMain extends Application {
 		try {
 			// Connect to the database
 			database.connectToDatabase();
+			// Move long-deleted posts and replies out of the live tables in the background
+			database.startArchiveCompaction();
+			if (Boolean.getBoolean(QUERY_METRICS_PROPERTY)) {
+				// Publish the per-query timings to JMX and dump them to a file now and then
+				database.getQueryMetrics().setEnabled(true);
+				try {
+					database.getQueryMetrics().registerMBeans("FoundationDatabase");
+				} catch (JMException e) {
+					System.err.println("Query metrics are not available over JMX: " + e.getMessage());
+				}
+				database.getQueryMetrics().startSnapshotDump(
+						Paths.get(System.getProperty("user.home"), QUERY_METRICS_FILE), QUERY_METRICS_DUMP_MILLIS);
+				// Log the plan of every slow statement
+				database.startSlowQueryLog(Paths.get(System.getProperty("user.home"), SLOW_QUERY_FILE),
+						SlowQueryLog.DEFAULT_THRESHOLD_MILLIS);
+			}
 		} catch (SQLException e) {
 			// If the connection request fails, it usually means some other app is using it
 			databaseInUse.setTitle("*** ERROR ***");
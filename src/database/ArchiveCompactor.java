@@ -0,0 +1,202 @@
+package database;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******
+ * <p> Title: ArchiveCompactor Class. </p>
+ *
+ * <p> Description: Moves soft-deleted posts and replies out of postsDB and repliesDB on a
+ * background thread.  Post.markAsDeleted and Reply.markAsDeleted only set isDeleted, so deleted
+ * rows used to stay in the live tables forever, and every full load and refresh read them only
+ * to filter them out again.</p>
+ *
+ * <p> Each run records when rows were deleted with Database.markDeletionTimes, then archives the
+ * posts and replies deleted longer ago than the retention window with archiveDeletedPosts and
+ * archiveDeletedReplies.  Clients drop the archived rows on their next delta.  An archived post
+ * or reply can be brought back with Database.restorePost or restoreReply.</p>
+ *
+ * <p> The first run starts shortly after the database opens and later runs follow at a fixed
+ * interval.  A failed run is logged and tried again at the next interval.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class ArchiveCompactor {
+
+	// How long a row stays soft-deleted in the live tables before it is archived
+	public static final Duration DEFAULT_RETENTION = Duration.ofDays(30);
+
+	// How often the compaction runs
+	public static final long DEFAULT_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6);
+
+	// How long after startup the first run waits, so it does not compete with the first load
+	private static final long STARTUP_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	// How long close() waits for a run in progress
+	private static final long STOP_TIMEOUT_SECONDS = 30;
+
+	private final Database database;
+	private final Duration retention;
+	private final ScheduledExecutorService executor;
+
+	// Metrics
+	private final AtomicLong runCount = new AtomicLong();
+	private final AtomicLong failedRunCount = new AtomicLong();
+	private final AtomicLong archivedPostCount = new AtomicLong();
+	private final AtomicLong archivedReplyCount = new AtomicLong();
+	private final AtomicLong totalRunNanos = new AtomicLong();
+	private final AtomicLong maxRunNanos = new AtomicLong();
+
+	/*******
+	 * <p> Method: ArchiveCompactor(Database database, Duration retention, long intervalMillis) </p>
+	 *
+	 * <p> Description: Creates the compactor and schedules its runs.</p>
+	 *
+	 * @param database the database to compact
+	 * @param retention how long a row stays soft-deleted before it is archived
+	 * @param intervalMillis the time between the end of one run and the start of the next
+	 */
+	ArchiveCompactor(Database database, Duration retention, long intervalMillis) {
+		if (retention.isNegative()) {
+			throw new IllegalArgumentException("Retention cannot be negative: " + retention);
+		}
+		if (intervalMillis < 1) {
+			throw new IllegalArgumentException("Interval must be at least 1 ms: " + intervalMillis);
+		}
+		this.database = database;
+		this.retention = retention;
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "archive-compactor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::compact, Math.min(STARTUP_DELAY_MILLIS, intervalMillis),
+				intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/*******
+	 * <p> Method: void runNow() </p>
+	 *
+	 * <p> Description: Runs a compaction on the background thread and waits for it to finish.
+	 * Does nothing once the compactor is closed.</p>
+	 */
+	public void runNow() {
+		try {
+			executor.submit(this::compact).get();
+		} catch (RejectedExecutionException e) {
+			// Closed
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			System.err.println("Error compacting deleted rows: " + e.getCause());
+			e.getCause().printStackTrace();
+		}
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Cancels the scheduled runs and waits for a run in progress to finish.</p>
+	 */
+	public void close() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				System.err.println("Compaction was still running after " + STOP_TIMEOUT_SECONDS
+						+ " seconds: " + this);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*******
+	 * <p> Method: Duration getRetention() </p>
+	 *
+	 * @return how long a row stays soft-deleted before it is archived
+	 */
+	public Duration getRetention() { return retention; }
+
+	/*******
+	 * <p> Method: long getRunCount() </p>
+	 *
+	 * @return the number of runs, including failed ones
+	 */
+	public long getRunCount() { return runCount.get(); }
+
+	/*******
+	 * <p> Method: long getFailedRunCount() </p>
+	 *
+	 * @return the number of runs that stopped on an error
+	 */
+	public long getFailedRunCount() { return failedRunCount.get(); }
+
+	/*******
+	 * <p> Method: long getArchivedPostCount() </p>
+	 *
+	 * @return the posts archived since the compactor was created
+	 */
+	public long getArchivedPostCount() { return archivedPostCount.get(); }
+
+	/*******
+	 * <p> Method: long getArchivedReplyCount() </p>
+	 *
+	 * @return the replies archived on their own since the compactor was created, not counting
+	 * the replies archived with their post
+	 */
+	public long getArchivedReplyCount() { return archivedReplyCount.get(); }
+
+	/*******
+	 * <p> Method: double getMaxRunMillis() </p>
+	 *
+	 * @return the longest time a run took
+	 */
+	public double getMaxRunMillis() { return maxRunNanos.get() / 1_000_000.0; }
+
+	/*******
+	 * <p> Method: String toString() </p>
+	 *
+	 * @return a one-line summary of the compactor metrics, suitable for logging
+	 */
+	@Override
+	public String toString() {
+		long runs = runCount.get();
+		return String.format("ArchiveCompactor[retention=%s, runs=%d, failed=%d, posts=%d, replies=%d, "
+				+ "avgRun=%.3f ms, maxRun=%.3f ms]",
+				retention, runs, getFailedRunCount(), getArchivedPostCount(), getArchivedReplyCount(),
+				runs == 0 ? 0.0 : totalRunNanos.get() / 1_000_000.0 / runs, getMaxRunMillis());
+	}
+
+	/*
+	 * Runs on the background thread.  Exceptions are caught here, since one escaping a
+	 * scheduled task would cancel every later run.
+	 */
+	private void compact() {
+		long start = System.nanoTime();
+		try {
+			database.markDeletionTimes();
+			LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+			archivedPostCount.addAndGet(database.archiveDeletedPosts(cutoff));
+			archivedReplyCount.addAndGet(database.archiveDeletedReplies(cutoff));
+		} catch (SQLException | RuntimeException e) {
+			failedRunCount.incrementAndGet();
+			System.err.println("Error compacting deleted rows: " + e.getMessage());
+			e.printStackTrace();
+		}
+		long elapsed = System.nanoTime() - start;
+		runCount.incrementAndGet();
+		totalRunNanos.addAndGet(elapsed);
+		maxRunNanos.accumulateAndGet(elapsed, Math::max);
+	}
+}
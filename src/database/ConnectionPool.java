@@ -0,0 +1,500 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******
+ * <p> Title: ConnectionPool Class. </p>
+ *
+ * <p> Description: A small, bounded pool of JDBC connections to the H2 database. The Database
+ * class used to hold one Connection that every model shared, so all database work ran one call
+ * at a time.  With a pool, a long read such as loadAllPosts can run on one connection while a
+ * write such as saveReply goes through on another.</p>
+ *
+ * <p> Connections handed out by getConnection() are wrappers around a physical connection.
+ * Calling close() on the wrapper returns the physical connection to the pool rather than closing
+ * it, so callers can keep using the usual try-with-resources pattern.</p>
+ *
+ * <p> Each physical connection also keeps a StatementCache, so prepareStatement(sql) on a pooled
+ * connection reuses an already parsed statement for the same SQL text.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class ConnectionPool {
+
+	// The number of prepared statements cached per connection when no size is given
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+	// Where and how to open new physical connections
+	private final String url;
+	private final String user;
+	private final String password;
+
+	// Pool sizing and checkout limits
+	private final int minSize;
+	private final int maxSize;
+	private final long checkoutTimeoutMillis;
+	private final int statementCacheSize;
+
+	// Idle physical connections, most recently used first.  The semaphore holds one permit per
+	// connection that may still be checked out, so idle + active never exceeds maxSize.
+	private final BlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+	private final Semaphore permits;
+	private volatile boolean closed = false;
+
+	// The statement cache of every open physical connection
+	private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+	// Metrics
+	private final AtomicInteger activeCount = new AtomicInteger();
+	private final AtomicInteger peakActiveCount = new AtomicInteger();
+	private final AtomicInteger physicalCount = new AtomicInteger();
+	private final AtomicLong checkoutCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	// Statement cache counters of connections that have since been closed
+	private final AtomicLong retiredCacheHits = new AtomicLong();
+	private final AtomicLong retiredCacheMisses = new AtomicLong();
+	private final AtomicLong retiredCacheEvictions = new AtomicLong();
+
+	/*******
+	 * <p> Method: ConnectionPool(String url, String user, String password, int minSize,
+	 * int maxSize, long checkoutTimeoutMillis) </p>
+	 *
+	 * <p> Description: Creates the pool with the default statement cache size and opens minSize
+	 * connections up front.</p>
+	 *
+	 * @param url the JDBC URL of the database
+	 * @param user the database user
+	 * @param password the database password
+	 * @param minSize the number of connections opened when the pool is created
+	 * @param maxSize the largest number of connections the pool will ever open
+	 * @param checkoutTimeoutMillis how long getConnection() waits for a free connection
+	 *
+	 * @throws SQLException when the initial connections cannot be opened
+	 */
+	public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+			long checkoutTimeoutMillis) throws SQLException {
+		this(url, user, password, minSize, maxSize, checkoutTimeoutMillis, DEFAULT_STATEMENT_CACHE_SIZE);
+	}
+
+	/*******
+	 * <p> Method: ConnectionPool(String url, String user, String password, int minSize,
+	 * int maxSize, long checkoutTimeoutMillis, int statementCacheSize) </p>
+	 *
+	 * <p> Description: Creates the pool and opens minSize connections up front.</p>
+	 *
+	 * @param url the JDBC URL of the database
+	 * @param user the database user
+	 * @param password the database password
+	 * @param minSize the number of connections opened when the pool is created
+	 * @param maxSize the largest number of connections the pool will ever open
+	 * @param checkoutTimeoutMillis how long getConnection() waits for a free connection
+	 * @param statementCacheSize the prepared statements cached per connection; 0 turns the
+	 * 		cache off
+	 *
+	 * @throws SQLException when the initial connections cannot be opened
+	 */
+	public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+			long checkoutTimeoutMillis, int statementCacheSize) throws SQLException {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Pool maximum size must be at least 1");
+		}
+		if (minSize < 0 || minSize > maxSize) {
+			throw new IllegalArgumentException("Pool minimum size must be between 0 and " + maxSize);
+		}
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+		this.statementCacheSize = Math.max(0, statementCacheSize);
+		this.permits = new Semaphore(maxSize, true);
+
+		try {
+			for (int i = 0; i < minSize; i++) {
+				idle.offerLast(openPhysicalConnection());
+			}
+		} catch (SQLException e) {
+			// Do not leave half a pool behind if the database is locked by another process
+			close();
+			throw e;
+		}
+	}
+
+	/*******
+	 * <p> Method: Connection getConnection() </p>
+	 *
+	 * <p> Description: Checks a connection out of the pool, waiting up to the checkout timeout
+	 * for one to become free.  The caller must close() the returned connection to give it back.
+	 * </p>
+	 *
+	 * @return a pooled connection
+	 *
+	 * @throws SQLException when the pool is closed, the wait times out, or a new connection
+	 * 		cannot be opened
+	 */
+	public Connection getConnection() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+
+		long start = System.nanoTime();
+		try {
+			if (!permits.tryAcquire(checkoutTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				timeoutCount.incrementAndGet();
+				throw new SQLException("Timed out after " + checkoutTimeoutMillis
+						+ " ms waiting for a database connection (" + maxSize + " in use)");
+			}
+		} catch (InterruptedException e) {
+			java.lang.Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+		recordWait(System.nanoTime() - start);
+
+		Connection physical;
+		try {
+			physical = takeIdleConnection();
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+
+		int active = activeCount.incrementAndGet();
+		peakActiveCount.accumulateAndGet(active, Math::max);
+		checkoutCount.incrementAndGet();
+		return wrap(physical);
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Closes every idle connection and stops handing out new ones.  Connections
+	 * that are checked out are closed when they are returned.</p>
+	 */
+	public void close() {
+		closed = true;
+		Connection physical;
+		while ((physical = idle.pollFirst()) != null) {
+			closePhysicalConnection(physical);
+		}
+	}
+
+	/*******
+	 * <p> Method: boolean isClosed() </p>
+	 *
+	 * @return true once close() has been called
+	 */
+	public boolean isClosed() { return closed; }
+
+	// Pool configuration and metrics
+
+	/*******
+	 * <p> Method: int getMinSize() </p>
+	 *
+	 * @return the number of connections opened when the pool was created
+	 */
+	public int getMinSize() { return minSize; }
+
+	/*******
+	 * <p> Method: int getMaxSize() </p>
+	 *
+	 * @return the largest number of connections the pool will open
+	 */
+	public int getMaxSize() { return maxSize; }
+
+	/*******
+	 * <p> Method: long getCheckoutTimeoutMillis() </p>
+	 *
+	 * @return how long getConnection() waits before giving up
+	 */
+	public long getCheckoutTimeoutMillis() { return checkoutTimeoutMillis; }
+
+	/*******
+	 * <p> Method: int getActiveCount() </p>
+	 *
+	 * @return the number of connections currently checked out
+	 */
+	public int getActiveCount() { return activeCount.get(); }
+
+	/*******
+	 * <p> Method: int getIdleCount() </p>
+	 *
+	 * @return the number of open connections waiting in the pool
+	 */
+	public int getIdleCount() { return idle.size(); }
+
+	/*******
+	 * <p> Method: int getPeakActiveCount() </p>
+	 *
+	 * @return the largest number of connections that were ever checked out at the same time
+	 */
+	public int getPeakActiveCount() { return peakActiveCount.get(); }
+
+	/*******
+	 * <p> Method: int getPhysicalCount() </p>
+	 *
+	 * @return the number of physical connections currently open, active or idle
+	 */
+	public int getPhysicalCount() { return physicalCount.get(); }
+
+	/*******
+	 * <p> Method: long getCheckoutCount() </p>
+	 *
+	 * @return the number of successful checkouts since the pool was created
+	 */
+	public long getCheckoutCount() { return checkoutCount.get(); }
+
+	/*******
+	 * <p> Method: long getTimeoutCount() </p>
+	 *
+	 * @return the number of checkouts that gave up waiting for a connection
+	 */
+	public long getTimeoutCount() { return timeoutCount.get(); }
+
+	/*******
+	 * <p> Method: double getAverageWaitMillis() </p>
+	 *
+	 * @return the average time a successful checkout waited for a connection
+	 */
+	public double getAverageWaitMillis() {
+		long checkouts = checkoutCount.get();
+		return checkouts == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / checkouts;
+	}
+
+	/*******
+	 * <p> Method: double getMaxWaitMillis() </p>
+	 *
+	 * @return the longest time a checkout waited for a connection
+	 */
+	public double getMaxWaitMillis() { return maxWaitNanos.get() / 1_000_000.0; }
+
+	/*******
+	 * <p> Method: int getStatementCacheSize() </p>
+	 *
+	 * @return the prepared statements cached per connection, 0 when caching is off
+	 */
+	public int getStatementCacheSize() { return statementCacheSize; }
+
+	/*******
+	 * <p> Method: long getStatementCacheHits() </p>
+	 *
+	 * @return the prepareStatement calls answered from a statement cache
+	 */
+	public long getStatementCacheHits() {
+		long total = retiredCacheHits.get();
+		for (StatementCache cache : statementCaches.values()) total += cache.getHits();
+		return total;
+	}
+
+	/*******
+	 * <p> Method: long getStatementCacheMisses() </p>
+	 *
+	 * @return the prepareStatement calls that had to parse their SQL
+	 */
+	public long getStatementCacheMisses() {
+		long total = retiredCacheMisses.get();
+		for (StatementCache cache : statementCaches.values()) total += cache.getMisses();
+		return total;
+	}
+
+	/*******
+	 * <p> Method: long getStatementCacheEvictions() </p>
+	 *
+	 * @return the statements dropped from a cache to stay within its size
+	 */
+	public long getStatementCacheEvictions() {
+		long total = retiredCacheEvictions.get();
+		for (StatementCache cache : statementCaches.values()) total += cache.getEvictions();
+		return total;
+	}
+
+	/*******
+	 * <p> Method: String toString() </p>
+	 *
+	 * @return a one-line summary of the pool metrics, suitable for logging
+	 */
+	@Override
+	public String toString() {
+		return String.format("ConnectionPool[size=%d..%d, active=%d, idle=%d, peak=%d, "
+				+ "checkouts=%d, timeouts=%d, avgWait=%.3f ms, maxWait=%.3f ms, "
+				+ "statementCache=%d hits/%d misses]",
+				minSize, maxSize, getActiveCount(), getIdleCount(), getPeakActiveCount(),
+				getCheckoutCount(), getTimeoutCount(), getAverageWaitMillis(), getMaxWaitMillis(),
+				getStatementCacheHits(), getStatementCacheMisses());
+	}
+
+	/*
+	 * Reuse the most recently returned idle connection, or open a new one if none is idle.  A
+	 * permit is already held, so opening a new connection can never exceed maxSize.
+	 */
+	private Connection takeIdleConnection() throws SQLException {
+		Connection physical;
+		while ((physical = idle.pollFirst()) != null) {
+			if (!physical.isClosed()) {
+				return physical;
+			}
+			closePhysicalConnection(physical);
+		}
+		return openPhysicalConnection();
+	}
+
+	private Connection openPhysicalConnection() throws SQLException {
+		Connection physical = DriverManager.getConnection(url, user, password);
+		physicalCount.incrementAndGet();
+		if (statementCacheSize > 0) {
+			statementCaches.put(physical, new StatementCache(physical, statementCacheSize));
+		}
+		return physical;
+	}
+
+	private void closePhysicalConnection(Connection physical) {
+		StatementCache cache = statementCaches.remove(physical);
+		if (cache != null) {
+			retiredCacheHits.addAndGet(cache.getHits());
+			retiredCacheMisses.addAndGet(cache.getMisses());
+			retiredCacheEvictions.addAndGet(cache.getEvictions());
+			cache.closeAll();
+		}
+		try {
+			physical.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		physicalCount.decrementAndGet();
+	}
+
+	/*
+	 * Give a physical connection back to the pool.  Any transaction the borrower left open is
+	 * rolled back so the next borrower always starts in auto-commit mode.
+	 */
+	private void release(Connection physical) {
+		boolean reusable = !closed;
+		try {
+			if (reusable && !physical.isClosed()) {
+				if (!physical.getAutoCommit()) {
+					physical.rollback();
+					physical.setAutoCommit(true);
+				}
+			} else {
+				reusable = false;
+			}
+		} catch (SQLException e) {
+			reusable = false;
+		}
+
+		if (reusable) {
+			StatementCache cache = statementCaches.get(physical);
+			if (cache != null) cache.releaseAll();
+			idle.offerFirst(physical);
+		} else {
+			closePhysicalConnection(physical);
+		}
+		activeCount.decrementAndGet();
+		permits.release();
+	}
+
+	private void recordWait(long nanos) {
+		totalWaitNanos.addAndGet(nanos);
+		maxWaitNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	/*
+	 * Wrap a physical connection so that close() returns it to the pool and prepareStatement(sql)
+	 * goes through the statement cache.  Every other call is passed straight through.
+	 */
+	private Connection wrap(Connection physical) {
+		StatementCache cache = statementCaches.get(physical);
+		InvocationHandler handler = new InvocationHandler() {
+			private boolean returned = false;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+				case "close":
+					if (!returned) {
+						returned = true;
+						release(physical);
+					}
+					return null;
+				case "isClosed":
+					return returned || physical.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled" + physical;
+				default:
+					if (returned) {
+						throw new SQLException("Connection has already been returned to the pool");
+					}
+					if (cache != null && method.getName().equals("prepareStatement")
+							&& args.length == 1) {
+						return cache.prepare((String) args[0]);
+					}
+					try {
+						return method.invoke(physical, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				}
+			}
+		};
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, handler);
+	}
+
+	/*******
+	 * <p> Method: Connection shared(Connection connection) </p>
+	 *
+	 * <p> Description: Wraps a borrowed connection so that close() does nothing.  Database hands
+	 * this out to every query that runs inside a transaction block, so the usual
+	 * try-with-resources in each query does not give the transaction's connection back to the
+	 * pool halfway through.</p>
+	 *
+	 * @param connection the connection that owns the transaction
+	 *
+	 * @return a view of the connection whose close() is ignored
+	 */
+	static Connection shared(Connection connection) {
+		InvocationHandler handler = (proxy, method, args) -> {
+			switch (method.getName()) {
+			case "close":
+				return null;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+				try {
+					return method.invoke(connection, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		};
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, handler);
+	}
+}
@@ -0,0 +1,325 @@
+package database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import entityClasses.Reply;
+
+/*******
+ * <p> Title: ConnectionPoolTest Class. </p>
+ *
+ * <p> Description: JUnit tests for the ConnectionPool used by Database.  The tests run against a
+ * temporary H2 file so the real FoundationDatabase is never touched.  They check that pooled
+ * connections are returned on close, that checkouts time out when the pool is exhausted, and
+ * that a larger pool lets borrowers hold connections at the same time.  The per-connection
+ * statement cache is tested here as well, since it lives inside the pool.  Throughput by pool
+ * size is measured by benchmarks.ConnectionPoolBenchmark.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ *
+ */
+
+public class ConnectionPoolTest {
+
+	/*****
+	 * <p> Default Constructor </p>
+	 */
+	public ConnectionPoolTest() {
+		// existing initialization or leave empty
+	}
+
+	/*****
+	 * Temporary directory holding the H2 database file for one test
+	 */
+	@TempDir
+	Path tempDir;
+
+	/*****
+	 * Databases opened by a test, closed again in tearDown
+	 */
+	private final List<Database> openDatabases = new ArrayList<>();
+
+	/*****
+     * <p> Method: void setUp() </p>
+     *
+     * <p> Description: Clears the list of databases opened by the previous test.</p>
+     */
+	@BeforeEach
+	public void setUp() {
+		openDatabases.clear();
+	}
+
+	/*****
+     * <p> Method: void tearDown() </p>
+     *
+     * <p> Description: Closes every database opened during the test.</p>
+     */
+	@AfterEach
+	public void tearDown() {
+		for (Database database : openDatabases) {
+			database.closeConnection();
+		}
+	}
+
+	/*****
+     * <p> Method: void testConnectionIsReturnedOnClose() </p>
+     *
+     * <p> Description: Verifies that closing a pooled connection hands it back to the pool
+     * instead of closing the physical connection.</p>
+     *
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testConnectionIsReturnedOnClose() throws SQLException {
+		Database database = openDatabase("returned", 1, 2, 1000);
+		ConnectionPool pool = database.getConnectionPool();
+		int physicalBefore = pool.getPhysicalCount();
+
+		Connection connection = database.getConnection();
+		assertEquals(1, pool.getActiveCount(), "One connection should be checked out");
+		connection.close();
+
+		assertTrue(connection.isClosed(), "Returned connection should report closed to its borrower");
+		assertEquals(0, pool.getActiveCount(), "No connection should be checked out");
+		assertEquals(physicalBefore, pool.getPhysicalCount(), "Physical connection should be reused");
+		assertThrows(SQLException.class, () -> connection.createStatement(),
+				"A returned connection must not be usable");
+	}
+
+	/*****
+     * <p> Method: void testCheckoutTimesOutWhenPoolIsExhausted() </p>
+     *
+     * <p> Description: Verifies that getConnection gives up after the checkout timeout when
+     * every connection is in use, and that the timeout is counted in the pool metrics.</p>
+     *
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testCheckoutTimesOutWhenPoolIsExhausted() throws SQLException {
+		Database database = openDatabase("exhausted", 1, 1, 100);
+		ConnectionPool pool = database.getConnectionPool();
+
+		try (Connection held = database.getConnection()) {
+			assertFalse(held.isClosed());
+			assertThrows(SQLException.class, () -> database.getConnection(),
+					"Checkout should time out while the only connection is held");
+		}
+		assertEquals(1, pool.getTimeoutCount(), "The timed out checkout should be counted");
+
+		// Once the connection is back, checkouts work again
+		try (Connection connection = database.getConnection()) {
+			assertFalse(connection.isClosed());
+		}
+	}
+
+	/*****
+     * <p> Method: void testBorrowersOverlapUpToPoolSize() </p>
+     *
+     * <p> Description: Verifies that two borrowers can hold connections at the same time when
+     * the pool allows two.  Each thread keeps its connection until both have one, so the
+     * overlap happens on every run, and the peak active count records it.</p>
+     *
+     * @throws Exception if database operations or worker threads fail
+     */
+	@Test
+	public void testBorrowersOverlapUpToPoolSize() throws Exception {
+		Database database = openDatabase("overlap", 1, 2, 5000);
+		ConnectionPool pool = database.getConnectionPool();
+		CountDownLatch bothHeld = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<?>> borrowers = new ArrayList<>();
+			for (int t = 0; t < 2; t++) {
+				borrowers.add(executor.submit(() -> {
+					try (Connection connection = database.getConnection()) {
+						assertFalse(connection.isClosed());
+						bothHeld.countDown();
+						assertTrue(release.await(5, TimeUnit.SECONDS), "The test should release the borrowers");
+					}
+					return null;
+				}));
+			}
+			assertTrue(bothHeld.await(5, TimeUnit.SECONDS), "Both borrowers should get a connection");
+			assertEquals(2, pool.getActiveCount(), "Both connections should be checked out at once");
+
+			release.countDown();
+			for (Future<?> borrower : borrowers) {
+				borrower.get(5, TimeUnit.SECONDS);
+			}
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+		assertEquals(0, pool.getActiveCount(), "All connections should be returned");
+		assertEquals(2, pool.getPeakActiveCount(), "The overlap should be recorded as the peak");
+		assertEquals(0, pool.getTimeoutCount(), "Neither borrower should have waited out the timeout");
+	}
+
+	/*****
+     * <p> Method: void testStatementCacheReusesParsedStatements() </p>
+     *
+     * <p> Description: Verifies that repeated calls of the same Database method are answered
+     * from the statement cache, that a statement which is still open is not handed out twice,
+     * and that the least recently used statement is evicted when the cache is full.</p>
+     *
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testStatementCacheReusesParsedStatements() throws SQLException {
+		Database database = openDatabase("cache", 1, 1, 1000, 2);
+		ConnectionPool pool = database.getConnectionPool();
+		long hitsBefore = pool.getStatementCacheHits();
+
+		for (int i = 0; i < 10; i++) {
+			database.doesUserExist("nobody");
+		}
+		assertEquals(hitsBefore + 9, pool.getStatementCacheHits(),
+				"Every call after the first should reuse the parsed statement");
+
+		try (Connection connection = database.getConnection()) {
+			String sql = "SELECT COUNT(*) FROM userDB WHERE userName = ?";
+			try (PreparedStatement outer = connection.prepareStatement(sql);
+					PreparedStatement inner = connection.prepareStatement(sql)) {
+				assertNotSame(outer, inner, "An in-use statement must not be shared");
+			}
+
+			// Two new queries push the oldest one out of a cache of size 2
+			connection.prepareStatement("SELECT 1").close();
+			connection.prepareStatement("SELECT 2").close();
+		}
+		assertTrue(pool.getStatementCacheEvictions() >= 1, "The cache should stay within its size");
+	}
+
+	/*****
+     * <p> Method: void testUnclosedStatementStopsWorkingOnRelease() </p>
+     *
+     * <p> Description: Verifies that a statement its borrower never closed stops working once
+     * the connection goes back to the pool, so it cannot touch the same cached statement after
+     * the next borrower has been given it.</p>
+     *
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testUnclosedStatementStopsWorkingOnRelease() throws SQLException {
+		Database database = openDatabase("lease", 1, 1, 1000, 4);
+		ConnectionPool pool = database.getConnectionPool();
+		String sql = "SELECT CAST(? AS INT)";
+
+		PreparedStatement stale;
+		try (Connection connection = database.getConnection()) {
+			stale = connection.prepareStatement(sql);
+			stale.setInt(1, 1);
+		}
+		assertTrue(stale.isClosed(), "Returning the connection should end the statement's use");
+
+		long hitsBefore = pool.getStatementCacheHits();
+		try (Connection connection = database.getConnection();
+				PreparedStatement fresh = connection.prepareStatement(sql)) {
+			assertEquals(hitsBefore + 1, pool.getStatementCacheHits(), "The next borrower should get the cached statement");
+			fresh.setInt(1, 7);
+			assertThrows(SQLException.class, () -> stale.setInt(1, 99), "The old statement must not set parameters");
+			assertThrows(SQLException.class, () -> stale.executeQuery(), "The old statement must not run");
+			stale.close();
+			try (ResultSet rs = fresh.executeQuery()) {
+				assertTrue(rs.next());
+				assertEquals(7, rs.getInt(1), "Closing the old statement must not reset the new one");
+			}
+		}
+	}
+
+	/*****
+     * <p> Method: void testReleaseDropsStatementsThatCannotBeReset() </p>
+     *
+     * <p> Description: Verifies that releasing several open statements whose connection has
+     * died drops each of them from the cache instead of failing part way through.</p>
+     *
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testReleaseDropsStatementsThatCannotBeReset() throws SQLException {
+		Connection physical = DriverManager.getConnection("jdbc:h2:mem:");
+		StatementCache cache = new StatementCache(physical, 4);
+		cache.prepare("SELECT 1");
+		cache.prepare("SELECT 2");
+		cache.prepare("SELECT 3");
+		physical.close();
+
+		assertDoesNotThrow(cache::releaseAll);
+		assertEquals(0, cache.size(), "Statements that cannot be reset should be dropped");
+	}
+
+	/*****
+     * <p> Method: void testRepeatedCallsHitOnlyAnEnabledCache() </p>
+     *
+     * <p> Description: Verifies that the same write and lookup, repeated, are answered from the
+     * statement cache when it is on and never when its size is 0.  What the cache saves is
+     * measured by benchmarks.StatementCacheBenchmark.</p>
+     *
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testRepeatedCallsHitOnlyAnEnabledCache() throws SQLException {
+		int calls = 50;
+		int[] cacheSizes = { 0, ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE };
+		for (int cacheSize : cacheSizes) {
+			Database database = openDatabase("hits" + cacheSize, 1, 1, 1000, cacheSize);
+			for (int i = 0; i < calls; i++) {
+				database.saveReply(new Reply("REPLY_" + i, "Reply body", "user", "POST_1"));
+				database.doesUserExist("user");
+			}
+			ConnectionPool pool = database.getConnectionPool();
+			if (cacheSize == 0) {
+				assertEquals(0, pool.getStatementCacheHits(), "A disabled cache never hits");
+			} else {
+				assertTrue(pool.getStatementCacheHits() >= 2 * calls - 2, "Repeated calls should hit");
+			}
+		}
+	}
+
+	/*****
+     * <p> Method: Database openDatabase(String name, int minPoolSize, int maxPoolSize,
+     * long timeoutMillis) </p>
+     *
+     * <p> Description: Opens a Database on a new H2 file in the temporary directory.</p>
+     */
+	private Database openDatabase(String name, int minPoolSize, int maxPoolSize, long timeoutMillis)
+			throws SQLException {
+		return openDatabase(name, minPoolSize, maxPoolSize, timeoutMillis,
+				ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+	}
+
+	/*****
+     * <p> Method: Database openDatabase(String name, int minPoolSize, int maxPoolSize,
+     * long timeoutMillis, int statementCacheSize) </p>
+     *
+     * <p> Description: Opens a Database with a specific statement cache size.</p>
+     */
+	private Database openDatabase(String name, int minPoolSize, int maxPoolSize, long timeoutMillis,
+			int statementCacheSize) throws SQLException {
+		String url = "jdbc:h2:" + tempDir.resolve(name).toAbsolutePath();
+		Database database = new Database(url, minPoolSize, maxPoolSize, timeoutMillis, statementCacheSize);
+		database.connectToDatabase();
+		openDatabases.add(database);
+		return database;
+	}
+}
@@ -2,15 +2,34 @@ package database;
 
 import java.sql.*;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import entityClasses.User;
+import entityClasses.Invitation;
+import entityClasses.LoginSession;
+import entityClasses.UserProfile;
 import entityClasses.Post;
 import entityClasses.Reply;
 import entityClasses.Parameter;
@@ -49,9 +68,106 @@ public class Database {
 	static final String USER = "sa"; 
 	static final String PASS = ""; 
 
+	// Connection pool defaults.  A small pool lets a long read (e.g., loadAllPosts) run while a
+	// write (e.g., saveReply) still goes through, without opening a connection per call.
+	public static final int DEFAULT_MIN_POOL_SIZE = 2;
+	public static final int DEFAULT_MAX_POOL_SIZE = 8;
+	public static final long DEFAULT_CHECKOUT_TIMEOUT_MILLIS = 5000;
+
+	// Bulk writes (savePosts, saveReplies) send this many rows to H2 per executeBatch call
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	// Full table scans (forEachPost and friends) ask the driver for this many rows at a time
+	public static final int STREAM_FETCH_SIZE = 500;
+
+	// The most user profiles kept in memory; the least recently used one is dropped first
+	public static final int PROFILE_CACHE_SIZE = 256;
+
+	// The most post bodies kept in memory for post headers; the least recently used is dropped first
+	public static final int POST_BODY_CACHE_SIZE = 64;
+
+	// The roles an invitation may be for, as spelled in the InvitationCodes table
+	public static final List<String> INVITATION_ROLES =
+			Collections.unmodifiableList(Arrays.asList("Admin", "Student", "Staff"));
+
+	// Invitation codes: 31^6 (about 887 million) possible codes
+	private static final int INVITATION_CODE_LENGTH = 6;
+	private static final String INVITATION_CODE_ALPHABET = "abcdefghjkmnpqrstuvwxyz23456789";
+	private static final int MAX_CODE_ATTEMPTS = 5;
+	// Post and reply IDs: blocks drawn before giving up when rows saved with explicit IDs keep taking them
+	private static final int MAX_ID_ATTEMPTS = 3;
+	private static final SecureRandom CODE_RANDOM = new SecureRandom();
+	private static final Pattern EMAIL_PATTERN = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+
+	// SQLSTATE for a duplicate key
+	private static final String UNIQUE_VIOLATION = "23505";
+
 	//  Shared variables used within this class
-	private Connection connection = null;		// Singleton to access the database 
-	private Statement statement = null;			// The H2 Statement is used to construct queries
+	private final String databaseUrl;
+	private final int minPoolSize;
+	private final int maxPoolSize;
+	private final long checkoutTimeoutMillis;
+	private final int statementCacheSize;
+	private ConnectionPool connectionPool = null;	// Every query borrows a connection from here
+	private final SchemaMigrator schemaMigrator = new SchemaMigrator();
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	// The connection of the transaction block the calling thread is in, if any
+	private final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+	// The operation whose inTransaction call opened that block
+	private final ThreadLocal<String> transactionOperation = new ThreadLocal<>();
+	// For each open transaction block, a row version below every version it can write; see
+	// settledForumVersion
+	private final Map<Object, Long> openTransactionFloors = new ConcurrentHashMap<>();
+	// The highest forum row version known to have been handed out
+	private final AtomicLong allocatedForumVersion = new AtomicLong();
+	// Latency, rows and errors of every operation; see QueryMetrics
+	private final QueryMetrics queryMetrics = new QueryMetrics();
+	private SlowQueryLog slowQueryLog = null;	// Started by startSlowQueryLog
+	private WriteBehindQueue writeBehindQueue = null;	// Created on first use, drained on close
+	private ArchiveCompactor archiveCompactor = null;	// Started by startArchiveCompaction
+	// The session of the logged-in user, dropped whenever that user's row is written
+	private volatile LoginSession currentSession = null;
+	// Draws the random invitation codes; replaced only by tests
+	private Supplier<String> invitationCodeSource = Database::newInvitationCode;
+	// The post and reply IDs reserved from their sequences and not yet handed out; see allocateId
+	private final IdBlock postIdBlock = new IdBlock();
+	private final IdBlock replyIdBlock = new IdBlock();
+
+	// User profiles by username.  Profiles are read outside the cache's lock, and a profile read
+	// before an update is never cached after that update; see ReadThroughCache.
+	private final ReadThroughCache<UserProfile> profileCache = new ReadThroughCache<>(PROFILE_CACHE_SIZE);
+
+	// Post bodies by postId, filled by loadPostBody and cleared by post writes.  Bodies are read
+	// outside the cache's lock, and a body read before a save is never cached after it.
+	private final ReadThroughCache<String> postBodyCache = new ReadThroughCache<>(POST_BODY_CACHE_SIZE);
+
+	// Builds one entity from the current row of a ResultSet
+	@FunctionalInterface
+	private interface RowParser<T> {
+		T parse(ResultSet rs) throws SQLException;
+	}
+
+	// IDs next up to limit, exclusive, are reserved for this object.  Guarded by itself.
+	private static class IdBlock {
+		private long next = 0;
+		private long limit = 0;
+	}
+
+	/*******
+	 * <p> Title: TransactionBlock Interface. </p>
+	 * 
+	 * <p> Description: The work done inside inTransaction.  Every Database call the block makes
+	 * on the same thread joins the transaction.</p>
+	 */
+	@FunctionalInterface
+	public interface TransactionBlock {
+		/*******
+		 * <p> Method: void run() </p>
+		 * 
+		 * @throws SQLException to roll the transaction back
+		 */
+		void run() throws SQLException;
+	}
 	
 	// These are the easily accessible attributes of the currently logged-in user
 	// This is only useful for single user applications
@@ -74,7 +190,58 @@ public class Database {
 	 */
 	
 	public Database () {
-		
+		this(DB_URL, DEFAULT_MIN_POOL_SIZE, DEFAULT_MAX_POOL_SIZE, DEFAULT_CHECKOUT_TIMEOUT_MILLIS);
+	}
+	
+	
+	/*******
+	 * <p> Method: Database(String databaseUrl, int minPoolSize, int maxPoolSize,
+	 * long checkoutTimeoutMillis) </p>
+	 * 
+	 * <p> Description: Establish a Database for a specific H2 URL and connection pool size.  This
+	 * is used by tests and tools that must not touch the user's real database file.</p>
+	 * 
+	 * @param databaseUrl the JDBC URL of the H2 database
+	 * 
+	 * @param minPoolSize the number of connections opened by connectToDatabase
+	 * 
+	 * @param maxPoolSize the largest number of connections that may be in use at once
+	 * 
+	 * @param checkoutTimeoutMillis how long a query waits for a free connection before failing
+	 * 
+	 */
+	public Database (String databaseUrl, int minPoolSize, int maxPoolSize, long checkoutTimeoutMillis) {
+		this(databaseUrl, minPoolSize, maxPoolSize, checkoutTimeoutMillis,
+				ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+	}
+	
+	
+	/*******
+	 * <p> Method: Database(String databaseUrl, int minPoolSize, int maxPoolSize,
+	 * long checkoutTimeoutMillis, int statementCacheSize) </p>
+	 * 
+	 * <p> Description: As above, but also sets how many parsed PreparedStatements each pooled
+	 * connection keeps.  A size of 0 turns the statement cache off, which is useful when
+	 * measuring what the cache saves.</p>
+	 * 
+	 * @param databaseUrl the JDBC URL of the H2 database
+	 * 
+	 * @param minPoolSize the number of connections opened by connectToDatabase
+	 * 
+	 * @param maxPoolSize the largest number of connections that may be in use at once
+	 * 
+	 * @param checkoutTimeoutMillis how long a query waits for a free connection before failing
+	 * 
+	 * @param statementCacheSize the number of prepared statements cached per connection
+	 * 
+	 */
+	public Database (String databaseUrl, int minPoolSize, int maxPoolSize, long checkoutTimeoutMillis,
+			int statementCacheSize) {
+		this.databaseUrl = databaseUrl;
+		this.minPoolSize = minPoolSize;
+		this.maxPoolSize = maxPoolSize;
+		this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+		this.statementCacheSize = statementCacheSize;
 	}
 	
 	
@@ -88,14 +255,24 @@ public class Database {
  * 
  */
 	public void connectToDatabase() throws SQLException {
+		if (connectionPool != null && !connectionPool.isClosed()) return;	// Already connected
 		try {
 			Class.forName(JDBC_DRIVER); // Load the JDBC driver
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
-			statement = connection.createStatement(); 
-			// You can use this command to clear the database and restart from fresh.
-			//statement.execute("DROP ALL OBJECTS");
+			connectionPool = new ConnectionPool(databaseUrl, USER, PASS, minPoolSize, maxPoolSize,
+					checkoutTimeoutMillis, statementCacheSize);
+			try (Connection connection = getConnection()) {
+				// You can use this command to clear the database and restart from fresh.
+				//connection.createStatement().execute("DROP ALL OBJECTS");
 
-			createTables();  // Create the necessary tables if they don't exist
+				// Create or upgrade the tables; this is a single query when the schema is current
+				schemaMigrator.migrate(connection);
+				System.out.println(schemaMigrator.getReport());
+			} catch (SQLException e) {
+				// Do not leave a pool behind for a database whose schema could not be brought up
+				connectionPool.close();
+				connectionPool = null;
+				throw e;
+			}
 		} catch (ClassNotFoundException e) {
 			System.err.println("JDBC Driver not found: " + e.getMessage());
 		}
@@ -103,139 +280,369 @@ public class Database {
 
 	
 /*******
- * <p> Method: createTables </p>
+ * <p> Method: getConnection </p>
  * 
- * <p> Description: Used to create new instances of the two database tables used by this class.</p>
+ * <p> Description: Borrow a connection from the pool.  Closing the returned connection gives it
+ *		back to the pool, so callers use it in a try-with-resources block.</p>
+ *
+ * @return a pooled connection to the database
+ * 
+ * @throws SQLException when not connected or no connection became free before the timeout
  * 
  */
-	private void createTables() throws SQLException {
-		// Create the user database
-		String userTable = "CREATE TABLE IF NOT EXISTS userDB ("
-				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
-				+ "userName VARCHAR(255) UNIQUE, "
-				+ "password VARCHAR(255), "
-				+ "firstName VARCHAR(255), "
-				+ "middleName VARCHAR(255), "
-				+ "lastName VARCHAR (255), "
-				+ "preferredFirstName VARCHAR(255), "
-				+ "emailAddress VARCHAR(255), "
-				+ "adminRole BOOL DEFAULT FALSE, "
-				+ "newStudent BOOL DEFAULT FALSE, "
-				+ "newStaff BOOL DEFAULT FALSE)";
-		statement.execute(userTable);
-		
-		// Ensure one-time password column exists (for older DBs)
-        try { statement.execute("ALTER TABLE userDB ADD COLUMN IF NOT EXISTS oneTimePassword VARCHAR(255)"); }
-        catch (SQLException e) { /* ignore */ }
-		
-		// Create the invitation codes table
-	    String invitationCodesTable = "CREATE TABLE IF NOT EXISTS InvitationCodes ("
-	            + "code VARCHAR(10) PRIMARY KEY, "
-	    		+ "emailAddress VARCHAR(255), "
-	            + "role VARCHAR(10))";
-	    statement.execute(invitationCodesTable);
-	 // Create the posts table
-	    String postsTable = "CREATE TABLE IF NOT EXISTS postsDB ("
-	            + "postId VARCHAR(50) PRIMARY KEY, "
-	            + "title VARCHAR(100), "
-	            + "body VARCHAR(5000), "
-	            + "authorUsername VARCHAR(255), "
-	            + "thread VARCHAR(100), "
-	            + "createdAt TIMESTAMP, "
-	            + "lastEditedAt TIMESTAMP, "
-	            + "isDeleted BOOLEAN DEFAULT FALSE)";
-	    statement.execute(postsTable);
-	    
-	 // Create the threads table
-	    String threadsTable = "CREATE TABLE IF NOT EXISTS threadsDB ("
-	            + "threadId VARCHAR(50) PRIMARY KEY, "
-	            + "title VARCHAR(100), "
-	            + "description VARCHAR(500), "
-	            + "status VARCHAR(10) DEFAULT 'OPEN', "
-	            + "createdByUsername VARCHAR(255), "
-	            + "createdAt TIMESTAMP)";
-	    statement.execute(threadsTable);
-	    
-	    // Create the requests table
-	    String requestsTable = "CREATE TABLE IF NOT EXISTS requestsDB ("
-	            + "requestId VARCHAR(50) PRIMARY KEY, "
-	            + "title VARCHAR(200), "
-	            + "description VARCHAR(2000), "
-	            + "category VARCHAR(50), "
-	            + "status VARCHAR(10) DEFAULT 'OPEN', "
-	            + "createdByUsername VARCHAR(255), "
-	            + "closedByUsername VARCHAR(255), "
-	            + "resolutionNotes VARCHAR(2000), "
-	            + "reopenReason VARCHAR(1000), "
-	            + "originalRequestId VARCHAR(50), "
-	            + "createdAt TIMESTAMP, "
-	            + "closedAt TIMESTAMP, "
-	            + "reopenedAt TIMESTAMP)";
-	    statement.execute(requestsTable);
-	    
-	    // Create the replies table
-	    String repliesTable = "CREATE TABLE IF NOT EXISTS repliesDB ("
-	            + "replyId VARCHAR(50) PRIMARY KEY, "
-	            + "body VARCHAR(3000), "
-	            + "authorUsername VARCHAR(255), "
-	            + "parentPostId VARCHAR(50), "
-	            + "createdAt TIMESTAMP, "
-	            + "lastEditedAt TIMESTAMP, "
-	            + "isDeleted BOOLEAN DEFAULT FALSE, "
-	            + "isRead BOOLEAN DEFAULT FALSE, "
-	            + "isFeedback BOOLEAN DEFAULT FALSE)";
-	    statement.execute(repliesTable);
-	    
-	 // Add isFeedback column to existing table if it doesn't exist (for backward compatibility)
-	    try {
-	        statement.execute("ALTER TABLE repliesDB ADD COLUMN IF NOT EXISTS isFeedback BOOLEAN DEFAULT FALSE");
-	    } catch (SQLException e) {
-	        // Column may already exist, ignore
-	    }
-	    
-	    
-	 // Create the grading parameters table
-	    String parametersTable = "CREATE TABLE IF NOT EXISTS gradingParametersDB ("
-	            + "parameterId VARCHAR(50) PRIMARY KEY, "
-	            + "name VARCHAR(100), "
-	            + "description VARCHAR(500), "
-	            + "isActive BOOLEAN DEFAULT TRUE, "
-	            + "createdByUsername VARCHAR(255), "
-	            + "createdAt TIMESTAMP, "
-	            + "requiredPosts INT DEFAULT 0, "
-	            + "requiredReplies INT DEFAULT 0, "
-	            + "topics VARCHAR(2000), "
-	            + "threadId VARCHAR(255) NOT NULL, "
-	            + "categories VARCHAR(5000))";
-	    statement.execute(parametersTable);
-	    
-	 // Add new columns to existing table if they don't exist (for backward compatibility)
-	    try {
-	        statement.execute("ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS requiredPosts INT DEFAULT 0");
-	        statement.execute("ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS requiredReplies INT DEFAULT 0");
-	        statement.execute("ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS topics VARCHAR(2000)");
-	        statement.execute("ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS threadId VARCHAR(255)");
-	        statement.execute("ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS categories VARCHAR(5000)");
-	        // Remove isTemplate column if it exists (no longer needed)
-	        try {
-	            statement.execute("ALTER TABLE gradingParametersDB DROP COLUMN isTemplate");
-	        } catch (SQLException e) { /* Column may not exist, ignore */ }
-	    } catch (SQLException e) {
-	        // Columns may already exist, ignore
-	    }
-	    
-	    // Create parameter categories table
-	    String parameterCategoriesTable = "CREATE TABLE IF NOT EXISTS parameterCategoriesDB ("
-	            + "categoryId VARCHAR(50) PRIMARY KEY, "
-	            + "parameterId VARCHAR(50) NOT NULL, "
-	            + "categoryName VARCHAR(100), "
-	            + "weight DOUBLE, "
-	            + "categoryOrder INT, "
-	            + "FOREIGN KEY (parameterId) REFERENCES gradingParametersDB(parameterId) ON DELETE CASCADE)";
-	    statement.execute(parameterCategoriesTable);
+	protected Connection getConnection() throws SQLException {
+		return getConnection(queryMetrics.isEnabled() ? callingOperation() : null);
+	}
+
+	// With a null operation the connection is not timed
+	private Connection getConnection(String operation) throws SQLException {
+		if (connectionPool == null) {
+			throw new SQLException("Not connected to the database");
+		}
+		Connection transaction = transactionConnection.get();
+		if (transaction != null) {
+			// Inside inTransaction: every query shares the block's connection
+			Connection shared = ConnectionPool.shared(transaction);
+			// The block's own queries are already timed as part of the call that opened it
+			if (operation == null || operation.equals(transactionOperation.get())) return shared;
+			return queryMetrics.instrument(operation, () -> shared);
+		}
+		if (operation == null) return connectionPool.getConnection();
+		return queryMetrics.instrument(operation, connectionPool::getConnection);
+	}
+
+	private static final StackWalker STACK_WALKER =
+			StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+	/*
+	 * The outermost Database method of the calls that led here, which is the public method the
+	 * caller asked for.  Lambdas count as the method they are written in.
+	 */
+	private static String callingOperation() {
+		return STACK_WALKER.walk(frames -> frames
+				.takeWhile(frame -> Database.class.isAssignableFrom(frame.getDeclaringClass()))
+				.reduce((inner, outer) -> outer)
+				.map(frame -> {
+					String method = frame.getMethodName();
+					if (method.startsWith("lambda$")) {
+						method = method.substring("lambda$".length(), method.lastIndexOf('$'));
+					}
+					return method;
+				})
+				.orElse("unknown"));
+	}
+
+	
+/*******
+ * <p> Method: getQueryMetrics </p>
+ * 
+ * <p> Description: The call counts, latency percentiles, rows and errors of every Database
+ *		operation made while the metrics were enabled.  They are off until setEnabled(true).</p>
+ *
+ * @return the query metrics of this database
+ * 
+ */
+	public QueryMetrics getQueryMetrics() {
+		return queryMetrics;
+	}
+
+	
+/*******
+ * <p> Method: startSlowQueryLog(Path file, long thresholdMillis) </p>
+ * 
+ * <p> Description: Writes every statement that takes at least the threshold to a log file,
+ *		with its parameters, row count and plan, keeping the default number of files of the
+ *		default size.  See SlowQueryLog.</p>
+ *
+ * @param file the log file
+ * @param thresholdMillis the time at which a statement is logged
+ * @return the running log
+ * 
+ */
+	public SlowQueryLog startSlowQueryLog(Path file, long thresholdMillis) {
+		return startSlowQueryLog(file, thresholdMillis, SlowQueryLog.DEFAULT_MAX_FILE_BYTES,
+				SlowQueryLog.DEFAULT_FILE_COUNT);
+	}
+
+	
+/*******
+ * <p> Method: startSlowQueryLog(Path file, long thresholdMillis, long maxFileBytes, int fileCount) </p>
+ * 
+ * <p> Description: As above, with a specific file size and number of files.  A log that is
+ *		already running is closed first.  Statements are only seen while the query metrics are
+ *		enabled, and the log is closed when the database is.</p>
+ *
+ * @param file the log file
+ * @param thresholdMillis the time at which a statement is logged
+ * @param maxFileBytes the size at which the file is rotated
+ * @param fileCount the number of files kept, counting the current one
+ * @return the running log
+ * 
+ */
+	public SlowQueryLog startSlowQueryLog(Path file, long thresholdMillis, long maxFileBytes, int fileCount) {
+		SlowQueryLog previous;
+		// Plans are captured on untimed connections, so capturing one is never itself logged
+		SlowQueryLog log = new SlowQueryLog(file, thresholdMillis, maxFileBytes, fileCount,
+				() -> getConnection(null));
+		synchronized (this) {
+			previous = slowQueryLog;
+			slowQueryLog = log;
+			queryMetrics.setSlowQueryLog(log);
+		}
+		if (previous != null) previous.close();
+		return log;
+	}
+
+	
+/*******
+ * <p> Method: getSlowQueryLog </p>
+ * 
+ * @return the running slow query log, or null if none was started
+ * 
+ */
+	public synchronized SlowQueryLog getSlowQueryLog() {
+		return slowQueryLog;
+	}
+
+	
+/*******
+ * <p> Method: inTransaction </p>
+ * 
+ * <p> Description: Run a block of Database calls as one transaction.  The calls share a single
+ *		pooled connection with auto-commit off; the transaction commits when the block returns
+ *		and rolls back if it throws.  A block started inside another block simply joins the
+ *		outer transaction.</p>
+ *
+ * @param block the Database calls to run, e.g. () -> { savePost(post); saveReply(reply); }
+ * 
+ * @throws SQLException when the block or the commit fails; nothing the block wrote is kept
+ * 
+ */
+	public void inTransaction(TransactionBlock block) throws SQLException {
+		if (transactionConnection.get() != null) {
+			block.run();
+			return;
+		}
+		String operation = queryMetrics.isEnabled() ? callingOperation() : null;
+		// Every row version this block writes is handed out after this point
+		Object token = new Object();
+		openTransactionFloors.put(token, allocatedForumVersion.get());
+		try (Connection connection = getConnection(operation)) {
+			connection.setAutoCommit(false);
+			transactionConnection.set(connection);
+			transactionOperation.set(operation);
+			try {
+				block.run();
+				connection.commit();
+			} catch (SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				transactionConnection.remove();
+				transactionOperation.remove();
+				connection.setAutoCommit(true);
+			}
+		} finally {
+			openTransactionFloors.remove(token);
+		}
+	}
+
+	
+/*******
+ * <p> Method: getBatchSize </p>
+ * 
+ * <p> Description: The number of rows savePosts and saveReplies send per executeBatch call.</p>
+ *
+ * @return the batch size
+ * 
+ */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	
+/*******
+ * <p> Method: setBatchSize </p>
+ * 
+ * <p> Description: Set the number of rows savePosts and saveReplies send per executeBatch call.
+ *		Larger batches mean fewer round trips but more memory held by the driver.</p>
+ *
+ * @param batchSize the batch size; must be at least 1
+ * 
+ */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	
+/*******
+ * <p> Method: forEachRow </p>
+ * 
+ * <p> Description: Run a query and hand each row to a consumer as soon as it is read, without
+ *		collecting the rows in a list first.  The query runs with H2's lazy query execution, so
+ *		H2 also produces the rows as they are read instead of building the whole result before
+ *		the first one is returned.  The consumer runs while the connection is borrowed, so it
+ *		should only store or count the rows it gets.</p>
+ *
+ * @return the number of rows handed to the consumer
+ * 
+ */
+	private <T> int forEachRow(String query, RowParser<T> parser, Consumer<? super T> consumer)
+			throws SQLException {
+		int count = 0;
+		try (Connection connection = getConnection()) {
+			setLazyQueryExecution(connection, true);
+			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+				pstmt.setFetchSize(STREAM_FETCH_SIZE);
+				ResultSet rs = pstmt.executeQuery();
+				while (rs.next()) {
+					consumer.accept(parser.parse(rs));
+					count++;
+				}
+			} finally {
+				setLazyQueryExecution(connection, false);
+			}
+		}
+		return count;
+	}
+
+	private static void setLazyQueryExecution(Connection connection, boolean lazy) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("SET LAZY_QUERY_EXECUTION " + lazy);
+		}
+	}
+
+	
+/*******
+ * <p> Method: getWriteBehindQueue </p>
+ * 
+ * <p> Description: The queue that writes posts and replies on a background thread, so that the
+ *		JavaFX application thread does not wait for the disk.  It is created on first use.</p>
+ *
+ * @return the write-behind queue of this database
+ * 
+ */
+	public synchronized WriteBehindQueue getWriteBehindQueue() {
+		if (writeBehindQueue == null) {
+			writeBehindQueue = new WriteBehindQueue(this, WriteBehindQueue.DEFAULT_FLUSH_DELAY_MILLIS);
+		}
+		return writeBehindQueue;
+	}
+
+	
+/*******
+ * <p> Method: startArchiveCompaction </p>
+ * 
+ * <p> Description: Starts moving soft-deleted posts and replies into the archive tables on a
+ *		background thread, using the default retention window and interval.</p>
+ *
+ * @return the running compactor
+ * 
+ */
+	public ArchiveCompactor startArchiveCompaction() {
+		return startArchiveCompaction(ArchiveCompactor.DEFAULT_RETENTION, ArchiveCompactor.DEFAULT_INTERVAL_MILLIS);
+	}
+
+	
+/*******
+ * <p> Method: startArchiveCompaction(Duration retention, long intervalMillis) </p>
+ * 
+ * <p> Description: As above, with a specific retention window and interval.  A compactor that
+ *		is already running is stopped first.  The compactor stops when the database is closed.</p>
+ *
+ * @param retention how long a row stays soft-deleted before it is archived
+ * @param intervalMillis the time between runs
+ * @return the running compactor
+ * 
+ */
+	public ArchiveCompactor startArchiveCompaction(Duration retention, long intervalMillis) {
+		ArchiveCompactor previous;
+		ArchiveCompactor compactor = new ArchiveCompactor(this, retention, intervalMillis);
+		synchronized (this) {
+			previous = archiveCompactor;
+			archiveCompactor = compactor;
+		}
+		if (previous != null) previous.close();
+		return compactor;
+	}
+
+	
+/*******
+ * <p> Method: getArchiveCompactor </p>
+ * 
+ * @return the running archive compactor, or null if none was started
+ * 
+ */
+	public synchronized ArchiveCompactor getArchiveCompactor() {
+		return archiveCompactor;
+	}
+
+	
+/*******
+ * <p> Method: flushQueuedWrites </p>
+ * 
+ * <p> Description: Waits until every write queued on the write-behind queue is in the database.
+ *		Call before reading back rows that may still be queued.</p>
+ * 
+ */
+	public void flushQueuedWrites() {
+		WriteBehindQueue queue;
+		synchronized (this) {
+			queue = writeBehindQueue;
+		}
+		if (queue != null) queue.flush();
+	}
+
+	
+/*******
+ * <p> Method: getConnectionPool </p>
+ * 
+ * <p> Description: Give access to the connection pool so its metrics (active, idle, wait time,
+ *		statement cache hits and misses) can be reported.</p>
+ *
+ * @return the connection pool, or null if connectToDatabase has not been called
+ * 
+ */
+	public ConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+
+/*******
+ * <p> Method: getSchemaMigrator </p>
+ * 
+ * <p> Description: Give access to the schema migrator so the schema version and how long the
+ *		startup migrations took can be reported.</p>
+ *
+ * @return the schema migrator used by connectToDatabase
+ * 
+ */
+	public SchemaMigrator getSchemaMigrator() {
+		return schemaMigrator;
 	}
 
 
+/*******
+ * <p> Method: adviseIndexes </p>
+ * 
+ * <p> Description: Run the index advisor over the filtered Database queries and return, for each
+ *		one, the plan H2 would use and whether it scans a whole table.</p>
+ *
+ * @return one finding per advised query
+ * 
+ * @throws SQLException if a query cannot be explained
+ * 
+ */
+	public List<IndexAdvisor.Finding> adviseIndexes() throws SQLException {
+		try (Connection connection = getConnection()) {
+			return IndexAdvisor.withDefaultQueries().analyze(connection);
+		}
+	}
+
+	
 /*******
  * <p> Method: isDatabaseEmpty </p>
  * 
@@ -246,7 +653,7 @@ public class Database {
  */
 	public boolean isDatabaseEmpty() {
 		String query = "SELECT COUNT(*) AS count FROM userDB";
-		try {
+		try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
 			ResultSet resultSet = statement.executeQuery(query);
 			if (resultSet.next()) {
 				return resultSet.getInt("count") == 0;
@@ -268,7 +675,7 @@ public class Database {
  */
 	public int getNumberOfUsers() {
 		String query = "SELECT COUNT(*) AS count FROM userDB";
-		try {
+		try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
 			ResultSet resultSet = statement.executeQuery(query);
 			if (resultSet.next()) {
 				return resultSet.getInt("count");
@@ -293,7 +700,7 @@ public class Database {
 		String insertUser = "INSERT INTO userDB (userName, password, firstName, middleName, "
 				+ "lastName, preferredFirstName, emailAddress, adminRole, newStudent, newStaff) "
 				+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
 			currentUsername = user.getUserName();
 			pstmt.setString(1, currentUsername);
 			
@@ -329,6 +736,67 @@ public class Database {
 		
 	}
 	
+	/*******
+	 * <p> Method: void registerUsers(Collection&lt;User&gt; users) </p>
+	 * 
+	 * <p> Description: Creates many accounts in one transaction, sending them to the database in
+	 * batches of getBatchSize() rows.  Either every account is created or none is.  Unlike
+	 * register, this does not change the current user attributes.</p>
+	 * 
+	 * @param users the accounts to create
+	 * 
+	 * @throws SQLException if any account cannot be created (e.g., its userName is taken)
+	 * 
+	 */
+	public void registerUsers(Collection<User> users) throws SQLException {
+		if (users.isEmpty()) return;
+		String insertUser = "INSERT INTO userDB (userName, password, firstName, middleName, "
+				+ "lastName, preferredFirstName, emailAddress, adminRole, newStudent, newStaff) "
+				+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+		inTransaction(() -> {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+				int pending = 0;
+				for (User user : users) {
+					pstmt.setString(1, user.getUserName());
+					pstmt.setString(2, user.getPassword());
+					pstmt.setString(3, user.getFirstName());
+					pstmt.setString(4, user.getMiddleName());
+					pstmt.setString(5, user.getLastName());
+					pstmt.setString(6, user.getPreferredFirstName());
+					pstmt.setString(7, user.getEmailAddress());
+					pstmt.setBoolean(8, user.getAdminRole());
+					pstmt.setBoolean(9, user.getNewStudent());
+					pstmt.setBoolean(10, user.getNewStaff());
+					pstmt.addBatch();
+					if (++pending == batchSize) {
+						pstmt.executeBatch();
+						pending = 0;
+					}
+				}
+				if (pending > 0) pstmt.executeBatch();
+			}
+		});
+	}
+	
+	
+	/*******
+	 * <p> Method: Set&lt;String&gt; loadUserNames() </p>
+	 * 
+	 * <p> Description: Reads every userName with one query, so a bulk import can reject the
+	 * names that are taken without asking about each one.</p>
+	 * 
+	 * @return the userNames of all accounts
+	 * 
+	 * @throws SQLException if a database error occurs
+	 * 
+	 */
+	public Set<String> loadUserNames() throws SQLException {
+		Set<String> userNames = new HashSet<>();
+		forEachRow("SELECT userName FROM userDB", rs -> rs.getString(1), userNames::add);
+		return userNames;
+	}
+	
+	
 /*******
  *  <p> Method: List getUserList() </p>
  *  
@@ -341,7 +809,7 @@ public class Database {
 		List<String> userList = new ArrayList<String>();
 		userList.add("<Select a User>");
 		String query = "SELECT userName FROM userDB";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 			ResultSet rs = pstmt.executeQuery();
 			while (rs.next()) {
 				userList.add(rs.getString("userName"));
@@ -359,28 +827,125 @@ public class Database {
 		return userList;
 	}
 
-/*******
- * <p> Method: boolean loginAdmin(User user) </p>
- * 
- * <p> Description: Check to see that a user with the specified username, password, and role
- * 		is the same as a row in the table for the username, password, and role. </p>
- * 
- * @param user specifies the specific user that should be logged in playing the Admin role.
- * 
- * @return true if the specified user has been logged in as an Admin else false.
- * 
- */
-	public boolean loginAdmin(User user){
-		// Validates an admin user's login credentials so the user can login in as an Admin.
-		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
-				+ "adminRole = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, user.getUserName());
-			pstmt.setString(2, user.getPassword());
-			ResultSet rs = pstmt.executeQuery();
-			return rs.next();	// If a row is returned, rs.next() will return true		
-		} catch  (SQLException e) {
-	        e.printStackTrace();
+	/*******
+	 * <p> Method: LoginSession authenticate(String username, String password) </p>
+	 * 
+	 * <p> Description: Check a username and password and, if they match, establish the current
+	 *		session.  The account, its roles as a bitmask, and its one-time password are read by
+	 *		one query on the unique userName index; the password may match either the account
+	 *		password or the one-time password.  The session is kept until logout or until the
+	 *		user's row is written, and while it is kept getUserAccountDetails for that user is
+	 *		answered from it.</p>
+	 * 
+	 * @param username is the username entered on the login page
+	 * 
+	 * @param password is the password entered on the login page
+	 * 
+	 * @return the new session, or null if the username and password do not match an account
+	 *  
+	 */
+	public LoginSession authenticate(String username, String password) {
+		String query = "SELECT userName, password, firstName, middleName, lastName, "
+				+ "preferredFirstName, emailAddress, adminRole, newStudent, newStaff, oneTimePassword, "
+				+ "CASEWHEN(adminRole, " + LoginSession.ROLE_ADMIN + ", 0) "
+				+ "+ CASEWHEN(newStudent, " + LoginSession.ROLE_STUDENT + ", 0) "
+				+ "+ CASEWHEN(newStaff, " + LoginSession.ROLE_STAFF + ", 0) AS roles "
+				+ "FROM userDB WHERE userName = ?";
+		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+			pstmt.setString(1, username);
+	        ResultSet rs = pstmt.executeQuery();
+	        if (!rs.next() || password == null) return null;
+	        String otp = rs.getString("oneTimePassword");
+	        boolean usingOtp = otp != null && otp.length() > 0 && password.equals(otp);
+	        if (!usingOtp && !password.equals(rs.getString("password"))) return null;
+	        
+	        User user = new User(rs.getString("userName"), rs.getString("password"),
+	        		rs.getString("firstName"), rs.getString("middleName"), rs.getString("lastName"),
+	        		rs.getString("preferredFirstName"), rs.getString("emailAddress"),
+	        		rs.getBoolean("adminRole"), rs.getBoolean("newStudent"), rs.getBoolean("newStaff"));
+	        LoginSession session = new LoginSession(user, rs.getInt("roles"), usingOtp);
+	        setCurrentUser(user);
+	        currentSession = session;
+	        return session;
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	        return null;
+	    }
+	}
+	
+	
+	/*******
+	 * <p> Method: LoginSession getCurrentSession() </p>
+	 * 
+	 * <p> Description: Get the session established by the last authenticate call.</p>
+	 * 
+	 * @return the current session, or null if no one is logged in or the logged-in user's row
+	 *		has been written since
+	 *  
+	 */
+	public LoginSession getCurrentSession() { return currentSession; }
+	
+	
+	/*******
+	 * <p> Method: void endSession() </p>
+	 * 
+	 * <p> Description: Drop the current session when the user logs out.</p>
+	 *  
+	 */
+	public void endSession() { currentSession = null; }
+	
+	
+	/*
+	 * Drop the current session if it belongs to a user whose row was just written, so it is
+	 * never used with stale names, password, or roles.
+	 */
+	private void endSessionFor(String username) {
+		LoginSession session = currentSession;
+		if (session != null && session.getUser().getUserName().equals(username)) {
+			currentSession = null;
+		}
+	}
+	
+	
+	/*
+	 * Copy an account into the current user attributes.
+	 */
+	private void setCurrentUser(User user) {
+		currentUsername = user.getUserName();
+		currentPassword = user.getPassword();
+		currentFirstName = user.getFirstName();
+		currentMiddleName = user.getMiddleName();
+		currentLastName = user.getLastName();
+		currentPreferredFirstName = user.getPreferredFirstName();
+		currentEmailAddress = user.getEmailAddress();
+		currentAdminRole = user.getAdminRole();
+		currentNewStudent = user.getNewStudent();
+		currentNewStaff = user.getNewStaff();
+	}
+	
+	
+/*******
+ * <p> Method: boolean loginAdmin(User user) </p>
+ * 
+ * <p> Description: Check to see that a user with the specified username, password, and role
+ * 		is the same as a row in the table for the username, password, and role. </p>
+ * 
+ * @param user specifies the specific user that should be logged in playing the Admin role.
+ * 
+ * @return true if the specified user has been logged in as an Admin else false.
+ * 
+ */
+	public boolean loginAdmin(User user){
+		// Validates an admin user's login credentials so the user can login in as an Admin.
+		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
+				+ "adminRole = TRUE";
+		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+			pstmt.setString(1, user.getUserName());
+			pstmt.setString(2, user.getPassword());
+			ResultSet rs = pstmt.executeQuery();
+			return rs.next();	// If a row is returned, rs.next() will return true		
+		} catch  (SQLException e) {
+	        e.printStackTrace();
 	    }
 		return false;
 	}
@@ -401,7 +966,7 @@ public class Database {
 		// Validates a student user's login credentials.
 		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
 				+ "newStudent = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			ResultSet rs = pstmt.executeQuery();
@@ -427,7 +992,7 @@ public class Database {
 	public boolean loginStaff(User user) {
 		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
 				+ "newStaff = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			ResultSet rs = pstmt.executeQuery();
@@ -452,7 +1017,7 @@ public class Database {
 	// Checks if a user already exists in the database based on their userName.
 	public boolean doesUserExist(String userName) {
 	    String query = "SELECT COUNT(*) FROM userDB WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        
 	        pstmt.setString(1, userName);
 	        ResultSet rs = pstmt.executeQuery();
@@ -494,29 +1059,217 @@ public class Database {
 	 * <p> Description: Given an email address and a roles, this method establishes and invitation
 	 * code and adds a record to the InvitationCodes table.  When the invitation code is used, the
 	 * stored email address is used to establish the new user and the record is removed from the
-	 * table.</p>
+	 * table.  If the random code is already in use, a new one is drawn.</p>
 	 * 
 	 * @param emailAddress specifies the email address for this new user.
 	 * 
 	 * @param role specified the role that this new user will play.
 	 * 
-	 * @return the code of six characters so the new user can use it to securely setup an account.
+	 * @return the code of six characters so the new user can use it to securely setup an account,
+	 * or null if the invitation could not be stored.
 	 * 
 	 */
 	// Generates a new invitation code and inserts it into the database.
 	public String generateInvitationCode(String emailAddress, String role) {
-	    String code = UUID.randomUUID().toString().substring(0, 6); // Generate a random 6-character code
 	    String query = "INSERT INTO InvitationCodes (code, emailaddress, role) VALUES (?, ?, ?)";
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-	        pstmt.setString(1, code);
-	        pstmt.setString(2, emailAddress);
-	        pstmt.setString(3, role);
-	        pstmt.executeUpdate();
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    	for (int attempt = 1; ; attempt++) {
+	    		String code = invitationCodeSource.get();
+	    		pstmt.setString(1, code);
+	    		pstmt.setString(2, emailAddress);
+	    		pstmt.setString(3, role);
+	    		try {
+	    			pstmt.executeUpdate();
+	    			return code;
+	    		} catch (SQLException e) {
+	    			// Draw again only when the code collided with an existing one
+	    			if (!UNIQUE_VIOLATION.equals(e.getSQLState()) || attempt == MAX_CODE_ATTEMPTS) throw e;
+	    		}
+	    	}
 	    } catch (SQLException e) {
 	        e.printStackTrace();
+	        return null;
 	    }
-	    return code;
+	}
+	
+	
+	/*******
+	 * <p> Method: List&lt;InvitationResult&gt; generateInvitationCodes(List&lt;Invitation&gt; roster) </p>
+	 * 
+	 * <p> Description: Invite a whole roster at once.  Every row is checked first: the email
+	 * address must look like name@domain.tld, the role must be one of INVITATION_ROLES (in any
+	 * case), and an email address may not appear twice in the roster or already have an
+	 * outstanding invitation (compared without regard to case).  The codes in use and the emails
+	 * already invited are read with one query, and every new code is drawn to differ from them.
+	 * The new invitations are inserted in one transaction, in batches of getBatchSize() rows.
+	 * If another session stores one of the drawn codes between the read and the insert, the
+	 * transaction is rolled back, new codes are drawn for just the rows whose codes were taken,
+	 * and the insert is tried again, up to MAX_CODE_ATTEMPTS times in all.</p>
+	 * 
+	 * @param roster the email addresses and roles to invite
+	 * 
+	 * @return one result per roster row, in roster order
+	 * 
+	 * @throws SQLException if the invitations cannot be read or written, or the codes kept
+	 * colliding; then none is stored
+	 * 
+	 */
+	public List<InvitationResult> generateInvitationCodes(List<Invitation> roster) throws SQLException {
+		Set<String> codesInUse = new HashSet<>();
+		Set<String> invitedEmails = new HashSet<>();
+		forEachRow("SELECT code, emailAddress FROM InvitationCodes",
+				rs -> new Invitation(rs.getString("emailAddress"), null, rs.getString("code")),
+				existing -> {
+					codesInUse.add(existing.getCode());
+					if (existing.getEmailAddress() != null) {
+						invitedEmails.add(existing.getEmailAddress().trim().toLowerCase());
+					}
+				});
+		
+		List<InvitationResult> results = new ArrayList<>(roster.size());
+		List<Invitation> created = new ArrayList<>();
+		List<Integer> createdRows = new ArrayList<>();
+		Set<String> rosterEmails = new HashSet<>();
+		for (int row = 0; row < roster.size(); row++) {
+			Invitation entry = roster.get(row);
+			String email = entry.getEmailAddress() == null ? "" : entry.getEmailAddress().trim();
+			String role = invitationRole(entry.getRole());
+			InvitationResult.Status status;
+			if (!EMAIL_PATTERN.matcher(email).matches()) {
+				status = InvitationResult.Status.INVALID_EMAIL;
+			} else if (role == null) {
+				status = InvitationResult.Status.INVALID_ROLE;
+			} else if (!rosterEmails.add(email.toLowerCase())) {
+				status = InvitationResult.Status.DUPLICATE;
+			} else if (invitedEmails.contains(email.toLowerCase())) {
+				status = InvitationResult.Status.ALREADY_INVITED;
+			} else {
+				Invitation invitation = new Invitation(email, role, drawUnusedCode(codesInUse));
+				created.add(invitation);
+				createdRows.add(row);
+				results.add(new InvitationResult(row, invitation, InvitationResult.Status.CREATED));
+				continue;
+			}
+			results.add(new InvitationResult(row, entry, status));
+		}
+		
+		if (created.isEmpty()) return results;
+		for (int attempt = 1; ; attempt++) {
+			try {
+				insertInvitations(created);
+				return results;
+			} catch (SQLException e) {
+				if (!isUniqueViolation(e) || attempt == MAX_CODE_ATTEMPTS) throw e;
+			}
+			// Another session stored some of these codes after they were read; draw new ones
+			// for just those rows
+			Set<String> taken = new HashSet<>();
+			forEachRow("SELECT code FROM InvitationCodes", rs -> rs.getString("code"), taken::add);
+			codesInUse.addAll(taken);
+			for (int i = 0; i < created.size(); i++) {
+				Invitation invitation = created.get(i);
+				if (!taken.contains(invitation.getCode())) continue;
+				Invitation redrawn = new Invitation(invitation.getEmailAddress(), invitation.getRole(),
+						drawUnusedCode(codesInUse));
+				created.set(i, redrawn);
+				// There is one result per roster row, in roster order
+				int row = createdRows.get(i);
+				results.set(row, new InvitationResult(row, redrawn, InvitationResult.Status.CREATED));
+			}
+		}
+	}
+	
+	
+	/*
+	 * Inserts the invitations in one transaction, in batches of batchSize rows.
+	 */
+	private void insertInvitations(List<Invitation> invitations) throws SQLException {
+		inTransaction(() -> {
+			String query = "INSERT INTO InvitationCodes (code, emailaddress, role) VALUES (?, ?, ?)";
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+				int pending = 0;
+				for (Invitation invitation : invitations) {
+					pstmt.setString(1, invitation.getCode());
+					pstmt.setString(2, invitation.getEmailAddress());
+					pstmt.setString(3, invitation.getRole());
+					pstmt.addBatch();
+					if (++pending == batchSize) {
+						pstmt.executeBatch();
+						pending = 0;
+					}
+				}
+				if (pending > 0) pstmt.executeBatch();
+			}
+		});
+	}
+	
+	
+	/*
+	 * A new code that is not in codesInUse, which it is then added to.
+	 */
+	private String drawUnusedCode(Set<String> codesInUse) {
+		String code;
+		do {
+			code = invitationCodeSource.get();
+		} while (!codesInUse.add(code));
+		return code;
+	}
+	
+	
+	/*
+	 * Whether the failure is a duplicate key, looking through the causes and the chained
+	 * failures of a batch as well.
+	 */
+	private static boolean isUniqueViolation(SQLException e) {
+		for (SQLException next = e; next != null; next = next.getNextException()) {
+			for (Throwable cause = next; cause != null; cause = cause.getCause()) {
+				if (cause instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	
+	/*******
+	 * <p> Method: void setInvitationCodeSource(Supplier&lt;String&gt; source) </p>
+	 * 
+	 * <p> Description: Replaces the random invitation codes with the given ones, so a test can
+	 * make a code collide on purpose.</p>
+	 * 
+	 * @param source draws each new code
+	 * 
+	 */
+	void setInvitationCodeSource(Supplier<String> source) {
+		this.invitationCodeSource = source;
+	}
+	
+	
+	/*
+	 * The canonical spelling of a role that may be invited, or null if it is not one.
+	 */
+	private static String invitationRole(String role) {
+		if (role == null) return null;
+		for (String known : INVITATION_ROLES) {
+			if (known.equalsIgnoreCase(role.trim())) return known;
+		}
+		return null;
+	}
+	
+	
+	/*
+	 * A random code of INVITATION_CODE_LENGTH characters.  The alphabet leaves out characters that
+	 * are easily misread (0/o, 1/l/i), and a single SecureRandom is shared rather than building a
+	 * UUID string for every code.
+	 */
+	private static String newInvitationCode() {
+		char[] code = new char[INVITATION_CODE_LENGTH];
+		for (int i = 0; i < code.length; i++) {
+			code[i] = INVITATION_CODE_ALPHABET.charAt(CODE_RANDOM.nextInt(INVITATION_CODE_ALPHABET.length()));
+		}
+		return new String(code);
 	}
 
 	
@@ -531,7 +1284,7 @@ public class Database {
 	// Number of invitations in the database
 	public int getNumberOfInvitations() {
 		String query = "SELECT COUNT(*) AS count FROM InvitationCodes";
-		try {
+		try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
 			ResultSet resultSet = statement.executeQuery(query);
 			if (resultSet.next()) {
 				return resultSet.getInt("count");
@@ -556,7 +1309,7 @@ public class Database {
 	// Check to see if an email address is already in the database
 	public boolean emailaddressHasBeenUsed(String emailAddress) {
 	    String query = "SELECT COUNT(*) AS count FROM InvitationCodes WHERE emailAddress = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, emailAddress);
 	        ResultSet rs = pstmt.executeQuery();
 	        System.out.println(rs);
@@ -584,7 +1337,7 @@ public class Database {
 	// Obtain the roles associated with an invitation code.
 	public String getRoleGivenAnInvitationCode(String code) {
 	    String query = "SELECT * FROM InvitationCodes WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -610,7 +1363,7 @@ public class Database {
 	// For a given invitation code, return the associated email address of an empty string
 	public String getEmailAddressUsingCode (String code ) {
 	    String query = "SELECT emailAddress FROM InvitationCodes WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -634,7 +1387,7 @@ public class Database {
 	// Remove an invitation using an email address once the user account has been setup
 	public void removeInvitationAfterUse(String code) {
 	    String query = "SELECT COUNT(*) AS count FROM InvitationCodes WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -658,32 +1411,114 @@ public class Database {
 	
 	
 	/*******
-	 * <p> Method: String getFirstName(String username) </p>
+	 * <p> Method: UserProfile getUserProfile(String username) </p>
 	 * 
-	 * <p> Description: Get the first name of a user given that user's username.</p>
+	 * <p> Description: Get the name and email fields of a user in one query.  Profiles are kept
+	 *		in a least-recently-used cache, so asking again costs no query until the profile is
+	 *		updated or dropped from the cache.</p>
 	 * 
 	 * @param username is the username of the user
 	 * 
-	 * @return the first name of a user given that user's username 
+	 * @return a copy of the user's profile, or null if there is no such user
 	 *  
 	 */
-	// Get the First Name
-	public String getFirstName(String username) {
-		String query = "SELECT firstName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	public UserProfile getUserProfile(String username) {
+		UserProfile profile = profileCache.get(username, this::loadUserProfile);
+		return profile == null ? null : new UserProfile(profile);
+	}
+	
+	private UserProfile loadUserProfile(String username) {
+		String query = "SELECT userName, firstName, middleName, lastName, preferredFirstName, "
+				+ "emailAddress FROM userDB WHERE userName = ?";
+		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 			pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
-	        
 	        if (rs.next()) {
-	            return rs.getString("firstName"); // Return the first name if user exists
+	            return new UserProfile(rs.getString("userName"), rs.getString("firstName"),
+	            		rs.getString("middleName"), rs.getString("lastName"),
+	            		rs.getString("preferredFirstName"), rs.getString("emailAddress"));
 	        }
-			
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
 		return null;
 	}
 	
+	
+	/*******
+	 * <p> Method: boolean updateProfile(UserProfile profile) </p>
+	 * 
+	 * <p> Description: Write every field of a user's profile with one UPDATE statement, and keep
+	 *		the written profile in the cache.</p>
+	 * 
+	 * @param profile is the profile to write; its username selects the user
+	 * 
+	 * @return true if the user exists and was updated, else false
+	 *  
+	 */
+	public boolean updateProfile(UserProfile profile) {
+	    String query = "UPDATE userDB SET firstName = ?, middleName = ?, lastName = ?, "
+	    		+ "preferredFirstName = ?, emailAddress = ? WHERE userName = ?";
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+	        pstmt.setString(1, profile.getFirstName());
+	        pstmt.setString(2, profile.getMiddleName());
+	        pstmt.setString(3, profile.getLastName());
+	        pstmt.setString(4, profile.getPreferredFirstName());
+	        pstmt.setString(5, profile.getEmailAddress());
+	        pstmt.setString(6, profile.getUserName());
+	        int affected = pstmt.executeUpdate();
+	        if (affected > 0) {
+	        	profileCache.put(profile.getUserName(), new UserProfile(profile));
+	        } else {
+	        	profileCache.invalidate(profile.getUserName());
+	        }
+	        if (affected == 0) return false;
+	        endSessionFor(profile.getUserName());
+	        currentFirstName = profile.getFirstName();
+	        currentMiddleName = profile.getMiddleName();
+	        currentLastName = profile.getLastName();
+	        currentPreferredFirstName = profile.getPreferredFirstName();
+	        currentEmailAddress = profile.getEmailAddress();
+	        return true;
+	    } catch (SQLException e) {
+	    	invalidateProfile(profile.getUserName());
+	        e.printStackTrace();
+	        return false;
+	    }
+	}
+	
+	
+	/*******
+	 * <p> Method: void invalidateProfile(String username) </p>
+	 * 
+	 * <p> Description: Drop a user's profile from the cache, and the current session if it is
+	 *		that user's, after a write to its row.</p>
+	 * 
+	 * @param username is the username of the user
+	 *  
+	 */
+	private void invalidateProfile(String username) {
+		profileCache.invalidate(username);
+		endSessionFor(username);
+	}
+	
+	
+	/*******
+	 * <p> Method: String getFirstName(String username) </p>
+	 * 
+	 * <p> Description: Get the first name of a user given that user's username.</p>
+	 * 
+	 * @param username is the username of the user
+	 * 
+	 * @return the first name of a user given that user's username 
+	 *  
+	 */
+	// Get the First Name
+	public String getFirstName(String username) {
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getFirstName();
+	}
+	
 
 	/*******
 	 * <p> Method: void updateFirstName(String username, String firstName) </p>
@@ -699,10 +1534,11 @@ public class Database {
 	// update the first name
 	public void updateFirstName(String username, String firstName) {
 	    String query = "UPDATE userDB SET firstName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, firstName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
+	        invalidateProfile(username);
 	        currentFirstName = firstName;
 	    } catch (SQLException e) {
 	        e.printStackTrace();
@@ -722,18 +1558,8 @@ public class Database {
 	 */
 	// get the middle name
 	public String getMiddleName(String username) {
-		String query = "SELECT MiddleName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getString("middleName"); // Return the middle name if user exists
-	        }
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
-		return null;
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getMiddleName();
 	}
 
 	
@@ -751,10 +1577,11 @@ public class Database {
 	// update the middle name
 	public void updateMiddleName(String username, String middleName) {
 	    String query = "UPDATE userDB SET middleName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, middleName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
+	        invalidateProfile(username);
 	        currentMiddleName = middleName;
 	    } catch (SQLException e) {
 	        e.printStackTrace();
@@ -774,18 +1601,8 @@ public class Database {
 	 */
 	// get he last name
 	public String getLastName(String username) {
-		String query = "SELECT LastName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getString("lastName"); // Return last name role if user exists
-	        }
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
-		return null;
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getLastName();
 	}
 	
 	
@@ -803,10 +1620,11 @@ public class Database {
 	// update the last name
 	public void updateLastName(String username, String lastName) {
 	    String query = "UPDATE userDB SET lastName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, lastName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
+	        invalidateProfile(username);
 	        currentLastName = lastName;
 	    } catch (SQLException e) {
 	        e.printStackTrace();
@@ -826,19 +1644,8 @@ public class Database {
 	 */
 	// get the preferred first name
 	public String getPreferredFirstName(String username) {
-		String query = "SELECT preferredFirstName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getString("firstName"); // Return the preferred first name if user exists
-	        }
-			
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
-		return null;
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getPreferredFirstName();
 	}
 	
 	
@@ -856,10 +1663,11 @@ public class Database {
 	// update the preferred first name of the user
 	public void updatePreferredFirstName(String username, String preferredFirstName) {
 	    String query = "UPDATE userDB SET preferredFirstName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, preferredFirstName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
+	        invalidateProfile(username);
 	        currentPreferredFirstName = preferredFirstName;
 	    } catch (SQLException e) {
 	        e.printStackTrace();
@@ -879,19 +1687,8 @@ public class Database {
 	 */
 	// get the email address
 	public String getEmailAddress(String username) {
-		String query = "SELECT emailAddress FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getString("emailAddress"); // Return the email address if user exists
-	        }
-			
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
-		return null;
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getEmailAddress();
 	}
 	
 	
@@ -909,10 +1706,11 @@ public class Database {
 	// update the email address
 	public void updateEmailAddress(String username, String emailAddress) {
 	    String query = "UPDATE userDB SET emailAddress = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, emailAddress);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
+	        invalidateProfile(username);
 	        currentEmailAddress = emailAddress;
 	    } catch (SQLException e) {
 	        e.printStackTrace();
@@ -923,7 +1721,8 @@ public class Database {
 	/*******
 	 * <p> Method: boolean getUserAccountDetails(String username) </p>
 	 * 
-	 * <p> Description: Get all the attributes of a user given that user's username.</p>
+	 * <p> Description: Get all the attributes of a user given that user's username.  For the
+	 *		user of the current session no query is needed.</p>
 	 * 
 	 * @param username is the username of the user
 	 * 
@@ -932,8 +1731,13 @@ public class Database {
 	 */
 	// get the attributes for a specified user
 	public boolean getUserAccountDetails(String username) {
+		LoginSession session = currentSession;
+		if (session != null && session.getUser().getUserName().equals(username)) {
+			setCurrentUser(session.getUser());
+			return true;
+		}
 		String query = "SELECT * FROM userDB WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 			pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();			
 			rs.next();
@@ -973,10 +1777,11 @@ public class Database {
 	public boolean updateUserRole(String username, String role, String value) {
 		if (role.compareTo("Admin") == 0) {
 			String query = "UPDATE userDB SET adminRole = ? WHERE username = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, value);
 				pstmt.setString(2, username);
 				pstmt.executeUpdate();
+				endSessionFor(username);
 				if (value.compareTo("true") == 0)
 					currentAdminRole = true;
 				else
@@ -988,10 +1793,11 @@ public class Database {
 		}
 		if (role.compareTo("Student") == 0) {
 			String query = "UPDATE userDB SET newStudent = ? WHERE username = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, value);
 				pstmt.setString(2, username);
 				pstmt.executeUpdate();
+				endSessionFor(username);
 				if (value.compareTo("true") == 0)
 					currentNewStudent = true;
 				else
@@ -1003,10 +1809,11 @@ public class Database {
 		}
 		if (role.compareTo("Staff") == 0) {
 			String query = "UPDATE userDB SET newStaff = ? WHERE username = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, value);
 				pstmt.setString(2, username);
 				pstmt.executeUpdate();
+				endSessionFor(username);
 				if (value.compareTo("true") == 0)
 					currentNewStaff = true;
 				else
@@ -1133,9 +1940,10 @@ public class Database {
 	
 	public boolean deleteUser(String username) {
         String query = "DELETE FROM userDB WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, username);
             int affected = pstmt.executeUpdate();
+            invalidateProfile(username);
             return affected > 0;
         } catch (SQLException e) {
             return false;
@@ -1144,12 +1952,28 @@ public class Database {
 	
 	public List<User> getAllUsers() {
         List<User> users = new ArrayList<User>();
+        try {
+            forEachUser(users::add);
+        } catch (SQLException e) {
+            return users;
+        }
+        return users;
+    }
+
+	/*******
+	 * <p> Method: int forEachUser(Consumer<User> consumer) </p>
+	 * 
+	 * <p> Description: Hands every user, ordered by user name, to the consumer as it is read,
+	 * without building a list first.</p>
+	 * 
+	 * @param consumer receives each user
+	 * @return the number of users
+	 * @throws SQLException if a database error occurs
+	 */
+	public int forEachUser(Consumer<? super User> consumer) throws SQLException {
         String query = "SELECT userName, password, firstName, middleName, lastName, " +
                 "preferredFirstName, emailAddress, adminRole, newStudent, newStaff FROM userDB ORDER BY userName";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                User u = new User(
+        return forEachRow(query, rs -> new User(
                     rs.getString("userName"),
                     rs.getString("password"),
                     rs.getString("firstName"),
@@ -1160,13 +1984,7 @@ public class Database {
                     rs.getBoolean("adminRole"),
                     rs.getBoolean("newStudent"),
                     rs.getBoolean("newStaff")
-                );
-                users.add(u);
-            }
-        } catch (SQLException e) {
-            return users;
-        }
-        return users;
+                ), consumer);
     }
 	
 	/***
@@ -1175,10 +1993,12 @@ public class Database {
 	<p> Description: Sets a one-time password value for a user. </p>*/
 	public boolean setOneTimePassword(String username, String otp) {
 	    String query = "UPDATE userDB SET oneTimePassword = ? WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, otp);
 	        pstmt.setString(2, username);
-	        return pstmt.executeUpdate() > 0;} catch (SQLException e) { return false; }}
+	        int n = pstmt.executeUpdate();
+	        endSessionFor(username);
+	        return n > 0;} catch (SQLException e) { return false; }}
 
 	    /***
 	     
@@ -1186,7 +2006,7 @@ public class Database {
 	<p> Description: Returns the one-time password for a user, or null if not set. </p>*/
 	public String getOneTimePassword(String username) {
 	    String query = "SELECT oneTimePassword FROM userDB WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) return rs.getString(1);} catch (SQLException e) { /* ignore */ }
@@ -1197,9 +2017,11 @@ public class Database {
 	<p> Description: Clears the one-time password value for a user. </p>*/
 	public boolean clearOneTimePassword(String username) {
 	    String query = "UPDATE userDB SET oneTimePassword = NULL WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, username);
-	        return pstmt.executeUpdate() > 0;} catch (SQLException e) { return false; }}
+	        int n = pstmt.executeUpdate();
+	        endSessionFor(username);
+	        return n > 0;} catch (SQLException e) { return false; }}
 
 	    /***
 	     
@@ -1207,10 +2029,11 @@ public class Database {
 	<p> Description: Updates the primary password for a user. </p>*/
 	public boolean updatePassword(String username, String newPassword) {
 	    String query = "UPDATE userDB SET password = ? WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, newPassword);
 	        pstmt.setString(2, username);
 	        int n = pstmt.executeUpdate();
+	        endSessionFor(username);
 	        if (n > 0) { currentPassword = newPassword; }
 	        return n > 0;} catch (SQLException e) { return false; }}
 	
@@ -1225,6 +2048,7 @@ public class Database {
 	// Dumps the database.
 	public void dump() throws SQLException {
 		String query = "SELECT * FROM userDB";
+		try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
 		ResultSet resultSet = statement.executeQuery(query);
 		ResultSetMetaData meta = resultSet.getMetaData();
 		while (resultSet.next()) {
@@ -1235,147 +2059,943 @@ public class Database {
 		}
 		System.out.println();
 		}
-		resultSet.close();
-	}
-	
-	// ==================== POST DATABASE METHODS ====================
-	
+		resultSet.close();
+		}
+	}
+	
+	// ==================== POST DATABASE METHODS ====================
+	
+		/*******
+		 * <p> Method: String allocatePostId() </p>
+		 * 
+		 * <p> Description: Hands out the ID of a new post.  IDs come from a database sequence, so
+		 * posts created through different collections, such as the student and staff models,
+		 * never share an ID and never overwrite each other when saved.  The sequence counts in
+		 * steps of SchemaMigrator.ID_BLOCK_SIZE, so each draw reserves a block of IDs that are
+		 * then handed out from memory; only the first call of each block waits for the database.
+		 * An ID that a row saved with an explicit ID already holds is never handed out.  The
+		 * unused IDs of the last block are lost when the application stops, so IDs have gaps.</p>
+		 * 
+		 * @return a new post ID such as POST_42, or null if the database cannot be reached
+		 */
+		public String allocatePostId() {
+			return allocateId(postIdBlock, "post_id_sequence", "POST_", "postId", "postsDB", "postsArchiveDB");
+		}
+		
+		/*******
+		 * <p> Method: String allocateReplyId() </p>
+		 * 
+		 * <p> Description: Hands out the ID of a new reply or feedback, like allocatePostId.</p>
+		 * 
+		 * @return a new reply ID such as REPLY_42, or null if the database cannot be reached
+		 */
+		public String allocateReplyId() {
+			return allocateId(replyIdBlock, "reply_id_sequence", "REPLY_", "replyId", "repliesDB",
+					"repliesArchiveDB");
+		}
+		
+		/*
+		 * The next ID of a block, reserving a new block from the sequence when it is used up.
+		 */
+		private String allocateId(IdBlock block, String sequence, String prefix, String idColumn,
+				String table, String archiveTable) {
+			synchronized (block) {
+				if (block.next == block.limit) {
+					try {
+						block.next = reserveIdBlock(sequence, prefix, idColumn, table, archiveTable);
+					} catch (SQLException e) {
+						e.printStackTrace();
+						return null;
+					}
+					block.limit = block.next + SchemaMigrator.ID_BLOCK_SIZE;
+				}
+				return prefix + block.next++;
+			}
+		}
+		
+		/*
+		 * Draws the next block of an ID sequence that no row of the table or its archive holds
+		 * an ID of, and returns its first value.  If an ID of the block is taken, rows were saved
+		 * with explicit IDs (e.g., seeded data), so the sequence is moved past every ID in use
+		 * and drawn again.  That never moves it back to IDs handed out before, since the taken ID
+		 * is above all of them.
+		 */
+		private long reserveIdBlock(String sequence, String prefix, String idColumn, String table,
+				String archiveTable) throws SQLException {
+			int size = SchemaMigrator.ID_BLOCK_SIZE;
+			String placeholders = String.join(", ", Collections.nCopies(size, "?"));
+			String next = "SELECT NEXT VALUE FOR " + sequence;
+			String taken = "SELECT COUNT(*) FROM " + table + " WHERE " + idColumn + " IN (" + placeholders + ") "
+					+ "UNION ALL SELECT COUNT(*) FROM " + archiveTable + " WHERE " + idColumn + " IN (" + placeholders + ")";
+			try (Connection connection = getConnection();
+					PreparedStatement nextStmt = connection.prepareStatement(next);
+					PreparedStatement takenStmt = connection.prepareStatement(taken)) {
+				for (int attempt = 1; ; attempt++) {
+					ResultSet rs = nextStmt.executeQuery();
+					rs.next();
+					long first = rs.getLong(1);
+					for (int i = 0; i < size; i++) {
+						takenStmt.setString(i + 1, prefix + (first + i));
+						takenStmt.setString(size + i + 1, prefix + (first + i));
+					}
+					boolean inUse = false;
+					ResultSet counts = takenStmt.executeQuery();
+					while (counts.next()) {
+						inUse |= counts.getLong(1) > 0;
+					}
+					if (!inUse) return first;
+					if (attempt == MAX_ID_ATTEMPTS) {
+						throw new SQLException("No free block of IDs in " + sequence + " after " + attempt + " attempts");
+					}
+					try (Statement statement = connection.createStatement()) {
+						statement.execute(SchemaMigrator.restartIdSequence(sequence, prefix, idColumn, table, archiveTable));
+					}
+				}
+			}
+		}
+		
+		/*******
+		 * <p> Method: void savePost(Post post) </p>
+		 * 
+		 * <p> Description: Saves a post to the database.</p>
+		 * 
+		 */
+		public void savePost(Post post) throws SQLException {
+			// A transaction of its own, so loadForumChangesSince knows while it is open
+			inTransaction(() -> {
+				try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(saveQueryFor(post))) {
+					setPostParameters(pstmt, post);
+					pstmt.executeUpdate();
+				}
+			});
+			invalidatePostBody(post.getPostId());
+		}
+		
+		/*******
+		 * <p> Method: void savePosts(Collection<Post> posts) </p>
+		 * 
+		 * <p> Description: Saves many posts in one transaction, sending them to the database in
+		 * batches of getBatchSize() rows.  Either every post is saved or none is.</p>
+		 * 
+		 */
+		public void savePosts(Collection<Post> posts) throws SQLException {
+			savePosts(posts, batchSize);
+		}
+		
+		/*******
+		 * <p> Method: void savePosts(Collection<Post> posts, int batchSize) </p>
+		 * 
+		 * <p> Description: As above, with a specific batch size.</p>
+		 * 
+		 */
+		public void savePosts(Collection<Post> posts, int batchSize) throws SQLException {
+			if (batchSize < 1) {
+				throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+			}
+			if (posts.isEmpty()) return;
+			inTransaction(() -> {
+				try (Connection connection = getConnection();
+						PreparedStatement withBody = connection.prepareStatement(SAVE_POST_QUERY);
+						PreparedStatement withoutBody = connection.prepareStatement(SAVE_POST_HEADER_QUERY)) {
+					int pendingWithBody = 0;
+					int pendingWithoutBody = 0;
+					for (Post post : posts) {
+						if (post.isBodyLoaded()) {
+							setPostParameters(withBody, post);
+							withBody.addBatch();
+							if (++pendingWithBody == batchSize) {
+								withBody.executeBatch();
+								pendingWithBody = 0;
+							}
+						} else {
+							setPostParameters(withoutBody, post);
+							withoutBody.addBatch();
+							if (++pendingWithoutBody == batchSize) {
+								withoutBody.executeBatch();
+								pendingWithoutBody = 0;
+							}
+						}
+					}
+					if (pendingWithBody > 0) withBody.executeBatch();
+					if (pendingWithoutBody > 0) withoutBody.executeBatch();
+				}
+			});
+			for (Post post : posts) {
+				invalidatePostBody(post.getPostId());
+			}
+		}
+		
+		private static final String SAVE_POST_QUERY = "MERGE INTO postsDB (postId, title, body, " +
+				"authorUsername, thread, createdAt, lastEditedAt, isDeleted) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+		// A header whose body was never loaded is saved without it, so the stored body is kept
+		private static final String SAVE_POST_HEADER_QUERY = "MERGE INTO postsDB (postId, title, " +
+				"authorUsername, thread, createdAt, lastEditedAt, isDeleted) VALUES (?, ?, ?, ?, ?, ?, ?)";
+		
+		private static String saveQueryFor(Post post) {
+			return post.isBodyLoaded() ? SAVE_POST_QUERY : SAVE_POST_HEADER_QUERY;
+		}
+		
+		// Fills either save query; check isBodyLoaded first, since getBody would fetch the body
+		private void setPostParameters(PreparedStatement pstmt, Post post) throws SQLException {
+			int index = 1;
+			pstmt.setString(index++, post.getPostId());
+			pstmt.setString(index++, post.getTitle());
+			if (post.isBodyLoaded()) {
+				pstmt.setString(index++, post.getBody());
+			}
+			pstmt.setString(index++, post.getAuthorUsername());
+			pstmt.setString(index++, post.getThread());
+			pstmt.setObject(index++, post.getCreatedAt());
+			pstmt.setObject(index++, post.getLastEditedAt());
+			pstmt.setBoolean(index, post.isDeleted());
+		}
+		
+		/*******
+		 * <p> Method: List<Post> loadAllPosts() </p>
+		 * 
+		 * <p> Description: Loads all posts from the database.</p>
+		 * 
+		 */
+		public List<Post> loadAllPosts() throws SQLException {
+			List<Post> posts = new ArrayList<>();
+			forEachPost(posts::add);
+			return posts;
+		}
+		
+		/*******
+		 * <p> Method: int forEachPost(Consumer<Post> consumer) </p>
+		 * 
+		 * <p> Description: Hands every post to the consumer as it is read, so a collection can be
+		 * filled straight from the database without an intermediate list.</p>
+		 * 
+		 * @param consumer receives each post, e.g. postCollection::addPost
+		 * @return the number of posts
+		 * @throws SQLException if a database error occurs
+		 */
+		public int forEachPost(Consumer<? super Post> consumer) throws SQLException {
+			return forEachRow("SELECT * FROM postsDB", this::parsePostFromResultSet, consumer);
+		}
+		
+		/*******
+		 * <p> Method: List<Post> loadPostsPage(String thread, LocalDateTime beforeCreatedAt,
+		 * String beforePostId, int limit) </p>
+		 * 
+		 * <p> Description: Loads one page of posts, newest first.  Pages are found by seeking
+		 * past the last post of the previous page rather than by counting rows with OFFSET, so
+		 * every page costs the same however deep into the forum it is.  Posts with the same
+		 * creation time are ordered by postId so no post is skipped or repeated.</p>
+		 * 
+		 * <p> The posts are headers: every column but the body, plus the start of the body for
+		 * Post.getPreview.  A post list never holds more than a preview of each body, and the
+		 * full body is fetched through loadPostBody only when getBody is called on the post.</p>
+		 * 
+		 * @param thread the thread to list, or null for every thread
+		 * @param beforeCreatedAt the creation time of the last post of the previous page, or null
+		 * for the first page
+		 * @param beforePostId the ID of the last post of the previous page, or null for the first
+		 * page
+		 * @param limit the most posts to return
+		 * @return up to limit posts; fewer means this is the last page
+		 * @throws SQLException if a database error occurs
+		 */
+		public List<Post> loadPostsPage(String thread, LocalDateTime beforeCreatedAt, String beforePostId,
+				int limit) throws SQLException {
+			boolean firstPage = beforeCreatedAt == null || beforePostId == null;
+			// Ordering by thread too lets H2 read the thread index in order instead of sorting
+			String query = POST_HEADER_COLUMNS +
+					(thread == null ? (firstPage ? "" : " WHERE") : " WHERE thread = ?" + (firstPage ? "" : " AND")) +
+					(firstPage ? "" : " createdAt <= ? AND (createdAt < ? OR postId < ?)") +
+					(thread == null ? " ORDER BY " : " ORDER BY thread, ") +
+					"createdAt DESC, postId DESC LIMIT ?";
+			List<Post> posts = new ArrayList<>();
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+				int index = 1;
+				if (thread != null) pstmt.setString(index++, thread);
+				if (!firstPage) {
+					pstmt.setObject(index++, beforeCreatedAt);
+					pstmt.setObject(index++, beforeCreatedAt);
+					pstmt.setString(index++, beforePostId);
+				}
+				pstmt.setInt(index, limit);
+				ResultSet rs = pstmt.executeQuery();
+				while (rs.next()) {
+					posts.add(parsePostHeaderFromResultSet(rs));
+				}
+			}
+			return posts;
+		}
+		
+		// One character more than the preview shows, so Post.getPreview knows when to add "...".
+		// IndexAdvisor builds its post page queries on this too.
+		static final String POST_HEADER_COLUMNS = "SELECT postId, title, authorUsername, thread, "
+				+ "createdAt, lastEditedAt, isDeleted, LEFT(body, " + (Post.PREVIEW_LENGTH + 1)
+				+ ") AS preview FROM postsDB";
+		
+		/*******
+		 * <p> Method: Post parsePostHeaderFromResultSet(ResultSet rs) </p>
+		 * 
+		 * <p> Description: Builds a post header from the current row of a POST_HEADER_COLUMNS
+		 * query.  Its body is left to be fetched by loadPostBody.</p>
+		 * 
+		 */
+		private Post parsePostHeaderFromResultSet(ResultSet rs) throws SQLException {
+			Post post = new Post(
+				rs.getString("postId"),
+				rs.getString("title"),
+				null,
+				rs.getString("authorUsername"),
+				rs.getString("thread")
+			);
+			post.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
+			post.setLastEditedAt(rs.getObject("lastEditedAt", LocalDateTime.class));
+			post.setDeleted(rs.getBoolean("isDeleted"));
+			post.setBodyLoader(rs.getString("preview"), this::loadPostBody);
+			return post;
+		}
+		
+		/*******
+		 * <p> Method: String loadPostBody(String postId) </p>
+		 * 
+		 * <p> Description: Gets the body of one post, for a post header whose body is wanted.
+		 * The most recently read bodies are cached, so opening the same post again from a list
+		 * costs no query until the post is saved or deleted.</p>
+		 * 
+		 * @param postId the ID of the post
+		 * @return the body, or null if there is no such post
+		 * @throws IllegalStateException if the database cannot be read; unchecked so the method
+		 * can be a Post body loader, and so a failed read is never taken for a missing post
+		 */
+		public String loadPostBody(String postId) {
+			return postBodyCache.get(postId, this::readPostBody);
+		}
+		
+		// Reads a post's body from the database, without the cache
+		private String readPostBody(String postId) {
+			String query = "SELECT body FROM postsDB WHERE postId = ?";
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+				pstmt.setString(1, postId);
+				ResultSet rs = pstmt.executeQuery();
+				if (!rs.next()) return null;
+				return rs.getString("body");
+			} catch (SQLException e) {
+				throw new IllegalStateException("The body of " + postId + " could not be read", e);
+			}
+		}
+		
+		// Drops a post's cached body after the post has been written, along with any read of it
+		// still in flight, so a body read before the write is not cached after it
+		private void invalidatePostBody(String postId) {
+			postBodyCache.invalidate(postId);
+		}
+		
+		/*******
+		 * <p> Method: Post parsePostFromResultSet(ResultSet rs) </p>
+		 * 
+		 * <p> Description: Builds a Post from the current row of a postsDB query.</p>
+		 * 
+		 */
+		private Post parsePostFromResultSet(ResultSet rs) throws SQLException {
+			Post post = new Post(
+				rs.getString("postId"),
+				rs.getString("title"),
+				rs.getString("body"),
+				rs.getString("authorUsername"),
+				rs.getString("thread")
+			);
+			post.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
+			post.setLastEditedAt(rs.getObject("lastEditedAt", LocalDateTime.class));
+			post.setDeleted(rs.getBoolean("isDeleted"));
+			return post;
+		}
+		
+		/*******
+		 * <p> Method: void deletePost(String postId) </p>
+		 * 
+		 * <p> Description: Deletes a post from the database.</p>
+		 * 
+		 */
+		public void deletePostFromDB(String postId) throws SQLException {
+			String query = "DELETE FROM postsDB WHERE postId = ?";
+			inTransaction(() -> {
+				try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+					pstmt.setString(1, postId);
+					if (pstmt.executeUpdate() > 0) {
+						recordDeletion(connection, "postsDB", postId);
+					}
+				}
+			});
+			invalidatePostBody(postId);
+		}
+		
+		// ==================== REPLY DATABASE METHODS ====================
+		
+		/*******
+		 * <p> Method: void saveReply(Reply reply) </p>
+		 * 
+		 * <p> Description: Saves a reply to the database.</p>
+		 * 
+		 */
+		public void saveReply(Reply reply) throws SQLException {
+			// A transaction of its own, so loadForumChangesSince knows while it is open
+			inTransaction(() -> {
+				try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(SAVE_REPLY_QUERY)) {
+					setReplyParameters(pstmt, reply);
+					pstmt.executeUpdate();
+				}
+			});
+		}
+		
+		/*******
+		 * <p> Method: void saveReplies(Collection<Reply> replies) </p>
+		 * 
+		 * <p> Description: Saves many replies in one transaction, sending them to the database in
+		 * batches of getBatchSize() rows.  Either every reply is saved or none is.</p>
+		 * 
+		 */
+		public void saveReplies(Collection<Reply> replies) throws SQLException {
+			saveReplies(replies, batchSize);
+		}
+		
+		/*******
+		 * <p> Method: void saveReplies(Collection<Reply> replies, int batchSize) </p>
+		 * 
+		 * <p> Description: As above, with a specific batch size.</p>
+		 * 
+		 */
+		public void saveReplies(Collection<Reply> replies, int batchSize) throws SQLException {
+			if (batchSize < 1) {
+				throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+			}
+			if (replies.isEmpty()) return;
+			inTransaction(() -> {
+				try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(SAVE_REPLY_QUERY)) {
+					int pending = 0;
+					for (Reply reply : replies) {
+						setReplyParameters(pstmt, reply);
+						pstmt.addBatch();
+						if (++pending == batchSize) {
+							pstmt.executeBatch();
+							pending = 0;
+						}
+					}
+					if (pending > 0) pstmt.executeBatch();
+				}
+			});
+		}
+		
+		private static final String SAVE_REPLY_QUERY = "MERGE INTO repliesDB (replyId, body, " +
+				"authorUsername, parentPostId, createdAt, lastEditedAt, isDeleted, isRead, isFeedback) " +
+				"VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+		
+		private void setReplyParameters(PreparedStatement pstmt, Reply reply) throws SQLException {
+			pstmt.setString(1, reply.getReplyId());
+			pstmt.setString(2, reply.getBody());
+			pstmt.setString(3, reply.getAuthorUsername());
+			pstmt.setString(4, reply.getParentPostId());
+			pstmt.setObject(5, reply.getCreatedAt());
+			pstmt.setObject(6, reply.getLastEditedAt());
+			pstmt.setBoolean(7, reply.isDeleted());
+			pstmt.setBoolean(8, reply.isRead());
+			pstmt.setBoolean(9, reply.isFeedback());
+		}
+		
+		/*******
+		 * <p> Method: List<Reply> loadAllReplies() </p>
+		 * 
+		 * <p> Description: Loads all replies from the database.</p>
+		 * 
+		 */
+		public List<Reply> loadAllReplies() throws SQLException {
+			List<Reply> replies = new ArrayList<>();
+			forEachReply(replies::add);
+			return replies;
+		}
+		
+		/*******
+		 * <p> Method: int forEachReply(Consumer<Reply> consumer) </p>
+		 * 
+		 * <p> Description: Hands every reply to the consumer as it is read, so a collection can be
+		 * filled straight from the database without an intermediate list.</p>
+		 * 
+		 * @param consumer receives each reply, e.g. replyCollection::addReply
+		 * @return the number of replies
+		 * @throws SQLException if a database error occurs
+		 */
+		public int forEachReply(Consumer<? super Reply> consumer) throws SQLException {
+			return forEachRow("SELECT * FROM repliesDB", this::parseReplyFromResultSet, consumer);
+		}
+		
+		/*******
+		 * <p> Method: List<Reply> loadRepliesPage(String parentPostId, LocalDateTime afterCreatedAt,
+		 * String afterReplyId, int limit) </p>
+		 * 
+		 * <p> Description: Loads one page of the replies to a post, oldest first, the order in
+		 * which they are read.  Like loadPostsPage, each page seeks past the last reply of the
+		 * previous one.  Feedback replies are included; callers separate them as needed.</p>
+		 * 
+		 * @param parentPostId the post whose replies are listed
+		 * @param afterCreatedAt the creation time of the last reply of the previous page, or null
+		 * for the first page
+		 * @param afterReplyId the ID of the last reply of the previous page, or null for the first
+		 * page
+		 * @param limit the most replies to return
+		 * @return up to limit replies; fewer means this is the last page
+		 * @throws SQLException if a database error occurs
+		 */
+		public List<Reply> loadRepliesPage(String parentPostId, LocalDateTime afterCreatedAt, String afterReplyId,
+				int limit) throws SQLException {
+			boolean firstPage = afterCreatedAt == null || afterReplyId == null;
+			String query = "SELECT * FROM repliesDB WHERE parentPostId = ?" +
+					(firstPage ? "" : " AND createdAt >= ? AND (createdAt > ? OR replyId > ?)") +
+					" ORDER BY parentPostId, createdAt, replyId LIMIT ?";
+			List<Reply> replies = new ArrayList<>();
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+				int index = 1;
+				pstmt.setString(index++, parentPostId);
+				if (!firstPage) {
+					pstmt.setObject(index++, afterCreatedAt);
+					pstmt.setObject(index++, afterCreatedAt);
+					pstmt.setString(index++, afterReplyId);
+				}
+				pstmt.setInt(index, limit);
+				ResultSet rs = pstmt.executeQuery();
+				while (rs.next()) {
+					replies.add(parseReplyFromResultSet(rs));
+				}
+			}
+			return replies;
+		}
+		
+		/*******
+		 * <p> Method: Map<String, Integer> getReplyCountsForPosts(Collection<String> postIds) </p>
+		 * 
+		 * <p> Description: Counts the replies of several posts in one query, so a page of posts
+		 * can show its reply counts without loading any replies.</p>
+		 * 
+		 * @param postIds the posts to count replies for
+		 * @return the number of replies per post ID; posts with no replies are left out
+		 * @throws SQLException if a database error occurs
+		 */
+		public Map<String, Integer> getReplyCountsForPosts(Collection<String> postIds) throws SQLException {
+			return countRepliesForPosts(postIds, null);
+		}
+		
+		/*******
+		 * <p> Method: Map<String, Integer> getUnreadReplyCountsForPosts(Collection<String> postIds,
+		 * String currentUsername) </p>
+		 * 
+		 * <p> Description: Counts, in one query, the unread replies of several posts that were
+		 * written by someone other than the given user.</p>
+		 * 
+		 * @param postIds the posts to count replies for
+		 * @param currentUsername the user whose own replies are not counted
+		 * @return the number of unread replies per post ID; posts with none are left out
+		 * @throws SQLException if a database error occurs
+		 */
+		public Map<String, Integer> getUnreadReplyCountsForPosts(Collection<String> postIds,
+				String currentUsername) throws SQLException {
+			return countRepliesForPosts(postIds, currentUsername);
+		}
+		
+		/*******
+		 * <p> Method: Map<String, Integer> getReplyCountsByPost() </p>
+		 * 
+		 * <p> Description: Counts the replies of every post in one grouped query.</p>
+		 * 
+		 * @return the number of replies per post ID; posts with no replies are left out
+		 * @throws SQLException if a database error occurs
+		 */
+		public Map<String, Integer> getReplyCountsByPost() throws SQLException {
+			return countGroups("SELECT parentPostId, COUNT(*) FROM repliesDB GROUP BY parentPostId");
+		}
+		
+		private Map<String, Integer> countRepliesForPosts(Collection<String> postIds, String unreadFor)
+				throws SQLException {
+			Map<String, Integer> counts = new HashMap<>();
+			if (postIds.isEmpty()) return counts;
+			String query = "SELECT parentPostId, COUNT(*) FROM repliesDB WHERE parentPostId IN (" +
+					String.join(", ", Collections.nCopies(postIds.size(), "?")) + ")" +
+					(unreadFor == null ? "" : " AND isRead = FALSE AND authorUsername <> ?") +
+					" GROUP BY parentPostId";
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+				int index = 1;
+				for (String postId : postIds) {
+					pstmt.setString(index++, postId);
+				}
+				if (unreadFor != null) pstmt.setString(index, unreadFor);
+				ResultSet rs = pstmt.executeQuery();
+				while (rs.next()) {
+					counts.put(rs.getString(1), rs.getInt(2));
+				}
+			}
+			return counts;
+		}
+		
+		/*******
+		 * <p> Method: Reply parseReplyFromResultSet(ResultSet rs) </p>
+		 * 
+		 * <p> Description: Builds a Reply from the current row of a repliesDB query.</p>
+		 * 
+		 */
+		private Reply parseReplyFromResultSet(ResultSet rs) throws SQLException {
+			Reply reply = new Reply(
+				rs.getString("replyId"),
+				rs.getString("body"),
+				rs.getString("authorUsername"),
+				rs.getString("parentPostId"),
+				rs.getBoolean("isFeedback")
+			);
+			reply.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
+			reply.setLastEditedAt(rs.getObject("lastEditedAt", LocalDateTime.class));
+			reply.setDeleted(rs.getBoolean("isDeleted"));
+			reply.setRead(rs.getBoolean("isRead"));
+			return reply;
+		}
+		
+		/*******
+		 * <p> Method: void deleteReply(String replyId) </p>
+		 * 
+		 * <p> Description: Deletes a reply from the database.</p>
+		 * 
+		 */
+		public void deleteReplyFromDB(String replyId) throws SQLException {
+			String query = "DELETE FROM repliesDB WHERE replyId = ?";
+			inTransaction(() -> {
+				try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+					pstmt.setString(1, replyId);
+					if (pstmt.executeUpdate() > 0) {
+						recordDeletion(connection, "repliesDB", replyId);
+					}
+				}
+			});
+		}
+		
+		// ==================== DELTA SYNC METHODS ====================
+		
 		/*******
-		 * <p> Method: void savePost(Post post) </p>
+		 * <p> Method: void recordDeletion(Connection connection, String tableName, String rowId) </p>
 		 * 
-		 * <p> Description: Saves a post to the database.</p>
+		 * <p> Description: Leaves a tombstone for a hard-deleted post or reply so that
+		 * loadForumChangesSince can report the deletion.  Must run in the same transaction as the
+		 * DELETE.</p>
 		 * 
 		 */
-		public void savePost(Post post) throws SQLException {
-			String query = "MERGE INTO postsDB (postId, title, body, authorUsername, thread, " +
-			               "createdAt, lastEditedAt, isDeleted) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+		private void recordDeletion(Connection connection, String tableName, String rowId) throws SQLException {
+			String query = "INSERT INTO forumDeletionsDB (tableName, rowId) VALUES (?, ?)";
 			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				pstmt.setString(1, post.getPostId());
-				pstmt.setString(2, post.getTitle());
-				pstmt.setString(3, post.getBody());
-				pstmt.setString(4, post.getAuthorUsername());
-				pstmt.setString(5, post.getThread());
-				pstmt.setObject(6, post.getCreatedAt());
-				pstmt.setObject(7, post.getLastEditedAt());
-				pstmt.setBoolean(8, post.isDeleted());
+				pstmt.setString(1, tableName);
+				pstmt.setString(2, rowId);
 				pstmt.executeUpdate();
 			}
 		}
 		
 		/*******
-		 * <p> Method: List<Post> loadAllPosts() </p>
+		 * <p> Method: long getForumVersion() </p>
 		 * 
-		 * <p> Description: Loads all posts from the database.</p>
+		 * <p> Description: Returns a row version at or below which every post, reply and deletion
+		 * has been committed.  A client that reads this before a full load can then ask
+		 * loadForumChangesSince for everything that was written after it.</p>
 		 * 
 		 */
-		public List<Post> loadAllPosts() throws SQLException {
+		public long getForumVersion() throws SQLException {
+			try (Connection connection = getConnection()) {
+				return settledForumVersion(connection);
+			}
+		}
+		
+		/*
+		 * The highest row version below which no transaction is still open.  Versions are handed
+		 * out when a row is written, not when its transaction commits, so a write-behind flush that
+		 * is still open can hold versions below rows that other writers have already committed.
+		 * Every write of a post, reply or tombstone runs in inTransaction, which records a floor
+		 * below the versions the block can write; the result is capped at the lowest open floor.
+		 * The sequence is read first, so a block that opens after the floors are checked only
+		 * writes versions above the result.
+		 */
+		private long settledForumVersion(Connection connection) throws SQLException {
+			String query = "SELECT BASE_VALUE - 1 FROM INFORMATION_SCHEMA.SEQUENCES "
+					+ "WHERE SEQUENCE_NAME = 'FORUM_ROW_VERSION'";
+			long settled;
+			try (Statement statement = connection.createStatement()) {
+				ResultSet rs = statement.executeQuery(query);
+				settled = rs.next() ? rs.getLong(1) : 0;
+			}
+			allocatedForumVersion.accumulateAndGet(settled, Math::max);
+			for (long floor : openTransactionFloors.values()) {
+				settled = Math.min(settled, floor);
+			}
+			return settled;
+		}
+		
+		/*******
+		 * <p> Method: ForumChanges loadForumChangesSince(long sinceVersion) </p>
+		 * 
+		 * <p> Description: Loads only the posts and replies written, and the ones deleted, after
+		 * the given row version.  The cost grows with the number of changes, not with the size of
+		 * the forum.  Pass 0 to get every row.</p>
+		 * 
+		 * <p> The three tables are read in one snapshot, so a post deleted between the reads is
+		 * not reported both present and gone.  The version returned is the one getForumVersion
+		 * returned just before the snapshot, not the highest version read: a row written by a
+		 * transaction that is still open may have a lower version than rows already committed,
+		 * and it must still be above the version the next call passes in.  Rows read above the
+		 * returned version are simply read again by the next call; applying them twice is
+		 * harmless.</p>
+		 * 
+		 */
+		public ForumChanges loadForumChangesSince(long sinceVersion) throws SQLException {
 			List<Post> posts = new ArrayList<>();
-			String query = "SELECT * FROM postsDB";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				ResultSet rs = pstmt.executeQuery();
-				while (rs.next()) {
-					Post post = new Post(
-						rs.getString("postId"),
-						rs.getString("title"),
-						rs.getString("body"),
-						rs.getString("authorUsername"),
-						rs.getString("thread")
-					);
-					post.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
-					post.setLastEditedAt(rs.getObject("lastEditedAt", LocalDateTime.class));
-					post.setDeleted(rs.getBoolean("isDeleted"));
-					posts.add(post);
+			List<Reply> replies = new ArrayList<>();
+			List<String> deletedPostIds = new ArrayList<>();
+			List<String> deletedReplyIds = new ArrayList<>();
+			long version;
+			try (Connection connection = getConnection()) {
+				version = Math.max(sinceVersion, settledForumVersion(connection));
+				// Inside a caller's transaction the reads simply join it
+				boolean snapshot = connection.getAutoCommit();
+				int isolation = connection.getTransactionIsolation();
+				if (snapshot) {
+					connection.setAutoCommit(false);
+					connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+				}
+				try {
+					String postQuery = "SELECT * FROM postsDB WHERE rowVersion > ?";
+					try (PreparedStatement pstmt = connection.prepareStatement(postQuery)) {
+						pstmt.setLong(1, sinceVersion);
+						ResultSet rs = pstmt.executeQuery();
+						while (rs.next()) {
+							posts.add(parsePostFromResultSet(rs));
+						}
+					}
+					
+					String replyQuery = "SELECT * FROM repliesDB WHERE rowVersion > ?";
+					try (PreparedStatement pstmt = connection.prepareStatement(replyQuery)) {
+						pstmt.setLong(1, sinceVersion);
+						ResultSet rs = pstmt.executeQuery();
+						while (rs.next()) {
+							replies.add(parseReplyFromResultSet(rs));
+						}
+					}
+					
+					String deletionQuery = "SELECT * FROM forumDeletionsDB WHERE rowVersion > ?";
+					try (PreparedStatement pstmt = connection.prepareStatement(deletionQuery)) {
+						pstmt.setLong(1, sinceVersion);
+						ResultSet rs = pstmt.executeQuery();
+						while (rs.next()) {
+							if ("postsDB".equals(rs.getString("tableName"))) {
+								deletedPostIds.add(rs.getString("rowId"));
+							} else {
+								deletedReplyIds.add(rs.getString("rowId"));
+							}
+						}
+					}
+				} finally {
+					if (snapshot) {
+						connection.commit();
+						connection.setTransactionIsolation(isolation);
+						connection.setAutoCommit(true);
+					}
 				}
 			}
-			return posts;
+			// A row that exists again was re-created after its tombstone; keep the row
+			Set<String> postIds = new HashSet<>();
+			posts.forEach(post -> postIds.add(post.getPostId()));
+			deletedPostIds.removeIf(postIds::contains);
+			Set<String> replyIds = new HashSet<>();
+			replies.forEach(reply -> replyIds.add(reply.getReplyId()));
+			deletedReplyIds.removeIf(replyIds::contains);
+			return new ForumChanges(sinceVersion, version, posts, replies, deletedPostIds, deletedReplyIds);
 		}
 		
+		// ==================== ARCHIVAL METHODS ====================
+		
+		private static final String POST_COLUMNS = "postId, title, body, authorUsername, thread, "
+				+ "createdAt, lastEditedAt, isDeleted";
+		private static final String REPLY_COLUMNS = "replyId, body, authorUsername, parentPostId, "
+				+ "createdAt, lastEditedAt, isDeleted, isRead, isFeedback";
+		
 		/*******
-		 * <p> Method: void deletePost(String postId) </p>
+		 * <p> Method: int markDeletionTimes() </p>
 		 * 
-		 * <p> Description: Deletes a post from the database.</p>
+		 * <p> Description: Records when each post and reply was soft-deleted.  Post.markAsDeleted
+		 * and Reply.markAsDeleted only set isDeleted, so a deleted row is given the current time
+		 * the first time this runs after the deletion, and a row that is no longer deleted loses
+		 * its time.  The retention window of archiveDeletedPosts and archiveDeletedReplies counts
+		 * from these times.</p>
 		 * 
+		 * @return the number of rows whose deletion time was set or cleared
+		 * @throws SQLException if a database error occurs
 		 */
-		public void deletePostFromDB(String postId) throws SQLException {
-			String query = "DELETE FROM postsDB WHERE postId = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				pstmt.setString(1, postId);
-				pstmt.executeUpdate();
-			}
+		public int markDeletionTimes() throws SQLException {
+			int[] marked = { 0 };
+			inTransaction(() -> {
+				try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
+					for (String table : new String[] { "postsDB", "repliesDB" }) {
+						marked[0] += statement.executeUpdate("UPDATE " + table + " SET deletedAt = LOCALTIMESTAMP "
+								+ "WHERE isDeleted = TRUE AND deletedAt IS NULL");
+						marked[0] += statement.executeUpdate("UPDATE " + table + " SET deletedAt = NULL "
+								+ "WHERE isDeleted = FALSE AND deletedAt IS NOT NULL");
+					}
+				}
+			});
+			return marked[0];
 		}
 		
-		// ==================== REPLY DATABASE METHODS ====================
+		/*******
+		 * <p> Method: int archiveDeletedPosts(LocalDateTime cutoff) </p>
+		 * 
+		 * <p> Description: Moves every post that was soft-deleted at or before the cutoff, together
+		 * with all of its replies, from postsDB and repliesDB into postsArchiveDB and
+		 * repliesArchiveDB.  Each moved row leaves a tombstone, so clients drop it on their next
+		 * delta.  Rows are moved getBatchSize() posts per transaction.</p>
+		 * 
+		 * @param cutoff the latest deletion time to archive; see markDeletionTimes
+		 * @return the number of posts archived
+		 * @throws SQLException if a database error occurs
+		 */
+		public int archiveDeletedPosts(LocalDateTime cutoff) throws SQLException {
+			return archiveInChunks(
+					"SELECT postId FROM postsDB WHERE isDeleted = TRUE AND deletedAt <= ? LIMIT ?", cutoff,
+					"MERGE INTO repliesArchiveDB (" + REPLY_COLUMNS + ", deletedAt, archivedAt) KEY (replyId) "
+						+ "SELECT " + REPLY_COLUMNS + ", deletedAt, LOCALTIMESTAMP FROM repliesDB WHERE parentPostId = ?",
+					"INSERT INTO forumDeletionsDB (tableName, rowId) "
+						+ "SELECT 'repliesDB', replyId FROM repliesDB WHERE parentPostId = ?",
+					"DELETE FROM repliesDB WHERE parentPostId = ?",
+					"MERGE INTO postsArchiveDB (" + POST_COLUMNS + ", deletedAt, archivedAt) KEY (postId) "
+						+ "SELECT " + POST_COLUMNS + ", deletedAt, LOCALTIMESTAMP FROM postsDB WHERE postId = ?",
+					"INSERT INTO forumDeletionsDB (tableName, rowId) VALUES ('postsDB', ?)",
+					"DELETE FROM postsDB WHERE postId = ?");
+		}
 		
 		/*******
-		 * <p> Method: void saveReply(Reply reply) </p>
+		 * <p> Method: int archiveDeletedReplies(LocalDateTime cutoff) </p>
 		 * 
-		 * <p> Description: Saves a reply to the database.</p>
+		 * <p> Description: Moves every reply that was soft-deleted at or before the cutoff from
+		 * repliesDB into repliesArchiveDB, leaving a tombstone for each.</p>
 		 * 
+		 * @param cutoff the latest deletion time to archive; see markDeletionTimes
+		 * @return the number of replies archived
+		 * @throws SQLException if a database error occurs
 		 */
-		public void saveReply(Reply reply) throws SQLException {
-			String query = "MERGE INTO repliesDB (replyId, body, authorUsername, parentPostId, " +
-					"createdAt, lastEditedAt, isDeleted, isRead, isFeedback) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				pstmt.setString(1, reply.getReplyId());
-				pstmt.setString(2, reply.getBody());
-				pstmt.setString(3, reply.getAuthorUsername());
-				pstmt.setString(4, reply.getParentPostId());
-				pstmt.setObject(5, reply.getCreatedAt());
-				pstmt.setObject(6, reply.getLastEditedAt());
-				pstmt.setBoolean(7, reply.isDeleted());
-				pstmt.setBoolean(8, reply.isRead());
-				pstmt.setBoolean(9, reply.isFeedback());
-				pstmt.executeUpdate();
-			}
+		public int archiveDeletedReplies(LocalDateTime cutoff) throws SQLException {
+			return archiveInChunks(
+					"SELECT replyId FROM repliesDB WHERE isDeleted = TRUE AND deletedAt <= ? LIMIT ?", cutoff,
+					"MERGE INTO repliesArchiveDB (" + REPLY_COLUMNS + ", deletedAt, archivedAt) KEY (replyId) "
+						+ "SELECT " + REPLY_COLUMNS + ", deletedAt, LOCALTIMESTAMP FROM repliesDB WHERE replyId = ?",
+					"INSERT INTO forumDeletionsDB (tableName, rowId) VALUES ('repliesDB', ?)",
+					"DELETE FROM repliesDB WHERE replyId = ?");
 		}
 		
 		/*******
-		 * <p> Method: List<Reply> loadAllReplies() </p>
+		 * <p> Method: int archiveInChunks(String idQuery, LocalDateTime cutoff, String... perIdStatements) </p>
 		 * 
-		 * <p> Description: Loads all replies from the database.</p>
+		 * <p> Description: Repeatedly reads up to getBatchSize() IDs with the query and runs each
+		 * statement as one batch over them, in statement order, one transaction per chunk.</p>
 		 * 
+		 * @param idQuery selects the IDs; takes the cutoff and the chunk size
+		 * @param cutoff the latest deletion time to archive
+		 * @param perIdStatements statements taking one ID each
+		 * @return the number of IDs processed
 		 */
-		public List<Reply> loadAllReplies() throws SQLException {
-			List<Reply> replies = new ArrayList<>();
-			String query = "SELECT * FROM repliesDB";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				ResultSet rs = pstmt.executeQuery();
-				while (rs.next()) {
-					boolean isFeedback = false;
-					try {
-						isFeedback = rs.getBoolean("isFeedback");
-					} catch (SQLException e) {
-						// Column may not exist in older databases, use default
+		private int archiveInChunks(String idQuery, LocalDateTime cutoff, String... perIdStatements)
+				throws SQLException {
+			int total = 0;
+			int chunkSize = batchSize;
+			int[] archived = { 0 };
+			do {
+				archived[0] = 0;
+				inTransaction(() -> {
+					try (Connection connection = getConnection()) {
+						List<String> ids = new ArrayList<>();
+						try (PreparedStatement pstmt = connection.prepareStatement(idQuery)) {
+							pstmt.setObject(1, cutoff);
+							pstmt.setInt(2, chunkSize);
+							ResultSet rs = pstmt.executeQuery();
+							while (rs.next()) {
+								ids.add(rs.getString(1));
+							}
+						}
+						if (ids.isEmpty()) return;
+						for (String statement : perIdStatements) {
+							try (PreparedStatement pstmt = connection.prepareStatement(statement)) {
+								for (String id : ids) {
+									pstmt.setString(1, id);
+									pstmt.addBatch();
+								}
+								pstmt.executeBatch();
+							}
+						}
+						archived[0] = ids.size();
 					}
-					
-					Reply reply = new Reply(
-						rs.getString("replyId"),
-						rs.getString("body"),
-						rs.getString("authorUsername"),
-						rs.getString("parentPostId"),
-						isFeedback
-					);
-					reply.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
-					reply.setLastEditedAt(rs.getObject("lastEditedAt", LocalDateTime.class));
-					reply.setDeleted(rs.getBoolean("isDeleted"));
-					reply.setRead(rs.getBoolean("isRead"));
-					replies.add(reply);
+				});
+				total += archived[0];
+			} while (archived[0] == chunkSize);
+			return total;
+		}
+		
+		/*******
+		 * <p> Method: boolean restorePost(String postId) </p>
+		 * 
+		 * <p> Description: Moves an archived post and the replies archived with it back into
+		 * postsDB and repliesDB.  The post is no longer deleted; each reply keeps its own deleted
+		 * flag.  The rows get new row versions, so clients pick them up on their next delta.</p>
+		 * 
+		 * @param postId the ID of the archived post
+		 * @return true if the post was restored, false if it is not in the archive
+		 * @throws SQLException if a database error occurs
+		 */
+		public boolean restorePost(String postId) throws SQLException {
+			boolean[] restored = { false };
+			inTransaction(() -> {
+				try (Connection connection = getConnection()) {
+					if (runForId(connection, "MERGE INTO postsDB (" + POST_COLUMNS + ") KEY (postId) "
+							+ "SELECT postId, title, body, authorUsername, thread, createdAt, lastEditedAt, FALSE "
+							+ "FROM postsArchiveDB WHERE postId = ?", postId) == 0) {
+						return;
+					}
+					runForId(connection, "MERGE INTO repliesDB (" + REPLY_COLUMNS + ") KEY (replyId) "
+							+ "SELECT " + REPLY_COLUMNS + " FROM repliesArchiveDB WHERE parentPostId = ?", postId);
+					runForId(connection, "DELETE FROM repliesArchiveDB WHERE parentPostId = ?", postId);
+					runForId(connection, "DELETE FROM postsArchiveDB WHERE postId = ?", postId);
+					restored[0] = true;
 				}
-			}
-			return replies;
+			});
+			invalidatePostBody(postId);
+			return restored[0];
 		}
 		
 		/*******
-		 * <p> Method: void deleteReply(String replyId) </p>
+		 * <p> Method: boolean restoreReply(String replyId) </p>
 		 * 
-		 * <p> Description: Deletes a reply from the database.</p>
+		 * <p> Description: Moves an archived reply back into repliesDB, no longer deleted.  A
+		 * reply whose post is archived too comes back only with restorePost.</p>
 		 * 
+		 * @param replyId the ID of the archived reply
+		 * @return true if the reply was restored, false if it is not in the archive or its post
+		 * is not in postsDB
+		 * @throws SQLException if a database error occurs
 		 */
-		public void deleteReplyFromDB(String replyId) throws SQLException {
-			String query = "DELETE FROM repliesDB WHERE replyId = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				pstmt.setString(1, replyId);
-				pstmt.executeUpdate();
+		public boolean restoreReply(String replyId) throws SQLException {
+			boolean[] restored = { false };
+			inTransaction(() -> {
+				try (Connection connection = getConnection()) {
+					if (runForId(connection, "MERGE INTO repliesDB (" + REPLY_COLUMNS + ") KEY (replyId) "
+							+ "SELECT replyId, body, authorUsername, parentPostId, createdAt, lastEditedAt, FALSE, "
+							+ "isRead, isFeedback FROM repliesArchiveDB a WHERE replyId = ? "
+							+ "AND EXISTS (SELECT 1 FROM postsDB p WHERE p.postId = a.parentPostId)", replyId) == 0) {
+						return;
+					}
+					runForId(connection, "DELETE FROM repliesArchiveDB WHERE replyId = ?", replyId);
+					restored[0] = true;
+				}
+			});
+			return restored[0];
+		}
+		
+		private static int runForId(Connection connection, String statement, String id) throws SQLException {
+			try (PreparedStatement pstmt = connection.prepareStatement(statement)) {
+				pstmt.setString(1, id);
+				return pstmt.executeUpdate();
 			}
 		}
 
@@ -1383,13 +3003,17 @@ public class Database {
 		/*******
 		 * <p> Method: void saveParameter(Parameter parameter) </p>
 		 * 
-		 * <p> Description: Saves a grading parameter to the database.</p>
+		 * <p> Description: Saves a grading parameter to the database.  The stored categories are
+		 * compared with the parameter's list and only the rows that were added, changed or removed
+		 * are written, as one batch of MERGEs and one batch of DELETEs, all in one transaction.</p>
 		 * 
 		 */
 		public void saveParameter(Parameter parameter) throws SQLException {
 			String query = "MERGE INTO gradingParametersDB (parameterId, name, description, " +
 		               "isActive, createdByUsername, createdAt, requiredPosts, " +
 		               "requiredReplies, topics, threadId) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+			inTransaction(() -> {
+			try (Connection connection = getConnection()) {
 			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, parameter.getParameterId());
 				pstmt.setString(2, parameter.getName());
@@ -1406,186 +3030,146 @@ public class Database {
 				pstmt.executeUpdate();
 			}
 
-			// Delete existing categories for this parameter
-			String deleteCategories = "DELETE FROM parameterCategoriesDB WHERE parameterId = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(deleteCategories)) {
+			// Read the stored categories, keyed by categoryId
+			Map<String, ParameterCategory> stored = new HashMap<>();
+			Map<String, Integer> storedOrder = new HashMap<>();
+			String selectCategories = "SELECT * FROM parameterCategoriesDB WHERE parameterId = ? ORDER BY categoryOrder";
+			try (PreparedStatement pstmt = connection.prepareStatement(selectCategories)) {
 				pstmt.setString(1, parameter.getParameterId());
-				pstmt.executeUpdate();
+				ResultSet rs = pstmt.executeQuery();
+				while (rs.next()) {
+					stored.put(rs.getString("categoryId"),
+							new ParameterCategory(rs.getString("categoryName"), rs.getDouble("weight")));
+					storedOrder.put(rs.getString("categoryId"), rs.getInt("categoryOrder"));
+				}
 			}
 			
-			// Insert new categories
-			String insertCategory = "INSERT INTO parameterCategoriesDB (categoryId, parameterId, categoryName, weight, categoryOrder) VALUES (?, ?, ?, ?, ?)";
+			// Write the categories that are new or differ from what is stored
+			String mergeCategory = "MERGE INTO parameterCategoriesDB (categoryId, parameterId, categoryName, weight, categoryOrder) VALUES (?, ?, ?, ?, ?)";
 			List<ParameterCategory> categories = parameter.getCategories();
-			for (int i = 0; i < categories.size(); i++) {
-				try (PreparedStatement pstmt = connection.prepareStatement(insertCategory)) {
+			try (PreparedStatement pstmt = connection.prepareStatement(mergeCategory)) {
+				boolean pending = false;
+				for (int i = 0; i < categories.size(); i++) {
+					String categoryId = parameter.getParameterId() + "_CAT_" + i;
 					ParameterCategory category = categories.get(i);
-					pstmt.setString(1, parameter.getParameterId() + "_CAT_" + i);
+					ParameterCategory old = stored.remove(categoryId);
+					if (old != null && Objects.equals(old.getCategoryName(), category.getCategoryName())
+							&& old.getWeight() == category.getWeight()
+							&& storedOrder.get(categoryId) == i) {
+						continue;
+					}
+					pstmt.setString(1, categoryId);
 					pstmt.setString(2, parameter.getParameterId());
 					pstmt.setString(3, category.getCategoryName());
 					pstmt.setDouble(4, category.getWeight());
 					pstmt.setInt(5, i);
-					pstmt.executeUpdate();
+					pstmt.addBatch();
+					pending = true;
 				}
+				if (pending) pstmt.executeBatch();
 			}
+			
+			// Whatever is left in stored is no longer part of the parameter
+			if (!stored.isEmpty()) {
+				String deleteCategory = "DELETE FROM parameterCategoriesDB WHERE categoryId = ?";
+				try (PreparedStatement pstmt = connection.prepareStatement(deleteCategory)) {
+					for (String categoryId : stored.keySet()) {
+						pstmt.setString(1, categoryId);
+						pstmt.addBatch();
+					}
+					pstmt.executeBatch();
+				}
+			}
+			}
+			});
 		}
 		
 		/*******
 		 * <p> Method: List<Parameter> loadAllParameters() </p>
 		 * 
-		 * <p> Description: Loads all grading parameters from the database.</p>
+		 * <p> Description: Loads all grading parameters from the database, with their categories,
+		 * in a single query.</p>
 		 * 
 		 */
 		public List<Parameter> loadAllParameters() throws SQLException {
-			List<Parameter> parameters = new ArrayList<>();
-			String query = "SELECT * FROM gradingParametersDB";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				ResultSet rs = pstmt.executeQuery();
-				while (rs.next()) {
-					// Load new fields with defaults for backward compatibility
-					int requiredPosts = 0;
-					int requiredReplies = 0;
-					String threadId = null;
-					List<String> topics = new ArrayList<>();
-					
-					try {
-						requiredPosts = rs.getInt("requiredPosts");
-					} catch (SQLException e) { /* use default */ }
-					
-					try {
-						requiredReplies = rs.getInt("requiredReplies");
-					} catch (SQLException e) { /* use default */ }
-					
-					try {
-						threadId = rs.getString("threadId");
-						if (rs.wasNull()) threadId = null;
-					} catch (SQLException e) { /* use default */ }
-					
-					try {
-						String topicsStr = rs.getString("topics");
-						if (topicsStr != null && !topicsStr.trim().isEmpty()) {
-							String[] topicArray = topicsStr.split(",");
-							for (String topic : topicArray) {
-								if (topic != null && !topic.trim().isEmpty()) {
-									topics.add(topic.trim());
-								}
-							}
-						}
-					} catch (SQLException e) { /* use default */ }
-					
-					// Load categories
-					List<ParameterCategory> categories = new ArrayList<>();
-					String categoriesQuery = "SELECT * FROM parameterCategoriesDB WHERE parameterId = ? ORDER BY categoryOrder";
-					try (PreparedStatement catPstmt = connection.prepareStatement(categoriesQuery)) {
-						catPstmt.setString(1, rs.getString("parameterId"));
-						ResultSet catRs = catPstmt.executeQuery();
-						while (catRs.next()) {
-							ParameterCategory category = new ParameterCategory(
-								catRs.getString("categoryName"),
-								catRs.getDouble("weight")
-							);
-							categories.add(category);
-						}
-					} catch (SQLException e) {
-						// Categories table may not exist yet, use empty list
-					}
-					
-					Parameter parameter = new Parameter(
-						rs.getString("parameterId"),
-						rs.getString("name"),
-						rs.getString("description"),
-						rs.getBoolean("isActive"),
-						rs.getString("createdByUsername"),
-						requiredPosts,
-						requiredReplies,
-						topics,
-						threadId,
-						categories
-					);
-					parameter.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
-					parameters.add(parameter);
-				}
+			String query = "SELECT p.*, c.categoryName, c.weight FROM gradingParametersDB p " +
+					"LEFT JOIN parameterCategoriesDB c ON c.parameterId = p.parameterId " +
+					"ORDER BY p.parameterId, c.categoryOrder";
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+				return parseParametersFromResultSet(pstmt.executeQuery());
 			}
-			return parameters;
 		}
 		
 		/*******
 		 * <p> Method: List<Parameter> loadParametersByStaff(String staffUsername) </p>
 		 * 
-		 * <p> Description: Loads all grading parameters created by a specific staff member.</p>
+		 * <p> Description: Loads all grading parameters created by a specific staff member, with
+		 * their categories, in a single query.</p>
 		 * 
 		 */
 		public List<Parameter> loadParametersByStaff(String staffUsername) throws SQLException {
-			List<Parameter> parameters = new ArrayList<>();
-			String query = "SELECT * FROM gradingParametersDB WHERE createdByUsername = ? ORDER BY createdAt DESC";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			String query = "SELECT p.*, c.categoryName, c.weight FROM gradingParametersDB p " +
+					"LEFT JOIN parameterCategoriesDB c ON c.parameterId = p.parameterId " +
+					"WHERE p.createdByUsername = ? ORDER BY p.createdAt DESC, p.parameterId, c.categoryOrder";
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, staffUsername);
-				ResultSet rs = pstmt.executeQuery();
-				while (rs.next()) {
-					// Load new fields with defaults for backward compatibility
-					int requiredPosts = 0;
-					int requiredReplies = 0;
-					String threadId = null;
+				return parseParametersFromResultSet(pstmt.executeQuery());
+			}
+		}
+		
+		/*******
+		 * <p> Method: List<Parameter> parseParametersFromResultSet(ResultSet rs) </p>
+		 * 
+		 * <p> Description: Builds parameters from the rows of a parameter/category join.  Each
+		 * parameter appears once per category (once with a null category if it has none); the
+		 * rows of one parameter are folded into one Parameter, in the order they first appear.</p>
+		 * 
+		 */
+		private List<Parameter> parseParametersFromResultSet(ResultSet rs) throws SQLException {
+			Map<String, Parameter> parameters = new LinkedHashMap<>();
+			Map<String, List<ParameterCategory>> categories = new HashMap<>();
+			while (rs.next()) {
+				String parameterId = rs.getString("parameterId");
+				Parameter parameter = parameters.get(parameterId);
+				if (parameter == null) {
 					List<String> topics = new ArrayList<>();
-					
-					try {
-						requiredPosts = rs.getInt("requiredPosts");
-					} catch (SQLException e) { /* use default */ }
-					
-					try {
-						requiredReplies = rs.getInt("requiredReplies");
-					} catch (SQLException e) { /* use default */ }
-					
-					try {
-						threadId = rs.getString("threadId");
-						if (rs.wasNull()) threadId = null;
-					} catch (SQLException e) { /* use default */ }
-					
-					try {
-						String topicsStr = rs.getString("topics");
-						if (topicsStr != null && !topicsStr.trim().isEmpty()) {
-							String[] topicArray = topicsStr.split(",");
-							for (String topic : topicArray) {
-								if (topic != null && !topic.trim().isEmpty()) {
-									topics.add(topic.trim());
-								}
+					String topicsStr = rs.getString("topics");
+					if (topicsStr != null && !topicsStr.trim().isEmpty()) {
+						for (String topic : topicsStr.split(",")) {
+							if (!topic.trim().isEmpty()) {
+								topics.add(topic.trim());
 							}
 						}
-					} catch (SQLException e) { /* use default */ }
-					
-					// Load categories
-					List<ParameterCategory> categories = new ArrayList<>();
-					String categoriesQuery = "SELECT * FROM parameterCategoriesDB WHERE parameterId = ? ORDER BY categoryOrder";
-					try (PreparedStatement catPstmt = connection.prepareStatement(categoriesQuery)) {
-						catPstmt.setString(1, rs.getString("parameterId"));
-						ResultSet catRs = catPstmt.executeQuery();
-						while (catRs.next()) {
-							ParameterCategory category = new ParameterCategory(
-								catRs.getString("categoryName"),
-								catRs.getDouble("weight")
-							);
-							categories.add(category);
-						}
-					} catch (SQLException e) {
-						// Categories table may not exist yet, use empty list
 					}
+					String threadId = rs.getString("threadId");
 					
-					Parameter parameter = new Parameter(
-						rs.getString("parameterId"),
+					parameter = new Parameter(
+						parameterId,
 						rs.getString("name"),
 						rs.getString("description"),
 						rs.getBoolean("isActive"),
 						rs.getString("createdByUsername"),
-						requiredPosts,
-						requiredReplies,
+						rs.getInt("requiredPosts"),
+						rs.getInt("requiredReplies"),
 						topics,
 						threadId,
-						categories
+						null
 					);
 					parameter.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
-					parameters.add(parameter);
+					parameters.put(parameterId, parameter);
+					categories.put(parameterId, new ArrayList<>());
+				}
+				
+				// A parameter with no categories comes back once, with a null category
+				String categoryName = rs.getString("categoryName");
+				if (categoryName != null) {
+					categories.get(parameterId).add(new ParameterCategory(categoryName, rs.getDouble("weight")));
 				}
 			}
-			return parameters;
+			for (Parameter parameter : parameters.values()) {
+				parameter.setCategories(categories.get(parameter.getParameterId()));
+			}
+			return new ArrayList<>(parameters.values());
 		}
 		
 		/*******
@@ -1613,7 +3197,7 @@ public class Database {
 		 */
 		public boolean deleteParameter(String parameterId) throws SQLException {
 			String query = "DELETE FROM gradingParametersDB WHERE parameterId = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, parameterId);
 				int affected = pstmt.executeUpdate();
 				return affected > 0;
@@ -1630,7 +3214,7 @@ public class Database {
 		 */
 		public void saveThread(Thread thread) throws SQLException {
 			String query = "MERGE INTO threadsDB (threadId, title, description, status, createdByUsername, createdAt) VALUES (?, ?, ?, ?, ?, ?)";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, thread.getThreadId());
 				pstmt.setString(2, thread.getTitle());
 				pstmt.setString(3, thread.getDescription());
@@ -1651,31 +3235,49 @@ public class Database {
 		 */
 		public List<Thread> loadAllThreads() throws SQLException {
 			List<Thread> threads = new ArrayList<>();
-			String query = "SELECT * FROM threadsDB";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				ResultSet rs = pstmt.executeQuery();
-				while (rs.next()) {
-					Thread thread = new Thread(
-						rs.getString("threadId"),
-						rs.getString("title"),
-						rs.getString("description"),
-						rs.getString("createdByUsername")
-					);
-					thread.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
-					String statusStr = rs.getString("status");
-					if ("OPEN".equals(statusStr)) {
-						thread.setStatus(Thread.ThreadStatus.OPEN);
-					} else if ("CLOSED".equals(statusStr)) {
-						thread.setStatus(Thread.ThreadStatus.CLOSED);
-					} else {
-						thread.setStatus(Thread.ThreadStatus.OPEN); // Default
-					}
-					threads.add(thread);
-				}
-			}
+			forEachThread(threads::add);
 			return threads;
 		}
 		
+		/*******
+		 * <p> Method: int forEachThread(Consumer<Thread> consumer) </p>
+		 * 
+		 * <p> Description: Hands every thread to the consumer as it is read, without building a
+		 * list first.</p>
+		 * 
+		 * @param consumer receives each thread
+		 * @return the number of threads
+		 * @throws SQLException if a database error occurs
+		 */
+		public int forEachThread(Consumer<? super Thread> consumer) throws SQLException {
+			return forEachRow("SELECT * FROM threadsDB", this::parseThreadFromResultSet, consumer);
+		}
+		
+		/*******
+		 * <p> Method: Thread parseThreadFromResultSet(ResultSet rs) </p>
+		 * 
+		 * <p> Description: Builds a Thread from the current row of a threadsDB query.</p>
+		 * 
+		 */
+		private Thread parseThreadFromResultSet(ResultSet rs) throws SQLException {
+			Thread thread = new Thread(
+				rs.getString("threadId"),
+				rs.getString("title"),
+				rs.getString("description"),
+				rs.getString("createdByUsername")
+			);
+			thread.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
+			String statusStr = rs.getString("status");
+			if ("OPEN".equals(statusStr)) {
+				thread.setStatus(Thread.ThreadStatus.OPEN);
+			} else if ("CLOSED".equals(statusStr)) {
+				thread.setStatus(Thread.ThreadStatus.CLOSED);
+			} else {
+				thread.setStatus(Thread.ThreadStatus.OPEN); // Default
+			}
+			return thread;
+		}
+		
 		/*******
 		 * <p> Method: List<Thread> loadThreadsByStaff(String staffUsername) </p>
 		 * 
@@ -1688,26 +3290,11 @@ public class Database {
 		public List<Thread> loadThreadsByStaff(String staffUsername) throws SQLException {
 			List<Thread> threads = new ArrayList<>();
 			String query = "SELECT * FROM threadsDB WHERE createdByUsername = ? ORDER BY createdAt DESC";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, staffUsername);
 				ResultSet rs = pstmt.executeQuery();
 				while (rs.next()) {
-					Thread thread = new Thread(
-						rs.getString("threadId"),
-						rs.getString("title"),
-						rs.getString("description"),
-						rs.getString("createdByUsername")
-					);
-					thread.setCreatedAt(rs.getObject("createdAt", LocalDateTime.class));
-					String statusStr = rs.getString("status");
-					if ("OPEN".equals(statusStr)) {
-						thread.setStatus(Thread.ThreadStatus.OPEN);
-					} else if ("CLOSED".equals(statusStr)) {
-						thread.setStatus(Thread.ThreadStatus.CLOSED);
-					} else {
-						thread.setStatus(Thread.ThreadStatus.OPEN); // Default
-					}
-					threads.add(thread);
+					threads.add(parseThreadFromResultSet(rs));
 				}
 			}
 			return threads;
@@ -1724,7 +3311,7 @@ public class Database {
 		 */
 		public boolean deleteThread(String threadId) throws SQLException {
 			String query = "DELETE FROM threadsDB WHERE threadId = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, threadId);
 				int rowsAffected = pstmt.executeUpdate();
 				return rowsAffected > 0;
@@ -1742,7 +3329,7 @@ public class Database {
 		 */
 		public int getPostCountForThread(String threadTitle) throws SQLException {
 			String query = "SELECT COUNT(*) FROM postsDB WHERE thread = ? AND isDeleted = FALSE";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, threadTitle);
 				ResultSet rs = pstmt.executeQuery();
 				if (rs.next()) {
@@ -1752,6 +3339,37 @@ public class Database {
 			return 0;
 		}
 		
+		/*******
+		 * <p> Method: Map<String, Integer> getPostCountsByThread() </p>
+		 * 
+		 * <p> Description: Counts the posts that are not deleted in every thread with one grouped
+		 * query, so a list of threads can show its post counts without one query per thread.</p>
+		 * 
+		 * @return the number of posts per thread title; threads with no posts are left out
+		 * @throws SQLException if a database error occurs
+		 */
+		public Map<String, Integer> getPostCountsByThread() throws SQLException {
+			return countGroups("SELECT thread, COUNT(*) FROM postsDB WHERE isDeleted = FALSE GROUP BY thread");
+		}
+		
+		/*******
+		 * <p> Method: Map<String, Integer> countGroups(String query) </p>
+		 * 
+		 * <p> Description: Runs a query that returns a key and a count per row and collects the
+		 * rows into a map.</p>
+		 * 
+		 */
+		private Map<String, Integer> countGroups(String query) throws SQLException {
+			Map<String, Integer> counts = new HashMap<>();
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
+				ResultSet rs = pstmt.executeQuery();
+				while (rs.next()) {
+					counts.put(rs.getString(1), rs.getInt(2));
+				}
+			}
+			return counts;
+		}
+		
 		/*******
 		 * <p> Method: void saveRequest(Request request) </p>
 		 * 
@@ -1765,7 +3383,7 @@ public class Database {
 			               "createdByUsername, closedByUsername, resolutionNotes, reopenReason, " +
 			               "originalRequestId, createdAt, closedAt, reopenedAt) " +
 			               "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, request.getRequestId());
 				pstmt.setString(2, request.getTitle());
 				pstmt.setString(3, request.getDescription());
@@ -1793,17 +3411,24 @@ public class Database {
 		 */
 		public List<Request> loadAllRequests() throws SQLException {
 			List<Request> requests = new ArrayList<>();
-			String query = "SELECT * FROM requestsDB";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				ResultSet rs = pstmt.executeQuery();
-				while (rs.next()) {
-					Request request = parseRequestFromResultSet(rs);
-					requests.add(request);
-				}
-			}
+			forEachRequest(requests::add);
 			return requests;
 		}
 		
+		/*******
+		 * <p> Method: int forEachRequest(Consumer<Request> consumer) </p>
+		 * 
+		 * <p> Description: Hands every request to the consumer as it is read, without building a
+		 * list first.</p>
+		 * 
+		 * @param consumer receives each request
+		 * @return the number of requests
+		 * @throws SQLException if a database error occurs
+		 */
+		public int forEachRequest(Consumer<? super Request> consumer) throws SQLException {
+			return forEachRow("SELECT * FROM requestsDB", this::parseRequestFromResultSet, consumer);
+		}
+		
 		/*******
 		 * <p> Method: List<Request> loadRequestsByStaff(String staffUsername) </p>
 		 * 
@@ -1816,7 +3441,7 @@ public class Database {
 		public List<Request> loadRequestsByStaff(String staffUsername) throws SQLException {
 			List<Request> requests = new ArrayList<>();
 			String query = "SELECT * FROM requestsDB WHERE createdByUsername = ? ORDER BY createdAt DESC";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, staffUsername);
 				ResultSet rs = pstmt.executeQuery();
 				while (rs.next()) {
@@ -1879,6 +3504,26 @@ public class Database {
 			return request;
 		}
 		
+		/*******
+		 * <p> Method: Map<Request.RequestStatus, Integer> getRequestCountsByStatus() </p>
+		 * 
+		 * <p> Description: Counts the requests in each status with one grouped query.  A status
+		 * other than CLOSED is counted as OPEN, the same way loaded requests are parsed.</p>
+		 * 
+		 * @return the number of requests per status; statuses with no requests are left out
+		 * @throws SQLException if a database error occurs
+		 */
+		public Map<Request.RequestStatus, Integer> getRequestCountsByStatus() throws SQLException {
+			Map<Request.RequestStatus, Integer> counts = new EnumMap<>(Request.RequestStatus.class);
+			String query = "SELECT status, COUNT(*) FROM requestsDB GROUP BY status";
+			for (Map.Entry<String, Integer> group : countGroups(query).entrySet()) {
+				Request.RequestStatus status = "CLOSED".equals(group.getKey())
+						? Request.RequestStatus.CLOSED : Request.RequestStatus.OPEN;
+				counts.merge(status, group.getValue(), Integer::sum);
+			}
+			return counts;
+		}
+		
 		/*******
 		 * <p> Method: boolean deleteRequest(String requestId) </p>
 		 * 
@@ -1890,7 +3535,7 @@ public class Database {
 		 */
 		public boolean deleteRequest(String requestId) throws SQLException {
 			String query = "DELETE FROM requestsDB WHERE requestId = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
 				pstmt.setString(1, requestId);
 				int rowsAffected = pstmt.executeUpdate();
 				return rowsAffected > 0;
@@ -1900,20 +3545,29 @@ public class Database {
 	/*******
 	 * <p> Method: void closeConnection()</p>
 	 * 
-	 * <p> Description: Closes the database statement and connection.</p>
+	 * <p> Description: Stops the archive compactor, writes everything still on the
+	 * write-behind queue and the slow query log, then closes every pooled connection to the
+	 * database.</p>
 	 * 
 	 */
-	// Closes the database statement and connection.
+	// Closes the pooled database connections.
 	public void closeConnection() {
-		try{ 
-			if(statement!=null) statement.close(); 
-		} catch(SQLException se2) { 
-			se2.printStackTrace();
-		} 
-		try { 
-			if(connection!=null) connection.close(); 
-		} catch(SQLException se){ 
-			se.printStackTrace(); 
-		} 
+		WriteBehindQueue queue;
+		ArchiveCompactor compactor;
+		SlowQueryLog log;
+		synchronized (this) {
+			queue = writeBehindQueue;
+			writeBehindQueue = null;
+			compactor = archiveCompactor;
+			archiveCompactor = null;
+			log = slowQueryLog;
+			slowQueryLog = null;
+			queryMetrics.setSlowQueryLog(null);
+		}
+		if (compactor != null) compactor.close();
+		if (queue != null) queue.close();
+		if (log != null) log.close();
+		queryMetrics.close();
+		if (connectionPool != null) connectionPool.close();
 	}
 }
@@ -0,0 +1,1544 @@
+package database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import entityClasses.Invitation;
+import entityClasses.LoginSession;
+import entityClasses.Parameter;
+import entityClasses.ParameterCategory;
+import entityClasses.Post;
+import entityClasses.PostCollection;
+import entityClasses.Reply;
+import entityClasses.ReplyCollection;
+import entityClasses.User;
+import entityClasses.UserProfile;
+
+/*******
+ * <p> Title: DatabaseTest Class. </p>
+ * 
+ * <p> Description: JUnit tests for the schema and query support in the Database class.  Each
+ * test opens its own H2 file in a temporary directory, so the real FoundationDatabase used by
+ * the application and by ModelStaffHomeTest is never touched.</p>
+ * 
+ * <p> Copyright: Joseph © 2026 </p>
+ * 
+ * @author Joseph
+ * 
+ * @version 1.00		2026-10-16 Initial version
+ *  
+ */
+
+public class DatabaseTest {
+	
+	/*****
+     * <p> Default Constructor </p>
+     */
+    public DatabaseTest() {
+        // existing initialization or leave empty
+    }
+    
+	/*****
+	 * Temporary directory holding the H2 database files for one test
+	 */
+	@TempDir
+	Path tempDir;
+	
+	/*****
+	 * Databases opened by a test, closed again in tearDown
+	 */
+	private final List<Database> openDatabases = new ArrayList<>();
+	
+	/*****
+     * <p> Method: void tearDown() </p>
+     * 
+     * <p> Description: Closes every database opened during the test.</p>
+     */
+	@AfterEach
+	public void tearDown() {
+		for (Database database : openDatabases) {
+			database.closeConnection();
+		}
+		openDatabases.clear();
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Schema Migrations
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testFreshDatabaseIsMigratedToLatestVersion() </p>
+     * 
+     * <p> Description: Verifies that a new database runs every migration step and records each
+     * one in schema_version.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testFreshDatabaseIsMigratedToLatestVersion() throws SQLException {
+		Database database = openDatabase("fresh");
+		SchemaMigrator migrator = database.getSchemaMigrator();
+		
+		assertEquals(0, migrator.getStartingVersion(), "A new database has no schema version");
+		assertEquals(SchemaMigrator.getLatestVersion(), migrator.getCurrentVersion());
+		assertEquals(SchemaMigrator.getMigrations().size(), migrator.getAppliedCount());
+		try (Connection connection = database.getConnection()) {
+			assertEquals(SchemaMigrator.getMigrations().size(),
+					SchemaMigrator.getAppliedVersions(connection).size());
+		}
+	}
+	
+	/*****
+     * <p> Method: void testCurrentSchemaTakesFastPath() </p>
+     * 
+     * <p> Description: Verifies that reopening a database whose schema is current runs no
+     * migration steps.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testCurrentSchemaTakesFastPath() throws SQLException {
+		Database first = openDatabase("current");
+		first.closeConnection();
+		
+		Database second = openDatabase("current");
+		SchemaMigrator migrator = second.getSchemaMigrator();
+		assertEquals(0, migrator.getAppliedCount(), "A current schema should not be migrated again");
+		assertEquals(SchemaMigrator.getLatestVersion(), migrator.getStartingVersion());
+		assertTrue(migrator.getReport().startsWith("Schema is current"));
+	}
+	
+	/*****
+     * <p> Method: void testLegacyDatabaseIsUpgraded() </p>
+     * 
+     * <p> Description: Verifies that a database created before versioning existed (older
+     * columns, the obsolete isTemplate column, no schema_version table) is upgraded in place and
+     * keeps its data.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testLegacyDatabaseIsUpgraded() throws SQLException {
+		String url = urlFor("legacy");
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE gradingParametersDB (parameterId VARCHAR(50) PRIMARY KEY, "
+					+ "name VARCHAR(100), description VARCHAR(500), isActive BOOLEAN DEFAULT TRUE, "
+					+ "createdByUsername VARCHAR(255), createdAt TIMESTAMP, isTemplate BOOLEAN)");
+			statement.execute("INSERT INTO gradingParametersDB (parameterId, name) VALUES ('P1', 'Legacy')");
+		}
+		
+		Database database = openDatabase("legacy");
+		assertEquals(0, database.getSchemaMigrator().getStartingVersion());
+		assertEquals(1, database.loadAllParameters().size(), "Existing rows should survive the upgrade");
+		try (Connection connection = database.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+						+ "WHERE TABLE_NAME = 'GRADINGPARAMETERSDB' AND COLUMN_NAME = 'ISTEMPLATE'")) {
+			rs.next();
+			assertEquals(0, rs.getInt(1), "The obsolete isTemplate column should be dropped");
+		}
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Indexes
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testAdvisedQueriesUseIndexes() </p>
+     * 
+     * <p> Description: Verifies that none of the filtered Database queries scans a whole table
+     * once the secondary indexes exist.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testAdvisedQueriesUseIndexes() throws SQLException {
+		Database database = openDatabase("indexed");
+		List<IndexAdvisor.Finding> findings = database.adviseIndexes();
+		
+		assertFalse(findings.isEmpty());
+		for (IndexAdvisor.Finding finding : findings) {
+			assertFalse(finding.isTableScan(), IndexAdvisor.report(findings));
+		}
+	}
+	
+	/*****
+     * <p> Method: void testAdvisorFlagsTableScan() </p>
+     * 
+     * <p> Description: Verifies that the advisor flags a query that filters on a column with no
+     * index.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testAdvisorFlagsTableScan() throws SQLException {
+		Database database = openDatabase("scan");
+		IndexAdvisor advisor = new IndexAdvisor();
+		advisor.register("postsByAuthor", "SELECT * FROM postsDB WHERE authorUsername = ?");
+		
+		try (Connection connection = database.getConnection()) {
+			List<IndexAdvisor.Finding> findings = advisor.analyze(connection);
+			assertEquals(1, findings.size());
+			assertTrue(findings.get(0).isTableScan(), findings.get(0).getPlan());
+			assertEquals("PUBLIC.POSTSDB", findings.get(0).getScannedTables().get(0));
+		}
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Batched Writes and Transactions
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testSavePostsAndRepliesWriteEveryRow() </p>
+     * 
+     * <p> Description: Verifies that the bulk saves write every row, including a last batch that
+     * is smaller than the batch size, and that saving the same rows again updates them.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testSavePostsAndRepliesWriteEveryRow() throws SQLException {
+		Database database = openDatabase("bulk");
+		List<Post> posts = makePosts(53);
+		List<Reply> replies = makeReplies(53);
+		
+		database.savePosts(posts, 10);
+		database.saveReplies(replies, 10);
+		assertEquals(53, database.loadAllPosts().size());
+		assertEquals(53, database.loadAllReplies().size());
+		
+		posts.get(0).setTitle("Edited");
+		database.savePosts(posts);
+		assertEquals(53, database.loadAllPosts().size(), "MERGE should update, not duplicate");
+		assertTrue(database.loadAllPosts().stream().anyMatch(p -> p.getTitle().equals("Edited")));
+		assertEquals(0, database.getConnectionPool().getActiveCount(), "The connection should be returned");
+	}
+	
+	/*****
+     * <p> Method: void testInTransactionRollsBackOnFailure() </p>
+     * 
+     * <p> Description: Verifies that nothing written inside a transaction block is kept when the
+     * block throws, and that a block which returns normally is committed.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testInTransactionRollsBackOnFailure() throws SQLException {
+		Database database = openDatabase("rollback");
+		
+		assertThrows(SQLException.class, () -> database.inTransaction(() -> {
+			database.savePosts(makePosts(5));
+			database.saveReply(new Reply("REPLY_X", "Body", "user", "POST_0"));
+			throw new SQLException("Abort");
+		}));
+		assertEquals(0, database.loadAllPosts().size(), "Rolled back posts must not be kept");
+		assertEquals(0, database.loadAllReplies().size(), "Rolled back replies must not be kept");
+		
+		database.inTransaction(() -> {
+			database.savePost(new Post("POST_A", "Title", "Body", "user", "General"));
+			database.saveReply(new Reply("REPLY_A", "Body", "user", "POST_A"));
+		});
+		assertEquals(1, database.loadAllPosts().size());
+		assertEquals(1, database.loadAllReplies().size());
+		assertEquals(0, database.getConnectionPool().getActiveCount(), "The connection should be returned");
+	}
+	
+	/*****
+     * <p> Method: void testEveryBatchSizeWritesEveryRow() </p>
+     * 
+     * <p> Description: Verifies that the same replies end up in the database whether they are
+     * written through saveReply one row at a time or through saveReplies with any batch size.
+     * What batching saves is measured by benchmarks.BatchWriteBenchmark.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testEveryBatchSizeWritesEveryRow() throws SQLException {
+		int rows = 120;
+		List<Reply> replies = makeReplies(rows);
+		
+		Database single = openDatabase("writeSingle");
+		for (Reply reply : replies) {
+			single.saveReply(reply);
+		}
+		assertEquals(rows, single.loadAllReplies().size());
+		
+		int[] batchSizes = { 1, 50, Database.DEFAULT_BATCH_SIZE };
+		for (int batchSize : batchSizes) {
+			Database batched = openDatabase("writeBatch" + batchSize);
+			batched.saveReplies(replies, batchSize);
+			assertEquals(rows, batched.loadAllReplies().size(), "Batch size " + batchSize);
+		}
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Query Metrics
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testQueryMetricsRecordEachOperation() </p>
+     * 
+     * <p> Description: Verifies that nothing is recorded until the metrics are turned on, that
+     * calls, rows and errors are then recorded under the public Database method that made them,
+     * that a transaction counts as one call, and that the figures reach JMX and the snapshot
+     * file.</p>
+     * 
+     * @throws Exception if database or JMX operations fail
+     */
+	@Test
+	public void testQueryMetricsRecordEachOperation() throws Exception {
+		Database database = openDatabase("metrics");
+		QueryMetrics metrics = database.getQueryMetrics();
+		assertFalse(metrics.isEnabled(), "Metrics should be off until turned on");
+		database.getPostCountForThread("General");
+		assertNull(metrics.getStats("getPostCountForThread"), "Nothing is recorded while off");
+		metrics.setEnabled(true);
+		database.savePosts(makePosts(50));
+		for (int i = 0; i < 3; i++) {
+			database.loadAllPosts();
+		}
+		for (int i = 0; i < 10; i++) {
+			database.getPostCountForThread("General");
+		}
+		try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+			assertThrows(SQLException.class, () -> statement.executeQuery("SELECT missing FROM nowhere"));
+		}
+		
+		QueryStats saves = metrics.getStats("savePosts");
+		assertEquals(1, saves.getCalls(), "The batches inside the transaction are part of one call");
+		assertEquals(50, saves.getRowsWritten());
+		QueryStats loads = metrics.getStats("loadAllPosts");
+		assertEquals(3, loads.getCalls(), "forEachRow is counted under the method that called it");
+		assertEquals(150, loads.getRowsRead());
+		QueryStats counts = metrics.getStats("getPostCountForThread");
+		assertEquals(10, counts.getCalls());
+		assertEquals(0, counts.getErrors());
+		assertTrue(counts.getP50Millis() <= counts.getP95Millis());
+		assertTrue(counts.getP99Millis() <= counts.getMaxMillis());
+		assertEquals(1, metrics.getStats("getConnection").getErrors());
+		
+		metrics.registerMBeans("test-" + tempDir.getFileName());
+		ObjectName name = new ObjectName(QueryMetrics.JMX_DOMAIN + ":type=QueryStats,name="
+				+ ObjectName.quote("test-" + tempDir.getFileName()) + ",operation=" + ObjectName.quote("loadAllPosts"));
+		assertEquals(3L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Calls"));
+		
+		Path snapshot = tempDir.resolve("metrics.log");
+		metrics.writeSnapshot(snapshot);
+		assertTrue(Files.readString(snapshot).contains("getPostCountForThread"));
+		
+		database.closeConnection();
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name),
+				"Closing the database removes its beans");
+	}
+	
+	/*****
+     * <p> Method: void testSlowQueryLogRedactsPasswords() </p>
+     * 
+     * <p> Description: Verifies that with a zero threshold every statement is logged with its
+     * SQL, rows and plan, that password parameters are never written, and that the file is
+     * rotated at its size limit.</p>
+     * 
+     * @throws Exception if database or file operations fail
+     */
+	@Test
+	public void testSlowQueryLogRedactsPasswords() throws Exception {
+		Database database = openDatabase("slow");
+		database.savePosts(makePosts(20));
+		database.getQueryMetrics().setEnabled(true);
+		Path file = tempDir.resolve("slow.log");
+		SlowQueryLog log = database.startSlowQueryLog(file, 0);
+		database.loadAllPosts();
+		database.register(new User("carol", "Hidden1!", "Carol", "", "White", "", "", false, true, false));
+		assertTrue(database.updatePassword("carol", "Changed2!"));
+		log.flush();
+		
+		String text = Files.readString(file);
+		assertTrue(text.contains("operation loadAllPosts"));
+		assertTrue(text.contains("20 rows"), "The rows read are counted");
+		assertTrue(text.contains("Plan:"), "Queries are logged with their plan");
+		assertTrue(text.contains("UPDATE userDB SET password = ?"));
+		assertTrue(text.contains("2=carol"), "Other parameters are kept");
+		assertTrue(text.contains("***"));
+		assertFalse(text.contains("Hidden1!"), "Passwords are never logged");
+		assertFalse(text.contains("Changed2!"), "Passwords are never logged");
+		assertEquals(0, log.getDroppedCount());
+		
+		SlowQueryLog small = database.startSlowQueryLog(file, 0, 2000, 2);
+		for (int i = 0; i < 5; i++) {
+			database.getPostCountForThread("General");
+		}
+		small.flush();
+		assertTrue(Files.size(file) <= 2000);
+		assertTrue(Files.exists(tempDir.resolve("slow.log.1")), "A full file is rotated");
+		assertFalse(Files.exists(tempDir.resolve("slow.log.2")), "Only two files are kept");
+		database.closeConnection();
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Delta Sync
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testForumChangesContainOnlyNewRows() </p>
+     * 
+     * <p> Description: Verifies that a delta holds only the rows inserted or updated after the
+     * given version, and that an unchanged forum gives an empty delta.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testForumChangesContainOnlyNewRows() throws SQLException {
+		Database database = openDatabase("delta");
+		List<Post> posts = makePosts(100);
+		database.savePosts(posts);
+		database.saveReplies(makeReplies(100));
+		
+		long version = database.getForumVersion();
+		ForumChanges all = database.loadForumChangesSince(0);
+		assertEquals(200, all.size());
+		assertEquals(version, all.getVersion());
+		assertTrue(database.loadForumChangesSince(version).isEmpty(), "Nothing changed yet");
+		
+		posts.get(7).setTitle("Edited");
+		database.savePost(posts.get(7));
+		database.saveReply(new Reply("REPLY_NEW", "New reply", "user", "POST_7"));
+		ForumChanges changes = database.loadForumChangesSince(version);
+		assertEquals(1, changes.getPosts().size());
+		assertEquals("Edited", changes.getPosts().get(0).getTitle());
+		assertEquals(1, changes.getReplies().size());
+		assertEquals("REPLY_NEW", changes.getReplies().get(0).getReplyId());
+		assertTrue(changes.getVersion() > version);
+		assertTrue(database.loadForumChangesSince(changes.getVersion()).isEmpty());
+	}
+	
+	/*****
+     * <p> Method: void testForumChangesReportDeletions() </p>
+     * 
+     * <p> Description: Verifies that hard deletes are reported and applied to in-memory
+     * collections, and that a row deleted and then saved again is reported as present.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testForumChangesReportDeletions() throws SQLException {
+		Database database = openDatabase("deltaDelete");
+		database.savePosts(makePosts(3));
+		database.saveReplies(makeReplies(3));
+		PostCollection postCollection = new PostCollection();
+		ReplyCollection replyCollection = new ReplyCollection();
+		ForumChanges initial = database.loadForumChangesSince(0);
+		initial.applyTo(postCollection, replyCollection);
+		assertEquals(3, postCollection.getPostCount());
+		
+		database.deletePostFromDB("POST_0");
+		database.deleteReplyFromDB("REPLY_1");
+		database.deletePostFromDB("POST_2");
+		database.savePost(new Post("POST_2", "Again", "Body", "user", "General"));
+		ForumChanges changes = database.loadForumChangesSince(initial.getVersion());
+		assertEquals(List.of("POST_0"), changes.getDeletedPostIds());
+		assertEquals(List.of("REPLY_1"), changes.getDeletedReplyIds());
+		
+		changes.applyTo(postCollection, replyCollection);
+		assertNull(postCollection.getPostById("POST_0"));
+		assertEquals("Again", postCollection.getPostById("POST_2").getTitle());
+		assertNull(replyCollection.getReplyById("REPLY_1"));
+		assertEquals(2, replyCollection.getReplyCount());
+	}
+	
+	/*****
+     * <p> Method: void testForumChangesWaitForOpenTransactions() </p>
+     * 
+     * <p> Description: Verifies that a reply written by a transaction that is still open while
+     * a delta is read, and that commits after a later reply, is in the next delta even though
+     * its row version is lower than the later reply's.</p>
+     * 
+     * @throws Exception if database operations or the writing thread fail
+     */
+	@Test
+	public void testForumChangesWaitForOpenTransactions() throws Exception {
+		Database database = openDatabase("deltaOpen");
+		database.savePosts(makePosts(1));
+		ForumChanges initial = database.loadForumChangesSince(0);
+		
+		CountDownLatch written = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> flush = executor.submit(() -> {
+				database.inTransaction(() -> {
+					database.saveReply(new Reply("REPLY_SLOW", "Held open", "user", "POST_0"));
+					written.countDown();
+					try {
+						release.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				});
+				return null;
+			});
+			assertTrue(written.await(10, TimeUnit.SECONDS));
+			database.saveReply(new Reply("REPLY_FAST", "Committed first", "user", "POST_0"));
+			
+			ForumChanges during = database.loadForumChangesSince(initial.getVersion());
+			assertEquals(1, during.getReplies().size(), "Only the committed reply can be read yet");
+			assertEquals("REPLY_FAST", during.getReplies().get(0).getReplyId());
+			
+			release.countDown();
+			flush.get(10, TimeUnit.SECONDS);
+			ForumChanges after = database.loadForumChangesSince(during.getVersion());
+			assertTrue(after.getReplies().stream().anyMatch(reply -> reply.getReplyId().equals("REPLY_SLOW")),
+					"A reply committed after the delta should be in the next one");
+			assertTrue(database.loadForumChangesSince(after.getVersion()).isEmpty());
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+	
+	/*****
+     * <p> Method: void testAllocatedIdsAreNeverReused() </p>
+     * 
+     * <p> Description: Verifies that collections taking their IDs from the database never hand
+     * out the same ID, and that IDs already held by rows saved with explicit IDs, including
+     * archived ones, are skipped.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testAllocatedIdsAreNeverReused() throws SQLException {
+		Database database = openDatabase("ids");
+		database.savePosts(makePosts(50));
+		database.saveReplies(makeReplies(20));
+		Post archived = new Post("POST_50", "Archived", "Body", "user", "General");
+		archived.markAsDeleted();
+		database.savePost(archived);
+		database.markDeletionTimes();
+		database.archiveDeletedPosts(LocalDateTime.now().plusDays(1));
+		assertTrue(database.loadAllPosts().stream().noneMatch(post -> post.getPostId().equals("POST_50")));
+		
+		assertEquals("POST_51", database.allocatePostId(), "Live and archived IDs should be skipped");
+		assertEquals("POST_52", database.allocatePostId());
+		assertEquals("REPLY_20", database.allocateReplyId());
+		
+		// Two collections over one database, like the student and staff models
+		ReplyCollection student = new ReplyCollection();
+		ReplyCollection staff = new ReplyCollection();
+		student.setIdSource(database::allocateReplyId);
+		staff.setIdSource(database::allocateReplyId);
+		Set<String> ids = new HashSet<>();
+		for (int i = 0; i < 10; i++) {
+			assertTrue(ids.add(student.createReply("Reply " + i, "student", "POST_1")));
+			assertTrue(ids.add(staff.createFeedback("Feedback " + i, "staff", "POST_1")));
+		}
+		assertTrue(ids.stream().allMatch(id -> id.startsWith("REPLY_")), ids.toString());
+	}
+	
+	/*****
+     * <p> Method: void testIdsAreReservedInBlocks() </p>
+     * 
+     * <p> Description: Verifies that post IDs are handed out from memory, with one trip to the
+     * database per block of SchemaMigrator.ID_BLOCK_SIZE IDs, and that a block holding an ID
+     * saved with an explicit ID while the block before it was in use is skipped.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testIdsAreReservedInBlocks() throws SQLException {
+		Database database = openDatabase("idBlocks");
+		QueryMetrics metrics = database.getQueryMetrics();
+		metrics.setEnabled(true);
+		int block = SchemaMigrator.ID_BLOCK_SIZE;
+		
+		for (int i = 1; i <= 2 * block + 1; i++) {
+			assertEquals("POST_" + i, database.allocatePostId());
+		}
+		assertEquals(3, metrics.getStats("allocatePostId").getCalls(), "One database call per block");
+		
+		// A seeded row lands in the block after the current one
+		int seeded = 3 * block + block / 2;
+		database.savePost(new Post("POST_" + seeded, "Seeded", "Body", "user", "General"));
+		for (int i = 2 * block + 2; i <= 3 * block; i++) {
+			assertEquals("POST_" + i, database.allocatePostId());
+		}
+		assertEquals("POST_" + (seeded + 1), database.allocatePostId(), "The taken block should be skipped");
+		assertEquals(4, metrics.getStats("allocatePostId").getCalls());
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Archival
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testDeletedRowsAreArchivedAndRestored() </p>
+     * 
+     * <p> Description: Verifies that a compaction run moves soft-deleted posts, with all their
+     * replies, and soft-deleted replies into the archive tables, that clients are told the rows
+     * are gone, and that archived rows can be restored.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testDeletedRowsAreArchivedAndRestored() throws SQLException {
+		Database database = openDatabase("archive");
+		database.setBatchSize(2);
+		List<Post> posts = makePosts(10);
+		List<Reply> replies = makeReplies(30);
+		posts.get(1).markAsDeleted();
+		posts.get(2).markAsDeleted();
+		posts.get(3).markAsDeleted();
+		replies.get(4).markAsDeleted();		// On POST_4, which stays
+		replies.get(11).markAsDeleted();	// On POST_1, which is archived
+		database.savePosts(posts);
+		database.saveReplies(replies);
+		long version = database.getForumVersion();
+		
+		assertEquals(5, database.markDeletionTimes());
+		assertEquals(0, database.markDeletionTimes(), "Deletion times are set once");
+		assertEquals(0, database.archiveDeletedPosts(LocalDateTime.now().minusDays(1)),
+				"Nothing has been deleted for a day");
+		
+		ArchiveCompactor compactor = database.startArchiveCompaction(Duration.ZERO, TimeUnit.HOURS.toMillis(1));
+		compactor.runNow();
+		assertEquals(0, compactor.getFailedRunCount());
+		assertEquals(3, compactor.getArchivedPostCount());
+		assertEquals(1, compactor.getArchivedReplyCount());
+		assertEquals(7, database.loadAllPosts().size());
+		// POST_1 to POST_3 took their three replies each, and REPLY_4 went on its own
+		assertEquals(20, database.loadAllReplies().size());
+		ForumChanges changes = database.loadForumChangesSince(version);
+		assertEquals(3, changes.getDeletedPostIds().size());
+		assertEquals(10, changes.getDeletedReplyIds().size());
+		
+		assertTrue(database.restorePost("POST_1"));
+		assertFalse(database.restorePost("POST_1"), "The post is no longer archived");
+		Post restored = database.loadAllPosts().stream()
+				.filter(p -> p.getPostId().equals("POST_1")).findFirst().orElseThrow();
+		assertFalse(restored.isDeleted());
+		List<Reply> live = database.loadAllReplies();
+		assertEquals(23, live.size());
+		assertTrue(live.stream().filter(r -> r.getReplyId().equals("REPLY_11")).findFirst()
+				.orElseThrow().isDeleted(), "A reply keeps its own deleted flag");
+		
+		assertTrue(database.restoreReply("REPLY_4"));
+		assertFalse(database.restoreReply("REPLY_12"), "Its post POST_2 is still archived");
+		assertEquals(24, database.loadAllReplies().size());
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Keyset Pagination
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testPostPagesCoverEveryPostOnce() </p>
+     * 
+     * <p> Description: Verifies that paging through the posts, overall and for one thread,
+     * returns every post exactly once, newest first, even when many posts share a creation
+     * time.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testPostPagesCoverEveryPostOnce() throws SQLException {
+		Database database = openDatabase("pages");
+		List<Post> posts = makePosts(103);
+		LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0);
+		for (int i = 0; i < posts.size(); i++) {
+			// Groups of seven posts share a creation time
+			posts.get(i).setCreatedAt(base.plusMinutes(i / 7));
+			posts.get(i).setThread(i % 3 == 0 ? "Questions" : "General");
+		}
+		database.savePosts(posts);
+		
+		List<Post> all = readAllPages(database, null, 10);
+		assertEquals(103, all.size());
+		assertEquals(103, all.stream().map(Post::getPostId).distinct().count(), "No post may repeat");
+		for (int i = 1; i < all.size(); i++) {
+			assertFalse(all.get(i).getCreatedAt().isAfter(all.get(i - 1).getCreatedAt()), "Newest first");
+		}
+		
+		List<Post> questions = readAllPages(database, "Questions", 4);
+		assertEquals(35, questions.size());
+		assertTrue(questions.stream().allMatch(post -> post.getThread().equals("Questions")));
+		assertEquals(35, questions.stream().map(Post::getPostId).distinct().count(), "No post may repeat");
+	}
+	
+	/*****
+     * <p> Method: void testReplyPagesAndCounts() </p>
+     * 
+     * <p> Description: Verifies that reply pages come back oldest first without gaps, and that
+     * the per-post reply counts match.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testReplyPagesAndCounts() throws SQLException {
+		Database database = openDatabase("replyPages");
+		List<Reply> replies = makeReplies(50);
+		LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0);
+		for (int i = 0; i < replies.size(); i++) {
+			replies.get(i).setCreatedAt(base.plusMinutes(i / 3));
+			replies.get(i).setRead(i % 2 == 0);
+		}
+		database.saveReplies(replies);
+		
+		List<Reply> page = database.loadRepliesPage("POST_3", null, null, 2);
+		List<String> seen = new ArrayList<>();
+		while (!page.isEmpty()) {
+			page.forEach(reply -> seen.add(reply.getReplyId()));
+			Reply last = page.get(page.size() - 1);
+			page = database.loadRepliesPage("POST_3", last.getCreatedAt(), last.getReplyId(), 2);
+		}
+		assertEquals(List.of("REPLY_3", "REPLY_13", "REPLY_23", "REPLY_33", "REPLY_43"), seen);
+		
+		Map<String, Integer> counts = database.getReplyCountsForPosts(List.of("POST_3", "POST_4", "NONE"));
+		assertEquals(5, counts.get("POST_3"));
+		assertEquals(5, counts.get("POST_4"));
+		assertNull(counts.get("NONE"));
+		// Replies to POST_3 are by user3 and unread when i is odd: 3, 13, 23, 33, 43
+		assertEquals(5, database.getUnreadReplyCountsForPosts(List.of("POST_3"), "someoneElse").get("POST_3"));
+		assertNull(database.getUnreadReplyCountsForPosts(List.of("POST_3"), "user3").get("POST_3"),
+				"A user's own replies are not unread");
+	}
+	
+	/*****
+     * <p> Method: void testFirstPageHoldsTheNewestPosts() </p>
+     * 
+     * <p> Description: Verifies that the first page of a large forum is exactly the newest
+     * posts, newest first.  How the cost of that page compares with loadAllPosts as the forum
+     * grows is measured by benchmarks.DatabaseBenchmark.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testFirstPageHoldsTheNewestPosts() throws SQLException {
+		Database database = openDatabase("firstPage");
+		List<Post> posts = makePosts(1000);
+		LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0);
+		for (int i = 0; i < posts.size(); i++) {
+			posts.get(i).setCreatedAt(base.plusMinutes(i));
+		}
+		database.savePosts(posts);
+		
+		List<Post> page = database.loadPostsPage(null, null, null, 25);
+		assertEquals(25, page.size());
+		for (int i = 0; i < page.size(); i++) {
+			assertEquals("POST_" + (999 - i), page.get(i).getPostId(), "Newest first");
+		}
+	}
+
+	/*****
+     * <p> Method: void testPostPagesLoadBodiesLazily() </p>
+     *
+     * <p> Description: Verifies that a page of posts carries only a preview of each body, that
+     * the full body is fetched on first use, and that a saved post is not shown with its old
+     * body from the cache.</p>
+     *
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testPostPagesLoadBodiesLazily() throws SQLException {
+		Database database = openDatabase("headers");
+		String longBody = "x".repeat(Post.MAX_BODY_LENGTH);
+		database.savePost(new Post("LONG", "Long post", longBody, "user1", "General"));
+		database.savePost(new Post("SHORT", "Short post", "Short body", "user1", "General"));
+
+		for (Post post : database.loadPostsPage(null, null, null, 10)) {
+			assertFalse(post.isBodyLoaded());
+		}
+		Post header = findPost(database.loadPostsPage(null, null, null, 10), "LONG");
+		assertEquals("x".repeat(Post.PREVIEW_LENGTH) + "...", header.getPreview());
+		assertFalse(header.isBodyLoaded(), "The preview does not fetch the body");
+		assertEquals(longBody, header.getBody());
+		assertTrue(header.isBodyLoaded());
+
+		Post shortHeader = findPost(database.loadPostsPage(null, null, null, 10), "SHORT");
+		assertEquals("Short body", shortHeader.getPreview());
+
+		// Saving replaces the cached body
+		header.updateContent("Long post", "Edited body");
+		database.savePost(header);
+		assertEquals("Edited body", findPost(database.loadPostsPage(null, null, null, 10), "LONG").getBody());
+
+		// A post deleted after its header was read shows an empty body
+		Post gone = findPost(database.loadPostsPage(null, null, null, 10), "SHORT");
+		database.deletePostFromDB("SHORT");
+		assertEquals("", gone.getBody());
+	}
+
+	/*****
+     * <p> Method: void testUnloadedBodiesAreNeverWritten() </p>
+     *
+     * <p> Description: Verifies that saving a post header whose body was never loaded, alone
+     * or in a batch, keeps the stored body, and that a failed body read is neither taken for an
+     * empty body nor written back, and is retried on the next call.</p>
+     *
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testUnloadedBodiesAreNeverWritten() throws SQLException {
+		Database database = openDatabase("headerSave");
+		database.savePosts(makePosts(3));
+		List<Post> page = database.loadPostsPage(null, null, null, 10);
+
+		Post header = findPost(page, "POST_0");
+		header.setTitle("Renamed");
+		database.savePost(header);
+		Post batched = findPost(page, "POST_1");
+		batched.setTitle("Renamed too");
+		Post loaded = findPost(page, "POST_2");
+		loaded.setBody("New body");
+		database.savePosts(List.of(batched, loaded));
+		assertFalse(header.isBodyLoaded());
+		assertFalse(batched.isBodyLoaded());
+
+		List<Post> stored = database.loadAllPosts();
+		assertEquals("Renamed", findPost(stored, "POST_0").getTitle());
+		assertEquals("Body of post 0", findPost(stored, "POST_0").getBody());
+		assertEquals("Body of post 1", findPost(stored, "POST_1").getBody());
+		assertEquals("New body", findPost(stored, "POST_2").getBody());
+
+		// The first read fails, the second succeeds
+		int[] reads = { 0 };
+		Post flaky = findPost(database.loadPostsPage(null, null, null, 10), "POST_0");
+		flaky.setBodyLoader(flaky.getPreview(), postId -> {
+			if (reads[0]++ == 0) throw new IllegalStateException("Database unavailable");
+			return database.loadPostBody(postId);
+		});
+		assertNull(flaky.getBody(), "A failed read is not an empty body");
+		assertFalse(flaky.isBodyLoaded());
+		database.savePost(flaky);
+		assertEquals("Body of post 0", findPost(database.loadAllPosts(), "POST_0").getBody());
+		assertEquals("Body of post 0", flaky.getBody());
+		assertTrue(flaky.isBodyLoaded());
+	}
+
+	private Post findPost(List<Post> posts, String postId) {
+		return posts.stream().filter(p -> p.getPostId().equals(postId)).findFirst().orElseThrow();
+	}
+
+	/*****
+     * <p> Method: List<Post> readAllPages(Database database, String thread, int pageSize) </p>
+     * 
+     * <p> Description: Pages through the posts of a thread, or all posts, and returns them in
+     * the order the pages gave them.</p>
+     */
+	private List<Post> readAllPages(Database database, String thread, int pageSize) throws SQLException {
+		List<Post> all = new ArrayList<>();
+		List<Post> page = database.loadPostsPage(thread, null, null, pageSize);
+		while (!page.isEmpty()) {
+			all.addAll(page);
+			Post last = page.get(page.size() - 1);
+			page = database.loadPostsPage(thread, last.getCreatedAt(), last.getPostId(), pageSize);
+		}
+		return all;
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Streaming Loads
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testForEachVisitsEveryRow() </p>
+     * 
+     * <p> Description: Verifies that each streaming load hands every row to its consumer once,
+     * and that the connection can run ordinary queries again afterwards.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testForEachVisitsEveryRow() throws SQLException {
+		Database database = openDatabase("streaming");
+		database.savePosts(makePosts(1234));
+		database.saveReplies(makeReplies(321));
+		for (int i = 0; i < 5; i++) {
+			database.saveThread(new entityClasses.Thread("THREAD_" + i, "Thread " + i, "Description", "staff"));
+			database.saveRequest(new entityClasses.Request("REQUEST_" + i, "Request " + i, "Description",
+					entityClasses.Request.RequestCategory.values()[0], "staff"));
+		}
+		
+		PostCollection posts = new PostCollection();
+		assertEquals(1234, database.forEachPost(posts::addPost));
+		assertEquals(1234, posts.getPostCount());
+		ReplyCollection replies = new ReplyCollection();
+		assertEquals(321, database.forEachReply(replies::addReply));
+		assertEquals(321, replies.getReplyCount());
+		List<entityClasses.Thread> threads = new ArrayList<>();
+		assertEquals(5, database.forEachThread(threads::add));
+		assertEquals(5, database.forEachRequest(request -> { }));
+		assertEquals(database.getAllUsers().size(), database.forEachUser(user -> { }));
+		
+		// The lists returned by the loadAll methods are built the same way
+		assertEquals(1234, database.loadAllPosts().size());
+		assertEquals(5, database.loadAllThreads().size());
+		assertEquals(0, database.getConnectionPool().getActiveCount(), "The connection should be returned");
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for User Profiles
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testProfileIsReadOnceAndCached() </p>
+     * 
+     * <p> Description: Verifies that the five name and email getters are answered by one query,
+     * that a single-field update and a whole-profile update are both seen by the next read, and
+     * that changing a returned profile does not change the cached one.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testProfileIsReadOnceAndCached() throws SQLException {
+		Database database = openDatabase("profiles");
+		database.register(new User("alice", "Password1!", "Alice", "B", "Smith", "Al",
+				"alice@example.com", false, true, false));
+		ConnectionPool pool = database.getConnectionPool();
+		
+		long checkoutsBefore = pool.getCheckoutCount();
+		assertEquals("Alice", database.getFirstName("alice"));
+		assertEquals("B", database.getMiddleName("alice"));
+		assertEquals("Smith", database.getLastName("alice"));
+		assertEquals("Al", database.getPreferredFirstName("alice"));
+		assertEquals("alice@example.com", database.getEmailAddress("alice"));
+		assertEquals(1, pool.getCheckoutCount() - checkoutsBefore, "All five fields should come from one query");
+		
+		// A single-field update invalidates the cached profile
+		database.updateLastName("alice", "Jones");
+		assertEquals("Jones", database.getLastName("alice"));
+		
+		// A whole-profile update is one statement and leaves the new profile cached
+		UserProfile profile = database.getUserProfile("alice");
+		profile.setFirstName("Alicia");
+		profile.setEmailAddress("alicia@example.com");
+		checkoutsBefore = pool.getCheckoutCount();
+		assertTrue(database.updateProfile(profile));
+		assertEquals("Alicia", database.getFirstName("alice"));
+		assertEquals("alicia@example.com", database.getUserProfile("alice").getEmailAddress());
+		assertEquals(1, pool.getCheckoutCount() - checkoutsBefore, "Update and reads should take one statement");
+		
+		// Returned profiles are copies
+		database.getUserProfile("alice").setMiddleName("changed");
+		assertEquals("B", database.getMiddleName("alice"));
+		
+		// Unknown users are not cached as anything
+		assertNull(database.getUserProfile("nobody"));
+		assertFalse(database.updateProfile(new UserProfile("nobody", "N", null, null, null, null)));
+		assertTrue(database.deleteUser("alice"));
+		assertNull(database.getUserProfile("alice"), "A deleted user's profile should be dropped");
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Authentication
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testAuthenticateInOneQuery() </p>
+     * 
+     * <p> Description: Verifies that authenticate checks the password and the one-time password,
+     * returns the roles as a bitmask with one query, and that the session it establishes answers
+     * getUserAccountDetails until the user's row is written.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testAuthenticateInOneQuery() throws SQLException {
+		Database database = openDatabase("authenticate");
+		database.register(new User("bob", "Secret1!", "Bob", "", "Brown", "Bobby",
+				"bob@example.com", false, true, true));
+		ConnectionPool pool = database.getConnectionPool();
+		
+		assertNull(database.authenticate("bob", "wrong"));
+		assertNull(database.authenticate("nobody", "Secret1!"));
+		assertNull(database.getCurrentSession());
+		
+		long checkoutsBefore = pool.getCheckoutCount();
+		LoginSession session = database.authenticate("bob", "Secret1!");
+		assertEquals(1, pool.getCheckoutCount() - checkoutsBefore, "Login should take one query");
+		assertNotNull(session);
+		assertEquals(LoginSession.ROLE_STUDENT | LoginSession.ROLE_STAFF, session.getRoles());
+		assertEquals(2, session.getNumberOfRoles());
+		assertFalse(session.hasRole(LoginSession.ROLE_ADMIN));
+		assertFalse(session.isUsingOneTimePassword());
+		assertEquals("Bobby", session.getUser().getPreferredFirstName());
+		assertSame(session, database.getCurrentSession());
+		
+		// The home pages re-read the account; the session answers without a query
+		checkoutsBefore = pool.getCheckoutCount();
+		assertTrue(database.getUserAccountDetails("bob"));
+		assertTrue(database.getCurrentNewStaff());
+		assertEquals(0, pool.getCheckoutCount() - checkoutsBefore);
+		
+		// A role change ends the session so the new roles are read
+		assertTrue(database.updateUserRole("bob", "Admin", "true"));
+		assertNull(database.getCurrentSession());
+		assertEquals(LoginSession.ROLE_ADMIN | LoginSession.ROLE_STUDENT | LoginSession.ROLE_STAFF,
+				database.authenticate("bob", "Secret1!").getRoles());
+		
+		// The one-time password is accepted and reported
+		assertTrue(database.setOneTimePassword("bob", "Temp123"));
+		session = database.authenticate("bob", "Temp123");
+		assertNotNull(session);
+		assertTrue(session.isUsingOneTimePassword());
+		assertEquals("Secret1!", session.getUser().getPassword());
+		
+		database.endSession();
+		assertNull(database.getCurrentSession());
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Invitations
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testRosterInvitationsReportEachRow() </p>
+     * 
+     * <p> Description: Verifies that a roster is invited with unique codes, that every skipped
+     * row is reported with its reason, and that a 2,000-student roster is stored in one call.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testRosterInvitationsReportEachRow() throws SQLException {
+		Database database = openDatabase("invitations");
+		String existingCode = database.generateInvitationCode("taken@example.com", "Student");
+		assertNotNull(existingCode);
+		
+		List<Invitation> roster = Arrays.asList(
+				new Invitation("ann@example.com", "student"),
+				new Invitation(" ben@example.com ", "Staff"),
+				new Invitation("ANN@example.com", "Student"),
+				new Invitation("not-an-email", "Student"),
+				new Invitation("cat@example.com", "Teacher"),
+				new Invitation("taken@example.com", "Student"));
+		List<InvitationResult> results = database.generateInvitationCodes(roster);
+		
+		assertEquals(roster.size(), results.size());
+		assertEquals(InvitationResult.Status.CREATED, results.get(0).getStatus());
+		assertEquals("Student", results.get(0).getInvitation().getRole(), "Role should be canonical");
+		assertEquals("ben@example.com", results.get(1).getInvitation().getEmailAddress());
+		assertEquals(InvitationResult.Status.DUPLICATE, results.get(2).getStatus());
+		assertEquals(InvitationResult.Status.INVALID_EMAIL, results.get(3).getStatus());
+		assertEquals(InvitationResult.Status.INVALID_ROLE, results.get(4).getStatus());
+		assertEquals(InvitationResult.Status.ALREADY_INVITED, results.get(5).getStatus());
+		assertNull(results.get(5).getInvitation().getCode());
+		
+		String code = results.get(0).getInvitation().getCode();
+		assertNotEquals(existingCode, code);
+		assertEquals("Student", database.getRoleGivenAnInvitationCode(code));
+		assertEquals("ann@example.com", database.getEmailAddressUsingCode(code));
+		assertEquals(3, database.getNumberOfInvitations());
+		
+		// A whole course
+		List<Invitation> course = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			course.add(new Invitation("student" + i + "@example.edu", "Student"));
+		}
+		results = database.generateInvitationCodes(course);
+		
+		Set<String> codes = new HashSet<>();
+		for (InvitationResult result : results) {
+			assertTrue(result.isCreated());
+			assertTrue(codes.add(result.getInvitation().getCode()), "Codes should be unique");
+		}
+		assertFalse(codes.contains(existingCode));
+		assertEquals(2003, database.getNumberOfInvitations());
+		
+		// Inviting the same course again creates nothing
+		results = database.generateInvitationCodes(course.subList(0, 10));
+		assertTrue(results.stream().allMatch(r -> r.getStatus() == InvitationResult.Status.ALREADY_INVITED));
+	}
+	
+	/*****
+     * <p> Method: void testRosterCodesAreRedrawnAfterACollision() </p>
+     * 
+     * <p> Description: Verifies that when another session stores a code after the roster read
+     * the codes in use, only the row that drew it gets a new code and the roster is stored, and
+     * that codes which keep colliding make the call fail after a bounded number of attempts
+     * without storing any of the roster.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testRosterCodesAreRedrawnAfterACollision() throws SQLException {
+		Database database = openDatabase("invitationRetry");
+		List<Invitation> roster = Arrays.asList(
+				new Invitation("ann@example.com", "Student"),
+				new Invitation("ben@example.com", "Staff"));
+		
+		// The first code drawn is stored by someone else before the roster is inserted
+		List<String> codes = new ArrayList<>(Arrays.asList("aaaaaa", "bbbbbb", "cccccc"));
+		database.setInvitationCodeSource(() -> {
+			String code = codes.remove(0);
+			if (code.equals("aaaaaa")) insertInvitation(database, code, "other@example.com");
+			return code;
+		});
+		List<InvitationResult> results = database.generateInvitationCodes(roster);
+		assertTrue(results.stream().allMatch(InvitationResult::isCreated));
+		assertEquals("cccccc", results.get(0).getInvitation().getCode(), "The taken code should be redrawn");
+		assertEquals("bbbbbb", results.get(1).getInvitation().getCode(), "Other rows should keep their codes");
+		assertEquals("ann@example.com", database.getEmailAddressUsingCode("cccccc"));
+		assertEquals("other@example.com", database.getEmailAddressUsingCode("aaaaaa"));
+		assertEquals(3, database.getNumberOfInvitations());
+		
+		// Every code drawn is taken straight away
+		int[] drawn = { 0 };
+		database.setInvitationCodeSource(() -> {
+			String code = "taken" + drawn[0]++;
+			insertInvitation(database, code, "other" + code + "@example.com");
+			return code;
+		});
+		List<Invitation> course = List.of(new Invitation("cat@example.com", "Student"));
+		assertThrows(SQLException.class, () -> database.generateInvitationCodes(course));
+		assertEquals(5, drawn[0], "One draw for each attempt");
+		assertEquals(3 + drawn[0], database.getNumberOfInvitations(), "None of the roster should be stored");
+	}
+	
+	/*****
+     * <p> Method: void insertInvitation(Database database, String code, String emailAddress) </p>
+     * 
+     * <p> Description: Stores an invitation as another session would, outside the Database
+     * methods under test.</p>
+     */
+	private static void insertInvitation(Database database, String code, String emailAddress) {
+		try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+			statement.executeUpdate("INSERT INTO InvitationCodes (code, emailaddress, role) VALUES ('"
+					+ code + "', '" + emailAddress + "', 'Student')");
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Bulk User Import
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testUserImportReportsEveryRow() </p>
+     * 
+     * <p> Description: Verifies that a CSV import creates the valid accounts, reports the reason
+     * for every rejected row in file order across chunk boundaries, and imports 10,000 accounts
+     * in one call.</p>
+     * 
+     * @throws Exception if the import fails
+     */
+	@Test
+	public void testUserImportReportsEveryRow() throws Exception {
+		Database database = openDatabase("userImport");
+		database.register(new User("existing", "Secret1!", "", "", "", "", "", false, true, false));
+		
+		String csv = String.join("\n",
+				"userName,password,firstName,middleName,lastName,preferredFirstName,emailAddress,roles",
+				"alice1,Secret1!,Alice,,Smith,,alice@example.com,Student",
+				"1bad,Secret1!,,,,,,Student",
+				"weakpw,password,,,,,,Student",
+				"",
+				"carol1,Secret1!,\"Carol, Jr.\",,,,,student;STAFF",
+				"dave01,Secret1!,,,,,,Teacher",
+				"erin01,Secret1!",
+				"alice1,Secret1!,,,,,,Student",
+				"existing,Secret1!,,,,,,Staff",
+				"frank1,Secret1!,\"unterminated,,,,,Student");
+		UserImport importer = new UserImport(database);
+		importer.setChunkSize(3);
+		List<UserImport.RowResult> report = new ArrayList<>();
+		UserImport.Summary summary = importer.importUsers(new java.io.StringReader(csv), report::add);
+		
+		List<UserImport.Status> statuses = new ArrayList<>();
+		List<Integer> lines = new ArrayList<>();
+		for (UserImport.RowResult row : report) {
+			statuses.add(row.getStatus());
+			lines.add(row.getLine());
+		}
+		assertEquals(Arrays.asList(2, 3, 4, 6, 7, 8, 9, 10, 11), lines, "Every row in file order");
+		assertEquals(Arrays.asList(UserImport.Status.IMPORTED, UserImport.Status.INVALID,
+				UserImport.Status.INVALID, UserImport.Status.IMPORTED, UserImport.Status.INVALID,
+				UserImport.Status.INVALID, UserImport.Status.DUPLICATE, UserImport.Status.EXISTS,
+				UserImport.Status.INVALID), statuses);
+		assertTrue(report.get(4).getMessage().contains("Teacher"));
+		assertEquals(2, summary.getCount(UserImport.Status.IMPORTED));
+		assertEquals(9, summary.getRows());
+		
+		User carol = null;
+		for (User user : database.getAllUsers()) {
+			if (user.getUserName().equals("carol1")) carol = user;
+		}
+		assertNotNull(carol);
+		assertEquals("Carol, Jr.", carol.getFirstName());
+		assertTrue(carol.getNewStudent() && carol.getNewStaff() && !carol.getAdminRole());
+		assertEquals("Alice", database.getFirstName("alice1"));
+		
+		// A term's worth of accounts
+		StringBuilder term = new StringBuilder();
+		for (int i = 0; i < 10_000; i++) {
+			term.append("student").append(i).append(",Secret1!,First,,Last,,s").append(i)
+					.append("@example.edu,Student\n");
+		}
+		summary = new UserImport(database).importUsers(new java.io.StringReader(term.toString()), row -> {});
+		assertEquals(10_000, summary.getCount(UserImport.Status.IMPORTED));
+		assertEquals(10_003, database.getNumberOfUsers());
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Grouped Counts
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testGroupedCountsMatchPerKeyCounts() </p>
+     * 
+     * <p> Description: Verifies that the grouped post, reply and request counts agree with
+     * counting one key at a time, that deleted posts are not counted, and that the grouped query
+     * replaces one query per thread.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testGroupedCountsMatchPerKeyCounts() throws SQLException {
+		int threads = 300;
+		Database database = openDatabase("groupedCounts");
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			Post post = new Post("POST_" + i, "Title", "Body", "user", "Thread " + (i % threads));
+			post.setDeleted(i % 7 == 0);
+			posts.add(post);
+		}
+		database.savePosts(posts);
+		database.saveReplies(makeReplies(95));
+		for (int i = 0; i < 5; i++) {
+			entityClasses.Request request = new entityClasses.Request("REQUEST_" + i, "Request " + i,
+					"Description", entityClasses.Request.RequestCategory.values()[0], "staff");
+			if (i < 2) request.setStatus(entityClasses.Request.RequestStatus.CLOSED);
+			database.saveRequest(request);
+		}
+		
+		Map<String, Integer> perThread = new HashMap<>();
+		for (int t = 0; t < threads; t++) {
+			perThread.put("Thread " + t, database.getPostCountForThread("Thread " + t));
+		}
+		
+		long checkoutsBefore = database.getConnectionPool().getCheckoutCount();
+		Map<String, Integer> grouped = database.getPostCountsByThread();
+		
+		assertEquals(perThread, grouped, "Grouped counts should match counting each thread");
+		assertEquals(1, database.getConnectionPool().getCheckoutCount() - checkoutsBefore,
+				"All thread counts should come from one query");
+		assertEquals(Map.of("POST_0", 10, "POST_1", 10, "POST_9", 9),
+				database.getReplyCountsForPosts(List.of("POST_0", "POST_1", "POST_9")));
+		assertEquals(10, database.getReplyCountsByPost().size());
+		assertEquals(9, database.getReplyCountsByPost().get("POST_9"));
+		assertEquals(Map.of(entityClasses.Request.RequestStatus.OPEN, 3,
+				entityClasses.Request.RequestStatus.CLOSED, 2), database.getRequestCountsByStatus());
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for the Write-Behind Queue
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testQueuedWritesAreMergedAndFlushed() </p>
+     * 
+     * <p> Description: Verifies that repeated writes to the same post are merged into one row
+     * write, that flush waits until every queued write is in the database, and that the queue
+     * metrics count what happened.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testQueuedWritesAreMergedAndFlushed() throws SQLException {
+		Database database = openDatabase("writeBehind");
+		WriteBehindQueue queue = database.getWriteBehindQueue();
+		
+		Post post = new Post("POST_1", "First title", "Body", "user", "General");
+		queue.queuePost(post);
+		queue.queuePost(new Post("POST_1", "Second title", "Body", "user", "General"));
+		queue.queuePost(new Post("POST_1", "Final title", "Body", "user", "General"));
+		for (Reply reply : makeReplies(2)) {
+			queue.queueReply(reply);
+		}
+		assertEquals(2, queue.getMergedCount(), "Both rewrites of POST_1 should be merged");
+		
+		database.flushQueuedWrites();
+		assertEquals(0, queue.getQueueDepth());
+		assertEquals(3, queue.getWrittenCount(), "One post and two replies should be written");
+		assertEquals(0, queue.getFailedCount());
+		assertTrue(queue.getFlushCount() >= 1);
+		List<Post> posts = database.loadAllPosts();
+		assertEquals(1, posts.size());
+		assertEquals("Final title", posts.get(0).getTitle(), "The last queued write should win");
+		assertEquals(2, database.loadAllReplies().size());
+	}
+	
+	/*****
+     * <p> Method: void testQueuedWritesKeepTheirQueuedState() </p>
+     * 
+     * <p> Description: Verifies that a post or reply changed after it is queued is flushed as it
+     * was when it was queued, and that a queued header still leaves the stored body alone even
+     * if the caller sets a new body on it before the flush.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testQueuedWritesKeepTheirQueuedState() throws SQLException {
+		Database database = openDatabase("writeBehindSnapshot");
+		WriteBehindQueue queue = database.getWriteBehindQueue();
+		database.savePosts(makePosts(1));
+		
+		Post header = findPost(database.loadPostsPage(null, null, null, 10), "POST_0");
+		header.setTitle("Queued title");
+		queue.queuePost(header);
+		header.setTitle("Later title");
+		header.setBody("Later body");
+		Post post = new Post("POST_1", "Queued title", "Queued body", "user", "General");
+		queue.queuePost(post);
+		post.setBody("Later body");
+		post.markAsDeleted();
+		Reply reply = new Reply("REPLY_1", "Queued reply", "user", "POST_1");
+		queue.queueReply(reply);
+		reply.setBody("Later reply");
+		reply.setFeedback(true);
+		
+		database.flushQueuedWrites();
+		List<Post> posts = database.loadAllPosts();
+		assertEquals("Queued title", findPost(posts, "POST_0").getTitle());
+		assertEquals("Body of post 0", findPost(posts, "POST_0").getBody(),
+				"A queued header should not write a body");
+		assertEquals("Queued body", findPost(posts, "POST_1").getBody());
+		assertFalse(findPost(posts, "POST_1").isDeleted());
+		Reply stored = database.loadAllReplies().get(0);
+		assertEquals("Queued reply", stored.getBody());
+		assertFalse(stored.isFeedback());
+	}
+	
+	/*****
+     * <p> Method: void testCloseDrainsQueuedWrites() </p>
+     * 
+     * <p> Description: Queues writes and closes the database straight away.  Every write must be
+     * in the database when it is opened again.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testCloseDrainsQueuedWrites() throws SQLException {
+		int count = 2000;
+		Database database = openDatabase("drain");
+		WriteBehindQueue queue = database.getWriteBehindQueue();
+		
+		for (Post post : makePosts(count)) {
+			queue.queuePost(post);
+		}
+		database.closeConnection();
+		
+		Database reopened = openDatabase("drain");
+		assertEquals(count, reopened.loadAllPosts().size(), "Closing must write every queued post");
+		assertEquals(count, queue.getWrittenCount());
+	}
+	
+	/*-*******************************************************************************************
+	
+	Tests for Grading Parameters
+	
+	**********************************************************************************************/
+	
+	/*****
+     * <p> Method: void testParametersLoadWithCategoriesInOneQuery() </p>
+     * 
+     * <p> Description: Verifies that parameters come back with their categories in order, that a
+     * parameter with no categories is still returned, and that loading any number of parameters
+     * prepares a single statement.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testParametersLoadWithCategoriesInOneQuery() throws SQLException {
+		Database database = openDatabase("parameters");
+		for (int i = 0; i < 20; i++) {
+			database.saveParameter(makeParameter("PARAM_" + i, "staff" + (i % 2), i % 4));
+		}
+		ConnectionPool pool = database.getConnectionPool();
+		
+		long preparedBefore = pool.getStatementCacheHits() + pool.getStatementCacheMisses();
+		List<Parameter> mine = database.loadParametersByStaff("staff1");
+		assertEquals(1, pool.getStatementCacheHits() + pool.getStatementCacheMisses() - preparedBefore,
+				"Parameters and categories should be loaded by one statement");
+		assertEquals(10, mine.size());
+		
+		List<Parameter> all = database.loadAllParameters();
+		assertEquals(20, all.size());
+		for (Parameter parameter : all) {
+			int index = Integer.parseInt(parameter.getParameterId().substring("PARAM_".length()));
+			List<ParameterCategory> categories = parameter.getCategories();
+			assertEquals(index % 4, categories.size(), parameter.getParameterId());
+			for (int c = 0; c < categories.size(); c++) {
+				assertEquals("Category " + c, categories.get(c).getCategoryName());
+			}
+		}
+	}
+	
+	/*****
+     * <p> Method: void testSaveParameterDiffsCategories() </p>
+     * 
+     * <p> Description: Verifies that saving a parameter again with changed, added and removed
+     * categories leaves exactly the new list stored.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testSaveParameterDiffsCategories() throws SQLException {
+		Database database = openDatabase("parameterDiff");
+		Parameter parameter = makeParameter("PARAM_DIFF", "staff", 3);
+		database.saveParameter(parameter);
+		
+		List<ParameterCategory> categories = new ArrayList<>(parameter.getCategories());
+		categories.get(1).setWeight(0.5);
+		categories.remove(2);
+		parameter.setCategories(categories);
+		database.saveParameter(parameter);
+		assertCategories(database, "PARAM_DIFF", "Category 0", "Category 1");
+		assertEquals(0.5, database.loadAllParameters().get(0).getCategories().get(1).getWeight());
+		
+		categories.add(new ParameterCategory("Added", 0.1));
+		categories.remove(0);
+		parameter.setCategories(categories);
+		database.saveParameter(parameter);
+		assertCategories(database, "PARAM_DIFF", "Category 1", "Added");
+		
+		parameter.setCategories(new ArrayList<>());
+		database.saveParameter(parameter);
+		assertCategories(database, "PARAM_DIFF");
+	}
+	
+	/*****
+     * <p> Method: void assertCategories(Database database, String parameterId, String... names)
+     * </p>
+     * 
+     * <p> Description: Asserts the stored category names of a parameter, in order.</p>
+     */
+	private void assertCategories(Database database, String parameterId, String... names)
+			throws SQLException {
+		for (Parameter parameter : database.loadAllParameters()) {
+			if (parameter.getParameterId().equals(parameterId)) {
+				List<String> stored = new ArrayList<>();
+				for (ParameterCategory category : parameter.getCategories()) {
+					stored.add(category.getCategoryName());
+				}
+				assertEquals(List.of(names), stored);
+				return;
+			}
+		}
+		fail("Parameter " + parameterId + " was not stored");
+	}
+	
+	/*****
+     * <p> Method: Parameter makeParameter(String parameterId, String staff, int categoryCount)
+     * </p>
+     * 
+     * <p> Description: Returns a parameter with categories named "Category 0" onward.</p>
+     */
+	private Parameter makeParameter(String parameterId, String staff, int categoryCount) {
+		List<ParameterCategory> categories = new ArrayList<>();
+		for (int c = 0; c < categoryCount; c++) {
+			categories.add(new ParameterCategory("Category " + c, 0.2));
+		}
+		return new Parameter(parameterId, "Name " + parameterId, "Description", true, staff,
+				1, 1, List.of("Topic"), "THREAD_1", categories);
+	}
+	
+	/*****
+     * <p> Method: List<Post> makePosts(int count) </p>
+     * 
+     * <p> Description: Returns posts with IDs POST_0 to POST_(count - 1).</p>
+     */
+	private List<Post> makePosts(int count) {
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			posts.add(new Post("POST_" + i, "Title " + i, "Body of post " + i, "user" + (i % 10), "General"));
+		}
+		return posts;
+	}
+	
+	/*****
+     * <p> Method: List<Reply> makeReplies(int count) </p>
+     * 
+     * <p> Description: Returns replies with IDs REPLY_0 to REPLY_(count - 1), spread over ten
+     * posts.</p>
+     */
+	private List<Reply> makeReplies(int count) {
+		List<Reply> replies = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			replies.add(new Reply("REPLY_" + i, "Reply body " + i, "user" + (i % 10), "POST_" + (i % 10)));
+		}
+		return replies;
+	}
+	
+	/*****
+     * <p> Method: String urlFor(String name) </p>
+     * 
+     * <p> Description: Returns the JDBC URL of a database file in the temporary directory.</p>
+     */
+	private String urlFor(String name) {
+		return "jdbc:h2:" + tempDir.resolve(name).toAbsolutePath();
+	}
+	
+	/*****
+     * <p> Method: Database openDatabase(String name) </p>
+     * 
+     * <p> Description: Opens a Database on an H2 file in the temporary directory.</p>
+     */
+	private Database openDatabase(String name) throws SQLException {
+		Database database = new Database(urlFor(name), 1, 4, 5000);
+		database.connectToDatabase();
+		openDatabases.add(database);
+		return database;
+	}
+}
@@ -0,0 +1,140 @@
+package database;
+
+import java.util.Collections;
+import java.util.List;
+import entityClasses.Post;
+import entityClasses.PostCollection;
+import entityClasses.Reply;
+import entityClasses.ReplyCollection;
+
+/*******
+ * <p> Title: ForumChanges Class. </p>
+ *
+ * <p> Description: The posts and replies that changed after a given row version, as returned by
+ * Database.loadForumChangesSince.  Every insert or update of a post or reply gives the row a new
+ * version from one shared sequence, and every hard delete leaves a tombstone with its own
+ * version, so a client that remembers the version of its last changes can ask for just the rows
+ * written since.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class ForumChanges {
+
+	private final long sinceVersion;
+	private final long version;
+	private final List<Post> posts;
+	private final List<Reply> replies;
+	private final List<String> deletedPostIds;
+	private final List<String> deletedReplyIds;
+
+	ForumChanges(long sinceVersion, long version, List<Post> posts, List<Reply> replies,
+			List<String> deletedPostIds, List<String> deletedReplyIds) {
+		this.sinceVersion = sinceVersion;
+		this.version = version;
+		this.posts = Collections.unmodifiableList(posts);
+		this.replies = Collections.unmodifiableList(replies);
+		this.deletedPostIds = Collections.unmodifiableList(deletedPostIds);
+		this.deletedReplyIds = Collections.unmodifiableList(deletedReplyIds);
+	}
+
+	/*******
+	 * <p> Method: long getSinceVersion() </p>
+	 *
+	 * @return the version the changes were requested after
+	 */
+	public long getSinceVersion() { return sinceVersion; }
+
+	/*******
+	 * <p> Method: long getVersion() </p>
+	 *
+	 * @return a version at or below which every change is included here, or the since version if
+	 * no newer one is settled yet; pass this to the next call of loadForumChangesSince.  Changes
+	 * above it may also be included, and are then included again by that call.
+	 */
+	public long getVersion() { return version; }
+
+	/*******
+	 * <p> Method: List<Post> getPosts() </p>
+	 *
+	 * @return the posts inserted or updated since the since version
+	 */
+	public List<Post> getPosts() { return posts; }
+
+	/*******
+	 * <p> Method: List<Reply> getReplies() </p>
+	 *
+	 * @return the replies inserted or updated since the since version
+	 */
+	public List<Reply> getReplies() { return replies; }
+
+	/*******
+	 * <p> Method: List<String> getDeletedPostIds() </p>
+	 *
+	 * @return the IDs of posts removed from the database since the since version
+	 */
+	public List<String> getDeletedPostIds() { return deletedPostIds; }
+
+	/*******
+	 * <p> Method: List<String> getDeletedReplyIds() </p>
+	 *
+	 * @return the IDs of replies removed from the database since the since version
+	 */
+	public List<String> getDeletedReplyIds() { return deletedReplyIds; }
+
+	/*******
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of changed and deleted rows
+	 */
+	public int size() {
+		return posts.size() + replies.size() + deletedPostIds.size() + deletedReplyIds.size();
+	}
+
+	/*******
+	 * <p> Method: boolean isEmpty() </p>
+	 *
+	 * @return true if nothing changed since the since version
+	 */
+	public boolean isEmpty() { return size() == 0; }
+
+	/*******
+	 * <p> Method: void applyTo(PostCollection postCollection, ReplyCollection replyCollection) </p>
+	 *
+	 * <p> Description: Brings in-memory collections up to date.  Changed rows replace the
+	 * object held under the same ID and deleted rows are removed.  Applying the same changes
+	 * twice is harmless.</p>
+	 *
+	 * @param postCollection the posts to update
+	 * @param replyCollection the replies to update
+	 */
+	public void applyTo(PostCollection postCollection, ReplyCollection replyCollection) {
+		for (Post post : posts) {
+			postCollection.addPost(post);
+		}
+		for (String postId : deletedPostIds) {
+			postCollection.removePost(postId);
+		}
+		for (Reply reply : replies) {
+			replyCollection.addReply(reply);
+		}
+		for (String replyId : deletedReplyIds) {
+			replyCollection.removeReply(replyId);
+		}
+	}
+
+	/*******
+	 * <p> Method: String toString() </p>
+	 *
+	 * @return a one-line summary of the changes
+	 */
+	@Override
+	public String toString() {
+		return String.format("Forum changes %d..%d: %d posts, %d replies, %d deleted posts, %d deleted replies",
+				sinceVersion, version, posts.size(), replies.size(), deletedPostIds.size(),
+				deletedReplyIds.size());
+	}
+}
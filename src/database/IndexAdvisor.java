@@ -0,0 +1,244 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*******
+ * <p> Title: IndexAdvisor Class. </p>
+ *
+ * <p> Description: A small built-in advisor that asks H2 how it would run a set of registered
+ * queries and flags every query whose plan scans a whole table.  H2 writes the chosen access
+ * path into the EXPLAIN output as a comment, e.g. "PUBLIC.POSTSDB.tableScan" for a full scan or
+ * the index name when an index is used, so no statistics tables are needed.</p>
+ *
+ * <p> The default registrations are the Database queries that filter or sort on a column other
+ * than the primary key.  A query that starts scanning after a schema change shows up here
+ * before it shows up as a slow dialog.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class IndexAdvisor {
+
+	/*******
+	 * <p> Title: Finding Class. </p>
+	 *
+	 * <p> Description: The plan H2 chose for one registered query.</p>
+	 */
+	public static class Finding {
+		private final String queryName;
+		private final String sql;
+		private final String plan;
+		private final List<String> scannedTables;
+
+		Finding(String queryName, String sql, String plan, List<String> scannedTables) {
+			this.queryName = queryName;
+			this.sql = sql;
+			this.plan = plan;
+			this.scannedTables = Collections.unmodifiableList(scannedTables);
+		}
+
+		/*******
+		 * <p> Method: String getQueryName() </p>
+		 *
+		 * @return the name the query was registered under
+		 */
+		public String getQueryName() { return queryName; }
+
+		/*******
+		 * <p> Method: String getSql() </p>
+		 *
+		 * @return the SQL text of the query
+		 */
+		public String getSql() { return sql; }
+
+		/*******
+		 * <p> Method: String getPlan() </p>
+		 *
+		 * @return the EXPLAIN output for the query
+		 */
+		public String getPlan() { return plan; }
+
+		/*******
+		 * <p> Method: List<String> getScannedTables() </p>
+		 *
+		 * @return the tables the plan reads in full, empty when every table is read by index
+		 */
+		public List<String> getScannedTables() { return scannedTables; }
+
+		/*******
+		 * <p> Method: boolean isTableScan() </p>
+		 *
+		 * @return true if the plan reads at least one table in full
+		 */
+		public boolean isTableScan() { return !scannedTables.isEmpty(); }
+
+		/*******
+		 * <p> Method: String toString() </p>
+		 *
+		 * @return a one-line summary of the finding
+		 */
+		@Override
+		public String toString() {
+			return (isTableScan() ? "TABLE SCAN " + scannedTables : "indexed") + "  " + queryName;
+		}
+	}
+
+	// H2 marks a full scan with a comment such as: /* PUBLIC.POSTSDB.tableScan */
+	private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*([\\w.]+)\\.(tableScan|scan)\\b");
+
+	// The registered queries, by name, in registration order
+	private final Map<String, String> queries = new LinkedHashMap<>();
+
+	/*******
+	 * <p> Method: IndexAdvisor() </p>
+	 *
+	 * <p> Description: Creates an advisor with no registered queries.</p>
+	 */
+	public IndexAdvisor() {
+	}
+
+	/*******
+	 * <p> Method: IndexAdvisor withDefaultQueries() </p>
+	 *
+	 * <p> Description: Creates an advisor for the filtered and sorted queries that Database runs.
+	 * </p>
+	 *
+	 * @return an advisor with the Database queries registered
+	 */
+	public static IndexAdvisor withDefaultQueries() {
+		IndexAdvisor advisor = new IndexAdvisor();
+		advisor.register("doesUserExist", "SELECT COUNT(*) FROM userDB WHERE userName = ?");
+		advisor.register("emailaddressHasBeenUsed",
+				"SELECT COUNT(*) AS count FROM InvitationCodes WHERE emailAddress = ?");
+		advisor.register("getPostCountForThread",
+				"SELECT COUNT(*) FROM postsDB WHERE thread = ? AND isDeleted = FALSE");
+		advisor.register("repliesForPost", "SELECT * FROM repliesDB WHERE parentPostId = ?");
+		advisor.register("loadPostsPage", Database.POST_HEADER_COLUMNS + " WHERE createdAt <= ? "
+				+ "AND (createdAt < ? OR postId < ?) ORDER BY createdAt DESC, postId DESC LIMIT ?");
+		advisor.register("loadPostsPageForThread", Database.POST_HEADER_COLUMNS + " WHERE thread = ? AND createdAt <= ? "
+				+ "AND (createdAt < ? OR postId < ?) ORDER BY thread, createdAt DESC, postId DESC LIMIT ?");
+		advisor.register("loadRepliesPage", "SELECT * FROM repliesDB WHERE parentPostId = ? AND createdAt >= ? "
+				+ "AND (createdAt > ? OR replyId > ?) ORDER BY parentPostId, createdAt, replyId LIMIT ?");
+		advisor.register("loadThreadsByStaff",
+				"SELECT * FROM threadsDB WHERE createdByUsername = ? ORDER BY createdAt DESC");
+		advisor.register("loadRequestsByStaff",
+				"SELECT * FROM requestsDB WHERE createdByUsername = ? ORDER BY createdAt DESC");
+		advisor.register("loadParametersByStaff",
+				"SELECT p.*, c.categoryName, c.weight FROM gradingParametersDB p "
+				+ "LEFT JOIN parameterCategoriesDB c ON c.parameterId = p.parameterId "
+				+ "WHERE p.createdByUsername = ? ORDER BY p.createdAt DESC, p.parameterId, c.categoryOrder");
+		advisor.register("parameterCategories",
+				"SELECT * FROM parameterCategoriesDB WHERE parameterId = ? ORDER BY categoryOrder");
+		advisor.register("postChangesSince", "SELECT * FROM postsDB WHERE rowVersion > ?");
+		advisor.register("replyChangesSince", "SELECT * FROM repliesDB WHERE rowVersion > ?");
+		advisor.register("markPostDeletionTimes",
+				"SELECT postId FROM postsDB WHERE isDeleted = TRUE AND deletedAt IS NULL");
+		advisor.register("archiveDeletedPosts",
+				"SELECT postId FROM postsDB WHERE isDeleted = TRUE AND deletedAt <= ? LIMIT ?");
+		advisor.register("archiveDeletedReplies",
+				"SELECT replyId FROM repliesDB WHERE isDeleted = TRUE AND deletedAt <= ? LIMIT ?");
+		advisor.register("restorePostReplies", "SELECT * FROM repliesArchiveDB WHERE parentPostId = ?");
+		advisor.register("deletionsSince", "SELECT * FROM forumDeletionsDB WHERE rowVersion > ?");
+		return advisor;
+	}
+
+	/*******
+	 * <p> Method: void register(String name, String sql) </p>
+	 *
+	 * <p> Description: Adds a query to be checked.  Parameters may be left as "?" since EXPLAIN
+	 * does not need their values.</p>
+	 *
+	 * @param name a name for the query, usually the Database method that runs it
+	 * @param sql the SQL text of the query
+	 */
+	public void register(String name, String sql) {
+		queries.put(name, sql);
+	}
+
+	/*******
+	 * <p> Method: List<Finding> analyze(Connection connection) </p>
+	 *
+	 * <p> Description: Runs EXPLAIN on every registered query.</p>
+	 *
+	 * @param connection the connection to explain the queries on
+	 *
+	 * @return one finding per registered query, in registration order
+	 *
+	 * @throws SQLException if a query cannot be explained (e.g., it names a missing column)
+	 */
+	public List<Finding> analyze(Connection connection) throws SQLException {
+		List<Finding> findings = new ArrayList<>();
+		for (Map.Entry<String, String> query : queries.entrySet()) {
+			String plan = explain(connection, query.getValue());
+			findings.add(new Finding(query.getKey(), query.getValue(), plan, scannedTables(plan)));
+		}
+		return findings;
+	}
+
+	/*******
+	 * <p> Method: String report(List<Finding> findings) </p>
+	 *
+	 * <p> Description: Formats findings as text, table scans first.</p>
+	 *
+	 * @param findings the findings to report
+	 *
+	 * @return one line per finding, followed by the plan of every table scan
+	 */
+	public static String report(List<Finding> findings) {
+		StringBuilder report = new StringBuilder();
+		int scans = 0;
+		for (Finding finding : findings) {
+			if (finding.isTableScan()) scans++;
+		}
+		report.append("Index advisor: ").append(scans).append(" of ").append(findings.size())
+				.append(" queries scan a whole table\n");
+		for (Finding finding : findings) {
+			if (finding.isTableScan()) {
+				report.append("  ").append(finding).append('\n');
+				report.append("    ").append(finding.getPlan().replace("\n", "\n    ")).append('\n');
+			}
+		}
+		for (Finding finding : findings) {
+			if (!finding.isTableScan()) {
+				report.append("  ").append(finding).append('\n');
+			}
+		}
+		return report.toString();
+	}
+
+	private static String explain(Connection connection, String sql) throws SQLException {
+		try (PreparedStatement pstmt = connection.prepareStatement("EXPLAIN " + sql);
+				ResultSet rs = pstmt.executeQuery()) {
+			StringBuilder plan = new StringBuilder();
+			while (rs.next()) {
+				if (plan.length() > 0) plan.append('\n');
+				plan.append(rs.getString(1));
+			}
+			return plan.toString();
+		}
+	}
+
+	private static List<String> scannedTables(String plan) {
+		List<String> tables = new ArrayList<>();
+		Matcher matcher = TABLE_SCAN.matcher(plan);
+		while (matcher.find()) {
+			if (!tables.contains(matcher.group(1))) {
+				tables.add(matcher.group(1));
+			}
+		}
+		return tables;
+	}
+}
@@ -0,0 +1,96 @@
+package database;
+
+import entityClasses.Invitation;
+
+/*******
+ * <p> Title: InvitationResult Class. </p>
+ *
+ * <p> Description: What Database.generateInvitationCodes did with one roster row: the invitation
+ * it created, or why the row was skipped.  Results come back in roster order, one per row, so the
+ * admin can see exactly which students still need attention.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class InvitationResult {
+
+	/*******
+	 * <p> Title: Status Enum. </p>
+	 *
+	 * <p> Description: The outcome of one roster row.</p>
+	 */
+	public enum Status {
+		/** An invitation code was allocated and stored */
+		CREATED,
+		/** The email address is empty or not of the form name@domain.tld */
+		INVALID_EMAIL,
+		/** The role is not one of Database.INVITATION_ROLES */
+		INVALID_ROLE,
+		/** The email address appears earlier in the same roster */
+		DUPLICATE,
+		/** An outstanding invitation already exists for the email address */
+		ALREADY_INVITED
+	}
+
+	private final int row;
+	private final Invitation invitation;
+	private final Status status;
+
+	/*******
+	 * <p> Method: InvitationResult(int row, Invitation invitation, Status status) </p>
+	 *
+	 * @param row the zero-based position of the row in the roster
+	 * @param invitation the invitation as stored, or the roster row as given if it was skipped
+	 * @param status the outcome
+	 */
+	InvitationResult(int row, Invitation invitation, Status status) {
+		this.row = row;
+		this.invitation = invitation;
+		this.status = status;
+	}
+
+	/*******
+	 * <p> Method: int getRow() </p>
+	 *
+	 * @return the zero-based position of the row in the roster
+	 */
+	public int getRow() { return row; }
+
+	/*******
+	 * <p> Method: Invitation getInvitation() </p>
+	 *
+	 * @return the invitation; its code is null unless the status is CREATED
+	 */
+	public Invitation getInvitation() { return invitation; }
+
+	/*******
+	 * <p> Method: Status getStatus() </p>
+	 *
+	 * @return the outcome of the row
+	 */
+	public Status getStatus() { return status; }
+
+	/*******
+	 * <p> Method: boolean isCreated() </p>
+	 *
+	 * @return true if an invitation was created for the row
+	 */
+	public boolean isCreated() { return status == Status.CREATED; }
+
+	/*******
+	 * <p> Method: String toString() </p>
+	 *
+	 * @return a one-line summary of the row, suitable for a report
+	 */
+	@Override
+	public String toString() {
+		String email = invitation.getEmailAddress() == null ? "" : invitation.getEmailAddress();
+		if (isCreated()) {
+			return email + " (" + invitation.getRole() + "): code " + invitation.getCode();
+		}
+		return email + " (" + invitation.getRole() + "): " + status;
+	}
+}
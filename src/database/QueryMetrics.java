@@ -0,0 +1,504 @@
+package database;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*******
+ * <p> Title: QueryMetrics Class. </p>
+ *
+ * <p> Description: Records how long each Database operation takes, how many rows it reads and
+ * writes, and how often it fails.  Every connection Database.getConnection hands out is wrapped
+ * here; the time from borrowing it to closing it is one call of the operation, and the rows and
+ * errors are counted from the statements and results made on it.  Errors are counted where
+ * the driver throws them, so the ones the older Database methods swallow are counted too.</p>
+ *
+ * <p> The operation is the outermost Database method on the stack when the connection is
+ * borrowed, so the queries made by private helpers such as forEachRow are counted under the
+ * public method that called them.  Database borrows once per call in almost every method; a
+ * method that borrows twice in a row records two calls.</p>
+ *
+ * <p> The statistics can be read with getStats, published to JMX with registerMBeans, and
+ * written to a file at a fixed interval with startSnapshotDump.  Each statement on a wrapped
+ * connection is also timed on its own, from the execute call until its result is read to the
+ * end or closed, counting only the time spent inside the driver; the ones slower than the
+ * threshold of the SlowQueryLog, if one is set, are handed to it.</p>
+ *
+ * <p> Finding the operation and wrapping the connection, its statements and its results costs
+ * about 10 microseconds a call, so nothing is recorded until setEnabled(true) is called; until
+ * then Database hands out the pooled connections unwrapped.  FoundationsMain turns the metrics
+ * on when the application is started with -Dfoundations.queryMetrics=true.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class QueryMetrics implements QueryMetricsMBean {
+
+	// The JMX domain the MBeans are registered under
+	public static final String JMX_DOMAIN = "database";
+
+	private static final String REPORT_HEADER = String.format(
+			"%-32s %8s %6s %10s %10s %10s %10s %10s %10s %10s %12s",
+			"operation", "calls", "errors", "rowsRead", "rowsWrit", "mean ms", "p50 ms", "p95 ms",
+			"p99 ms", "max ms", "total ms");
+
+	// Borrows the connection to be wrapped
+	@FunctionalInterface
+	interface ConnectionSource {
+		Connection get() throws SQLException;
+	}
+
+	private final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+	private volatile boolean enabled = false;
+	private volatile SlowQueryLog slowQueryLog = null;
+
+	// Set while the MBeans are registered; guarded by this
+	private String mbeanName = null;
+	private ScheduledExecutorService dumpExecutor = null;
+	private Path dumpFile = null;
+
+	/*******
+	 * <p> Method: Connection instrument(String operation, ConnectionSource source) </p>
+	 *
+	 * <p> Description: Borrows a connection and wraps it so that closing it records one call of
+	 * the operation.  A failed borrow is recorded as a failed call.</p>
+	 *
+	 * @param operation the Database method the connection is for
+	 * @param source borrows the connection
+	 * @return the wrapped connection
+	 * @throws SQLException when the connection cannot be borrowed
+	 */
+	Connection instrument(String operation, ConnectionSource source) throws SQLException {
+		Sample sample = new Sample(statsFor(operation), slowQueryLog);
+		Connection connection;
+		try {
+			connection = source.get();
+		} catch (SQLException | RuntimeException e) {
+			sample.failed = true;
+			sample.finish();
+			throw e;
+		}
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, sample.handlerFor(connection, true, null));
+	}
+
+	/*******
+	 * <p> Method: boolean isEnabled() </p>
+	 *
+	 * @return whether new connections are timed
+	 */
+	public boolean isEnabled() { return enabled; }
+
+	/*******
+	 * <p> Method: void setEnabled(boolean enabled) </p>
+	 *
+	 * <p> Description: Turns timing on or off for connections borrowed from now on.  The
+	 * statistics recorded so far are kept.  Timing is off until this is called.</p>
+	 *
+	 * @param enabled true to time every Database call
+	 */
+	public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+	/*******
+	 * <p> Method: void setSlowQueryLog(SlowQueryLog slowQueryLog) </p>
+	 *
+	 * <p> Description: Sends every statement slower than the log's threshold to the log, for
+	 * connections borrowed from now on.</p>
+	 *
+	 * @param slowQueryLog the log, or null to stop logging
+	 */
+	void setSlowQueryLog(SlowQueryLog slowQueryLog) { this.slowQueryLog = slowQueryLog; }
+
+	/*******
+	 * <p> Method: QueryStats getStats(String operation) </p>
+	 *
+	 * @param operation the name of a Database method
+	 * @return its statistics, or null if it has not been called
+	 */
+	public QueryStats getStats(String operation) {
+		return stats.get(operation);
+	}
+
+	/*******
+	 * <p> Method: List&lt;QueryStats&gt; getAllStats() </p>
+	 *
+	 * @return the statistics of every operation called so far, most total time first
+	 */
+	public List<QueryStats> getAllStats() {
+		List<QueryStats> all = new ArrayList<>(stats.values());
+		all.sort(Comparator.comparingDouble(QueryStats::getTotalMillis).reversed()
+				.thenComparing(QueryStats::getOperation));
+		return all;
+	}
+
+	@Override
+	public String[] getOperations() {
+		return getAllStats().stream().map(QueryStats::getOperation).toArray(String[]::new);
+	}
+
+	@Override
+	public long getTotalCalls() {
+		return stats.values().stream().mapToLong(QueryStats::getCalls).sum();
+	}
+
+	@Override
+	public long getTotalErrors() {
+		return stats.values().stream().mapToLong(QueryStats::getErrors).sum();
+	}
+
+	@Override
+	public String getReport() {
+		StringBuilder report = new StringBuilder(REPORT_HEADER).append('\n');
+		for (QueryStats operation : getAllStats()) {
+			report.append(operation).append('\n');
+		}
+		return report.toString();
+	}
+
+	@Override
+	public void reset() {
+		for (QueryStats operation : stats.values()) {
+			operation.reset();
+		}
+	}
+
+	/*******
+	 * <p> Method: void registerMBeans(String name) </p>
+	 *
+	 * <p> Description: Publishes these metrics to the platform MBean server, as
+	 * database:type=QueryMetrics,name=<i>name</i>, and each operation as
+	 * database:type=QueryStats,name=<i>name</i>,operation=<i>method</i>.  Operations first
+	 * called later are published as they appear.</p>
+	 *
+	 * @param name tells this database apart from others in the same JVM
+	 * @throws JMException when a bean cannot be registered, e.g. the name is already taken
+	 */
+	public synchronized void registerMBeans(String name) throws JMException {
+		unregisterMBeans();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(this, metricsName(name));
+		mbeanName = name;
+		for (QueryStats operation : stats.values()) {
+			register(operation);
+		}
+	}
+
+	/*******
+	 * <p> Method: void unregisterMBeans() </p>
+	 *
+	 * <p> Description: Removes the beans published by registerMBeans.</p>
+	 */
+	public synchronized void unregisterMBeans() {
+		if (mbeanName == null) return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.unregisterMBean(metricsName(mbeanName));
+			for (QueryStats operation : stats.values()) {
+				ObjectName objectName = statsName(mbeanName, operation.getOperation());
+				if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+			}
+		} catch (JMException e) {
+			System.err.println("Error unregistering query metrics: " + e.getMessage());
+		}
+		mbeanName = null;
+	}
+
+	/*******
+	 * <p> Method: void startSnapshotDump(Path file, long intervalMillis) </p>
+	 *
+	 * <p> Description: Appends the report to the file at a fixed interval on a background
+	 * thread, and once more when the dump is stopped.  A dump already running is stopped
+	 * first.</p>
+	 *
+	 * @param file the file the snapshots are appended to
+	 * @param intervalMillis the time between snapshots
+	 */
+	public synchronized void startSnapshotDump(Path file, long intervalMillis) {
+		if (intervalMillis < 1) {
+			throw new IllegalArgumentException("Interval must be at least 1 ms: " + intervalMillis);
+		}
+		stopSnapshotDump();
+		dumpFile = file;
+		dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "query-metrics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumpExecutor.scheduleAtFixedRate(() -> writeSnapshot(file), intervalMillis, intervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/*******
+	 * <p> Method: void stopSnapshotDump() </p>
+	 *
+	 * <p> Description: Stops the dump started by startSnapshotDump after writing a last
+	 * snapshot.</p>
+	 */
+	public synchronized void stopSnapshotDump() {
+		if (dumpExecutor == null) return;
+		dumpExecutor.shutdownNow();
+		writeSnapshot(dumpFile);
+		dumpExecutor = null;
+		dumpFile = null;
+	}
+
+	/*******
+	 * <p> Method: void writeSnapshot(Path file) </p>
+	 *
+	 * <p> Description: Appends the current report to the file under a timestamp line.  Failures
+	 * are logged, so a full disk does not stop the dump thread.</p>
+	 *
+	 * @param file the file to append to
+	 */
+	public void writeSnapshot(Path file) {
+		String snapshot = "=== Query metrics at " + LocalDateTime.now() + " ===\n" + getReport() + "\n";
+		try {
+			Files.write(file, snapshot.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			System.err.println("Error writing query metrics to " + file + ": " + e.getMessage());
+		}
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Stops the snapshot dump and removes the MBeans.  The statistics are
+	 * kept.</p>
+	 */
+	public synchronized void close() {
+		stopSnapshotDump();
+		unregisterMBeans();
+	}
+
+	private QueryStats statsFor(String operation) {
+		QueryStats existing = stats.get(operation);
+		if (existing != null) return existing;
+		QueryStats created = new QueryStats(operation);
+		existing = stats.putIfAbsent(operation, created);
+		if (existing != null) return existing;
+		synchronized (this) {
+			if (mbeanName != null) register(created);
+		}
+		return created;
+	}
+
+	// Called with the lock held
+	private void register(QueryStats operation) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(operation,
+					statsName(mbeanName, operation.getOperation()));
+		} catch (JMException e) {
+			System.err.println("Error registering query metrics for " + operation.getOperation()
+					+ ": " + e.getMessage());
+		}
+	}
+
+	private static ObjectName metricsName(String name) throws JMException {
+		return new ObjectName(JMX_DOMAIN + ":type=QueryMetrics,name=" + ObjectName.quote(name));
+	}
+
+	private static ObjectName statsName(String name, String operation) throws JMException {
+		return new ObjectName(JMX_DOMAIN + ":type=QueryStats,name=" + ObjectName.quote(name)
+				+ ",operation=" + ObjectName.quote(operation));
+	}
+
+	/*
+	 * One call of an operation: the wrapped connection and the statements and results made on
+	 * it all report here.  A connection is used by one thread at a time, so no locking.
+	 */
+	private static class Sample {
+		final QueryStats stats;
+		final SlowQueryLog slowQueryLog;
+		final long start = System.nanoTime();
+		long rowsRead = 0;
+		long rowsWritten = 0;
+		boolean failed = false;
+		boolean finished = false;
+
+		Sample(QueryStats stats, SlowQueryLog slowQueryLog) {
+			this.stats = stats;
+			this.slowQueryLog = slowQueryLog;
+		}
+
+		void finish() {
+			if (finished) return;
+			finished = true;
+			stats.record(System.nanoTime() - start, rowsRead, rowsWritten, failed);
+		}
+
+		/*
+		 * Wraps a connection, statement or result.  Statements and results made through the
+		 * wrapper are wrapped too; closing the connection wrapper ends the sample.  The trace
+		 * is the statement a statement or result belongs to, and is null for the connection.
+		 */
+		InvocationHandler handlerFor(Object target, boolean isConnection, StatementTrace trace) {
+			return (proxy, method, args) -> {
+				String name = method.getName();
+				switch (name) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				default:
+					break;
+				}
+				boolean timed = trace != null && (name.startsWith("execute") || name.equals("next"));
+				if (trace != null) trace.before(target, name, args);
+				Object result;
+				long started = timed ? System.nanoTime() : 0;
+				try {
+					result = method.invoke(target, args);
+				} catch (InvocationTargetException e) {
+					if (e.getCause() instanceof SQLException) failed = true;
+					throw e.getCause();
+				} finally {
+					if (timed) trace.nanos += System.nanoTime() - started;
+					if (isConnection && name.equals("close")) finish();
+				}
+				if (result instanceof ResultSet) {
+					return wrap(ResultSet.class, result, trace);
+				}
+				if (result instanceof PreparedStatement) {
+					return wrap(PreparedStatement.class, result,
+							new StatementTrace(this, name.equals("prepareStatement") ? (String) args[0] : null));
+				}
+				if (result instanceof Statement) {
+					return wrap(Statement.class, result, new StatementTrace(this, null));
+				}
+				countRows(target, name, result, trace);
+				return result;
+			};
+		}
+
+		private void countRows(Object target, String name, Object result, StatementTrace trace) {
+			long read = 0;
+			long written = 0;
+			if (target instanceof ResultSet) {
+				if (name.equals("next")) {
+					if (Boolean.TRUE.equals(result)) {
+						read = 1;
+					} else if (trace != null) {
+						trace.end();
+					}
+				}
+			} else if (target instanceof Statement) {
+				if (result instanceof Integer && name.startsWith("executeUpdate")) {
+					written = (Integer) result;
+				} else if (result instanceof Long && name.startsWith("executeLargeUpdate")) {
+					written = (Long) result;
+				} else if (result instanceof int[]) {
+					for (int count : (int[]) result) {
+						if (count > 0) written += count;
+					}
+				} else if (result instanceof long[]) {
+					for (long count : (long[]) result) {
+						if (count > 0) written += count;
+					}
+				}
+				if (trace != null && name.startsWith("execute")) {
+					trace.rows += written;
+					// A query stays open until its result is read to the end or closed
+					if (!Boolean.TRUE.equals(result)) trace.end();
+				}
+			}
+			rowsRead += read;
+			rowsWritten += written;
+			if (trace != null) trace.rows += read;
+		}
+
+		private Object wrap(Class<?> type, Object target, StatementTrace trace) {
+			return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+					handlerFor(target, false, trace));
+		}
+	}
+
+	/*
+	 * One statement: its SQL, the parameters bound to it, and the time spent inside the driver
+	 * on its current execution, including reading the result.  When an execution ends, one
+	 * slower than the slow query threshold is handed to the slow query log.
+	 */
+	private static class StatementTrace {
+		final Sample sample;
+		String sql;
+		final Map<Integer, Object> parameters = new TreeMap<>();
+		Map<Integer, Object> firstBatchRow = null;
+		int batchSize = 0;
+		long nanos = 0;
+		long rows = 0;
+		boolean active = false;
+
+		StatementTrace(Sample sample, String sql) {
+			this.sample = sample;
+			this.sql = sql;
+		}
+
+		// Called before each call on the statement or its result
+		void before(Object target, String name, Object[] args) {
+			if (target instanceof ResultSet) {
+				if (name.equals("close")) end();
+				return;
+			}
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+				parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+			} else if (name.equals("clearParameters")) {
+				parameters.clear();
+			} else if (name.equals("addBatch")) {
+				if (args != null && args.length == 1) sql = (String) args[0];
+				if (batchSize++ == 0) firstBatchRow = new TreeMap<>(parameters);
+			} else if (name.startsWith("execute")) {
+				// The batch being executed was added after the previous execution
+				int batched = batchSize;
+				Map<Integer, Object> firstRow = firstBatchRow;
+				end();
+				batchSize = batched;
+				firstBatchRow = firstRow;
+				if (args != null && args.length > 0 && args[0] instanceof String) sql = (String) args[0];
+				nanos = 0;
+				rows = 0;
+				active = true;
+			} else if (name.equals("close")) {
+				end();
+			}
+		}
+
+		void end() {
+			if (!active) return;
+			active = false;
+			SlowQueryLog log = sample.slowQueryLog;
+			if (log != null && log.isSlow(nanos)) {
+				log.record(sample.stats.getOperation(), sql, batchSize > 0 ? firstBatchRow : parameters,
+						batchSize, nanos, rows);
+			}
+			batchSize = 0;
+			firstBatchRow = null;
+		}
+	}
+}
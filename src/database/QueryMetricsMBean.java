@@ -0,0 +1,52 @@
+package database;
+
+/*******
+ * <p> Title: QueryMetricsMBean Interface. </p>
+ *
+ * <p> Description: The JMX view of all Database operations together: the full report, the
+ * totals, and a reset.  The per-operation figures are in the QueryStatsMBean of each
+ * operation.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public interface QueryMetricsMBean {
+
+	/*******
+	 * <p> Method: String[] getOperations() </p>
+	 *
+	 * @return the names of the operations recorded so far, busiest first
+	 */
+	String[] getOperations();
+
+	/*******
+	 * <p> Method: long getTotalCalls() </p>
+	 *
+	 * @return the number of calls recorded for all operations
+	 */
+	long getTotalCalls();
+
+	/*******
+	 * <p> Method: long getTotalErrors() </p>
+	 *
+	 * @return the number of failed calls for all operations
+	 */
+	long getTotalErrors();
+
+	/*******
+	 * <p> Method: String getReport() </p>
+	 *
+	 * @return a table of every operation, busiest first
+	 */
+	String getReport();
+
+	/*******
+	 * <p> Method: void reset() </p>
+	 *
+	 * <p> Description: Sets the statistics of every operation back to zero.</p>
+	 */
+	void reset();
+}
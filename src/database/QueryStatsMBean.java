@@ -0,0 +1,94 @@
+package database;
+
+/*******
+ * <p> Title: QueryStatsMBean Interface. </p>
+ *
+ * <p> Description: The JMX view of the latency statistics of one Database operation.  Each
+ * operation is registered under its own ObjectName by QueryMetrics.registerMBeans, so a JMX
+ * console such as jconsole lists the operations side by side.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public interface QueryStatsMBean {
+
+	/*******
+	 * <p> Method: String getOperation() </p>
+	 *
+	 * @return the name of the Database method the statistics are for
+	 */
+	String getOperation();
+
+	/*******
+	 * <p> Method: long getCalls() </p>
+	 *
+	 * @return the number of calls recorded
+	 */
+	long getCalls();
+
+	/*******
+	 * <p> Method: long getErrors() </p>
+	 *
+	 * @return the number of calls on which the database reported an error
+	 */
+	long getErrors();
+
+	/*******
+	 * <p> Method: long getRowsRead() </p>
+	 *
+	 * @return the number of result rows the calls read
+	 */
+	long getRowsRead();
+
+	/*******
+	 * <p> Method: long getRowsWritten() </p>
+	 *
+	 * @return the number of rows the calls inserted, updated or deleted
+	 */
+	long getRowsWritten();
+
+	/*******
+	 * <p> Method: double getTotalMillis() </p>
+	 *
+	 * @return the time spent in all calls together
+	 */
+	double getTotalMillis();
+
+	/*******
+	 * <p> Method: double getMeanMillis() </p>
+	 *
+	 * @return the average time of a call
+	 */
+	double getMeanMillis();
+
+	/*******
+	 * <p> Method: double getP50Millis() </p>
+	 *
+	 * @return the median time of a call
+	 */
+	double getP50Millis();
+
+	/*******
+	 * <p> Method: double getP95Millis() </p>
+	 *
+	 * @return the time 95% of calls finished within
+	 */
+	double getP95Millis();
+
+	/*******
+	 * <p> Method: double getP99Millis() </p>
+	 *
+	 * @return the time 99% of calls finished within
+	 */
+	double getP99Millis();
+
+	/*******
+	 * <p> Method: double getMaxMillis() </p>
+	 *
+	 * @return the longest time of a call
+	 */
+	double getMaxMillis();
+}
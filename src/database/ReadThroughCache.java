@@ -0,0 +1,120 @@
+package database;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/*******
+ * <p> Title: ReadThroughCache Class. </p>
+ *
+ * <p> Description: A least-recently-used cache that loads missing values on the caller's
+ * thread without holding its lock, so a hit never waits behind another key's database query
+ * and two misses load at the same time.</p>
+ *
+ * <p> A value that was read before a write must not be cached after it.  Every load in flight
+ * therefore holds a token for its key; put and invalidate drop the key's token, and a load only
+ * stores its value if its token is still the current one.  A load that overlapped a write
+ * simply returns what it read, uncached, and the next get reads again.  Tokens are only kept
+ * while their load runs, so the bookkeeping stays as small as the number of loads in
+ * flight.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ *
+ * @param <V> the type of the cached values; null means "not found" and is never cached
+ */
+class ReadThroughCache<V> {
+
+	private final LinkedHashMap<String, V> values;
+	// The token of the load in flight for each key; guarded by this
+	private final Map<String, Object> loading = new HashMap<>();
+
+	/*******
+	 * <p> Method: ReadThroughCache(int capacity) </p>
+	 *
+	 * <p> Description: Creates an empty cache.</p>
+	 *
+	 * @param capacity the most values kept; the least recently used is dropped first
+	 */
+	ReadThroughCache(int capacity) {
+		this.values = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/*******
+	 * <p> Method: V get(String key, Function&lt;String, V&gt; loader) </p>
+	 *
+	 * <p> Description: Returns the cached value of a key, or loads it outside the lock and
+	 * caches it unless the key was written while it loaded.</p>
+	 *
+	 * @param key the key
+	 * @param loader reads the value of a key, or returns null if there is none
+	 * @return the value, or null if the loader found none
+	 */
+	V get(String key, Function<String, V> loader) {
+		Object token = new Object();
+		synchronized (this) {
+			V value = values.get(key);
+			if (value != null) return value;
+			loading.put(key, token);
+		}
+		V value = null;
+		try {
+			value = loader.apply(key);
+			return value;
+		} finally {
+			synchronized (this) {
+				if (loading.get(key) == token) {
+					loading.remove(key);
+					if (value != null) values.put(key, value);
+				}
+			}
+		}
+	}
+
+	/*******
+	 * <p> Method: void put(String key, V value) </p>
+	 *
+	 * <p> Description: Caches a value just written, so no load already in flight replaces it.</p>
+	 *
+	 * @param key the key
+	 * @param value the value written
+	 */
+	synchronized void put(String key, V value) {
+		loading.remove(key);
+		values.put(key, value);
+	}
+
+	/*******
+	 * <p> Method: void invalidate(String key) </p>
+	 *
+	 * <p> Description: Drops a key after a write, along with the result of any load of it
+	 * still in flight.</p>
+	 *
+	 * @param key the key
+	 */
+	synchronized void invalidate(String key) {
+		loading.remove(key);
+		values.remove(key);
+	}
+
+	/*******
+	 * <p> Method: boolean contains(String key) </p>
+	 *
+	 * @param key the key
+	 * @return true if the key has a cached value
+	 */
+	synchronized boolean contains(String key) {
+		return values.containsKey(key);
+	}
+}
@@ -0,0 +1,132 @@
+package database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*******
+ * <p> Title: ReadThroughCacheTest Class. </p>
+ *
+ * <p> Description: JUnit tests for the cache behind Database's profile and post body caches.
+ * Each test holds one load inside its loader with a latch, so the interleavings that matter
+ * happen every time: a hit on another key while the load waits, and a write to the same key
+ * before the load finishes.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ *
+ */
+
+public class ReadThroughCacheTest {
+
+	/*****
+	 * <p> Default Constructor </p>
+	 */
+	public ReadThroughCacheTest() {
+		// existing initialization or leave empty
+	}
+
+	/*****
+	 * <p> Method: void testHitDoesNotWaitForAnotherLoad() </p>
+	 *
+	 * <p> Description: Verifies that a cached key, and a miss on a third key, are answered
+	 * while a load of another key is still running.</p>
+	 *
+	 * @throws Exception if the loading thread fails
+	 */
+	@Test
+	public void testHitDoesNotWaitForAnotherLoad() throws Exception {
+		ReadThroughCache<String> cache = new ReadThroughCache<>(10);
+		cache.put("cached", "hit");
+		BlockedLoader loader = new BlockedLoader("slow");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> slow = executor.submit(() -> cache.get("slow", loader));
+			assertTrue(loader.started.await(5, TimeUnit.SECONDS));
+
+			assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+				assertEquals("hit", cache.get("cached", key -> fail("A hit should not load")));
+				assertEquals("other", cache.get("other", key -> "other"));
+			}, "Neither call should wait for the slow load");
+
+			loader.release.countDown();
+			assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+			assertTrue(cache.contains("slow"), "A load with no write during it should be cached");
+		} finally {
+			loader.release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	/*****
+	 * <p> Method: void testLoadOverlappingWriteIsNotCached() </p>
+	 *
+	 * <p> Description: Verifies that a value read before an invalidation or a put is returned
+	 * to its caller but never cached over the newer state.</p>
+	 *
+	 * @throws Exception if the loading thread fails
+	 */
+	@Test
+	public void testLoadOverlappingWriteIsNotCached() throws Exception {
+		ReadThroughCache<String> cache = new ReadThroughCache<>(10);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// Invalidated while the old value is being read
+			BlockedLoader invalidated = new BlockedLoader("old");
+			Future<String> read = executor.submit(() -> cache.get("key", invalidated));
+			assertTrue(invalidated.started.await(5, TimeUnit.SECONDS));
+			cache.invalidate("key");
+			invalidated.release.countDown();
+			assertEquals("old", read.get(5, TimeUnit.SECONDS));
+			assertFalse(cache.contains("key"), "A read from before the invalidation should not be cached");
+			assertEquals("new", cache.get("key", key -> "new"));
+
+			// Written while the old value is being read
+			cache.invalidate("key");
+			BlockedLoader overwritten = new BlockedLoader("old");
+			read = executor.submit(() -> cache.get("key", overwritten));
+			assertTrue(overwritten.started.await(5, TimeUnit.SECONDS));
+			cache.put("key", "written");
+			overwritten.release.countDown();
+			assertEquals("old", read.get(5, TimeUnit.SECONDS));
+			assertEquals("written", cache.get("key", key -> fail("The written value should be cached")));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/*****
+	 * <p> Title: BlockedLoader Class. </p>
+	 *
+	 * <p> Description: A loader that signals when it starts and then waits to be released.</p>
+	 */
+	private static class BlockedLoader implements Function<String, String> {
+		private final String value;
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		BlockedLoader(String value) {
+			this.value = value;
+		}
+
+		@Override
+		public String apply(String key) {
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return value;
+		}
+	}
+}
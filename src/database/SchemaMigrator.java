@@ -0,0 +1,440 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*******
+ * <p> Title: SchemaMigrator Class. </p>
+ *
+ * <p> Description: Brings the database schema up to date with a list of numbered migration
+ * steps.  The version reached so far is stored in a schema_version table, one row per applied
+ * step.  On startup only the steps with a higher number than the stored version are run, so a
+ * database that is already current costs a single query instead of re-running every CREATE and
+ * ALTER statement.</p>
+ *
+ * <p> To change the schema, add a new step to the end of MIGRATIONS with the next version number.
+ * Never edit a step that has been released, since existing databases have already applied it.
+ * </p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class SchemaMigrator {
+
+	/*******
+	 * <p> Title: Migration Class. </p>
+	 *
+	 * <p> Description: One numbered schema change, made of one or more SQL statements.</p>
+	 */
+	public static class Migration {
+		private final int version;
+		private final String description;
+		private final List<String> statements;
+
+		/*******
+		 * <p> Method: Migration(int version, String description, String... statements) </p>
+		 *
+		 * @param version the version the schema is at once this step has run
+		 * @param description a short summary recorded in schema_version
+		 * @param statements the SQL statements, run in order
+		 */
+		public Migration(int version, String description, String... statements) {
+			this.version = version;
+			this.description = description;
+			this.statements = Collections.unmodifiableList(Arrays.asList(statements));
+		}
+
+		/*******
+		 * <p> Method: int getVersion() </p>
+		 *
+		 * @return the version the schema is at once this step has run
+		 */
+		public int getVersion() { return version; }
+
+		/*******
+		 * <p> Method: String getDescription() </p>
+		 *
+		 * @return a short summary of the step
+		 */
+		public String getDescription() { return description; }
+
+		/*******
+		 * <p> Method: List<String> getStatements() </p>
+		 *
+		 * @return the SQL statements of the step
+		 */
+		public List<String> getStatements() { return statements; }
+	}
+
+	// Post and reply IDs reserved by each draw from their sequence; see Database.allocatePostId.
+	// Changing it takes a new migration that alters the INCREMENT BY of both sequences.
+	static final int ID_BLOCK_SIZE = 100;
+
+	/*
+	 * The ordered migration steps.  Version 1 is the schema as it was before versioning existed.
+	 * Every statement in it is idempotent, because a database created by an older release already
+	 * has some or all of these tables and columns but no schema_version table.
+	 */
+	private static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+		new Migration(1, "Baseline schema",
+			"CREATE TABLE IF NOT EXISTS userDB ("
+				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "userName VARCHAR(255) UNIQUE, "
+				+ "password VARCHAR(255), "
+				+ "firstName VARCHAR(255), "
+				+ "middleName VARCHAR(255), "
+				+ "lastName VARCHAR (255), "
+				+ "preferredFirstName VARCHAR(255), "
+				+ "emailAddress VARCHAR(255), "
+				+ "adminRole BOOL DEFAULT FALSE, "
+				+ "newStudent BOOL DEFAULT FALSE, "
+				+ "newStaff BOOL DEFAULT FALSE)",
+			"ALTER TABLE userDB ADD COLUMN IF NOT EXISTS oneTimePassword VARCHAR(255)",
+			"CREATE TABLE IF NOT EXISTS InvitationCodes ("
+				+ "code VARCHAR(10) PRIMARY KEY, "
+				+ "emailAddress VARCHAR(255), "
+				+ "role VARCHAR(10))",
+			"CREATE TABLE IF NOT EXISTS postsDB ("
+				+ "postId VARCHAR(50) PRIMARY KEY, "
+				+ "title VARCHAR(100), "
+				+ "body VARCHAR(5000), "
+				+ "authorUsername VARCHAR(255), "
+				+ "thread VARCHAR(100), "
+				+ "createdAt TIMESTAMP, "
+				+ "lastEditedAt TIMESTAMP, "
+				+ "isDeleted BOOLEAN DEFAULT FALSE)",
+			"CREATE TABLE IF NOT EXISTS threadsDB ("
+				+ "threadId VARCHAR(50) PRIMARY KEY, "
+				+ "title VARCHAR(100), "
+				+ "description VARCHAR(500), "
+				+ "status VARCHAR(10) DEFAULT 'OPEN', "
+				+ "createdByUsername VARCHAR(255), "
+				+ "createdAt TIMESTAMP)",
+			"CREATE TABLE IF NOT EXISTS requestsDB ("
+				+ "requestId VARCHAR(50) PRIMARY KEY, "
+				+ "title VARCHAR(200), "
+				+ "description VARCHAR(2000), "
+				+ "category VARCHAR(50), "
+				+ "status VARCHAR(10) DEFAULT 'OPEN', "
+				+ "createdByUsername VARCHAR(255), "
+				+ "closedByUsername VARCHAR(255), "
+				+ "resolutionNotes VARCHAR(2000), "
+				+ "reopenReason VARCHAR(1000), "
+				+ "originalRequestId VARCHAR(50), "
+				+ "createdAt TIMESTAMP, "
+				+ "closedAt TIMESTAMP, "
+				+ "reopenedAt TIMESTAMP)",
+			"CREATE TABLE IF NOT EXISTS repliesDB ("
+				+ "replyId VARCHAR(50) PRIMARY KEY, "
+				+ "body VARCHAR(3000), "
+				+ "authorUsername VARCHAR(255), "
+				+ "parentPostId VARCHAR(50), "
+				+ "createdAt TIMESTAMP, "
+				+ "lastEditedAt TIMESTAMP, "
+				+ "isDeleted BOOLEAN DEFAULT FALSE, "
+				+ "isRead BOOLEAN DEFAULT FALSE, "
+				+ "isFeedback BOOLEAN DEFAULT FALSE)",
+			"ALTER TABLE repliesDB ADD COLUMN IF NOT EXISTS isFeedback BOOLEAN DEFAULT FALSE",
+			"CREATE TABLE IF NOT EXISTS gradingParametersDB ("
+				+ "parameterId VARCHAR(50) PRIMARY KEY, "
+				+ "name VARCHAR(100), "
+				+ "description VARCHAR(500), "
+				+ "isActive BOOLEAN DEFAULT TRUE, "
+				+ "createdByUsername VARCHAR(255), "
+				+ "createdAt TIMESTAMP, "
+				+ "requiredPosts INT DEFAULT 0, "
+				+ "requiredReplies INT DEFAULT 0, "
+				+ "topics VARCHAR(2000), "
+				+ "threadId VARCHAR(255) NOT NULL, "
+				+ "categories VARCHAR(5000))",
+			"ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS requiredPosts INT DEFAULT 0",
+			"ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS requiredReplies INT DEFAULT 0",
+			"ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS topics VARCHAR(2000)",
+			"ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS threadId VARCHAR(255)",
+			"ALTER TABLE gradingParametersDB ADD COLUMN IF NOT EXISTS categories VARCHAR(5000)",
+			// The isTemplate column is no longer used
+			"ALTER TABLE gradingParametersDB DROP COLUMN IF EXISTS isTemplate",
+			"CREATE TABLE IF NOT EXISTS parameterCategoriesDB ("
+				+ "categoryId VARCHAR(50) PRIMARY KEY, "
+				+ "parameterId VARCHAR(50) NOT NULL, "
+				+ "categoryName VARCHAR(100), "
+				+ "weight DOUBLE, "
+				+ "categoryOrder INT, "
+				+ "FOREIGN KEY (parameterId) REFERENCES gradingParametersDB(parameterId) ON DELETE CASCADE)"),
+		// Secondary indexes for the filtered and sorted queries; see IndexAdvisor
+		new Migration(2, "Secondary indexes",
+			"CREATE INDEX IF NOT EXISTS idx_posts_thread_deleted ON postsDB (thread, isDeleted)",
+			"CREATE INDEX IF NOT EXISTS idx_threads_creator ON threadsDB (createdByUsername, createdAt DESC)",
+			"CREATE INDEX IF NOT EXISTS idx_requests_creator ON requestsDB (createdByUsername, createdAt DESC)",
+			"CREATE INDEX IF NOT EXISTS idx_parameters_creator ON gradingParametersDB (createdByUsername, createdAt DESC)",
+			"CREATE INDEX IF NOT EXISTS idx_categories_parameter ON parameterCategoriesDB (parameterId, categoryOrder)",
+			"CREATE INDEX IF NOT EXISTS idx_invitations_email ON InvitationCodes (emailAddress)"),
+		// Change tracking for delta sync; see Database.loadForumChangesSince
+		new Migration(3, "Row versions for posts and replies",
+			"CREATE SEQUENCE IF NOT EXISTS forum_row_version",
+			"ALTER TABLE postsDB ADD COLUMN IF NOT EXISTS rowVersion BIGINT "
+				+ "DEFAULT NEXT VALUE FOR forum_row_version ON UPDATE NEXT VALUE FOR forum_row_version",
+			"ALTER TABLE repliesDB ADD COLUMN IF NOT EXISTS rowVersion BIGINT "
+				+ "DEFAULT NEXT VALUE FOR forum_row_version ON UPDATE NEXT VALUE FOR forum_row_version",
+			"CREATE INDEX IF NOT EXISTS idx_posts_row_version ON postsDB (rowVersion)",
+			"CREATE INDEX IF NOT EXISTS idx_replies_row_version ON repliesDB (rowVersion)",
+			// Hard deletes leave a tombstone so a delta can tell clients to drop the row
+			"CREATE TABLE IF NOT EXISTS forumDeletionsDB ("
+				+ "rowVersion BIGINT DEFAULT NEXT VALUE FOR forum_row_version PRIMARY KEY, "
+				+ "tableName VARCHAR(20) NOT NULL, "
+				+ "rowId VARCHAR(50) NOT NULL)"),
+		// Keyset pagination; see Database.loadPostsPage and loadRepliesPage
+		new Migration(4, "Keyset pagination indexes",
+			"CREATE INDEX IF NOT EXISTS idx_posts_created ON postsDB (createdAt DESC, postId DESC)",
+			"CREATE INDEX IF NOT EXISTS idx_posts_thread_created ON postsDB (thread, createdAt DESC, postId DESC)",
+			// Also serves the lookups of a post's replies by parentPostId alone
+			"CREATE INDEX IF NOT EXISTS idx_replies_parent_created ON repliesDB (parentPostId, createdAt, replyId)"),
+		// Archival of soft-deleted rows; see Database.archiveDeletedPosts and ArchiveCompactor
+		new Migration(5, "Archive tables for soft-deleted posts and replies",
+			"ALTER TABLE postsDB ADD COLUMN IF NOT EXISTS deletedAt TIMESTAMP",
+			"ALTER TABLE repliesDB ADD COLUMN IF NOT EXISTS deletedAt TIMESTAMP",
+			"CREATE INDEX IF NOT EXISTS idx_posts_deleted_at ON postsDB (isDeleted, deletedAt)",
+			"CREATE INDEX IF NOT EXISTS idx_replies_deleted_at ON repliesDB (isDeleted, deletedAt)",
+			"CREATE TABLE IF NOT EXISTS postsArchiveDB ("
+				+ "postId VARCHAR(50) PRIMARY KEY, "
+				+ "title VARCHAR(100), "
+				+ "body VARCHAR(5000), "
+				+ "authorUsername VARCHAR(255), "
+				+ "thread VARCHAR(100), "
+				+ "createdAt TIMESTAMP, "
+				+ "lastEditedAt TIMESTAMP, "
+				+ "isDeleted BOOLEAN DEFAULT FALSE, "
+				+ "deletedAt TIMESTAMP, "
+				+ "archivedAt TIMESTAMP)",
+			"CREATE TABLE IF NOT EXISTS repliesArchiveDB ("
+				+ "replyId VARCHAR(50) PRIMARY KEY, "
+				+ "body VARCHAR(3000), "
+				+ "authorUsername VARCHAR(255), "
+				+ "parentPostId VARCHAR(50), "
+				+ "createdAt TIMESTAMP, "
+				+ "lastEditedAt TIMESTAMP, "
+				+ "isDeleted BOOLEAN DEFAULT FALSE, "
+				+ "isRead BOOLEAN DEFAULT FALSE, "
+				+ "isFeedback BOOLEAN DEFAULT FALSE, "
+				+ "deletedAt TIMESTAMP, "
+				+ "archivedAt TIMESTAMP)",
+			"CREATE INDEX IF NOT EXISTS idx_replies_archive_parent ON repliesArchiveDB (parentPostId)"),
+		// One source of post and reply IDs for every client, drawn a block at a time; see Database.allocatePostId
+		new Migration(6, "Post and reply ID sequences",
+			"CREATE SEQUENCE IF NOT EXISTS post_id_sequence INCREMENT BY " + ID_BLOCK_SIZE,
+			"CREATE SEQUENCE IF NOT EXISTS reply_id_sequence INCREMENT BY " + ID_BLOCK_SIZE,
+			// Start above the IDs the per-collection counters handed out before
+			restartIdSequence("post_id_sequence", "POST_", "postId", "postsDB", "postsArchiveDB"),
+			restartIdSequence("reply_id_sequence", "REPLY_", "replyId", "repliesDB", "repliesArchiveDB"))
+	));
+
+	// What the last call to migrate did
+	private int startingVersion = 0;
+	private int currentVersion = 0;
+	private int appliedCount = 0;
+	private long elapsedNanos = 0;
+
+	/*******
+	 * <p> Method: SchemaMigrator() </p>
+	 *
+	 * <p> Description: Creates a migrator for the built-in list of migration steps.</p>
+	 */
+	public SchemaMigrator() {
+	}
+
+	/*******
+	 * <p> Method: void migrate(Connection connection) </p>
+	 *
+	 * <p> Description: Runs every migration step newer than the version stored in the database.
+	 * When the schema is already current this is a single query.  Each step and its
+	 * schema_version row are committed together, so a failed step is retried on the next start.
+	 * </p>
+	 *
+	 * @param connection the connection to run the migrations on
+	 *
+	 * @throws SQLException when a migration step fails
+	 */
+	public void migrate(Connection connection) throws SQLException {
+		long start = System.nanoTime();
+		appliedCount = 0;
+		startingVersion = readVersion(connection);
+		currentVersion = startingVersion;
+
+		// Fast path: nothing to do
+		if (startingVersion < getLatestVersion()) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+						+ "version INT PRIMARY KEY, "
+						+ "description VARCHAR(255), "
+						+ "appliedAt TIMESTAMP, "
+						+ "elapsedMillis BIGINT)");
+			}
+			for (Migration migration : MIGRATIONS) {
+				if (migration.getVersion() > currentVersion) {
+					apply(connection, migration);
+					currentVersion = migration.getVersion();
+					appliedCount++;
+				}
+			}
+		}
+		elapsedNanos = System.nanoTime() - start;
+	}
+
+	/*******
+	 * <p> Method: int getLatestVersion() </p>
+	 *
+	 * @return the version the schema is at after every step has run
+	 */
+	public static int getLatestVersion() {
+		return MIGRATIONS.get(MIGRATIONS.size() - 1).getVersion();
+	}
+
+	/*******
+	 * <p> Method: List<Migration> getMigrations() </p>
+	 *
+	 * @return the ordered migration steps
+	 */
+	public static List<Migration> getMigrations() {
+		return MIGRATIONS;
+	}
+
+	/*******
+	 * <p> Method: int getStartingVersion() </p>
+	 *
+	 * @return the schema version found when migrate was last called
+	 */
+	public int getStartingVersion() { return startingVersion; }
+
+	/*******
+	 * <p> Method: int getCurrentVersion() </p>
+	 *
+	 * @return the schema version after migrate was last called
+	 */
+	public int getCurrentVersion() { return currentVersion; }
+
+	/*******
+	 * <p> Method: int getAppliedCount() </p>
+	 *
+	 * @return the number of steps run by the last call to migrate
+	 */
+	public int getAppliedCount() { return appliedCount; }
+
+	/*******
+	 * <p> Method: double getElapsedMillis() </p>
+	 *
+	 * @return how long the last call to migrate took, including the version check
+	 */
+	public double getElapsedMillis() { return elapsedNanos / 1_000_000.0; }
+
+	/*******
+	 * <p> Method: String getReport() </p>
+	 *
+	 * @return a one-line startup report of what the last call to migrate did
+	 */
+	public String getReport() {
+		if (appliedCount == 0) {
+			return String.format("Schema is current at version %d (checked in %.1f ms)",
+					currentVersion, getElapsedMillis());
+		}
+		return String.format("Schema migrated from version %d to %d (%d step%s in %.1f ms)",
+				startingVersion, currentVersion, appliedCount, appliedCount == 1 ? "" : "s",
+				getElapsedMillis());
+	}
+
+	/*
+	 * An ALTER SEQUENCE that restarts an ID sequence just above the highest numeric ID with the
+	 * prefix in any of the tables, so no ID already in use is handed out again.
+	 */
+	static String restartIdSequence(String sequence, String prefix, String idColumn, String... tables) {
+		StringBuilder ids = new StringBuilder();
+		for (String table : tables) {
+			if (ids.length() > 0) ids.append(" UNION ALL ");
+			ids.append("SELECT ").append(idColumn).append(" AS id FROM ").append(table);
+		}
+		return "ALTER SEQUENCE " + sequence + " RESTART WITH (SELECT COALESCE(MAX("
+				+ "CASE WHEN REGEXP_LIKE(id, '^" + prefix + "[0-9]{1,18}$') "
+				+ "THEN CAST(SUBSTRING(id, " + (prefix.length() + 1) + ") AS BIGINT) END), 0) + 1 "
+				+ "FROM (" + ids + ") ids)";
+	}
+
+	/*
+	 * Read the highest applied version, or 0 when the database predates versioning.
+	 */
+	private int readVersion(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version")) {
+			return rs.next() ? rs.getInt(1) : 0;
+		} catch (SQLException e) {
+			// 42S02 / 42S04: the schema_version table does not exist yet
+			if (e.getSQLState() != null && e.getSQLState().startsWith("42S0")) {
+				return 0;
+			}
+			throw e;
+		}
+	}
+
+	/*
+	 * Run one step and record it.  H2 commits DDL implicitly, so the transaction mainly keeps
+	 * the version row from being written when a statement fails.
+	 */
+	private void apply(Connection connection, Migration migration) throws SQLException {
+		long start = System.nanoTime();
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		try (Statement statement = connection.createStatement()) {
+			for (String sql : migration.getStatements()) {
+				statement.execute(sql);
+			}
+			long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+			String insert = "INSERT INTO schema_version (version, description, appliedAt, elapsedMillis) "
+					+ "VALUES (?, ?, ?, ?)";
+			try (PreparedStatement pstmt = connection.prepareStatement(insert)) {
+				pstmt.setInt(1, migration.getVersion());
+				pstmt.setString(2, migration.getDescription());
+				pstmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+				pstmt.setLong(4, elapsedMillis);
+				pstmt.executeUpdate();
+			}
+			connection.commit();
+		} catch (SQLException e) {
+			connection.rollback();
+			throw new SQLException("Schema migration " + migration.getVersion() + " ("
+					+ migration.getDescription() + ") failed: " + e.getMessage(), e.getSQLState(), e);
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+	}
+
+	/*******
+	 * <p> Method: List<Integer> getAppliedVersions(Connection connection) </p>
+	 *
+	 * <p> Description: Lists the versions recorded in schema_version, oldest first.</p>
+	 *
+	 * @param connection the connection to query
+	 *
+	 * @return the applied versions
+	 *
+	 * @throws SQLException if the schema_version table cannot be read
+	 */
+	public static List<Integer> getAppliedVersions(Connection connection) throws SQLException {
+		List<Integer> versions = new ArrayList<>();
+		try (Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT version FROM schema_version ORDER BY version")) {
+			while (rs.next()) {
+				versions.add(rs.getInt(1));
+			}
+		}
+		return versions;
+	}
+}
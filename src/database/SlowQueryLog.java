@@ -0,0 +1,414 @@
+package database;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*******
+ * <p> Title: SlowQueryLog Class. </p>
+ *
+ * <p> Description: Writes every statement slower than a threshold to a local log file, with
+ * the operation that ran it, its SQL, its parameters, its time, its row count and the plan H2
+ * chose for it.  QueryMetrics times each statement on a wrapped connection and hands the slow
+ * ones to record, which only queues them; the plan is captured and the entry written on a
+ * background thread, so a slow dialog does not get slower for being logged.</p>
+ *
+ * <p> The plan of a query comes from EXPLAIN ANALYZE, which runs the query again on a
+ * connection of its own; an INSERT, UPDATE, DELETE or MERGE is only EXPLAINed, since ANALYZE
+ * would write it a second time.  Other statements are logged without a plan.</p>
+ *
+ * <p> A parameter bound to a column whose name contains "password" is written as ***, as is
+ * any parameter of a statement that mentions a password when the column of the parameter cannot
+ * be told from the SQL.  When the file reaches its size limit it is renamed to file.1, file.1
+ * to file.2 and so on, and the oldest is deleted.  If entries arrive faster than they can be
+ * written, the ones that do not fit in the queue are dropped and counted.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class SlowQueryLog {
+
+	// Statements that take at least this long are logged
+	public static final long DEFAULT_THRESHOLD_MILLIS = 200;
+
+	// The log file is rotated when it would grow past this size
+	public static final long DEFAULT_MAX_FILE_BYTES = 1024 * 1024;
+
+	// The number of files kept, counting the current one
+	public static final int DEFAULT_FILE_COUNT = 5;
+
+	// The most entries waiting to be written
+	private static final int QUEUE_CAPACITY = 1000;
+
+	// How long close() waits for the queued entries
+	private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+	private static final String REDACTED = "***";
+
+	// The column compared with a parameter, as in "userName = ?" or "createdAt <= ?"
+	private static final Pattern COMPARED_COLUMN =
+			Pattern.compile("(?i)(\\w+)\\s*(?:=|<>|!=|<=|>=|<|>|\\bLIKE)\\s*$");
+	// The column list and VALUES list of an INSERT or MERGE
+	private static final Pattern INSERT_COLUMNS = Pattern.compile(
+			"(?is)^\\s*(?:INSERT|MERGE)\\s+INTO\\s+\\S+\\s*\\(([^)]*)\\)\\s*(?:KEY\\s*\\([^)]*\\)\\s*)?VALUES\\s*\\(");
+
+	private final Path file;
+	private final long thresholdNanos;
+	private final long maxFileBytes;
+	private final int fileCount;
+	private final QueryMetrics.ConnectionSource explainConnections;
+	private final ThreadPoolExecutor executor;
+
+	// Entries queued but not yet written; guarded by itself
+	private final Object pendingLock = new Object();
+	private int pending = 0;
+
+	// Metrics
+	private final AtomicLong loggedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/*******
+	 * <p> Method: SlowQueryLog(Path file, long thresholdMillis, long maxFileBytes, int fileCount,
+	 * QueryMetrics.ConnectionSource explainConnections) </p>
+	 *
+	 * <p> Description: Creates the log and its background thread.</p>
+	 *
+	 * @param file the current log file; rotated files are named file.1, file.2 and so on
+	 * @param thresholdMillis statements that take at least this long are logged
+	 * @param maxFileBytes the size at which the file is rotated
+	 * @param fileCount the number of files kept, counting the current one
+	 * @param explainConnections borrows the connection the plans are captured on; it must not
+	 * be a timed one, so that capturing a plan is never itself logged
+	 */
+	SlowQueryLog(Path file, long thresholdMillis, long maxFileBytes, int fileCount,
+			QueryMetrics.ConnectionSource explainConnections) {
+		if (thresholdMillis < 0) {
+			throw new IllegalArgumentException("Threshold cannot be negative: " + thresholdMillis);
+		}
+		if (maxFileBytes < 1 || fileCount < 1) {
+			throw new IllegalArgumentException("The log needs at least one file of at least one byte");
+		}
+		this.file = file;
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.maxFileBytes = maxFileBytes;
+		this.fileCount = fileCount;
+		this.explainConnections = explainConnections;
+		this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+					Thread thread = new Thread(runnable, "slow-query-log");
+					thread.setDaemon(true);
+					return thread;
+				}, (runnable, rejectedBy) -> {
+					droppedCount.incrementAndGet();
+					done();
+				});
+	}
+
+	/*******
+	 * <p> Method: boolean isSlow(long nanos) </p>
+	 *
+	 * @param nanos the time a statement took
+	 * @return true if a statement that took this long is logged
+	 */
+	public boolean isSlow(long nanos) {
+		return nanos >= thresholdNanos;
+	}
+
+	/*******
+	 * <p> Method: void record(String operation, String sql, Map&lt;Integer, Object&gt; parameters,
+	 * int batchSize, long nanos, long rows) </p>
+	 *
+	 * <p> Description: Queues a slow statement to be written.  Returns at once.</p>
+	 *
+	 * @param operation the Database method that ran the statement
+	 * @param sql the SQL text
+	 * @param parameters the bound parameters by index; for a batch, those of its first row
+	 * @param batchSize the number of rows in the batch, or 0 if it was not a batch
+	 * @param nanos the time spent in the driver
+	 * @param rows the rows read or written
+	 */
+	void record(String operation, String sql, Map<Integer, Object> parameters, int batchSize,
+			long nanos, long rows) {
+		Map<Integer, Object> bound = new TreeMap<>(parameters);
+		String redacted = describeParameters(sql, bound);
+		LocalDateTime at = LocalDateTime.now();
+		synchronized (pendingLock) {
+			pending++;
+		}
+		executor.execute(() -> {
+			try {
+				write(format(at, operation, sql, redacted, batchSize, nanos, rows, explain(sql, bound)));
+				loggedCount.incrementAndGet();
+			} catch (IOException | RuntimeException e) {
+				droppedCount.incrementAndGet();
+				System.err.println("Error writing the slow query log " + file + ": " + e.getMessage());
+			} finally {
+				done();
+			}
+		});
+	}
+
+	/*******
+	 * <p> Method: void flush() </p>
+	 *
+	 * <p> Description: Waits until every entry queued so far is written or dropped.</p>
+	 */
+	public void flush() {
+		synchronized (pendingLock) {
+			while (pending > 0) {
+				try {
+					pendingLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Writes the entries still queued and stops the background thread.</p>
+	 */
+	public void close() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				System.err.println("Slow queries were still being logged after "
+						+ DRAIN_TIMEOUT_SECONDS + " seconds: " + this);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*******
+	 * <p> Method: Path getFile() </p>
+	 *
+	 * @return the current log file
+	 */
+	public Path getFile() { return file; }
+
+	/*******
+	 * <p> Method: double getThresholdMillis() </p>
+	 *
+	 * @return the time at which a statement is logged
+	 */
+	public double getThresholdMillis() { return thresholdNanos / 1_000_000.0; }
+
+	/*******
+	 * <p> Method: long getLoggedCount() </p>
+	 *
+	 * @return the number of entries written
+	 */
+	public long getLoggedCount() { return loggedCount.get(); }
+
+	/*******
+	 * <p> Method: long getDroppedCount() </p>
+	 *
+	 * @return the number of entries lost because the queue was full or the file could not be
+	 * written
+	 */
+	public long getDroppedCount() { return droppedCount.get(); }
+
+	/*******
+	 * <p> Method: String toString() </p>
+	 *
+	 * @return a one-line summary of the log, suitable for logging
+	 */
+	@Override
+	public String toString() {
+		return String.format("SlowQueryLog[file=%s, threshold=%.3f ms, logged=%d, dropped=%d]",
+				file, getThresholdMillis(), getLoggedCount(), getDroppedCount());
+	}
+
+	/*******
+	 * <p> Method: String describeParameters(String sql, Map&lt;Integer, Object&gt; parameters) </p>
+	 *
+	 * <p> Description: Lists the parameters as [1=value, 2=value], with the password ones
+	 * redacted.</p>
+	 *
+	 * @param sql the SQL text the parameters are bound to
+	 * @param parameters the parameters by index
+	 * @return the list, e.g. [1=alice, 2=***]
+	 */
+	static String describeParameters(String sql, Map<Integer, Object> parameters) {
+		List<String> columns = parameterColumns(sql == null ? "" : sql);
+		boolean mentionsPassword = isPassword(sql);
+		StringBuilder description = new StringBuilder("[");
+		for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+			int index = parameter.getKey();
+			String column = index >= 1 && index <= columns.size() ? columns.get(index - 1) : null;
+			boolean redact = column == null ? mentionsPassword : isPassword(column);
+			if (description.length() > 1) description.append(", ");
+			description.append(index).append('=').append(redact ? REDACTED : parameter.getValue());
+		}
+		return description.append(']').toString();
+	}
+
+	/*
+	 * The column each ? of the SQL is compared with or inserted into, in order, or null where it
+	 * cannot be told.  Question marks inside quoted strings are not parameters.
+	 */
+	private static List<String> parameterColumns(String sql) {
+		List<String> insertColumns = new ArrayList<>();
+		int valuesStart = -1;
+		Matcher insert = INSERT_COLUMNS.matcher(sql);
+		if (insert.find()) {
+			for (String column : insert.group(1).split(",")) {
+				insertColumns.add(column.trim());
+			}
+			valuesStart = insert.end();
+		}
+
+		List<String> columns = new ArrayList<>();
+		int valueIndex = 0;	// Which item of the VALUES list the scan is in
+		int depth = 0;		// Parentheses opened inside the VALUES list
+		boolean quoted = false;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			} else if (quoted) {
+				continue;
+			} else if (valuesStart >= 0 && i >= valuesStart && depth == 0 && c == ',') {
+				valueIndex++;
+			} else if (valuesStart >= 0 && i >= valuesStart && c == '(') {
+				depth++;
+			} else if (valuesStart >= 0 && i >= valuesStart && c == ')') {
+				if (depth-- == 0) valuesStart = -1;
+			} else if (c == '?') {
+				if (valuesStart >= 0 && i >= valuesStart) {
+					columns.add(valueIndex < insertColumns.size() ? insertColumns.get(valueIndex) : null);
+				} else {
+					Matcher compared = COMPARED_COLUMN.matcher(sql.substring(Math.max(0, i - 64), i));
+					columns.add(compared.find() ? compared.group(1) : null);
+				}
+			}
+		}
+		return columns;
+	}
+
+	private static boolean isPassword(String text) {
+		return text != null && text.toLowerCase().contains("password");
+	}
+
+	/*
+	 * Runs on the background thread.  Captures the plan with the original parameters; the plan
+	 * shows them only as ?1, ?2 and so on.
+	 */
+	private String explain(String sql, Map<Integer, Object> parameters) {
+		if (sql == null) return null;
+		String verb = sql.trim().split("\\s+", 2)[0].toUpperCase();
+		String explain;
+		switch (verb) {
+		case "SELECT":
+		case "WITH":
+			explain = "EXPLAIN ANALYZE " + sql;
+			break;
+		case "INSERT":
+		case "UPDATE":
+		case "DELETE":
+		case "MERGE":
+			explain = "EXPLAIN " + sql;
+			break;
+		default:
+			return null;
+		}
+		try (Connection connection = explainConnections.get();
+				PreparedStatement pstmt = connection.prepareStatement(explain)) {
+			for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+				pstmt.setObject(parameter.getKey(), parameter.getValue());
+			}
+			StringBuilder plan = new StringBuilder();
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					plan.append(rs.getString(1)).append('\n');
+				}
+			}
+			return plan.toString();
+		} catch (SQLException e) {
+			return "(plan unavailable: " + e.getMessage() + ")\n";
+		}
+	}
+
+	private static String format(LocalDateTime at, String operation, String sql, String parameters,
+			int batchSize, long nanos, long rows, String plan) {
+		StringBuilder entry = new StringBuilder();
+		entry.append(String.format("%s slow query: %.3f ms, %d rows, operation %s%n", at,
+				nanos / 1_000_000.0, rows, operation));
+		entry.append("SQL: ").append(sql).append('\n');
+		if (batchSize > 0) {
+			entry.append("Batch of ").append(batchSize).append(" rows; parameters of the first: ");
+		} else {
+			entry.append("Parameters: ");
+		}
+		entry.append(parameters).append('\n');
+		if (plan != null) {
+			entry.append("Plan:\n");
+			for (String line : plan.split("\n")) {
+				entry.append("    ").append(line).append('\n');
+			}
+		}
+		return entry.append('\n').toString();
+	}
+
+	/*
+	 * Runs on the background thread.  Rotates the file first if the entry would take it past the
+	 * size limit.
+	 */
+	private void write(String entry) throws IOException {
+		byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+		if (Files.exists(file) && Files.size(file) + bytes.length > maxFileBytes) {
+			rotate();
+		}
+		Files.write(file, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	private void rotate() throws IOException {
+		if (fileCount == 1) {
+			Files.delete(file);
+			return;
+		}
+		Files.deleteIfExists(rotated(fileCount - 1));
+		for (int i = fileCount - 2; i >= 1; i--) {
+			if (Files.exists(rotated(i))) {
+				Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private Path rotated(int generation) {
+		return file.resolveSibling(file.getFileName() + "." + generation);
+	}
+
+	private void done() {
+		synchronized (pendingLock) {
+			pending--;
+			pendingLock.notifyAll();
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******
+ * <p> Title: StatementCache Class. </p>
+ *
+ * <p> Description: A least-recently-used cache of PreparedStatements for one physical
+ * connection, keyed by SQL text.  Every Database method calls prepareStatement for the same few
+ * queries over and over; with this cache H2 parses each query once per connection instead of
+ * once per call.</p>
+ *
+ * <p> The statements handed out are wrappers.  Calling close() on one clears its parameters and
+ * marks it free for the next caller instead of closing it.  If the same SQL is prepared again
+ * while its cached statement is still in use (e.g., a nested query), a plain uncached statement
+ * is returned so the two callers never share one.</p>
+ *
+ * <p> A cache is only used by the borrower of its connection, so it needs no locking.  The
+ * counters are atomic so the pool can report them from any thread.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+class StatementCache {
+
+	// One cached statement and whether a caller currently holds it.  The lease counts the times
+	// the statement has been made ready for a new caller; a wrapper only works while the lease it
+	// was handed out under is the current one.
+	private static class Entry {
+		final PreparedStatement statement;
+		boolean inUse = false;
+		boolean evicted = false;
+		long lease = 0;
+
+		Entry(PreparedStatement statement) {
+			this.statement = statement;
+		}
+	}
+
+	private final Connection physical;
+	private final int capacity;
+	private final LinkedHashMap<String, Entry> entries;
+
+	// Metrics
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/*******
+	 * <p> Method: StatementCache(Connection physical, int capacity) </p>
+	 *
+	 * <p> Description: Creates an empty cache for one physical connection.</p>
+	 *
+	 * @param physical the connection the statements are prepared on
+	 * @param capacity the most statements kept open at once
+	 */
+	StatementCache(Connection physical, int capacity) {
+		this.physical = physical;
+		this.capacity = capacity;
+		// Access order makes the eldest entry the least recently used one
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/*******
+	 * <p> Method: PreparedStatement prepare(String sql) </p>
+	 *
+	 * <p> Description: Returns a prepared statement for the SQL text, reusing the cached one when
+	 * it is free.</p>
+	 *
+	 * @param sql the SQL text
+	 *
+	 * @return a statement whose close() gives it back to the cache
+	 *
+	 * @throws SQLException when the statement cannot be prepared
+	 */
+	PreparedStatement prepare(String sql) throws SQLException {
+		Entry entry = entries.get(sql);
+		if (entry != null) {
+			if (entry.inUse) {
+				// Same query nested inside itself; do not share the statement
+				misses.incrementAndGet();
+				return physical.prepareStatement(sql);
+			}
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+			entry = new Entry(physical.prepareStatement(sql));
+			entries.put(sql, entry);
+			evictLeastRecentlyUsed();
+		}
+		entry.inUse = true;
+		return wrap(entry);
+	}
+
+	/*******
+	 * <p> Method: void releaseAll() </p>
+	 *
+	 * <p> Description: Marks every statement free.  Called when the connection goes back to the
+	 * pool, so a borrower that forgot to close a statement does not pin it forever.  A wrapper
+	 * the borrower still holds stops working, so it cannot drive the statement for the next
+	 * borrower.</p>
+	 */
+	void releaseAll() {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.inUse && !reset(entry)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/*******
+	 * <p> Method: void closeAll() </p>
+	 *
+	 * <p> Description: Closes every cached statement.  Called before the physical connection is
+	 * closed.</p>
+	 */
+	void closeAll() {
+		for (Entry entry : entries.values()) {
+			closeQuietly(entry.statement);
+		}
+		entries.clear();
+	}
+
+	/*******
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of statements currently cached
+	 */
+	int size() { return entries.size(); }
+
+	/*******
+	 * <p> Method: long getHits() </p>
+	 *
+	 * @return the number of prepare calls answered from the cache
+	 */
+	long getHits() { return hits.get(); }
+
+	/*******
+	 * <p> Method: long getMisses() </p>
+	 *
+	 * @return the number of prepare calls that had to parse the SQL
+	 */
+	long getMisses() { return misses.get(); }
+
+	/*******
+	 * <p> Method: long getEvictions() </p>
+	 *
+	 * @return the number of statements dropped to stay within capacity
+	 */
+	long getEvictions() { return evictions.get(); }
+
+	/*
+	 * Drop least recently used statements until the cache fits.  A statement that is in use is
+	 * only marked, and is closed when its caller gives it back.
+	 */
+	private void evictLeastRecentlyUsed() {
+		if (entries.size() <= capacity) return;
+		List<Entry> dropped = new ArrayList<>();
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (entries.size() > capacity && iterator.hasNext()) {
+			dropped.add(iterator.next().getValue());
+			iterator.remove();
+		}
+		for (Entry entry : dropped) {
+			evictions.incrementAndGet();
+			entry.evicted = true;
+			if (!entry.inUse) {
+				closeQuietly(entry.statement);
+			}
+		}
+	}
+
+	/*
+	 * Make a statement ready for its next caller: end the current lease, close any open result,
+	 * clear parameters and drop any batch that was never executed.  Returns false if the statement
+	 * could not be reset and was closed; the caller must then drop it from the cache.
+	 */
+	private boolean reset(Entry entry) {
+		entry.inUse = false;
+		entry.lease++;
+		if (entry.evicted) {
+			closeQuietly(entry.statement);
+			return true;
+		}
+		try {
+			ResultSet rs = entry.statement.getResultSet();
+			if (rs != null) rs.close();
+			entry.statement.clearParameters();
+			entry.statement.clearBatch();
+			return true;
+		} catch (SQLException e) {
+			// A statement that cannot be reset is not worth keeping
+			closeQuietly(entry.statement);
+			return false;
+		}
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			// The connection is going away or the statement is already closed
+		}
+	}
+
+	/*
+	 * Wrap a cached statement so that close() returns it to the cache instead of closing it.  The
+	 * wrapper belongs to the entry's current lease and acts as closed once that lease has ended,
+	 * whether through its own close() or through releaseAll.
+	 */
+	private PreparedStatement wrap(Entry entry) {
+		final long lease = entry.lease;
+		InvocationHandler handler = new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				boolean returned = entry.lease != lease;
+				switch (method.getName()) {
+				case "close":
+					if (!returned && !reset(entry)) {
+						entries.values().remove(entry);
+					}
+					return null;
+				case "isClosed":
+					return returned || entry.statement.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				default:
+					if (returned) {
+						throw new SQLException("Statement has already been closed");
+					}
+					try {
+						return method.invoke(entry.statement, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				}
+			}
+		};
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, handler);
+	}
+}
@@ -0,0 +1,478 @@
+package database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import PasswordEvaluator.PasswordEvaluator;
+import UsernameEvaluator.UsernameEvaluator;
+import entityClasses.User;
+
+/*******
+ * <p> Title: UserImport Class. </p>
+ *
+ * <p> Description: Creates accounts in bulk from a CSV file, for provisioning a term's worth of
+ * students without going through the new-account page once per student.  Each line holds
+ * userName, password, firstName, middleName, lastName, preferredFirstName, emailAddress, roles;
+ * roles is one or more of Admin, Student and Staff separated by ';'.  Trailing fields may be left
+ * off, fields may be quoted, and a first line starting with "userName" is taken as a header.</p>
+ *
+ * <p> The file is read in chunks.  The rows of a chunk are checked in parallel with the same
+ * UserName and password rules as the new-account page.  A valid row is then rejected if its
+ * userName appeared earlier in the file or already has an account; the existing userNames are
+ * read once, with one query, before the first chunk.  The accepted rows of a chunk are inserted
+ * in one batched transaction.  If that transaction fails (e.g., an account was created by
+ * someone else in the meantime), each row of the chunk is tried on its own so one bad row does
+ * not cost the others.  The result of every row is handed to the report as soon as its chunk is
+ * done, so a report of tens of thousands of rows is never held in memory.</p>
+ *
+ * <p> Run main to import from the command line:
+ * java database.UserImport users.csv [report.csv]</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class UserImport {
+
+	/*******
+	 * <p> Title: Status Enum. </p>
+	 *
+	 * <p> Description: The outcome of one row.</p>
+	 */
+	public enum Status {
+		/** The account was created */
+		IMPORTED,
+		/** The row breaks a rule: a bad UserName, password or role, or a malformed line */
+		INVALID,
+		/** The userName appears on an earlier line of the same file */
+		DUPLICATE,
+		/** An account with the userName already exists */
+		EXISTS,
+		/** The row was valid but the database would not store it */
+		FAILED
+	}
+
+	/*******
+	 * <p> Title: RowResult Class. </p>
+	 *
+	 * <p> Description: The outcome of one line of the file.</p>
+	 */
+	public static class RowResult {
+		private final int line;
+		private final String userName;
+		private final Status status;
+		private final String message;
+
+		RowResult(int line, String userName, Status status, String message) {
+			this.line = line;
+			this.userName = userName;
+			this.status = status;
+			this.message = message;
+		}
+
+		/*******
+		 * <p> Method: int getLine() </p>
+		 *
+		 * @return the one-based line number in the file
+		 */
+		public int getLine() { return line; }
+
+		/*******
+		 * <p> Method: String getUserName() </p>
+		 *
+		 * @return the userName on the line, or "" if there was none
+		 */
+		public String getUserName() { return userName; }
+
+		/*******
+		 * <p> Method: Status getStatus() </p>
+		 *
+		 * @return the outcome of the line
+		 */
+		public Status getStatus() { return status; }
+
+		/*******
+		 * <p> Method: String getMessage() </p>
+		 *
+		 * @return why the line was not imported, or "" if it was
+		 */
+		public String getMessage() { return message; }
+
+		/*******
+		 * <p> Method: String toString() </p>
+		 *
+		 * @return the result as a line of the CSV report: line, userName, status, message
+		 */
+		@Override
+		public String toString() {
+			return line + "," + csvField(userName) + "," + status + "," + csvField(message);
+		}
+	}
+
+	/*******
+	 * <p> Title: Summary Class. </p>
+	 *
+	 * <p> Description: The number of rows with each outcome.</p>
+	 */
+	public static class Summary {
+		private final Map<Status, Integer> counts = new EnumMap<>(Status.class);
+		private long elapsedMillis;
+
+		Summary() {
+			for (Status status : Status.values()) counts.put(status, 0);
+		}
+
+		/*******
+		 * <p> Method: int getCount(Status status) </p>
+		 *
+		 * @param status an outcome
+		 * @return the number of rows with that outcome
+		 */
+		public int getCount(Status status) { return counts.get(status); }
+
+		/*******
+		 * <p> Method: int getRows() </p>
+		 *
+		 * @return the number of rows read, not counting a header or blank lines
+		 */
+		public int getRows() {
+			int rows = 0;
+			for (int count : counts.values()) rows += count;
+			return rows;
+		}
+
+		/*******
+		 * <p> Method: long getElapsedMillis() </p>
+		 *
+		 * @return how long the import took
+		 */
+		public long getElapsedMillis() { return elapsedMillis; }
+
+		/*******
+		 * <p> Method: String toString() </p>
+		 *
+		 * @return a one-line summary, suitable for logging
+		 */
+		@Override
+		public String toString() {
+			return getCount(Status.IMPORTED) + " of " + getRows() + " accounts imported in "
+					+ elapsedMillis + " ms " + counts;
+		}
+	}
+
+	// Header of the CSV report written by main
+	public static final String REPORT_HEADER = "line,userName,status,message";
+
+	// Rows read, checked and inserted together
+	public static final int DEFAULT_CHUNK_SIZE = 2000;
+
+	private final Database database;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/*
+	 * One line of the file, split into fields.  A line that cannot be split keeps the reason.
+	 */
+	private static class Row {
+		final int line;
+		final List<String> fields;
+		final String parseError;
+
+		Row(int line, List<String> fields, String parseError) {
+			this.line = line;
+			this.fields = fields;
+			this.parseError = parseError;
+		}
+	}
+
+	/*
+	 * A row after it was checked: the account to create, or the result that rejects it.
+	 */
+	private static class Checked {
+		final Row row;
+		final User user;
+		final RowResult rejection;
+
+		Checked(Row row, User user, RowResult rejection) {
+			this.row = row;
+			this.user = user;
+			this.rejection = rejection;
+		}
+	}
+
+	/*******
+	 * <p> Method: UserImport(Database database) </p>
+	 *
+	 * <p> Description: Creates an importer that writes to a connected database.</p>
+	 *
+	 * @param database the database the accounts are created in
+	 */
+	public UserImport(Database database) {
+		this.database = database;
+	}
+
+	/*******
+	 * <p> Method: void setChunkSize(int chunkSize) </p>
+	 *
+	 * <p> Description: Sets how many rows are read, checked and inserted together.  Larger
+	 * chunks give the parallel check and the batched insert more to work with; smaller chunks
+	 * report sooner and hold less in memory.</p>
+	 *
+	 * @param chunkSize the chunk size; must be at least 1
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least 1: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/*******
+	 * <p> Method: Summary importUsers(Reader csv, Consumer&lt;RowResult&gt; report) </p>
+	 *
+	 * <p> Description: Imports every row of a CSV file.</p>
+	 *
+	 * @param csv the file to read
+	 * @param report receives the result of every row, in file order, chunk by chunk
+	 *
+	 * @return the number of rows with each outcome
+	 *
+	 * @throws IOException if the file cannot be read
+	 * @throws SQLException if the existing userNames cannot be read; nothing has been imported
+	 */
+	public Summary importUsers(Reader csv, Consumer<? super RowResult> report)
+			throws IOException, SQLException {
+		long start = System.nanoTime();
+		Summary summary = new Summary();
+		Set<String> taken = database.loadUserNames();
+		Set<String> seen = new HashSet<>();
+
+		BufferedReader reader = csv instanceof BufferedReader ? (BufferedReader) csv : new BufferedReader(csv);
+		List<Row> chunk = new ArrayList<>(chunkSize);
+		int lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.trim().isEmpty()) continue;
+			Row row = parse(lineNumber, line);
+			if (lineNumber == 1 && row.parseError == null && !row.fields.isEmpty()
+					&& row.fields.get(0).trim().equalsIgnoreCase("userName")) {
+				continue;
+			}
+			chunk.add(row);
+			if (chunk.size() == chunkSize) {
+				importChunk(chunk, taken, seen, summary, report);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) importChunk(chunk, taken, seen, summary, report);
+
+		summary.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		return summary;
+	}
+
+	/*
+	 * Check a chunk in parallel, reject the duplicates in file order, insert the rest, and report
+	 * every row in file order.
+	 */
+	private void importChunk(List<Row> chunk, Set<String> taken, Set<String> seen, Summary summary,
+			Consumer<? super RowResult> report) {
+		List<Checked> checked = chunk.parallelStream().map(UserImport::check).collect(Collectors.toList());
+
+		List<User> accepted = new ArrayList<>();
+		for (int i = 0; i < checked.size(); i++) {
+			Checked row = checked.get(i);
+			if (row.user == null) continue;
+			String userName = row.user.getUserName();
+			if (!seen.add(userName)) {
+				checked.set(i, rejected(row.row, userName, Status.DUPLICATE,
+						"The userName appears on an earlier line"));
+			} else if (taken.contains(userName)) {
+				checked.set(i, rejected(row.row, userName, Status.EXISTS,
+						"An account with this userName already exists"));
+			} else {
+				accepted.add(row.user);
+			}
+		}
+
+		Map<String, String> failures = insert(accepted);
+		for (Checked row : checked) {
+			RowResult result;
+			if (row.rejection != null) {
+				result = row.rejection;
+			} else if (failures.containsKey(row.user.getUserName())) {
+				result = new RowResult(row.row.line, row.user.getUserName(), Status.FAILED,
+						failures.get(row.user.getUserName()));
+			} else {
+				result = new RowResult(row.row.line, row.user.getUserName(), Status.IMPORTED, "");
+				taken.add(row.user.getUserName());
+			}
+			summary.counts.merge(result.getStatus(), 1, Integer::sum);
+			report.accept(result);
+		}
+	}
+
+	/*
+	 * Insert the accepted accounts in one transaction, or one at a time if that fails.  Returns
+	 * the reason each account that could not be stored failed, by userName.
+	 */
+	private Map<String, String> insert(List<User> accepted) {
+		try {
+			database.registerUsers(accepted);
+			return Collections.emptyMap();
+		} catch (SQLException e) {
+			System.err.println("Error importing " + accepted.size()
+					+ " accounts, retrying one at a time: " + e.getMessage());
+		}
+		Map<String, String> failures = new HashMap<>();
+		for (User user : accepted) {
+			try {
+				database.registerUsers(Collections.singletonList(user));
+			} catch (SQLException e) {
+				failures.put(user.getUserName(), e.getMessage());
+			}
+		}
+		return failures;
+	}
+
+	/*
+	 * Check one row against the rules.  Runs on many threads at once, so it only uses the
+	 * thread-safe forms of the evaluators.
+	 */
+	private static Checked check(Row row) {
+		if (row.parseError != null) {
+			return rejected(row, row.fields.isEmpty() ? "" : row.fields.get(0).trim(), Status.INVALID, row.parseError);
+		}
+		List<String> fields = row.fields;
+		String userName = field(fields, 0);
+		if (fields.size() > 8) {
+			return rejected(row, userName, Status.INVALID, "Expected at most 8 fields, found " + fields.size());
+		}
+		String userNameError = UsernameEvaluator.validateUserName(userName);
+		if (!userNameError.isEmpty()) {
+			return rejected(row, userName, Status.INVALID, userNameError.trim());
+		}
+		String passwordError = PasswordEvaluator.validatePassword(fields.size() > 1 ? fields.get(1) : "");
+		if (!passwordError.isEmpty()) {
+			return rejected(row, userName, Status.INVALID, passwordError.trim().replace('\n', ' '));
+		}
+
+		boolean admin = false, student = false, staff = false;
+		for (String role : field(fields, 7).split(";")) {
+			if (role.trim().isEmpty()) continue;
+			if (role.trim().equalsIgnoreCase("Admin")) admin = true;
+			else if (role.trim().equalsIgnoreCase("Student")) student = true;
+			else if (role.trim().equalsIgnoreCase("Staff")) staff = true;
+			else return rejected(row, userName, Status.INVALID, "Unknown role: " + role.trim());
+		}
+		if (!admin && !student && !staff) {
+			return rejected(row, userName, Status.INVALID, "At least one role is required");
+		}
+
+		User user = new User(userName, fields.get(1), field(fields, 2), field(fields, 3),
+				field(fields, 4), field(fields, 5), field(fields, 6), admin, student, staff);
+		return new Checked(row, user, null);
+	}
+
+	private static Checked rejected(Row row, String userName, Status status, String message) {
+		return new Checked(row, null, new RowResult(row.line, userName, status, message));
+	}
+
+	private static String field(List<String> fields, int index) {
+		return index < fields.size() ? fields.get(index).trim() : "";
+	}
+
+	/*
+	 * Split one line into fields.  A field may be quoted with '"', in which case it may hold
+	 * commas, and a doubled quote stands for one quote.
+	 */
+	private static Row parse(int lineNumber, String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"' && field.toString().trim().isEmpty()) {
+				field.setLength(0);
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return new Row(lineNumber, fields, quoted ? "Unterminated quoted field" : null);
+	}
+
+	private static String csvField(String value) {
+		if (value == null) return "";
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	/*******
+	 * <p> Method: void main(String[] args) </p>
+	 *
+	 * <p> Description: Imports a CSV file into the application database and writes the report
+	 * of every row to a file, or to the console if no report file is given.  The application
+	 * must not be running, since it holds the database open.</p>
+	 *
+	 * @param args the CSV file, and optionally the report file
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: java database.UserImport users.csv [report.csv]");
+			System.exit(2);
+		}
+		Database database = new Database();
+		try {
+			database.connectToDatabase();
+		} catch (SQLException e) {
+			System.err.println("Cannot open the database; is the application running? " + e.getMessage());
+			System.exit(1);
+		}
+		PrintStream out = System.out;
+		try (Reader csv = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+			if (args.length == 2) {
+				out = new PrintStream(Files.newOutputStream(Paths.get(args[1])), false, "UTF-8");
+			}
+			out.println(REPORT_HEADER);
+			Summary summary = new UserImport(database).importUsers(csv, out::println);
+			out.flush();
+			System.err.println(summary);
+		} catch (IOException | SQLException e) {
+			System.err.println("Import failed: " + e.getMessage());
+			System.exit(1);
+		} finally {
+			if (out != System.out) out.close();
+			database.closeConnection();
+		}
+	}
+}
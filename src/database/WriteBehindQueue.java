@@ -0,0 +1,331 @@
+package database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import entityClasses.Post;
+import entityClasses.Reply;
+
+/*******
+ * <p> Title: WriteBehindQueue Class. </p>
+ *
+ * <p> Description: Writes posts and replies to the database on a background thread.  The models
+ * used to call savePost and saveReply on the JavaFX application thread, so every submit waited
+ * for the disk.  The models now queue the write and return at once; the in-memory collections
+ * already hold the new state, so the user sees it right away.</p>
+ *
+ * <p> Writes to the same post or reply ID are merged: only the latest queued object is written.
+ * The queue is flushed a short delay after the first write arrives, or at once when it holds a
+ * full batch, and each flush saves everything queued in one transaction with savePosts and
+ * saveReplies.  If that transaction fails, every row is tried again on its own so that one bad
+ * row does not lose the others; a row that still fails is logged and dropped, just as a failed
+ * synchronous save used to be.</p>
+ *
+ * <p> The queue holds a copy of each post and reply, taken on the caller's thread when it is
+ * queued.  The collections' objects go on changing on the JavaFX thread while the background
+ * thread writes, and a flush that read them then could write a row that is half one edit and
+ * half the next.  A post that is a header without its body is copied as a header, so its
+ * flush still leaves the stored body alone.  close() writes everything still queued before it
+ * returns, and is called from Database.closeConnection and from a shutdown hook so that
+ * System.exit does not lose queued writes.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+public class WriteBehindQueue {
+
+	// How long the first queued write waits for others to join its flush
+	public static final long DEFAULT_FLUSH_DELAY_MILLIS = 100;
+
+	// How long close() waits for the last flush
+	private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+	private final Database database;
+	private final long flushDelayMillis;
+	private final ScheduledExecutorService executor;
+	private final Thread shutdownHook;
+
+	// Queued writes by ID, in the order each ID was first queued.  Guarded by this.
+	private LinkedHashMap<String, Post> pendingPosts = new LinkedHashMap<>();
+	private LinkedHashMap<String, Reply> pendingReplies = new LinkedHashMap<>();
+	private boolean flushScheduled = false;
+	private boolean closed = false;
+
+	// Metrics
+	private final AtomicLong queuedCount = new AtomicLong();
+	private final AtomicLong mergedCount = new AtomicLong();
+	private final AtomicLong writtenCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong totalFlushNanos = new AtomicLong();
+	private final AtomicLong maxFlushNanos = new AtomicLong();
+
+	/*******
+	 * <p> Method: WriteBehindQueue(Database database, long flushDelayMillis) </p>
+	 *
+	 * <p> Description: Creates the queue and its background thread.</p>
+	 *
+	 * @param database the database the writes go to
+	 * @param flushDelayMillis how long the first queued write waits before it is flushed
+	 */
+	WriteBehindQueue(Database database, long flushDelayMillis) {
+		this.database = database;
+		this.flushDelayMillis = flushDelayMillis;
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.shutdownHook = new Thread(this::close, "write-behind-drain");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/*******
+	 * <p> Method: void queuePost(Post post) </p>
+	 *
+	 * <p> Description: Queues a copy of a post to be saved, replacing any queued save of the
+	 * same post, so later changes to the post are not written until it is queued again.  Once
+	 * the queue is closed the post is saved right away instead.</p>
+	 *
+	 * @param post the post to save
+	 */
+	public void queuePost(Post post) {
+		Post snapshot = new Post(post);
+		synchronized (this) {
+			if (!closed) {
+				if (pendingPosts.put(snapshot.getPostId(), snapshot) != null) mergedCount.incrementAndGet();
+				queued();
+				return;
+			}
+		}
+		try {
+			database.savePost(post);
+		} catch (SQLException e) {
+			System.err.println("Error saving post to database: " + e.getMessage());
+			e.printStackTrace();
+		}
+	}
+
+	/*******
+	 * <p> Method: void queueReply(Reply reply) </p>
+	 *
+	 * <p> Description: Queues a copy of a reply to be saved, replacing any queued save of the
+	 * same reply, so later changes to the reply are not written until it is queued again.  Once
+	 * the queue is closed the reply is saved right away instead.</p>
+	 *
+	 * @param reply the reply to save
+	 */
+	public void queueReply(Reply reply) {
+		Reply snapshot = new Reply(reply);
+		synchronized (this) {
+			if (!closed) {
+				if (pendingReplies.put(snapshot.getReplyId(), snapshot) != null) mergedCount.incrementAndGet();
+				queued();
+				return;
+			}
+		}
+		try {
+			database.saveReply(reply);
+		} catch (SQLException e) {
+			System.err.println("Error saving reply to database: " + e.getMessage());
+			e.printStackTrace();
+		}
+	}
+
+	/*******
+	 * <p> Method: void flush() </p>
+	 *
+	 * <p> Description: Writes everything queued so far and waits until it is in the database.
+	 * Called before the models read back from the database, so a reload never misses a write
+	 * that is still queued.</p>
+	 */
+	public void flush() {
+		try {
+			executor.submit(this::flushPending).get();
+		} catch (RejectedExecutionException e) {
+			// Closed; close() has already written everything
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			System.err.println("Error flushing queued writes: " + e.getCause());
+			e.getCause().printStackTrace();
+		}
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Writes everything still queued and stops the background thread.  Writes
+	 * queued after this are saved synchronously.</p>
+	 */
+	public void close() {
+		synchronized (this) {
+			if (closed) return;
+			closed = true;
+		}
+		executor.execute(this::flushPending);
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				System.err.println("Queued writes were still being flushed after "
+						+ DRAIN_TIMEOUT_SECONDS + " seconds: " + this);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// Already shutting down; this call is the shutdown hook
+		}
+	}
+
+	/*******
+	 * <p> Method: int getQueueDepth() </p>
+	 *
+	 * @return the number of posts and replies waiting to be written
+	 */
+	public synchronized int getQueueDepth() { return pendingPosts.size() + pendingReplies.size(); }
+
+	/*******
+	 * <p> Method: long getQueuedCount() </p>
+	 *
+	 * @return the number of writes queued since the queue was created
+	 */
+	public long getQueuedCount() { return queuedCount.get(); }
+
+	/*******
+	 * <p> Method: long getMergedCount() </p>
+	 *
+	 * @return the queued writes that replaced an earlier write of the same ID
+	 */
+	public long getMergedCount() { return mergedCount.get(); }
+
+	/*******
+	 * <p> Method: long getWrittenCount() </p>
+	 *
+	 * @return the rows written to the database
+	 */
+	public long getWrittenCount() { return writtenCount.get(); }
+
+	/*******
+	 * <p> Method: long getFailedCount() </p>
+	 *
+	 * @return the rows that could not be written and were dropped
+	 */
+	public long getFailedCount() { return failedCount.get(); }
+
+	/*******
+	 * <p> Method: long getFlushCount() </p>
+	 *
+	 * @return the number of flushes that wrote at least one row
+	 */
+	public long getFlushCount() { return flushCount.get(); }
+
+	/*******
+	 * <p> Method: double getAverageFlushMillis() </p>
+	 *
+	 * @return the average time a flush took
+	 */
+	public double getAverageFlushMillis() {
+		long flushes = flushCount.get();
+		return flushes == 0 ? 0.0 : totalFlushNanos.get() / 1_000_000.0 / flushes;
+	}
+
+	/*******
+	 * <p> Method: double getMaxFlushMillis() </p>
+	 *
+	 * @return the longest time a flush took
+	 */
+	public double getMaxFlushMillis() { return maxFlushNanos.get() / 1_000_000.0; }
+
+	/*******
+	 * <p> Method: String toString() </p>
+	 *
+	 * @return a one-line summary of the queue metrics, suitable for logging
+	 */
+	@Override
+	public String toString() {
+		return String.format("WriteBehindQueue[depth=%d, queued=%d, merged=%d, written=%d, "
+				+ "failed=%d, flushes=%d, avgFlush=%.3f ms, maxFlush=%.3f ms]",
+				getQueueDepth(), getQueuedCount(), getMergedCount(), getWrittenCount(),
+				getFailedCount(), getFlushCount(), getAverageFlushMillis(), getMaxFlushMillis());
+	}
+
+	/*
+	 * Called with the lock held after a write is queued.  The first write schedules a delayed
+	 * flush; a full batch is flushed at once.
+	 */
+	private void queued() {
+		queuedCount.incrementAndGet();
+		if (!flushScheduled) {
+			flushScheduled = true;
+			executor.schedule(this::flushPending, flushDelayMillis, TimeUnit.MILLISECONDS);
+		} else if (pendingPosts.size() + pendingReplies.size() == database.getBatchSize()) {
+			executor.execute(this::flushPending);
+		}
+	}
+
+	/*
+	 * Runs on the background thread.  Takes everything queued and writes it in one transaction,
+	 * falling back to one row at a time if the transaction fails.
+	 */
+	private void flushPending() {
+		List<Post> posts;
+		List<Reply> replies;
+		synchronized (this) {
+			flushScheduled = false;
+			if (pendingPosts.isEmpty() && pendingReplies.isEmpty()) return;
+			posts = new ArrayList<>(pendingPosts.values());
+			replies = new ArrayList<>(pendingReplies.values());
+			pendingPosts = new LinkedHashMap<>();
+			pendingReplies = new LinkedHashMap<>();
+		}
+
+		long start = System.nanoTime();
+		try {
+			database.inTransaction(() -> {
+				database.savePosts(posts);
+				database.saveReplies(replies);
+			});
+			writtenCount.addAndGet(posts.size() + replies.size());
+		} catch (SQLException | RuntimeException e) {
+			System.err.println("Error flushing " + (posts.size() + replies.size())
+					+ " queued writes, retrying one at a time: " + e.getMessage());
+			for (Post post : posts) {
+				try {
+					database.savePost(post);
+					writtenCount.incrementAndGet();
+				} catch (SQLException | RuntimeException rowError) {
+					failedCount.incrementAndGet();
+					System.err.println("Error saving post to database: " + rowError.getMessage());
+					rowError.printStackTrace();
+				}
+			}
+			for (Reply reply : replies) {
+				try {
+					database.saveReply(reply);
+					writtenCount.incrementAndGet();
+				} catch (SQLException | RuntimeException rowError) {
+					failedCount.incrementAndGet();
+					System.err.println("Error saving reply to database: " + rowError.getMessage());
+					rowError.printStackTrace();
+				}
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		flushCount.incrementAndGet();
+		totalFlushNanos.addAndGet(elapsed);
+		maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+	}
+}
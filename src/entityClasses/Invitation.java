@@ -0,0 +1,91 @@
+package entityClasses;
+
+/*******
+ * <p> Title: Invitation Class </p>
+ *
+ * <p> Description: One row of the InvitationCodes table: the email address a new user is
+ *  invited at, the role the account will play, and the code that lets them set it up.  A roster
+ *  handed to Database.generateInvitationCodes is a list of invitations without codes. </p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+
+public class Invitation {
+
+	/*
+	 * These are the private attributes for this entity object
+	 */
+    private final String emailAddress;
+    private final String role;
+    private final String code;
+
+
+    /*****
+     * <p> Method: Invitation(String emailAddress, String role) </p>
+     *
+     * <p> Description: This constructor is used to establish a roster entry that has no code
+     * yet. </p>
+     *
+     * @param emailAddress specifies the email address of the invited user
+     *
+     * @param role specifies the role the invited user will play
+     */
+    public Invitation(String emailAddress, String role) {
+        this(emailAddress, role, null);
+    }
+
+
+    /*****
+     * <p> Method: Invitation(String emailAddress, String role, String code) </p>
+     *
+     * <p> Description: This constructor is used to establish invitation objects. </p>
+     *
+     * @param emailAddress specifies the email address of the invited user
+     *
+     * @param role specifies the role the invited user will play
+     *
+     * @param code specifies the invitation code, or null if none has been allocated
+     */
+    public Invitation(String emailAddress, String role, String code) {
+        this.emailAddress = emailAddress;
+        this.role = role;
+        this.code = code;
+    }
+
+
+    /*****
+     * <p> Method: String getEmailAddress() </p>
+     *
+     * <p> Description: This getter returns the email address. </p>
+     *
+     * @return a String of the email address
+	 *
+     */
+    public String getEmailAddress() { return emailAddress; }
+
+
+    /*****
+     * <p> Method: String getRole() </p>
+     *
+     * <p> Description: This getter returns the role. </p>
+     *
+     * @return a String of the role
+	 *
+     */
+    public String getRole() { return role; }
+
+
+    /*****
+     * <p> Method: String getCode() </p>
+     *
+     * <p> Description: This getter returns the invitation code. </p>
+     *
+     * @return a String of the code, or null if none has been allocated
+	 *
+     */
+    public String getCode() { return code; }
+}
@@ -0,0 +1,140 @@
+package entityClasses;
+
+/*******
+ * <p> Title: LoginSession Class </p>
+ *
+ * <p> Description: The result of one successful login: the account, the roles it plays as a
+ *  bitmask, and whether the one-time password was used.  Database.authenticate builds it from a
+ *  single query and keeps it as the current session, so the dispatch pages and home pages can
+ *  read the account from it instead of querying userDB again. </p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+
+public class LoginSession {
+
+	/*
+	 * The role bits
+	 */
+    public static final int ROLE_ADMIN = 1;
+    public static final int ROLE_STUDENT = 2;
+    public static final int ROLE_STAFF = 4;
+
+	/*
+	 * These are the private attributes for this entity object
+	 */
+    private final User user;
+    private final int roles;
+    private final boolean usingOneTimePassword;
+
+
+    /*****
+     * <p> Method: LoginSession(User user, int roles, boolean usingOneTimePassword) </p>
+     *
+     * <p> Description: This constructor is used to establish login session objects. </p>
+     *
+     * @param user specifies the account that logged in
+     *
+     * @param roles specifies the roles of the account as a combination of the ROLE_ bits
+     *
+     * @param usingOneTimePassword specifies whether the one-time password was used to log in
+     */
+    public LoginSession(User user, int roles, boolean usingOneTimePassword) {
+        this.user = user;
+        this.roles = roles;
+        this.usingOneTimePassword = usingOneTimePassword;
+    }
+
+
+    /*****
+     * <p> Method: LoginSession(User user) </p>
+     *
+     * <p> Description: This constructor is used to establish a session for a User that is
+     * already in hand, taking the roles from its role flags. </p>
+     *
+     * @param user specifies the account that logged in
+     */
+    public LoginSession(User user) {
+        this(user, rolesOf(user), false);
+    }
+
+
+    /*****
+     * <p> Method: int rolesOf(User user) </p>
+     *
+     * <p> Description: Combines the role flags of a User into a bitmask. </p>
+     *
+     * @param user specifies the user
+     *
+     * @return the ROLE_ bits of every role the user plays
+     */
+    public static int rolesOf(User user) {
+        int roles = 0;
+        if (user.getAdminRole()) roles |= ROLE_ADMIN;
+        if (user.getNewStudent()) roles |= ROLE_STUDENT;
+        if (user.getNewStaff()) roles |= ROLE_STAFF;
+        return roles;
+    }
+
+
+    /*****
+     * <p> Method: User getUser() </p>
+     *
+     * <p> Description: This getter returns the account that logged in. </p>
+     *
+     * @return the User
+	 *
+     */
+    public User getUser() { return user; }
+
+
+    /*****
+     * <p> Method: int getRoles() </p>
+     *
+     * <p> Description: This getter returns the roles as a bitmask. </p>
+     *
+     * @return a combination of ROLE_ADMIN, ROLE_STUDENT, and ROLE_STAFF
+	 *
+     */
+    public int getRoles() { return roles; }
+
+
+    /*****
+     * <p> Method: boolean hasRole(int role) </p>
+     *
+     * <p> Description: Checks for one role. </p>
+     *
+     * @param role is one of the ROLE_ bits
+     *
+     * @return true if the account plays the role
+	 *
+     */
+    public boolean hasRole(int role) { return (roles & role) != 0; }
+
+
+    /*****
+     * <p> Method: int getNumberOfRoles() </p>
+     *
+     * <p> Description: Counts the roles. </p>
+     *
+     * @return the number of roles the account plays
+	 *
+     */
+    public int getNumberOfRoles() { return Integer.bitCount(roles); }
+
+
+    /*****
+     * <p> Method: boolean isUsingOneTimePassword() </p>
+     *
+     * <p> Description: This getter tells whether the login used the one-time password, in which
+     * case the user must set a new password before going on. </p>
+     *
+     * @return true if the one-time password was used
+	 *
+     */
+    public boolean isUsingOneTimePassword() { return usingOneTimePassword; }
+}
@@ -2,6 +2,7 @@ package entityClasses;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.function.Function;
 
 /*******
  * <p> Title: Post Class </p>
@@ -30,11 +31,16 @@ public class Post {
     private LocalDateTime createdAt;
     private LocalDateTime lastEditedAt;
     private boolean isDeleted;
+    // Set only on a header loaded without its body; cleared once the body is in hand
+    private String preview;
+    private Function<String, String> bodyLoader;
     
     // Constants for validation
     public static final int MAX_TITLE_LENGTH = 100;
     public static final int MAX_BODY_LENGTH = 5000;
     public static final String DEFAULT_THREAD = "General";
+    // Post lists show this many characters of the body
+    public static final int PREVIEW_LENGTH = 150;
     
     /*****
      * <p> Method: Post() </p>
@@ -72,6 +78,29 @@ public class Post {
         this.isDeleted = false;
     }
 
+    /*****
+     * <p> Method: Post(Post other) </p>
+     * 
+     * <p> Description: This copy constructor is used so that a post queued to be written is
+     * never changed while it waits.  A header stays a header: the copy keeps its preview and
+     * body loader, so saving the copy leaves the stored body alone. </p>
+     * 
+     * @param other the post to copy
+     * 
+     */
+    public Post(Post other) {
+        this.postId = other.postId;
+        this.title = other.title;
+        this.body = other.body;
+        this.authorUsername = other.authorUsername;
+        this.thread = other.thread;
+        this.createdAt = other.createdAt;
+        this.lastEditedAt = other.lastEditedAt;
+        this.isDeleted = other.isDeleted;
+        this.preview = other.preview;
+        this.bodyLoader = other.bodyLoader;
+    }
+
     /*****
      * <p> Method: String validatePost() </p>
      * 
@@ -81,6 +110,7 @@ public class Post {
      * 
      */
     public String validatePost() {
+        String body = getBody();
         if (title == null || title.trim().isEmpty()) {
             return "Post title cannot be empty.";
         }
@@ -149,7 +179,7 @@ public class Post {
      */
     public void updateContent(String newTitle, String newBody) {
         this.title = newTitle;
-        this.body = newBody;
+        setBody(newBody);
         this.lastEditedAt = LocalDateTime.now();
     }
 
@@ -169,8 +199,61 @@ public class Post {
         }
         
         String lowerKeyword = keyword.toLowerCase();
-        return (title != null && title.toLowerCase().contains(lowerKeyword)) ||
-               (body != null && body.toLowerCase().contains(lowerKeyword));
+        if (title != null && title.toLowerCase().contains(lowerKeyword)) {
+            return true;
+        }
+        String body = getBody();
+        return body != null && body.toLowerCase().contains(lowerKeyword);
+    }
+
+    /*****
+     * <p> Method: void setBodyLoader(String preview, Function&lt;String, String&gt; bodyLoader) </p>
+     * 
+     * <p> Description: Makes this post a header without its body, as loaded for a post list.
+     * The body is fetched with the loader, by postId, the first time getBody is called.
+     * Setting the body first cancels the load. </p>
+     * 
+     * @param preview the start of the body, at least PREVIEW_LENGTH + 1 characters of it when
+     * the body is longer than PREVIEW_LENGTH
+     * @param bodyLoader returns the body of the post with the given postId, or null if there is
+     * no such post; throws an unchecked exception if the body could not be read
+     * 
+     */
+    public void setBodyLoader(String preview, Function<String, String> bodyLoader) {
+        this.body = null;
+        this.preview = preview;
+        this.bodyLoader = bodyLoader;
+    }
+
+    /*****
+     * <p> Method: boolean isBodyLoaded() </p>
+     * 
+     * <p> Description: Tells whether the body is in memory, or whether this is a header whose
+     * body will be fetched on the next call to getBody. </p>
+     * 
+     * @return true unless the body is still to be fetched
+     * 
+     */
+    public boolean isBodyLoaded() {
+        return bodyLoader == null;
+    }
+
+    /*****
+     * <p> Method: String getPreview() </p>
+     * 
+     * <p> Description: Returns the start of the body for a post list, without fetching the body
+     * of a header. </p>
+     * 
+     * @return the body if it is at most PREVIEW_LENGTH characters long, otherwise its first
+     * PREVIEW_LENGTH characters followed by "..."
+     * 
+     */
+    public String getPreview() {
+        String text = preview != null ? preview : body;
+        if (text == null) {
+            return "";
+        }
+        return text.length() > PREVIEW_LENGTH ? text.substring(0, PREVIEW_LENGTH) + "..." : text;
     }
 
     /*****
@@ -220,11 +303,27 @@ public class Post {
     }
 
     public String getBody() { 
+        if (bodyLoader != null) {
+            String loaded;
+            try {
+                loaded = bodyLoader.apply(postId);
+            } catch (RuntimeException e) {
+                // Not an empty body: keep the loader so the body is read again next time
+                System.err.println("Could not load the body of " + postId + ": " + e.getMessage());
+                return null;
+            }
+            // A post removed since its header was read has no body to show
+            body = loaded != null ? loaded : "";
+            bodyLoader = null;
+            preview = null;
+        }
         return body; 
     }
 
     public void setBody(String body) { 
         this.body = body; 
+        this.bodyLoader = null;
+        this.preview = null;
     }
 
     public String getAuthorUsername() { 
@@ -1,6 +1,7 @@
 package entityClasses;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /*******
@@ -24,6 +25,8 @@ public class PostCollection {
      */
     private Map<String, Post> posts;
     private int nextPostId;
+    private Supplier<String> idSource;    // Hands out new post IDs when set; see setIdSource
+    private PostSearchIndex searchIndex;
     
     /*****
      * <p> Method: PostCollection() </p>
@@ -33,6 +36,7 @@ public class PostCollection {
     public PostCollection() {
         this.posts = new HashMap<>();
         this.nextPostId = 1;
+        this.searchIndex = new PostSearchIndex();
     }
 
     /*****
@@ -54,7 +58,12 @@ public class PostCollection {
             return "Search/filter input cannot exceed 100 characters.";
         }
         
-        Post newPost = new Post(generatePostId(), title, body, authorUsername, thread);
+        String postId = generatePostId();
+        if (postId == null) {
+            return "A new post ID could not be allocated.";
+        }
+        
+        Post newPost = new Post(postId, title, body, authorUsername, thread);
         String validationError = newPost.validatePost();
         
         if (!validationError.isEmpty()) {
@@ -62,9 +71,25 @@ public class PostCollection {
         }
         
         posts.put(newPost.getPostId(), newPost);
+        searchIndex.add(newPost);
         return newPost.getPostId();
     }
 
+    /*****
+     * <p> Method: void setIdSource(Supplier<String> idSource) </p>
+     * 
+     * <p> Description: Sets where the IDs of new posts come from.  Without a source the next ID
+     * counts up from the highest one in this collection, which is only unique within it; a
+     * collection whose posts are saved next to those of other collections should take its IDs
+     * from the database. </p>
+     * 
+     * @param idSource returns a new post ID, or null if none can be allocated
+     * 
+     */
+    public void setIdSource(Supplier<String> idSource) {
+        this.idSource = idSource;
+    }
+
     /*****
      * <p> Method: void addPost(Post post) </p>
      * 
@@ -75,6 +100,7 @@ public class PostCollection {
      */
     public void addPost(Post post) {
         posts.put(post.getPostId(), post);
+        searchIndex.add(post);
         // Update nextPostId if needed
         try {
             int postNum = Integer.parseInt(post.getPostId().replace("POST_", ""));
@@ -86,6 +112,20 @@ public class PostCollection {
         }
     }
 
+    /*****
+     * <p> Method: void removePost(String postId) </p>
+     * 
+     * <p> Description: Removes a post from the collection without any permission checks.  Used
+     * when the post has been removed from the database. </p>
+     * 
+     * @param postId the ID of the post to remove
+     * 
+     */
+    public void removePost(String postId) {
+        posts.remove(postId);
+        searchIndex.remove(postId);
+    }
+
     /*****
      * <p> Method: List<Post> getAllPosts() </p>
      * 
@@ -101,7 +141,11 @@ public class PostCollection {
     /*****
      * <p> Method: List<Post> searchPosts(String keyword, String threadFilter) </p>
      * 
-     * <p> Description: Searches for posts matching the keyword and thread filter. </p>
+     * <p> Description: Searches for posts matching the keyword and thread filter.  The matches
+     * come from the search index, which gives the same results as checking matchesSearch on
+     * every post; a keyword without any letters or digits falls back to that check.  Posts are
+     * indexed when they enter the collection or are edited through updatePost; a post changed
+     * through its setters must be added again. </p>
      * 
      * @param keyword the search keyword (can be null or empty for all posts)
      * @param threadFilter the thread to filter by (can be "All" for all threads)
@@ -120,8 +164,14 @@ public class PostCollection {
             return new ArrayList<>();
         }
         
-        return posts.values().stream()
-            .filter(post -> post.matchesSearch(keyword))
+        List<Post> matches = searchIndex.search(keyword);
+        if (matches == null) {
+            matches = posts.values().stream()
+                .filter(post -> post.matchesSearch(keyword))
+                .collect(Collectors.toList());
+        }
+        
+        return matches.stream()
             .filter(post -> threadFilter == null || "All".equals(threadFilter) || 
                            threadFilter.equals(post.getThread()))
             .sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt())) // Newest first
@@ -195,6 +245,7 @@ public class PostCollection {
         }
         
         post.updateContent(newTitle, newBody);
+        searchIndex.add(post);
         return ""; // Success
     }
 
@@ -297,10 +348,13 @@ public class PostCollection {
      * 
      * <p> Description: Generates a unique post ID. </p>
      * 
-     * @return a unique post ID
+     * @return a unique post ID, or null if the ID source could not allocate one
      * 
      */
     private String generatePostId() {
+        if (idSource != null) {
+            return idSource.get();
+        }
         String postId = "POST_" + nextPostId;
         nextPostId++;
         return postId;
@@ -0,0 +1,127 @@
+package entityClasses;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/*******
+ * <p> Title: PostCollectionTest Class. </p>
+ *
+ * <p> Description: JUnit tests for the keyword search of PostCollection.  Every search is
+ * compared with a plain scan that applies Post.matchesSearch to every post, which is how
+ * searchPosts worked before it was backed by PostSearchIndex, so the index can only change how
+ * fast the results come back and never which results come back.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ *
+ */
+
+public class PostCollectionTest {
+
+	/*****
+	 * <p> Default Constructor </p>
+	 */
+	public PostCollectionTest() {
+		// existing initialization or leave empty
+	}
+
+	/*****
+	 * Words the generated post titles and bodies are made of
+	 */
+	private static final String[] VOCABULARY = { "java", "javafx", "database", "index", "thread",
+			"homework", "exam", "question", "answer", "programming", "lecture", "deadline", "grade",
+			"project", "team", "meeting", "compile", "error", "stack", "queue", "recursion", "loop" };
+
+	/*****
+	 * Keywords searched for
+	 */
+	private static final String[] KEYWORDS = { "java", "JAVA", "prog", "ramm", "exam question",
+			"stack, queue", "error ", "deadline!", "post 42", "zzz", "?!", "a" };
+
+	/*****
+	 * <p> Method: void testSearchMatchesLinearScan() </p>
+	 *
+	 * <p> Description: Verifies that indexed search returns exactly what a full scan returns,
+	 * including partial words, mixed case, punctuation and keywords with no letters, and that
+	 * the index follows posts as they are edited, replaced and removed.</p>
+	 */
+	@Test
+	public void testSearchMatchesLinearScan() {
+		PostCollection posts = makePosts(500, 7);
+		assertSearchMatchesScan(posts);
+
+		// Edit through the collection
+		String error = posts.updatePost("POST_1", "Renamed", "Now about recursion only", "user1");
+		assertEquals("", error);
+		assertFalse(posts.searchPosts("Renamed", "All").isEmpty(), "Edited title should be found");
+
+		// Replace a post the way a database delta does
+		Post replacement = new Post("POST_2", "Replacement", "Fresh text", "user2", "General");
+		posts.addPost(replacement);
+		assertTrue(posts.searchPosts("Fresh", "All").contains(replacement));
+
+		// Remove a post
+		posts.removePost("POST_3");
+		assertTrue(posts.searchPosts("Post 3 ", "All").isEmpty(), "Removed post should not be found");
+
+		assertSearchMatchesScan(posts);
+		assertEquals(posts.searchPosts("java", "All").stream()
+				.filter(post -> "Exams".equals(post.getThread())).collect(Collectors.toList()),
+				posts.searchPosts("java", "Exams"), "Thread filter should still apply");
+	}
+
+	/*****
+	 * <p> Method: void assertSearchMatchesScan(PostCollection posts) </p>
+	 *
+	 * <p> Description: Compares indexed search with a full scan for every test keyword.</p>
+	 */
+	private void assertSearchMatchesScan(PostCollection posts) {
+		for (String keyword : KEYWORDS) {
+			assertEquals(scan(posts, keyword), posts.searchPosts(keyword, "All"),
+					"Search for \"" + keyword + "\" should match a full scan");
+		}
+	}
+
+	/*****
+	 * <p> Method: List<Post> scan(PostCollection posts, String keyword) </p>
+	 *
+	 * <p> Description: Searches by checking every post, newest first.</p>
+	 */
+	private List<Post> scan(PostCollection posts, String keyword) {
+		return posts.getAllPosts().stream()
+				.filter(post -> post.matchesSearch(keyword))
+				.sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()))
+				.collect(Collectors.toList());
+	}
+
+	/*****
+	 * <p> Method: PostCollection makePosts(int count, long seed) </p>
+	 *
+	 * <p> Description: Builds a collection of posts with random text drawn from VOCABULARY.  Every
+	 * post gets a distinct creation time so the newest-first order is fully determined.</p>
+	 */
+	private PostCollection makePosts(int count, long seed) {
+		Random random = new Random(seed);
+		LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+		PostCollection posts = new PostCollection();
+		for (int i = 0; i < count; i++) {
+			StringBuilder body = new StringBuilder();
+			for (int w = 0; w < 12; w++) {
+				body.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+				body.append(random.nextInt(8) == 0 ? ", " : " ");
+			}
+			Post post = new Post("POST_" + i, "Post " + i + " " + VOCABULARY[random.nextInt(VOCABULARY.length)],
+					body.toString().trim(), "user" + (i % 10), i % 3 == 0 ? "Exams" : "General");
+			post.setCreatedAt(base.plusSeconds(i));
+			posts.addPost(post);
+		}
+		return posts;
+	}
+}
@@ -0,0 +1,214 @@
+package entityClasses;
+
+import java.util.*;
+
+/*******
+ * <p> Title: PostSearchIndex Class </p>
+ *
+ * <p> Description: An in-memory inverted index over the title and body of every post in a
+ * PostCollection.  Each post is given a slot number, and every distinct word of its text maps
+ * to the list of slots whose text contains that word.  A search looks the query words up in the
+ * vocabulary instead of lower-casing and scanning every post body, so the cost follows the size
+ * of the vocabulary and the number of hits rather than the total amount of text.</p>
+ *
+ * <p> The search keeps the substring semantics of Post.matchesSearch.  A query word matches every
+ * indexed word that contains it ("prog" finds "programming").  A keyword made of one word is
+ * answered from the index alone; for any other keyword (several words, or punctuation) the index
+ * narrows the candidates and each candidate is checked with matchesSearch.</p>
+ *
+ * <p> Removing or re-indexing a post only clears its slot.  The stale slot numbers left in the
+ * word lists are skipped during searches and dropped when the index rebuilds itself after more
+ * than half of its slots have gone stale.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+
+class PostSearchIndex {
+
+    /*
+     * A growable list of slot numbers.  Slots are handed out in increasing order, so each list
+     * stays sorted without any extra work.
+     */
+    private static class SlotList {
+        private int[] slots = new int[4];
+        private int size = 0;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    // Rebuilds are not worth it for small indexes
+    private static final int MIN_STALE_SLOTS_FOR_REBUILD = 1024;
+
+    /*
+     * These are the private attributes for this index
+     */
+    private final List<Post> slots = new ArrayList<>();
+    private final Map<String, Integer> slotByPostId = new HashMap<>();
+    private final Map<String, SlotList> postings = new HashMap<>();
+    private int staleSlots = 0;
+
+    // The vocabulary and its slot lists as parallel lists, since every search scans all words
+    private final List<String> vocabulary = new ArrayList<>();
+    private final List<SlotList> vocabularyPostings = new ArrayList<>();
+
+    /*****
+     * <p> Method: void add(Post post) </p>
+     *
+     * <p> Description: Indexes the current title and body of a post, replacing any earlier
+     * entry for the same post ID. </p>
+     *
+     * @param post the post to index
+     *
+     */
+    void add(Post post) {
+        remove(post.getPostId());
+        int slot = slots.size();
+        slots.add(post);
+        slotByPostId.put(post.getPostId(), slot);
+        for (String word : words(post)) {
+            SlotList list = postings.get(word);
+            if (list == null) {
+                list = new SlotList();
+                postings.put(word, list);
+                vocabulary.add(word);
+                vocabularyPostings.add(list);
+            }
+            list.add(slot);
+        }
+    }
+
+    /*****
+     * <p> Method: void remove(String postId) </p>
+     *
+     * <p> Description: Drops a post from the index. </p>
+     *
+     * @param postId the ID of the post to drop
+     *
+     */
+    void remove(String postId) {
+        Integer slot = slotByPostId.remove(postId);
+        if (slot == null) {
+            return;
+        }
+        slots.set(slot, null);
+        staleSlots++;
+        if (staleSlots >= MIN_STALE_SLOTS_FOR_REBUILD && staleSlots * 2 > slots.size()) {
+            rebuild();
+        }
+    }
+
+    /*****
+     * <p> Method: List<Post> search(String keyword) </p>
+     *
+     * <p> Description: Returns the indexed posts that match the keyword the same way
+     * Post.matchesSearch does, in no particular order. </p>
+     *
+     * @param keyword the search keyword
+     *
+     * @return the matching posts, or null if the keyword has no letters or digits to look up
+     *
+     */
+    List<Post> search(String keyword) {
+        String lowerKeyword = keyword.toLowerCase();
+        Set<String> queryWords = tokenize(lowerKeyword);
+        if (queryWords.isEmpty()) {
+            return null;
+        }
+
+        BitSet matches = null;
+        for (String queryWord : queryWords) {
+            BitSet wordMatches = new BitSet(slots.size());
+            for (int w = 0; w < vocabulary.size(); w++) {
+                if (vocabulary.get(w).contains(queryWord)) {
+                    SlotList list = vocabularyPostings.get(w);
+                    for (int i = 0; i < list.size; i++) {
+                        wordMatches.set(list.slots[i]);
+                    }
+                }
+            }
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                matches.and(wordMatches);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+
+        // A single word needs no further check; anything else may span words or punctuation
+        boolean exact = queryWords.size() == 1 && queryWords.contains(lowerKeyword);
+        List<Post> result = new ArrayList<>();
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            Post post = slots.get(slot);
+            if (post != null && (exact || post.matchesSearch(keyword))) {
+                result.add(post);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Re-index the live posts into fresh slots, dropping every stale slot and every word that is
+     * no longer used by any post.
+     */
+    private void rebuild() {
+        List<Post> live = new ArrayList<>(slotByPostId.size());
+        for (Post post : slots) {
+            if (post != null) {
+                live.add(post);
+            }
+        }
+        slots.clear();
+        slotByPostId.clear();
+        postings.clear();
+        vocabulary.clear();
+        vocabularyPostings.clear();
+        staleSlots = 0;
+        for (Post post : live) {
+            add(post);
+        }
+    }
+
+    /*
+     * The distinct words of a post's title and body, lower-cased the same way matchesSearch does.
+     */
+    private static Set<String> words(Post post) {
+        Set<String> words = new HashSet<>();
+        if (post.getTitle() != null) {
+            words.addAll(tokenize(post.getTitle().toLowerCase()));
+        }
+        if (post.getBody() != null) {
+            words.addAll(tokenize(post.getBody().toLowerCase()));
+        }
+        return words;
+    }
+
+    /*
+     * Split text into its maximal runs of letters and digits.  A run inside a keyword is always
+     * part of a run of the text it occurs in, which is what makes the index lookup safe.
+     */
+    private static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -94,6 +94,27 @@ public class Reply {
         this.isFeedback = isFeedback;
     }
 
+    /*****
+     * <p> Method: Reply(Reply other) </p>
+     * 
+     * <p> Description: This copy constructor is used so that a reply queued to be written is
+     * never changed while it waits. </p>
+     * 
+     * @param other the reply to copy
+     * 
+     */
+    public Reply(Reply other) {
+        this.replyId = other.replyId;
+        this.body = other.body;
+        this.authorUsername = other.authorUsername;
+        this.parentPostId = other.parentPostId;
+        this.createdAt = other.createdAt;
+        this.lastEditedAt = other.lastEditedAt;
+        this.isDeleted = other.isDeleted;
+        this.isRead = other.isRead;
+        this.isFeedback = other.isFeedback;
+    }
+
     /*****
      * <p> Method: String validateReply() </p>
      * 
@@ -1,6 +1,7 @@
 package entityClasses;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /*******
@@ -10,6 +11,13 @@ import java.util.stream.Collectors;
  * methods for CRUD operations, filtering, and managing replies according to the requirements
  * specified in the document.</p>
  * 
+ * <p> Besides the map by reply ID, the collection keeps an index from each post ID to the
+ * replies to that post, oldest first, with regular replies and feedback in separate lists.  The
+ * per-post lookups read that index, so they cost as much as the replies to the one post instead
+ * of a scan and sort of every reply.  A reply is indexed under the post, creation time and kind
+ * it has when it is added: to move it after changing its time or kind, add it again, and do not
+ * change the post of a reply in the collection.</p>
+ * 
  * <p> Copyright: Joseph © 2025 </p>
  * 
  * @author Joseph
@@ -19,11 +27,29 @@ import java.util.stream.Collectors;
 
 public class ReplyCollection {
     
+    /*
+     * The replies to one post, each list oldest first
+     */
+    private static class PostReplies {
+        private final List<Reply> regular = new ArrayList<>();
+        private final List<Reply> feedback = new ArrayList<>();
+
+        List<Reply> listFor(Reply reply) {
+            return reply.isFeedback() ? feedback : regular;
+        }
+    }
+
+    // Oldest first; a reply without a time sorts before the rest
+    private static final Comparator<Reply> BY_CREATED_AT =
+        Comparator.comparing(Reply::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+
     /*
      * These are the private attributes for this collection
      */
     private Map<String, Reply> replies;
+    private Map<String, PostReplies> repliesByPost;
     private int nextReplyId;
+    private Supplier<String> idSource;    // Hands out new reply IDs when set; see setIdSource
     
     /*****
      * <p> Method: ReplyCollection() </p>
@@ -32,6 +58,7 @@ public class ReplyCollection {
      */
     public ReplyCollection() {
         this.replies = new HashMap<>();
+        this.repliesByPost = new HashMap<>();
         this.nextReplyId = 1;
     }
 
@@ -48,14 +75,19 @@ public class ReplyCollection {
      * 
      */
     public String createReply(String body, String authorUsername, String parentPostId) {
-        Reply newReply = new Reply(generateReplyId(), body, authorUsername, parentPostId);
+        String replyId = generateReplyId();
+        if (replyId == null) {
+            return "A new reply ID could not be allocated.";
+        }
+        
+        Reply newReply = new Reply(replyId, body, authorUsername, parentPostId);
         String validationError = newReply.validateReply();
         
         if (!validationError.isEmpty()) {
             return validationError;
         }
         
-        replies.put(newReply.getReplyId(), newReply);
+        store(newReply);
         return newReply.getReplyId();
     }
     
@@ -72,17 +104,37 @@ public class ReplyCollection {
      * 
      */
     public String createFeedback(String body, String authorUsername, String parentPostId) {
-        Reply newReply = new Reply(generateReplyId(), body, authorUsername, parentPostId, true);
+        String replyId = generateReplyId();
+        if (replyId == null) {
+            return "A new reply ID could not be allocated.";
+        }
+        
+        Reply newReply = new Reply(replyId, body, authorUsername, parentPostId, true);
         String validationError = newReply.validateReply();
         
         if (!validationError.isEmpty()) {
             return validationError;
         }
         
-        replies.put(newReply.getReplyId(), newReply);
+        store(newReply);
         return newReply.getReplyId();
     }
 
+    /*****
+     * <p> Method: void setIdSource(Supplier<String> idSource) </p>
+     * 
+     * <p> Description: Sets where the IDs of new replies and feedback come from.  Without a
+     * source the next ID counts up from the highest one in this collection, which is only unique
+     * within it; a collection whose replies are saved next to those of other collections should
+     * take its IDs from the database. </p>
+     * 
+     * @param idSource returns a new reply ID, or null if none can be allocated
+     * 
+     */
+    public void setIdSource(Supplier<String> idSource) {
+        this.idSource = idSource;
+    }
+
     /*****
      * <p> Method: void addReply(Reply reply) </p>
      * 
@@ -92,7 +144,7 @@ public class ReplyCollection {
      * 
      */
     public void addReply(Reply reply) {
-        replies.put(reply.getReplyId(), reply);
+        store(reply);
         // Update nextReplyId if needed
         try {
             int replyNum = Integer.parseInt(reply.getReplyId().replace("REPLY_", ""));
@@ -104,6 +156,22 @@ public class ReplyCollection {
         }
     }
 
+    /*****
+     * <p> Method: void removeReply(String replyId) </p>
+     * 
+     * <p> Description: Removes a reply from the collection without any permission checks.  Used
+     * when the reply has been removed from the database. </p>
+     * 
+     * @param replyId the ID of the reply to remove
+     * 
+     */
+    public void removeReply(String replyId) {
+        Reply removed = replies.remove(replyId);
+        if (removed != null) {
+            unindex(removed);
+        }
+    }
+
     /*****
      * <p> Method: List<Reply> getAllReplies() </p>
      * 
@@ -127,11 +195,8 @@ public class ReplyCollection {
      * 
      */
     public List<Reply> getRepliesForPost(String postId) {
-        return replies.values().stream()
-            .filter(reply -> postId.equals(reply.getParentPostId()))
-            .filter(reply -> !reply.isFeedback()) // Exclude feedback from regular replies
-            .sorted((r1, r2) -> r1.getCreatedAt().compareTo(r2.getCreatedAt())) // Oldest first
-            .collect(Collectors.toList());
+        PostReplies postReplies = repliesByPost.get(postId);
+        return postReplies == null ? new ArrayList<>() : new ArrayList<>(postReplies.regular);
     }
     
     /*****
@@ -147,11 +212,12 @@ public class ReplyCollection {
      * 
      */
     public List<Reply> getFeedbackForPost(String postId, String currentUsername, String postAuthorUsername) {
-        return replies.values().stream()
-            .filter(reply -> postId.equals(reply.getParentPostId()))
-            .filter(reply -> reply.isFeedback())
+        PostReplies postReplies = repliesByPost.get(postId);
+        if (postReplies == null) {
+            return new ArrayList<>();
+        }
+        return postReplies.feedback.stream()
             .filter(reply -> reply.getAuthorUsername().equals(currentUsername) || postAuthorUsername.equals(currentUsername))
-            .sorted((r1, r2) -> r1.getCreatedAt().compareTo(r2.getCreatedAt())) // Oldest first
             .collect(Collectors.toList());
     }
 
@@ -167,11 +233,13 @@ public class ReplyCollection {
      * 
      */
     public List<Reply> getRepliesForPost(String postId, boolean unreadOnly) {
-        return replies.values().stream()
-            .filter(reply -> postId.equals(reply.getParentPostId()))
-            .filter(reply -> !unreadOnly || reply.isUnread())
-            .sorted((r1, r2) -> r1.getCreatedAt().compareTo(r2.getCreatedAt())) // Oldest first
-            .collect(Collectors.toList());
+        List<Reply> result = new ArrayList<>();
+        for (Reply reply : allRepliesForPost(postId)) {
+            if (!unreadOnly || reply.isUnread()) {
+                result.add(reply);
+            }
+        }
+        return result;
     }
 
     /*****
@@ -203,12 +271,13 @@ public class ReplyCollection {
      * 
      */
     public List<Reply> getUnreadRepliesForPost(String postId, String currentUsername) {
-        return replies.values().stream()
-            .filter(reply -> postId.equals(reply.getParentPostId()))
-            .filter(reply -> !reply.getAuthorUsername().equals(currentUsername)) // Don't count own replies
-            .filter(Reply::isUnread)
-            .sorted((r1, r2) -> r1.getCreatedAt().compareTo(r2.getCreatedAt())) // Oldest first
-            .collect(Collectors.toList());
+        List<Reply> result = new ArrayList<>();
+        for (Reply reply : allRepliesForPost(postId)) {
+            if (isUnreadFor(reply, currentUsername)) {
+                result.add(reply);
+            }
+        }
+        return result;
     }
 
     /*****
@@ -222,9 +291,8 @@ public class ReplyCollection {
      * 
      */
     public int getReplyCountForPost(String postId) {
-        return (int) replies.values().stream()
-            .filter(reply -> postId.equals(reply.getParentPostId()))
-            .count();
+        PostReplies postReplies = repliesByPost.get(postId);
+        return postReplies == null ? 0 : postReplies.regular.size() + postReplies.feedback.size();
     }
 
     /*****
@@ -239,7 +307,18 @@ public class ReplyCollection {
      * 
      */
     public int getUnreadReplyCountForPost(String postId, String currentUsername) {
-        return getUnreadRepliesForPost(postId, currentUsername).size();
+        PostReplies postReplies = repliesByPost.get(postId);
+        if (postReplies == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Reply reply : postReplies.regular) {
+            if (isUnreadFor(reply, currentUsername)) count++;
+        }
+        for (Reply reply : postReplies.feedback) {
+            if (isUnreadFor(reply, currentUsername)) count++;
+        }
+        return count;
     }
 
     /*****
@@ -341,10 +420,17 @@ public class ReplyCollection {
      * 
      */
     public void markRepliesAsRead(String postId, String currentUsername) {
-        replies.values().stream()
-            .filter(reply -> postId.equals(reply.getParentPostId()))
-            .filter(reply -> !reply.getAuthorUsername().equals(currentUsername)) // Don't mark own replies
-            .forEach(Reply::markAsRead);
+        PostReplies postReplies = repliesByPost.get(postId);
+        if (postReplies == null) {
+            return;
+        }
+        for (List<Reply> list : List.of(postReplies.regular, postReplies.feedback)) {
+            for (Reply reply : list) {
+                if (!reply.getAuthorUsername().equals(currentUsername)) { // Don't mark own replies
+                    reply.markAsRead();
+                }
+            }
+        }
     }
 
     /*****
@@ -388,15 +474,120 @@ public class ReplyCollection {
             .count();
     }
 
+    /*****
+     * <p> Method: void store(Reply reply) </p>
+     * 
+     * <p> Description: Puts a reply in the map and the per-post index, replacing any reply with
+     * the same ID in both. </p>
+     * 
+     * @param reply the reply to store
+     * 
+     */
+    private void store(Reply reply) {
+        Reply replaced = replies.put(reply.getReplyId(), reply);
+        if (replaced != null) {
+            unindex(replaced);
+        }
+        if (reply.getParentPostId() == null) {
+            return;
+        }
+        List<Reply> list = repliesByPost.computeIfAbsent(reply.getParentPostId(), postId -> new PostReplies())
+            .listFor(reply);
+        // After every reply at or before its time, so new replies are appended and ties keep their order
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (BY_CREATED_AT.compare(list.get(middle), reply) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        list.add(low, reply);
+    }
+
+    /*****
+     * <p> Method: void unindex(Reply reply) </p>
+     * 
+     * <p> Description: Takes a reply out of the per-post index. </p>
+     * 
+     * @param reply the reply, as it was stored
+     * 
+     */
+    private void unindex(Reply reply) {
+        PostReplies postReplies = repliesByPost.get(reply.getParentPostId());
+        if (postReplies == null) {
+            return;
+        }
+        // Both lists, in case the reply has been made feedback or regular since it was stored
+        if (!removeSame(postReplies.regular, reply)) {
+            removeSame(postReplies.feedback, reply);
+        }
+        if (postReplies.regular.isEmpty() && postReplies.feedback.isEmpty()) {
+            repliesByPost.remove(reply.getParentPostId());
+        }
+    }
+
+    // Removes this very object, searching from the newest end; true if it was there
+    private static boolean removeSame(List<Reply> list, Reply reply) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == reply) {
+                list.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*****
+     * <p> Method: List<Reply> allRepliesForPost(String postId) </p>
+     * 
+     * <p> Description: Merges the regular replies and the feedback of a post, oldest first. </p>
+     * 
+     * @param postId the ID of the parent post
+     * 
+     * @return the replies and feedback of the post
+     * 
+     */
+    private List<Reply> allRepliesForPost(String postId) {
+        PostReplies postReplies = repliesByPost.get(postId);
+        if (postReplies == null) {
+            return new ArrayList<>();
+        }
+        List<Reply> regular = postReplies.regular;
+        List<Reply> feedback = postReplies.feedback;
+        List<Reply> merged = new ArrayList<>(regular.size() + feedback.size());
+        int r = 0;
+        int f = 0;
+        while (r < regular.size() || f < feedback.size()) {
+            if (f == feedback.size()
+                    || r < regular.size() && BY_CREATED_AT.compare(regular.get(r), feedback.get(f)) <= 0) {
+                merged.add(regular.get(r++));
+            } else {
+                merged.add(feedback.get(f++));
+            }
+        }
+        return merged;
+    }
+
+    // Unread and written by someone else
+    private static boolean isUnreadFor(Reply reply, String currentUsername) {
+        return reply.isUnread() && !reply.getAuthorUsername().equals(currentUsername);
+    }
+
     /*****
      * <p> Method: String generateReplyId() </p>
      * 
      * <p> Description: Generates a unique reply ID. </p>
      * 
-     * @return a unique reply ID
+     * @return a unique reply ID, or null if the ID source could not allocate one
      * 
      */
     private String generateReplyId() {
+        if (idSource != null) {
+            return idSource.get();
+        }
         String replyId = "REPLY_" + nextReplyId;
         nextReplyId++;
         return replyId;
@@ -0,0 +1,157 @@
+package entityClasses;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/*******
+ * <p> Title: ReplyCollectionTest Class. </p>
+ *
+ * <p> Description: JUnit tests for the per-post reply index of ReplyCollection.  A thousand
+ * replies are spread at random over forty posts and added out of time order; after each batch
+ * of changes every post's regular replies, feedback, unread replies and counts are checked
+ * against a filter and sort over getAllReplies.  The changes cover what the models do to the
+ * collection: creating replies and feedback, replacing a reply with a newer copy from the
+ * database, removing replies, and marking a post's replies read.</p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ *
+ */
+
+public class ReplyCollectionTest {
+
+	/*****
+	 * <p> Default Constructor </p>
+	 */
+	public ReplyCollectionTest() {
+		// existing initialization or leave empty
+	}
+
+	/*****
+	 * Number of posts and replies in the fixture
+	 */
+	private static final int POSTS = 40;
+	private static final int REPLIES = 1_000;
+
+	/*****
+	 * <p> Method: void testLookupsMatchLinearScan() </p>
+	 *
+	 * <p> Description: Verifies that every per-post lookup returns exactly what a full scan
+	 * returns, and that the index follows replies as they are created, replaced, moved, removed
+	 * and marked read.</p>
+	 */
+	@Test
+	public void testLookupsMatchLinearScan() {
+		ReplyCollection replies = makeReplies(POSTS, REPLIES, 7);
+		assertLookupsMatchScan(replies, POSTS);
+
+		// Create through the collection; new replies are the newest of their post
+		String replyId = replies.createReply("A new answer", "user3", "POST_1");
+		assertTrue(replyId.startsWith("REPLY_"), replyId);
+		String feedbackId = replies.createFeedback("Private note", "staff1", "POST_1");
+		assertTrue(feedbackId.startsWith("REPLY_"), feedbackId);
+		List<Reply> forPost = replies.getRepliesForPost("POST_1");
+		assertEquals(replyId, forPost.get(forPost.size() - 1).getReplyId());
+		assertTrue(forPost.stream().noneMatch(Reply::isFeedback), "Feedback should be kept apart");
+		assertEquals(feedbackId, replies.getFeedbackForPost("POST_1", "staff1", "user1").stream()
+				.reduce((first, second) -> second).get().getReplyId());
+
+		// Replace a reply the way a database delta does, moving it to another time and kind
+		Reply replacement = new Reply("REPLY_5", "Replaced", "user2", replies.getReplyById("REPLY_5").getParentPostId(), true);
+		replacement.setCreatedAt(LocalDateTime.of(2025, 12, 31, 0, 0));
+		replies.addReply(replacement);
+		assertSame(replacement, replies.getRepliesForPost(replacement.getParentPostId(), false).get(0));
+
+		// Remove a reply, and every reply of one post
+		String parentOfTen = replies.getReplyById("REPLY_10").getParentPostId();
+		int before = replies.getReplyCountForPost(parentOfTen);
+		replies.removeReply("REPLY_10");
+		assertEquals(before - 1, replies.getReplyCountForPost(parentOfTen));
+		for (Reply reply : replies.getRepliesForPost("POST_2", false)) {
+			replies.removeReply(reply.getReplyId());
+		}
+		assertEquals(0, replies.getReplyCountForPost("POST_2"));
+		assertTrue(replies.getRepliesForPost("POST_2").isEmpty());
+
+		assertLookupsMatchScan(replies, POSTS);
+
+		// Mark read; the reader's own replies stay unread
+		replies.markRepliesAsRead("POST_3", "user3");
+		assertEquals(0, replies.getUnreadReplyCountForPost("POST_3", "user3"));
+		assertLookupsMatchScan(replies, POSTS);
+		assertTrue(replies.getRepliesForPost("POST_404").isEmpty(), "Unknown posts have no replies");
+	}
+
+	/*****
+	 * <p> Method: void assertLookupsMatchScan(ReplyCollection replies, int posts) </p>
+	 *
+	 * <p> Description: Compares every per-post lookup with a full scan for every post.</p>
+	 */
+	private void assertLookupsMatchScan(ReplyCollection replies, int posts) {
+		for (int p = 0; p < posts; p++) {
+			String postId = "POST_" + p;
+			String reader = "user" + (p % 10);
+			String author = "user" + ((p + 1) % 10);
+			assertEquals(scan(replies, postId, reply -> !reply.isFeedback()), replies.getRepliesForPost(postId),
+					"Replies of " + postId);
+			assertEquals(scan(replies, postId, reply -> true), replies.getRepliesForPost(postId, false),
+					"All replies of " + postId);
+			assertEquals(scan(replies, postId, Reply::isUnread), replies.getRepliesForPost(postId, true),
+					"Unread replies of " + postId);
+			assertEquals(scan(replies, postId, reply -> reply.isFeedback()
+					&& (reply.getAuthorUsername().equals(reader) || author.equals(reader))),
+					replies.getFeedbackForPost(postId, reader, author), "Feedback of " + postId);
+			assertEquals(scan(replies, postId, reply -> reply.isFeedback()),
+					replies.getFeedbackForPost(postId, author, author), "Feedback of " + postId + " for its author");
+			List<Reply> unread = scan(replies, postId, reply -> reply.isUnread() && !reply.getAuthorUsername().equals(reader));
+			assertEquals(unread, replies.getUnreadRepliesForPost(postId, reader), "Unread replies of " + postId);
+			assertEquals(unread.size(), replies.getUnreadReplyCountForPost(postId, reader));
+			assertEquals(scan(replies, postId, reply -> true).size(), replies.getReplyCountForPost(postId));
+		}
+	}
+
+	/*****
+	 * <p> Method: List<Reply> scan(ReplyCollection replies, String postId, Predicate<Reply> filter) </p>
+	 *
+	 * <p> Description: Finds the replies of a post by checking every reply, oldest first.</p>
+	 */
+	private List<Reply> scan(ReplyCollection replies, String postId, Predicate<Reply> filter) {
+		return replies.getAllReplies().stream()
+				.filter(reply -> postId.equals(reply.getParentPostId()))
+				.filter(filter)
+				.sorted(Comparator.comparing(Reply::getCreatedAt))
+				.collect(Collectors.toList());
+	}
+
+	/*****
+	 * <p> Method: ReplyCollection makeReplies(int posts, int count, long seed) </p>
+	 *
+	 * <p> Description: Builds a collection of replies spread at random over the posts, one in
+	 * five of them feedback and half of them read.  The replies are added in random time order
+	 * and every reply gets a distinct creation time, so the oldest-first order is fully
+	 * determined.</p>
+	 */
+	private ReplyCollection makeReplies(int posts, int count, long seed) {
+		Random random = new Random(seed);
+		LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+		ReplyCollection replies = new ReplyCollection();
+		for (int i = 0; i < count; i++) {
+			Reply reply = new Reply("REPLY_" + i, "Reply " + i, "user" + random.nextInt(10),
+					"POST_" + random.nextInt(posts), random.nextInt(5) == 0);
+			// Random, and distinct since i is below count
+			reply.setCreatedAt(base.plusSeconds((long) random.nextInt(count) * count + i));
+			reply.setRead(random.nextBoolean());
+			replies.addReply(reply);
+		}
+		return replies;
+	}
+}
@@ -0,0 +1,195 @@
+package entityClasses;
+
+/*******
+ * <p> Title: UserProfile Class </p>
+ *
+ * <p> Description: The name and email address fields of a user account, read from userDB in one
+ *  query and written back in one statement.  Unlike User, it carries no password or roles, so it
+ *  can be cached and handed to the account update page without exposing either. </p>
+ *
+ * <p> Copyright: Joseph © 2026 </p>
+ *
+ * @author Joseph
+ *
+ * @version 1.00		2026-10-16 Initial version
+ */
+
+public class UserProfile {
+
+	/*
+	 * These are the private attributes for this entity object
+	 */
+    private String userName;
+    private String firstName;
+    private String middleName;
+    private String lastName;
+    private String preferredFirstName;
+    private String emailAddress;
+
+
+    /*****
+     * <p> Method: UserProfile(String userName, String firstName, String middleName,
+     * 		String lastName, String preferredFirstName, String emailAddress) </p>
+     *
+     * <p> Description: This constructor is used to establish user profile objects. </p>
+     *
+     * @param userName specifies the account userName the profile belongs to
+     *
+     * @param firstName specifies the first name
+     *
+     * @param middleName specifies the middle name
+     *
+     * @param lastName specifies the last name
+     *
+     * @param preferredFirstName specifies the preferred first name
+     *
+     * @param emailAddress specifies the email address
+     */
+    public UserProfile(String userName, String firstName, String middleName, String lastName,
+    		String preferredFirstName, String emailAddress) {
+        this.userName = userName;
+        this.firstName = firstName;
+        this.middleName = middleName;
+        this.lastName = lastName;
+        this.preferredFirstName = preferredFirstName;
+        this.emailAddress = emailAddress;
+    }
+
+
+    /*****
+     * <p> Method: UserProfile(UserProfile other) </p>
+     *
+     * <p> Description: This copy constructor is used so that a cached profile is never shared
+     * with a caller that might change it. </p>
+     *
+     * @param other the profile to copy
+     */
+    public UserProfile(UserProfile other) {
+    	this(other.userName, other.firstName, other.middleName, other.lastName,
+    			other.preferredFirstName, other.emailAddress);
+    }
+
+
+    /*****
+     * <p> Method: String getUserName() </p>
+     *
+     * <p> Description: This getter returns the userName.  It cannot be changed, since it is the
+     * key the profile is stored under. </p>
+     *
+     * @return a String of the userName
+	 *
+     */
+    public String getUserName() { return userName; }
+
+
+    /*****
+     * <p> Method: String getFirstName() </p>
+     *
+     * <p> Description: This getter returns the first name. </p>
+     *
+     * @return a String of the first name
+	 *
+     */
+    public String getFirstName() { return firstName; }
+
+
+    /*****
+     * <p> Method: void setFirstName(String firstName) </p>
+     *
+     * <p> Description: This setter defines the first name. </p>
+     *
+     * @param firstName is a String of the new first name
+	 *
+     */
+    public void setFirstName(String firstName) { this.firstName = firstName; }
+
+
+    /*****
+     * <p> Method: String getMiddleName() </p>
+     *
+     * <p> Description: This getter returns the middle name. </p>
+     *
+     * @return a String of the middle name
+	 *
+     */
+    public String getMiddleName() { return middleName; }
+
+
+    /*****
+     * <p> Method: void setMiddleName(String middleName) </p>
+     *
+     * <p> Description: This setter defines the middle name. </p>
+     *
+     * @param middleName is a String of the new middle name
+	 *
+     */
+    public void setMiddleName(String middleName) { this.middleName = middleName; }
+
+
+    /*****
+     * <p> Method: String getLastName() </p>
+     *
+     * <p> Description: This getter returns the last name. </p>
+     *
+     * @return a String of the last name
+	 *
+     */
+    public String getLastName() { return lastName; }
+
+
+    /*****
+     * <p> Method: void setLastName(String lastName) </p>
+     *
+     * <p> Description: This setter defines the last name. </p>
+     *
+     * @param lastName is a String of the new last name
+	 *
+     */
+    public void setLastName(String lastName) { this.lastName = lastName; }
+
+
+    /*****
+     * <p> Method: String getPreferredFirstName() </p>
+     *
+     * <p> Description: This getter returns the preferred first name. </p>
+     *
+     * @return a String of the preferred first name
+	 *
+     */
+    public String getPreferredFirstName() { return preferredFirstName; }
+
+
+    /*****
+     * <p> Method: void setPreferredFirstName(String preferredFirstName) </p>
+     *
+     * <p> Description: This setter defines the preferred first name. </p>
+     *
+     * @param preferredFirstName is a String of the new preferred first name
+	 *
+     */
+    public void setPreferredFirstName(String preferredFirstName) {
+    	this.preferredFirstName = preferredFirstName;
+    }
+
+
+    /*****
+     * <p> Method: String getEmailAddress() </p>
+     *
+     * <p> Description: This getter returns the email address. </p>
+     *
+     * @return a String of the email address
+	 *
+     */
+    public String getEmailAddress() { return emailAddress; }
+
+
+    /*****
+     * <p> Method: void setEmailAddress(String emailAddress) </p>
+     *
+     * <p> Description: This setter defines the email address. </p>
+     *
+     * @param emailAddress is a String of the new email address
+	 *
+     */
+    public void setEmailAddress(String emailAddress) { this.emailAddress = emailAddress; }
+}
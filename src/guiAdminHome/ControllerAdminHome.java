@@ -76,6 +76,12 @@ public class ControllerAdminHome {
 		String theSelectedRole = (String) ViewAdminHome.combobox_SelectRole.getValue();
 		String invitationCode = theDatabase.generateInvitationCode(emailAddress,
 				theSelectedRole);
+		if (invitationCode == null) {
+			ViewAdminHome.alertEmailError.setContentText(
+					"The invitation could not be stored. Please try again.");
+			ViewAdminHome.alertEmailError.showAndWait();
+			return;
+		}
 		String msg = "Code: " + invitationCode + " for role " + theSelectedRole + 
 				" was sent to: " + emailAddress;
 		System.out.println(msg);
@@ -88,6 +94,83 @@ public class ControllerAdminHome {
 				theDatabase.getNumberOfInvitations());
 	}
 	
+	/**********
+	 * <p> 
+	 * 
+	 * Title: inviteRoster () Method. </p>
+	 * 
+	 * <p> Description: Protected method to invite a whole class at once.  The admin pastes a
+	 * roster with one invitation per line, either "email" (invited for the role selected on the
+	 * page) or "email,role".  Every invitation is created with one call and the result of each
+	 * line is shown, so the lines that were skipped can be fixed and pasted again.</p>
+	 */
+	protected static void inviteRoster() {
+		String defaultRole = ViewAdminHome.combobox_SelectRole.getValue();
+		TextArea rosterArea = new TextArea();
+		rosterArea.setPromptText("student1@example.com\nstudent2@example.com,Staff");
+		rosterArea.setPrefRowCount(15);
+		
+		Dialog<String> rosterDialog = new Dialog<>();
+		rosterDialog.setTitle("Invite a Roster");
+		rosterDialog.setHeaderText("One email per line, optionally followed by a comma and a role.\n"
+				+ "Lines without a role are invited as " + defaultRole + ".");
+		ButtonType inviteBtn = new ButtonType("Send Invitations", ButtonBar.ButtonData.OK_DONE);
+		rosterDialog.getDialogPane().getButtonTypes().addAll(inviteBtn, ButtonType.CANCEL);
+		rosterDialog.getDialogPane().setContent(rosterArea);
+		rosterDialog.setResultConverter(button -> button == inviteBtn ? rosterArea.getText() : null);
+		
+		Optional<String> rosterText = rosterDialog.showAndWait();
+		if (!rosterText.isPresent()) return;
+		List<entityClasses.Invitation> roster = parseRoster(rosterText.get(), defaultRole);
+		if (roster.isEmpty()) return;
+		
+		List<database.InvitationResult> results;
+		try {
+			results = theDatabase.generateInvitationCodes(roster);
+		} catch (java.sql.SQLException e) {
+			e.printStackTrace();
+			ViewAdminHome.alertEmailError.setContentText(
+					"The invitations could not be stored, so none was sent: " + e.getMessage());
+			ViewAdminHome.alertEmailError.showAndWait();
+			return;
+		}
+		
+		int created = 0;
+		StringBuilder report = new StringBuilder();
+		for (database.InvitationResult result : results) {
+			if (result.isCreated()) created++;
+			report.append("Line ").append(result.getRow() + 1).append(": ").append(result).append('\n');
+		}
+		System.out.println("Roster invitations: " + created + " of " + results.size() + " sent");
+		
+		TextArea reportArea = new TextArea(report.toString());
+		reportArea.setEditable(false);
+		reportArea.setPrefRowCount(20);
+		Dialog<Void> reportDialog = new Dialog<>();
+		reportDialog.setTitle("Invite a Roster");
+		reportDialog.setHeaderText(created + " of " + results.size() + " invitations were sent");
+		reportDialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+		reportDialog.getDialogPane().setContent(reportArea);
+		reportDialog.showAndWait();
+		
+		ViewAdminHome.label_NumberOfInvitations.setText("Number of outstanding invitations: " + 
+				theDatabase.getNumberOfInvitations());
+	}
+	
+	/*
+	 * One invitation per non-blank line: "email" or "email,role" (a tab also separates them).
+	 */
+	private static List<entityClasses.Invitation> parseRoster(String text, String defaultRole) {
+		List<entityClasses.Invitation> roster = new ArrayList<>();
+		for (String line : text.split("\\R")) {
+			if (line.trim().isEmpty()) continue;
+			String[] fields = line.split("[,\\t]", 2);
+			String role = fields.length > 1 && !fields[1].trim().isEmpty() ? fields[1].trim() : defaultRole;
+			roster.add(new entityClasses.Invitation(fields[0].trim(), role));
+		}
+		return roster;
+	}
+	
 	/**********
 	 * <p> 
 	 * 
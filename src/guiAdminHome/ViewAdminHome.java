@@ -99,6 +99,7 @@ public class ViewAdminHome {
 	// admin buttons to use to perform other roles.  Many of these buttons are just stubs and an
 	// alert pops up to inform the admin of this fact.
 	protected static Button button_ManageInvitations = new Button("Manage Invitations");
+	protected static Button button_InviteRoster = new Button("Invite a Roster");
 	protected static Button button_SetOnetimePassword = new Button("Set a One-Time Password");
 	protected static Button button_DeleteUser = new Button("Delete a User");
 	protected static Button button_ListUsers = new Button("List All Users");
@@ -254,6 +255,9 @@ public class ViewAdminHome {
 		setupButtonUI(button_ManageInvitations, "Dialog", 16, 250, Pos.CENTER, 20, 270);
 		button_ManageInvitations.setOnAction((event) -> 
 			{ControllerAdminHome.manageInvitations(); });
+
+		setupButtonUI(button_InviteRoster, "Dialog", 16, 250, Pos.CENTER, 530, 270);
+		button_InviteRoster.setOnAction((event) -> {ControllerAdminHome.inviteRoster(); });
 	
 		setupButtonUI(button_SetOnetimePassword, "Dialog", 16, 250, Pos.CENTER, 20, 320);
 		button_SetOnetimePassword.setOnAction((event) -> 
@@ -292,6 +296,7 @@ public class ViewAdminHome {
     		label_InvitationEmailAddress, text_InvitationEmailAddress,
     		combobox_SelectRole, button_SendInvitation, line_Separator3,
     		button_ManageInvitations,
+    		button_InviteRoster,
     		button_SetOnetimePassword,
     		button_DeleteUser,
     		button_ListUsers,
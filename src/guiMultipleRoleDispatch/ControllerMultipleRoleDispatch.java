@@ -1,5 +1,7 @@
 package guiMultipleRoleDispatch;
 
+import entityClasses.LoginSession;
+
 public class ControllerMultipleRoleDispatch {
 
 	/*-********************************************************************************************
@@ -22,32 +24,33 @@ public class ControllerMultipleRoleDispatch {
 	 */
 	static protected void performRole() {
 		
-		// Fetch the role from the SelectRole ComboBox
+		// Fetch the role from the SelectRole ComboBox and the session established at login
 		String role = guiMultipleRoleDispatch.ViewMultipleRoleDispatch.combobox_SelectRole.getValue();
+		LoginSession session = guiMultipleRoleDispatch.ViewMultipleRoleDispatch.theSession;
 
 		// See if Admin
-		if (role.compareTo("Admin") == 0) {
+		if (role.compareTo("Admin") == 0 && session.hasRole(LoginSession.ROLE_ADMIN)) {
 			
 			// It is Admin Role
 			guiAdminHome.ViewAdminHome.displayAdminHome(
 					guiMultipleRoleDispatch.ViewMultipleRoleDispatch.theStage, 
-					guiMultipleRoleDispatch.ViewMultipleRoleDispatch.theUser);
+					session.getUser());
 			
 		// See if Student
-		} else if (role.compareTo("Student") == 0) {
+		} else if (role.compareTo("Student") == 0 && session.hasRole(LoginSession.ROLE_STUDENT)) {
 
 			// It is Student Role
 			guiStudent.ViewStudentHome.displayStudentHome(
 					guiMultipleRoleDispatch.ViewMultipleRoleDispatch.theStage, 
-					guiMultipleRoleDispatch.ViewMultipleRoleDispatch.theUser);
+					session.getUser());
 			
 		// See if Staff
-		} else if (role.compareTo("Staff") == 0) {
+		} else if (role.compareTo("Staff") == 0 && session.hasRole(LoginSession.ROLE_STAFF)) {
 			
 			// It is Role 2 Role
 			guiStaff.ViewStaffHome.displayStaffHome(
 					guiMultipleRoleDispatch.ViewMultipleRoleDispatch.theStage, 
-					guiMultipleRoleDispatch.ViewMultipleRoleDispatch.theUser);
+					session.getUser());
 			
 		} else {
 			// Invalid role
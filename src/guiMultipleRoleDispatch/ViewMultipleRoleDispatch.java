@@ -13,6 +13,7 @@ import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import database.Database;
+import entityClasses.LoginSession;
 import entityClasses.User;
 
 /*******
@@ -80,6 +81,7 @@ public class ViewMultipleRoleDispatch {
 	protected static Stage theStage;			// The Stage that JavaFX has established for us
 	private static Pane theRootPane;			// The Pane that holds all the GUI widgets 
 	protected static User theUser;				// The current user of the application
+	protected static LoginSession theSession;	// The login session of the current user
 
 	private static Scene theMultipleRoleDispatchScene = null;	
 
@@ -96,9 +98,21 @@ public class ViewMultipleRoleDispatch {
 		theStage = ps;
 		theUser = user;
 		
+		// Use the roles of the session established at login; no query is needed
+		theSession = theDatabase.getCurrentSession();
+		if (theSession == null || !theSession.getUser().getUserName().equals(user.getUserName()))
+			theSession = new LoginSession(user);
+		
 		if (theView == null) theView = new ViewMultipleRoleDispatch();
 		
 		// Populate the dynamic aspects of the GUI with the data from the user and the current
+		label_UserDetails.setText("User: " + theUser.getUserName());
+		List<String> list = new ArrayList<String>();
+		list.add("<Select a role>");
+		if (theSession.hasRole(LoginSession.ROLE_ADMIN)) list.add("Admin");
+		if (theSession.hasRole(LoginSession.ROLE_STUDENT)) list.add("Student");
+		if (theSession.hasRole(LoginSession.ROLE_STAFF)) list.add("Staff");
+		combobox_SelectRole.setItems(FXCollections.observableArrayList(list));
 		combobox_SelectRole.getSelectionModel().select(0);
 		
 		// Set the title for the window, display the page, and wait for the Admin to do something
@@ -142,17 +156,6 @@ public class ViewMultipleRoleDispatch {
 
 		setupComboBoxUI(combobox_SelectRole, "Dialog", 16, 100, 305, 105);
 
-		List<String> list = new ArrayList<String>();	// Create a new list empty list
-		theDatabase.getUserAccountDetails(theUser.getUserName());
-
-		System.out.println("*** Getting multiple role details for user: " + theUser.getUserName());
-		list = new ArrayList<String>();
-		list.add("<Select a role>");
-		if (theDatabase.getCurrentAdminRole()) list.add("Admin");
-		if (theDatabase.getCurrentNewStudent()) list.add("Student");
-		if (theDatabase.getCurrentNewStaff()) list.add("Staff");
-		combobox_SelectRole.setItems(FXCollections.observableArrayList(list));
-
 		setupButtonUI(button_PerformRole, "Dialog", 16, 100, Pos.CENTER, 495, 105);
 		button_PerformRole.setOnAction((event) -> 
 		{guiMultipleRoleDispatch.ControllerMultipleRoleDispatch.performRole(); });
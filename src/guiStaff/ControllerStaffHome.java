@@ -2,6 +2,7 @@ package guiStaff;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Optional;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
@@ -72,9 +73,11 @@ public class ControllerStaffHome {
 	/*****
      * <p> Method: void performQuit() </p>
      * 
-     * <p> Description: Handles the quit action. Terminates the application entirely.</p>
+     * <p> Description: Handles the quit action. Writes any queued posts and replies, then
+     * terminates the application entirely.</p>
      */
 	protected static void performQuit() {
+		applicationMain.FoundationsMain.database.closeConnection();
 		System.exit(0);
 	}
 
@@ -854,31 +857,41 @@ public class ControllerStaffHome {
 	/**********
 	 * <p> Method: void viewAllPosts() </p>
 	 * 
-	 * <p> Description: Shows all posts in the forum for staff to review and provide feedback.</p>
+	 * <p> Description: Shows all posts in the forum for staff to review and provide feedback,
+	 * newest first.  Posts are fetched from the database a page at a time as the user scrolls,
+	 * so the list opens equally fast however large the forum is.</p>
 	 * 
 	 */
 	protected static void viewAllPosts() {
-		// Refresh collections from database to ensure we have the latest data
-		ModelStaffHome.refreshPostsFromDatabase();
-		PostCollection posts = ModelStaffHome.getPostCollection();
-		ReplyCollection replies = ModelStaffHome.getReplyCollection();
+		String title = "All Posts";
 		
-		List<Post> allPosts = posts.getAllPosts();
-		displayPostListForStaff(allPosts, replies, "All Posts");
-	}
-	
-	/**********
-	 * <p> Method: void displayPostListForStaff() </p>
-	 * 
-	 * <p> Description: Helper method to display a list of posts for staff with a Feedback button.</p>
-	 * 
-	 * @param postList List of Posts that will be displayed
-	 * @param replies the replies that will be displayed with the posts
-	 * @param title the title of the alert or dialog
-	 */
-	private static void displayPostListForStaff(List<Post> postList, ReplyCollection replies, String title) {
+		ScrollPane scrollPane = new ScrollPane();
+		VBox postContainer = new VBox(10);
+		postContainer.setPadding(new Insets(10));
+		Dialog<Void> dialog = new Dialog<>();
+		
+		// The last post shown, and whether the last page fetched was a full one
+		Post[] lastShown = { null };
+		boolean[] morePages = { true };
+		Runnable loadNextPage = () -> {
+			if (!morePages[0]) return;
+			List<Post> page = ModelStaffHome.loadPostsPage(lastShown[0]);
+			morePages[0] = page.size() == ModelStaffHome.POST_PAGE_SIZE;
+			if (page.isEmpty()) return;
+			lastShown[0] = page.get(page.size() - 1);
+			
+			Map<String, Integer> replyCounts = ModelStaffHome.getReplyCounts(page);
+			for (Post post : page) {
+				postContainer.getChildren().add(createPostCardForStaff(post,
+						replyCounts.getOrDefault(post.getPostId(), 0)));
+			}
+			dialog.setHeaderText(postContainer.getChildren().size() + " post(s) shown" +
+					(morePages[0] ? " - scroll down for more" : "") +
+					" - Use the buttons to view details or provide feedback");
+		};
 		
-		if (postList.isEmpty()) {
+		loadNextPage.run();
+		if (postContainer.getChildren().isEmpty()) {
 			Alert alert = new Alert(Alert.AlertType.INFORMATION);
 			alert.setTitle(title);
 			alert.setHeaderText("No Posts Found");
@@ -887,74 +900,18 @@ public class ControllerStaffHome {
 			return;
 		}
 		
-		// Create a scrollable pane with individual post cards
-		ScrollPane scrollPane = new ScrollPane();
-		VBox postContainer = new VBox(10);
-		postContainer.setPadding(new Insets(10));
-		
-		for (Post post : postList) {
-			int replyCount = replies.getReplyCountForPost(post.getPostId());
-			
-			// Create a card for each post
-			VBox postCard = new VBox(5);
-			postCard.setStyle("-fx-border-color: #cccccc; -fx-border-width: 1; -fx-padding: 10; -fx-background-color: #f9f9f9;");
-			
-			// Post header with title and metadata
-			HBox headerBox = new HBox(10);
-			Label titleLabel = new Label(post.getTitle());
-			titleLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
-			
-			Label authorLabel = new Label("by " + post.getAuthorUsername());
-			authorLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
-			
-			Label dateLabel = new Label(post.getFormattedCreatedAt());
-			dateLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
-			
-			headerBox.getChildren().addAll(titleLabel, authorLabel, dateLabel);
-			
-			// Post content
-			Label threadLabel = new Label("Thread: " + post.getThread());
-			threadLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
-			
-			Label replyLabel = new Label("Replies: " + replyCount);
-			replyLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
-			
-			// Post body preview
-			Label bodyLabel;
-			if (post.isDeleted()) {
-				bodyLabel = new Label("[DELETED POST]");
-				bodyLabel.setStyle("-fx-font-style: italic; -fx-text-fill: #999999;");
-			} else {
-				String preview = post.getBody().length() > 150 ? 
-					post.getBody().substring(0, 150) + "..." : post.getBody();
-				bodyLabel = new Label(preview);
-				bodyLabel.setWrapText(true);
+		// Fetch the next page when the user scrolls near the bottom
+		scrollPane.vvalueProperty().addListener((observable, oldValue, newValue) -> {
+			if (newValue.doubleValue() >= scrollPane.getVmax() * 0.9) {
+				loadNextPage.run();
 			}
-			
-			// Action buttons
-			HBox buttonBox = new HBox(10);
-			Button viewBtn = new Button("View Details");
-			viewBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
-			viewBtn.setOnAction(e -> viewPostDetailsForStaff(post.getPostId()));
-			
-			Button feedbackBtn = new Button("Feedback");
-			feedbackBtn.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white;");
-			feedbackBtn.setOnAction(e -> createFeedback(post.getPostId()));
-			
-			buttonBox.getChildren().addAll(viewBtn, feedbackBtn);
-			
-			// Add all elements to the post card
-			postCard.getChildren().addAll(headerBox, threadLabel, replyLabel, bodyLabel, buttonBox);
-			postContainer.getChildren().add(postCard);
-		}
+		});
 		
 		scrollPane.setContent(postContainer);
 		scrollPane.setPrefSize(800, 600);
 		scrollPane.setFitToWidth(true);
 		
-		Dialog<Void> dialog = new Dialog<>();
 		dialog.setTitle(title);
-		dialog.setHeaderText(postList.size() + " post(s) found - Use the buttons to view details or provide feedback");
 		dialog.getDialogPane().setContent(scrollPane);
 		
 		ButtonType closeBtn = new ButtonType("Close", ButtonBar.ButtonData.CANCEL_CLOSE);
@@ -962,6 +919,67 @@ public class ControllerStaffHome {
 		dialog.showAndWait();
 	}
 	
+	/**********
+	 * <p> Method: VBox createPostCardForStaff() </p>
+	 * 
+	 * <p> Description: Helper method to build the card that shows one post in a staff post list.</p>
+	 * 
+	 * @param post the post to show
+	 * @param replyCount the number of replies to the post
+	 * @return the card
+	 */
+	private static VBox createPostCardForStaff(Post post, int replyCount) {
+		// Create the card
+		VBox postCard = new VBox(5);
+		postCard.setStyle("-fx-border-color: #cccccc; -fx-border-width: 1; -fx-padding: 10; -fx-background-color: #f9f9f9;");
+		
+		// Post header with title and metadata
+		HBox headerBox = new HBox(10);
+		Label titleLabel = new Label(post.getTitle());
+		titleLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
+		
+		Label authorLabel = new Label("by " + post.getAuthorUsername());
+		authorLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
+		
+		Label dateLabel = new Label(post.getFormattedCreatedAt());
+		dateLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
+		
+		headerBox.getChildren().addAll(titleLabel, authorLabel, dateLabel);
+		
+		// Post content
+		Label threadLabel = new Label("Thread: " + post.getThread());
+		threadLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
+		
+		Label replyLabel = new Label("Replies: " + replyCount);
+		replyLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
+		
+		// Post body preview
+		Label bodyLabel;
+		if (post.isDeleted()) {
+			bodyLabel = new Label("[DELETED POST]");
+			bodyLabel.setStyle("-fx-font-style: italic; -fx-text-fill: #999999;");
+		} else {
+			bodyLabel = new Label(post.getPreview());
+			bodyLabel.setWrapText(true);
+		}
+		
+		// Action buttons
+		HBox buttonBox = new HBox(10);
+		Button viewBtn = new Button("View Details");
+		viewBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
+		viewBtn.setOnAction(e -> viewPostDetailsForStaff(post.getPostId()));
+		
+		Button feedbackBtn = new Button("Feedback");
+		feedbackBtn.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white;");
+		feedbackBtn.setOnAction(e -> createFeedback(post.getPostId()));
+		
+		buttonBox.getChildren().addAll(viewBtn, feedbackBtn);
+		
+		// Add all elements to the post card
+		postCard.getChildren().addAll(headerBox, threadLabel, replyLabel, bodyLabel, buttonBox);
+		return postCard;
+	}
+	
 	/**********
 	 * <p> Method: void viewPostDetailsForStaff() </p>
 	 * 
@@ -1334,6 +1352,9 @@ public class ControllerStaffHome {
 		VBox threadContainer = new VBox(10);
 		threadContainer.setPadding(new Insets(10));
 		
+		// Count the posts of every thread with one query
+		Map<String, Integer> postCounts = ModelStaffHome.getPostCountsByThread();
+		
 		// Group threads by status
 		List<Thread> openThreads = new ArrayList<>();
 		List<Thread> closedThreads = new ArrayList<>();
@@ -1352,7 +1373,7 @@ public class ControllerStaffHome {
 			threadContainer.getChildren().add(openHeader);
 			
 			for (Thread thread : openThreads) {
-				int postCount = ModelStaffHome.getPostCountForThread(thread.getTitle());
+				int postCount = postCounts.getOrDefault(thread.getTitle(), 0);
 				VBox threadCard = createThreadCard(thread, postCount, currentUsername);
 				threadContainer.getChildren().add(threadCard);
 			}
@@ -1368,7 +1389,7 @@ public class ControllerStaffHome {
 			threadContainer.getChildren().add(closedHeader);
 			
 			for (Thread thread : closedThreads) {
-				int postCount = ModelStaffHome.getPostCountForThread(thread.getTitle());
+				int postCount = postCounts.getOrDefault(thread.getTitle(), 0);
 				VBox threadCard = createThreadCard(thread, postCount, currentUsername);
 				threadContainer.getChildren().add(threadCard);
 			}
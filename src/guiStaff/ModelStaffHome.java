@@ -11,8 +11,12 @@ import entityClasses.ThreadCollection;
 import entityClasses.Request;
 import entityClasses.RequestCollection;
 import database.Database;
+import database.ForumChanges;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*******
  * <p> Title: ModelStaffHome Class. </p>
@@ -40,8 +44,8 @@ public class ModelStaffHome {
 	// Parameter collection - shared across all staff sessions
 	private static ParameterCollection parameterCollection = new ParameterCollection();
 	// Post and Reply collections - shared across all sessions
-	private static PostCollection postCollection = new PostCollection();
-	private static ReplyCollection replyCollection = new ReplyCollection();
+	private static PostCollection postCollection = newPostCollection();
+	private static ReplyCollection replyCollection = newReplyCollection();
 	// Thread collection - shared across all sessions
 	private static ThreadCollection threadCollection = new ThreadCollection();
 	// Request collection - shared across all sessions
@@ -49,6 +53,10 @@ public class ModelStaffHome {
 	private static Database theDatabase = applicationMain.FoundationsMain.database;
 	private static boolean isInitialized = false;
 	private static boolean postsInitialized = false;
+	private static long postsSyncVersion = 0;	// Every change at or below this row version is applied to the post collections
+	
+	// Number of posts fetched at a time by the scrolling post list
+	public static final int POST_PAGE_SIZE = 25;
 	private static boolean threadsInitialized = false;
 	private static boolean requestsInitialized = false;
 	
@@ -172,35 +180,84 @@ public class ModelStaffHome {
 	/*****
      * <p> Method: void refreshPostsFromDatabase() </p>
      * 
-     * <p> Description: Refreshes posts and replies from the database, clearing existing data first.
-     * This ensures the collections are synchronized with the latest database state.</p>
+     * <p> Description: Refreshes posts and replies from the database.  Once the collections have
+     * been loaded, only the rows written or deleted since the last refresh are fetched and
+     * applied to them, so a refresh costs as much as the number of changes.  Writes still on
+     * the write-behind queue are flushed first so the refresh sees them.</p>
      */
 	public static void refreshPostsFromDatabase() {
+		theDatabase.flushQueuedWrites();
+		if (!postsInitialized) {
+			reloadPostsFromDatabase();
+			return;
+		}
 		try {
-			// Clear existing collections
-			postCollection = new PostCollection();
-			replyCollection = new ReplyCollection();
-			
-			// Load all posts
-			List<Post> posts = theDatabase.loadAllPosts();
-			for (Post post : posts) {
-				postCollection.addPost(post);
-			}
+			ForumChanges changes = theDatabase.loadForumChangesSince(postsSyncVersion);
+			changes.applyTo(postCollection, replyCollection);
+			postsSyncVersion = changes.getVersion();
+		} catch (SQLException e) {
+			System.err.println("Error refreshing posts and replies from database: " + e.getMessage());
+			e.printStackTrace();
+		}
+	}
+	
+	/*****
+     * <p> Method: void reloadPostsFromDatabase() </p>
+     * 
+     * <p> Description: Reloads every post and reply from the database, clearing existing data
+     * first, and remembers the row version the load started from for later refreshes.</p>
+     */
+	public static void reloadPostsFromDatabase() {
+		theDatabase.flushQueuedWrites();
+		try {
+			// Read the version first; rows written during the load are applied again by the next refresh
+			long version = theDatabase.getForumVersion();
 			
-			// Load all replies
-			List<Reply> replies = theDatabase.loadAllReplies();
-			for (Reply reply : replies) {
-				replyCollection.addReply(reply);
-			}
+			// Stream the rows straight into new collections, then swap them in
+			PostCollection posts = newPostCollection();
+			ReplyCollection replies = newReplyCollection();
+			int postCount = theDatabase.forEachPost(posts::addPost);
+			int replyCount = theDatabase.forEachReply(replies::addReply);
+			postCollection = posts;
+			replyCollection = replies;
 			
+			postsSyncVersion = version;
 			postsInitialized = true;
-			System.out.println("Posts and replies refreshed from database: " + posts.size() + " posts, " + replies.size() + " replies");
+			System.out.println("Posts and replies refreshed from database: " + postCount + " posts, " + replyCount + " replies");
 		} catch (SQLException e) {
 			System.err.println("Error refreshing posts and replies from database: " + e.getMessage());
 			e.printStackTrace();
 		}
 	}
 	
+	/*****
+     * <p> Method: PostCollection newPostCollection() </p>
+     * 
+     * <p> Description: Creates an empty post collection whose new posts take their IDs from
+     * the database, so posts created here and in ModelStudentHome never share an ID. </p>
+     * 
+     * @return the new collection
+     */
+	private static PostCollection newPostCollection() {
+		PostCollection posts = new PostCollection();
+		posts.setIdSource(() -> theDatabase.allocatePostId());
+		return posts;
+	}
+	
+	/*****
+     * <p> Method: ReplyCollection newReplyCollection() </p>
+     * 
+     * <p> Description: Creates an empty reply collection whose new replies and feedback take
+     * their IDs from the database, like newPostCollection. </p>
+     * 
+     * @return the new collection
+     */
+	private static ReplyCollection newReplyCollection() {
+		ReplyCollection replies = new ReplyCollection();
+		replies.setIdSource(() -> theDatabase.allocateReplyId());
+		return replies;
+	}
+	
 	/*****
      * <p> Method: PostCollection getPostCollection() </p>
      * 
@@ -214,6 +271,53 @@ public class ModelStaffHome {
 		return postCollection;
 	}
 	
+	/*****
+     * <p> Method: List&lt;Post&gt; loadPostsPage(Post lastPost) </p>
+     * 
+     * <p> Description: Loads the next page of posts in the forum, newest first, straight from
+     * the database.  The cost of a page does not depend on how many posts the forum has.</p>
+     * 
+     * @param lastPost the last post of the previous page, or null for the first page
+     * 
+     * @return up to POST_PAGE_SIZE posts; an empty list when there are no more or on error
+     */
+	public static List<Post> loadPostsPage(Post lastPost) {
+		theDatabase.flushQueuedWrites();
+		try {
+			return theDatabase.loadPostsPage(null,
+					lastPost == null ? null : lastPost.getCreatedAt(),
+					lastPost == null ? null : lastPost.getPostId(),
+					POST_PAGE_SIZE);
+		} catch (SQLException e) {
+			System.err.println("Error loading posts page from database: " + e.getMessage());
+			e.printStackTrace();
+			return new ArrayList<>();
+		}
+	}
+	
+	/*****
+     * <p> Method: Map&lt;String, Integer&gt; getReplyCounts(List&lt;Post&gt; posts) </p>
+     * 
+     * <p> Description: Returns the number of replies to each of the given posts.</p>
+     * 
+     * @param posts the posts to count replies for
+     * 
+     * @return the reply count per post ID; posts with no replies are left out
+     */
+	public static Map<String, Integer> getReplyCounts(List<Post> posts) {
+		List<String> postIds = new ArrayList<>();
+		for (Post post : posts) {
+			postIds.add(post.getPostId());
+		}
+		try {
+			return theDatabase.getReplyCountsForPosts(postIds);
+		} catch (SQLException e) {
+			System.err.println("Error counting replies in database: " + e.getMessage());
+			e.printStackTrace();
+			return new HashMap<>();
+		}
+	}
+	
 	/*****
      * <p> Method: ReplyCollection getReplyCollection() </p>
      * 
@@ -230,17 +334,13 @@ public class ModelStaffHome {
 	/*****
      * <p> Method: void saveReplyToDatabase(Reply reply) </p>
      * 
-     * <p> Description: Persists a Reply object to the database.</p>
+     * <p> Description: Queues a Reply object to be persisted to the database on a background
+     * thread and returns at once.</p>
      * 
      * @param reply the Reply object to save to the database
      */
 	public static void saveReplyToDatabase(Reply reply) {
-		try {
-			theDatabase.saveReply(reply);
-		} catch (SQLException e) {
-			System.err.println("Error saving reply to database: " + e.getMessage());
-			e.printStackTrace();
-		}
+		theDatabase.getWriteBehindQueue().queueReply(reply);
 	}
 	
 	/*****
@@ -260,17 +360,13 @@ public class ModelStaffHome {
      */
 	public static void refreshThreadsFromDatabase() {
 		try {
-			// Clear existing collection
-			threadCollection = new ThreadCollection();
-			
-			// Load all threads
-			List<Thread> threads = theDatabase.loadAllThreads();
-			for (Thread thread : threads) {
-				threadCollection.addThread(thread);
-			}
+			// Stream the rows straight into a new collection, then swap it in
+			ThreadCollection threads = new ThreadCollection();
+			int threadCount = theDatabase.forEachThread(threads::addThread);
+			threadCollection = threads;
 			
 			threadsInitialized = true;
-			System.out.println("Threads refreshed from database: " + threads.size() + " threads");
+			System.out.println("Threads refreshed from database: " + threadCount + " threads");
 		} catch (SQLException e) {
 			System.err.println("Error refreshing threads from database: " + e.getMessage());
 			e.printStackTrace();
@@ -341,6 +437,24 @@ public class ModelStaffHome {
 		}
 	}
 	
+	/*****
+     * <p> Method: Map&lt;String, Integer&gt; getPostCountsByThread() </p>
+     * 
+     * <p> Description: Returns the number of posts in every thread, read with one query.</p>
+     * 
+     * @return the number of posts per thread title; threads with no posts are left out
+     */
+	public static Map<String, Integer> getPostCountsByThread() {
+		theDatabase.flushQueuedWrites();
+		try {
+			return theDatabase.getPostCountsByThread();
+		} catch (SQLException e) {
+			System.err.println("Error getting post counts by thread: " + e.getMessage());
+			e.printStackTrace();
+			return new HashMap<>();
+		}
+	}
+	
 	/*****
      * <p> Method: void initializeRequestsFromDatabase() </p>
      * 
@@ -358,17 +472,13 @@ public class ModelStaffHome {
      */
 	public static void refreshRequestsFromDatabase() {
 		try {
-			// Clear existing collection
-			requestCollection = new RequestCollection();
-			
-			// Load all requests
-			List<Request> requests = theDatabase.loadAllRequests();
-			for (Request request : requests) {
-				requestCollection.addRequest(request);
-			}
+			// Stream the rows straight into a new collection, then swap it in
+			RequestCollection requests = new RequestCollection();
+			int requestCount = theDatabase.forEachRequest(requests::addRequest);
+			requestCollection = requests;
 			
 			requestsInitialized = true;
-			System.out.println("Requests refreshed from database: " + requests.size() + " requests");
+			System.out.println("Requests refreshed from database: " + requestCount + " requests");
 		} catch (SQLException e) {
 			System.err.println("Error refreshing requests from database: " + e.getMessage());
 			e.printStackTrace();
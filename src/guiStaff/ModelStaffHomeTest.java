@@ -490,6 +490,28 @@ public class ModelStaffHomeTest {
 		assertNotNull(replyCollection, "ReplyCollection should not be null after refresh");
 	}
 	
+	/*****
+     * <p> Method: void testRefreshPostsAppliesDelta() </p>
+     * 
+     * <p> Description: Tests that once the posts are loaded, refreshPostsFromDatabase() applies
+     * new and deleted rows to the existing collections instead of replacing them.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testRefreshPostsAppliesDelta() throws SQLException {
+		PostCollection postCollection = ModelStaffHome.getPostCollection();
+		
+		testDatabase.savePost(new Post("POST_TEST_DELTA", "Delta", "Delta body", "testUser", "General"));
+		ModelStaffHome.refreshPostsFromDatabase();
+		assertSame(postCollection, ModelStaffHome.getPostCollection(), "Refresh should update the collection in place");
+		assertNotNull(postCollection.getPostById("POST_TEST_DELTA"), "New post should be applied");
+		
+		testDatabase.deletePostFromDB("POST_TEST_DELTA");
+		ModelStaffHome.refreshPostsFromDatabase();
+		assertNull(postCollection.getPostById("POST_TEST_DELTA"), "Deleted post should be removed");
+	}
+	
 	/*****
      * <p> Method: void testGetPostCollection() </p>
      * 
@@ -721,6 +743,59 @@ public class ModelStaffHomeTest {
 		testDatabase.deleteThread(TEST_THREAD_ID);
 	}
 	
+	/*****
+     * <p> Method: void testGetPostCountForThreadAfterBulkSave() </p>
+     * 
+     * <p> Description: Tests that posts written together with savePosts() are counted by
+     * getPostCountForThread() the same as posts saved one at a time, and that saving them
+     * again updates them rather than adding to the count.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testGetPostCountForThreadAfterBulkSave() throws SQLException {
+		Post post1 = new Post("POST_TEST_1", "Post 1", "Body 1", "testUser", "Test Thread");
+		Post post2 = new Post("POST_TEST_2", "Post 2", "Body 2", "testUser", "Test Thread");
+		Post post3 = new Post("POST_TEST_3", "Post 3", "Body 3", "testUser", "Test Thread");
+		testDatabase.savePosts(List.of(post1, post2, post3));
+		assertEquals(3, ModelStaffHome.getPostCountForThread("Test Thread"), "Every saved post should be counted");
+		
+		post1.setTitle("Post 1, edited");
+		testDatabase.savePosts(List.of(post1, post2, post3));
+		assertEquals(3, ModelStaffHome.getPostCountForThread("Test Thread"), "Saving again should not add posts");
+		
+		// Clean up
+		testDatabase.deletePostFromDB("POST_TEST_1");
+		testDatabase.deletePostFromDB("POST_TEST_2");
+		testDatabase.deletePostFromDB("POST_TEST_3");
+	}
+	
+	/*****
+     * <p> Method: void testGetPostCountsByThread() </p>
+     * 
+     * <p> Description: Tests that getPostCountsByThread() returns the same counts as
+     * getPostCountForThread() for every thread, and leaves out threads with no posts.</p>
+     * 
+     * @throws SQLException if database operations fail
+     */
+	@Test
+	public void testGetPostCountsByThread() throws SQLException {
+		Post post1 = new Post("POST_TEST_1", "Post 1", "Body 1", "testUser", "Test Thread");
+		Post post2 = new Post("POST_TEST_2", "Post 2", "Body 2", "testUser", "Test Thread");
+		Post post3 = new Post("POST_TEST_3", "Post 3", "Body 3", "testUser", "Other Thread");
+		testDatabase.savePosts(List.of(post1, post2, post3));
+		
+		java.util.Map<String, Integer> counts = ModelStaffHome.getPostCountsByThread();
+		assertEquals(ModelStaffHome.getPostCountForThread("Test Thread"), counts.get("Test Thread"));
+		assertEquals(ModelStaffHome.getPostCountForThread("Other Thread"), counts.get("Other Thread"));
+		assertFalse(counts.containsKey("Non-Existent Thread"), "Threads with no posts should be left out");
+		
+		// Clean up
+		testDatabase.deletePostFromDB("POST_TEST_1");
+		testDatabase.deletePostFromDB("POST_TEST_2");
+		testDatabase.deletePostFromDB("POST_TEST_3");
+	}
+	
 	/*****
      * <p> Method: void testGetPostCountForThreadNonExistent() </p>
      * 
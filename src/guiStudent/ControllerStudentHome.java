@@ -1,6 +1,7 @@
 package guiStudent;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
@@ -41,10 +42,11 @@ public class ControllerStudentHome {
 	 * 
 	 * <p> Description: This method terminates the execution of the program.  It leaves the
 	 * database in a state where the normal login page will be displayed when the application is
-	 * restarted.</p>
+	 * restarted.  Posts and replies still on the write-behind queue are written first.</p>
 	 * 
 	 */	
 	protected static void performQuit() {
+		applicationMain.FoundationsMain.database.closeConnection();
 		System.exit(0);
 	}
 	
@@ -199,17 +201,68 @@ public class ControllerStudentHome {
 	/**********
 	 * <p> Method: viewAllPosts() </p>
 	 * 
-	 * <p> Description: Shows all posts in the forum.</p>
+	 * <p> Description: Shows all posts in the forum, newest first.  Posts are fetched from the
+	 * database a page at a time as the user scrolls, so the list opens equally fast however
+	 * large the forum is.</p>
 	 * 
 	 */
 	protected static void viewAllPosts() {
-		// Refresh collections from database to ensure we have the latest data
-		ModelStudentHome.refreshFromDatabase();
-		PostCollection posts = ModelStudentHome.getPostCollection();
-		ReplyCollection replies = ModelStudentHome.getReplyCollection();
+		String currentUsername = ViewStudentHome.theUser.getUserName();
+		String title = "All Posts";
+		
+		ScrollPane scrollPane = new ScrollPane();
+		VBox postContainer = new VBox(10);
+		postContainer.setPadding(new Insets(10));
+		Dialog<Void> dialog = new Dialog<>();
+		
+		// The last post shown, and whether the last page fetched was a full one
+		Post[] lastShown = { null };
+		boolean[] morePages = { true };
+		Runnable loadNextPage = () -> {
+			if (!morePages[0]) return;
+			List<Post> page = ModelStudentHome.loadPostsPage(lastShown[0]);
+			morePages[0] = page.size() == ModelStudentHome.POST_PAGE_SIZE;
+			if (page.isEmpty()) return;
+			lastShown[0] = page.get(page.size() - 1);
+			
+			Map<String, Integer> replyCounts = ModelStudentHome.getReplyCounts(page);
+			Map<String, Integer> unreadCounts = ModelStudentHome.getUnreadReplyCounts(page, currentUsername);
+			for (Post post : page) {
+				postContainer.getChildren().add(createPostCard(post,
+						replyCounts.getOrDefault(post.getPostId(), 0),
+						unreadCounts.getOrDefault(post.getPostId(), 0), currentUsername));
+			}
+			dialog.setHeaderText(postContainer.getChildren().size() + " post(s) shown" +
+					(morePages[0] ? " - scroll down for more" : "") + " - Use the buttons to interact with posts");
+		};
+		
+		loadNextPage.run();
+		if (postContainer.getChildren().isEmpty()) {
+			Alert alert = new Alert(Alert.AlertType.INFORMATION);
+			alert.setTitle(title);
+			alert.setHeaderText("No Posts Found");
+			alert.setContentText("There are no posts to display.");
+			alert.showAndWait();
+			return;
+		}
 		
-		List<Post> allPosts = posts.getAllPosts();
-		displayPostList(allPosts, replies, "All Posts");
+		// Fetch the next page when the user scrolls near the bottom
+		scrollPane.vvalueProperty().addListener((observable, oldValue, newValue) -> {
+			if (newValue.doubleValue() >= scrollPane.getVmax() * 0.9) {
+				loadNextPage.run();
+			}
+		});
+		
+		scrollPane.setContent(postContainer);
+		scrollPane.setPrefSize(800, 600);
+		scrollPane.setFitToWidth(true);
+		
+		dialog.setTitle(title);
+		dialog.getDialogPane().setContent(scrollPane);
+		
+		ButtonType closeBtn = new ButtonType("Close", ButtonBar.ButtonData.CANCEL_CLOSE);
+		dialog.getDialogPane().getButtonTypes().add(closeBtn);
+		dialog.showAndWait();
 	}
 	
 	
@@ -239,65 +292,7 @@ public class ControllerStudentHome {
 		for (Post post : postList) {
 			int replyCount = replies.getReplyCountForPost(post.getPostId());
 			int unreadCount = replies.getUnreadReplyCountForPost(post.getPostId(), currentUsername);
-			
-			// Create a card for each post
-			VBox postCard = new VBox(5);
-			postCard.setStyle("-fx-border-color: #cccccc; -fx-border-width: 1; -fx-padding: 10; -fx-background-color: #f9f9f9;");
-			
-			// Post header with title and metadata
-			HBox headerBox = new HBox(10);
-			Label titleLabel = new Label(post.getTitle());
-			titleLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
-						
-			Label authorLabel = new Label("by " + post.getAuthorUsername());
-			authorLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
-						
-			Label dateLabel = new Label(post.getFormattedCreatedAt());
-			dateLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
-						
-			headerBox.getChildren().addAll(titleLabel, authorLabel, dateLabel);
-						
-			// Post content
-			Label threadLabel = new Label("Thread: " + post.getThread());
-			threadLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
-						
-			Label replyLabel = new Label("Replies: " + replyCount + 
-				(unreadCount > 0 ? " (" + unreadCount + " unread)" : ""));
-			replyLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
-						
-			// Post body preview
-			Label bodyLabel;
-			
-			if (post.isDeleted()) {
-				bodyLabel = new Label("[DELETED POST]");
-				bodyLabel.setStyle("-fx-font-style: italic; -fx-text-fill: #999999;");
-			} else {
-				String preview = post.getBody().length() > 150 ? 
-					post.getBody().substring(0, 150) + "..." : post.getBody();
-				bodyLabel = new Label(preview);
-				bodyLabel.setWrapText(true);
-			}
-			// Action buttons
-			HBox buttonBox = new HBox(10);
-			Button viewBtn = new Button("View Details");
-			viewBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
-			viewBtn.setOnAction(e -> viewPostDetails(post.getPostId()));
-						
-			Button editBtn = new Button("Edit");
-			editBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
-			editBtn.setOnAction(e -> editPost(post.getPostId()));
-			editBtn.setDisable(!post.canEdit(currentUsername));
-						
-			Button deleteBtn = new Button("Delete");
-			deleteBtn.setStyle("-fx-background-color: #f44336; -fx-text-fill: white;");
-			deleteBtn.setOnAction(e -> deletePost(post.getPostId()));
-			deleteBtn.setDisable(!post.canDelete(currentUsername));
-						
-			buttonBox.getChildren().addAll(viewBtn, editBtn, deleteBtn);
-						
-			// Add all elements to the post card
-			postCard.getChildren().addAll(headerBox, threadLabel, replyLabel, bodyLabel, buttonBox);
-			postContainer.getChildren().add(postCard);
+			postContainer.getChildren().add(createPostCard(post, replyCount, unreadCount, currentUsername));
 		}
 		
 		scrollPane.setContent(postContainer);
@@ -315,6 +310,72 @@ public class ControllerStudentHome {
 	}
 	
 	
+	/**********
+	 * <p> Method: createPostCard() </p>
+	 * 
+	 * <p> Description: Helper method to build the card that shows one post in a post list.</p>
+	 * 
+	 */
+	private static VBox createPostCard(Post post, int replyCount, int unreadCount, String currentUsername) {
+		// Create the card
+		VBox postCard = new VBox(5);
+		postCard.setStyle("-fx-border-color: #cccccc; -fx-border-width: 1; -fx-padding: 10; -fx-background-color: #f9f9f9;");
+		
+		// Post header with title and metadata
+		HBox headerBox = new HBox(10);
+		Label titleLabel = new Label(post.getTitle());
+		titleLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
+		
+		Label authorLabel = new Label("by " + post.getAuthorUsername());
+		authorLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
+		
+		Label dateLabel = new Label(post.getFormattedCreatedAt());
+		dateLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
+		
+		headerBox.getChildren().addAll(titleLabel, authorLabel, dateLabel);
+		
+		// Post content
+		Label threadLabel = new Label("Thread: " + post.getThread());
+		threadLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
+		
+		Label replyLabel = new Label("Replies: " + replyCount + 
+			(unreadCount > 0 ? " (" + unreadCount + " unread)" : ""));
+		replyLabel.setStyle("-fx-font-size: 12; -fx-text-fill: #666666;");
+		
+		// Post body preview
+		Label bodyLabel;
+		
+		if (post.isDeleted()) {
+			bodyLabel = new Label("[DELETED POST]");
+			bodyLabel.setStyle("-fx-font-style: italic; -fx-text-fill: #999999;");
+		} else {
+			bodyLabel = new Label(post.getPreview());
+			bodyLabel.setWrapText(true);
+		}
+		// Action buttons
+		HBox buttonBox = new HBox(10);
+		Button viewBtn = new Button("View Details");
+		viewBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
+		viewBtn.setOnAction(e -> viewPostDetails(post.getPostId()));
+		
+		Button editBtn = new Button("Edit");
+		editBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
+		editBtn.setOnAction(e -> editPost(post.getPostId()));
+		editBtn.setDisable(!post.canEdit(currentUsername));
+		
+		Button deleteBtn = new Button("Delete");
+		deleteBtn.setStyle("-fx-background-color: #f44336; -fx-text-fill: white;");
+		deleteBtn.setOnAction(e -> deletePost(post.getPostId()));
+		deleteBtn.setDisable(!post.canDelete(currentUsername));
+		
+		buttonBox.getChildren().addAll(viewBtn, editBtn, deleteBtn);
+		
+		// Add all elements to the post card
+		postCard.getChildren().addAll(headerBox, threadLabel, replyLabel, bodyLabel, buttonBox);
+		return postCard;
+	}
+	
+	
 	/**********
 	 * <p> Method: viewPostDetails() </p>
 	 * 
@@ -5,8 +5,12 @@ import entityClasses.ReplyCollection;
 import entityClasses.Post;
 import entityClasses.Reply;
 import database.Database;
+import database.ForumChanges;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*******
  * <p> Title: ModelStudentHome Class. </p>
@@ -26,10 +30,14 @@ import java.util.List;
 public class ModelStudentHome {
 	
 	// Forum collections - shared across all student sessions
-	private static PostCollection postCollection = new PostCollection();
-	private static ReplyCollection replyCollection = new ReplyCollection();
+	private static PostCollection postCollection = newPostCollection();
+	private static ReplyCollection replyCollection = newReplyCollection();
 	private static Database theDatabase = applicationMain.FoundationsMain.database;
 	private static boolean isInitialized = false;
+	private static long syncVersion = 0;	// Every change at or below this row version is applied
+	
+	// Number of posts fetched at a time by the scrolling post list
+	public static final int POST_PAGE_SIZE = 25;
 	
 	/*****
      * <p> Method: initializeFromDatabase() </p>
@@ -44,29 +52,50 @@ public class ModelStudentHome {
 	/*****
      * <p> Method: refreshFromDatabase() </p>
      * 
-     * <p> Description: Refreshes posts and replies from the database, clearing existing data first.
-     * This ensures the collections are synchronized with the latest database state.</p>
+     * <p> Description: Refreshes posts and replies from the database.  Once the collections have
+     * been loaded, only the rows written or deleted since the last refresh are fetched and
+     * applied to them, so opening a post costs as much as the number of changes.  Writes still
+     * on the write-behind queue are flushed first so the refresh sees them.</p>
      */
 	public static void refreshFromDatabase() {
+		theDatabase.flushQueuedWrites();
+		if (!isInitialized) {
+			reloadFromDatabase();
+			return;
+		}
 		try {
-			// Clear existing collections
-			postCollection = new PostCollection();
-			replyCollection = new ReplyCollection();
-			
-			// Load all posts
-			List<Post> posts = theDatabase.loadAllPosts();
-			for (Post post : posts) {
-				postCollection.addPost(post);
-			}
+			ForumChanges changes = theDatabase.loadForumChangesSince(syncVersion);
+			changes.applyTo(postCollection, replyCollection);
+			syncVersion = changes.getVersion();
+		} catch (SQLException e) {
+			System.err.println("Error refreshing forum data from database: " + e.getMessage());
+			e.printStackTrace();
+		}
+	}
+	
+	/*****
+     * <p> Method: reloadFromDatabase() </p>
+     * 
+     * <p> Description: Reloads every post and reply from the database, clearing existing data
+     * first, and remembers the row version the load started from for later refreshes.</p>
+     */
+	public static void reloadFromDatabase() {
+		theDatabase.flushQueuedWrites();
+		try {
+			// Read the version first; rows written during the load are applied again by the next refresh
+			long version = theDatabase.getForumVersion();
 			
-			// Load all replies
-			List<Reply> replies = theDatabase.loadAllReplies();
-			for (Reply reply : replies) {
-				replyCollection.addReply(reply);
-			}
+			// Stream the rows straight into new collections, then swap them in
+			PostCollection posts = newPostCollection();
+			ReplyCollection replies = newReplyCollection();
+			int postCount = theDatabase.forEachPost(posts::addPost);
+			int replyCount = theDatabase.forEachReply(replies::addReply);
+			postCollection = posts;
+			replyCollection = replies;
 			
+			syncVersion = version;
 			isInitialized = true;
-			System.out.println("Forum data refreshed from database: " + posts.size() + " posts, " + replies.size() + " replies");
+			System.out.println("Forum data refreshed from database: " + postCount + " posts, " + replyCount + " replies");
 		} catch (SQLException e) {
 			System.err.println("Error refreshing forum data from database: " + e.getMessage());
 			e.printStackTrace();
@@ -76,29 +105,121 @@ public class ModelStudentHome {
 	/*****
      * <p> Method: savePostToDatabase(Post post) </p>
      * 
-     * <p> Description: Saves a post to the database. </p>
+     * <p> Description: Queues a post to be saved to the database on a background thread and
+     * returns at once. </p>
      */
 	public static void savePostToDatabase(Post post) {
+		theDatabase.getWriteBehindQueue().queuePost(post);
+	}
+	
+	/*****
+     * <p> Method: saveReplyToDatabase(Reply reply) </p>
+     * 
+     * <p> Description: Queues a reply to be saved to the database on a background thread and
+     * returns at once. </p>
+     */
+	public static void saveReplyToDatabase(Reply reply) {
+		theDatabase.getWriteBehindQueue().queueReply(reply);
+	}
+	
+	/*****
+     * <p> Method: loadPostsPage(Post lastPost) </p>
+     * 
+     * <p> Description: Loads the next page of posts in the forum, newest first, straight from
+     * the database.  The cost of a page does not depend on how many posts the forum has.</p>
+     * 
+     * @param lastPost the last post of the previous page, or null for the first page
+     * 
+     * @return up to POST_PAGE_SIZE posts; an empty list when there are no more or on error
+     */
+	public static List<Post> loadPostsPage(Post lastPost) {
+		theDatabase.flushQueuedWrites();
 		try {
-			theDatabase.savePost(post);
+			return theDatabase.loadPostsPage(null,
+					lastPost == null ? null : lastPost.getCreatedAt(),
+					lastPost == null ? null : lastPost.getPostId(),
+					POST_PAGE_SIZE);
 		} catch (SQLException e) {
-			System.err.println("Error saving post to database: " + e.getMessage());
+			System.err.println("Error loading posts page from database: " + e.getMessage());
 			e.printStackTrace();
+			return new ArrayList<>();
 		}
 	}
 	
 	/*****
-     * <p> Method: saveReplyToDatabase(Reply reply) </p>
+     * <p> Method: getReplyCounts(List&lt;Post&gt; posts) </p>
+     * 
+     * <p> Description: Returns the number of replies to each of the given posts. </p>
      * 
-     * <p> Description: Saves a reply to the database. </p>
+     * @param posts the posts to count replies for
+     * 
+     * @return the reply count per post ID; posts with no replies are left out
      */
-	public static void saveReplyToDatabase(Reply reply) {
+	public static Map<String, Integer> getReplyCounts(List<Post> posts) {
+		try {
+			return theDatabase.getReplyCountsForPosts(postIds(posts));
+		} catch (SQLException e) {
+			System.err.println("Error counting replies in database: " + e.getMessage());
+			e.printStackTrace();
+			return new HashMap<>();
+		}
+	}
+	
+	/*****
+     * <p> Method: getUnreadReplyCounts(List&lt;Post&gt; posts, String currentUsername) </p>
+     * 
+     * <p> Description: Returns the number of replies to each of the given posts that the user
+     * has not read, not counting the user's own replies. </p>
+     * 
+     * @param posts the posts to count replies for
+     * @param currentUsername the user reading the posts
+     * 
+     * @return the unread reply count per post ID; posts with none are left out
+     */
+	public static Map<String, Integer> getUnreadReplyCounts(List<Post> posts, String currentUsername) {
 		try {
-			theDatabase.saveReply(reply);
+			return theDatabase.getUnreadReplyCountsForPosts(postIds(posts), currentUsername);
 		} catch (SQLException e) {
-			System.err.println("Error saving reply to database: " + e.getMessage());
+			System.err.println("Error counting unread replies in database: " + e.getMessage());
 			e.printStackTrace();
+			return new HashMap<>();
+		}
+	}
+	
+	private static List<String> postIds(List<Post> posts) {
+		List<String> postIds = new ArrayList<>();
+		for (Post post : posts) {
+			postIds.add(post.getPostId());
 		}
+		return postIds;
+	}
+	
+	/*****
+     * <p> Method: PostCollection newPostCollection() </p>
+     * 
+     * <p> Description: Creates an empty post collection whose new posts take their IDs from
+     * the database, so posts created here and in ModelStaffHome never share an ID. </p>
+     * 
+     * @return the new collection
+     */
+	private static PostCollection newPostCollection() {
+		PostCollection posts = new PostCollection();
+		posts.setIdSource(() -> theDatabase.allocatePostId());
+		return posts;
+	}
+	
+	/*****
+     * <p> Method: ReplyCollection newReplyCollection() </p>
+     * 
+     * <p> Description: Creates an empty reply collection whose new replies and feedback take
+     * their IDs from the database, like newPostCollection. </p>
+     * 
+     * @return the new collection
+     */
+	private static ReplyCollection newReplyCollection() {
+		ReplyCollection replies = new ReplyCollection();
+		replies.setIdSource(() -> theDatabase.allocateReplyId());
+		return replies;
 	}
 	
 	/*****
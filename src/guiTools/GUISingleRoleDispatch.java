@@ -2,6 +2,7 @@ package guiTools;
 
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import entityClasses.LoginSession;
 import entityClasses.User;
 
 
@@ -74,13 +75,30 @@ public class GUISingleRoleDispatch {
 	 * 
 	 */
 	public static void doSingleRoleDispatch(Stage ps, User user) {
+		doSingleRoleDispatch(ps, new LoginSession(user));
+	}
+
+	
+	/**********
+	 * <p> Method: doSingleRoleDispatch(Stage ps, LoginSession session) </p>
+	 * 
+	 * <p> Description: This method dispatches on the role bitmask of the session established at
+	 * login, so no further query is needed to decide which home page to show. </p>
+	 * 
+	 * @param ps specifies the JavaFX Stage to be used for this GUI and it's methods
+	 * 
+	 * @param session specifies the login session of the user
+	 * 
+	 */
+	public static void doSingleRoleDispatch(Stage ps, LoginSession session) {
 		System.out.println("************** Just entered single role dispatch page");
 
-		if (user.getAdminRole()) {
+		User user = session.getUser();
+		if (session.hasRole(LoginSession.ROLE_ADMIN)) {
 			guiAdminHome.ViewAdminHome.displayAdminHome(ps, user);
-		} else if (user.getNewStudent()) {
+		} else if (session.hasRole(LoginSession.ROLE_STUDENT)) {
 			guiStudent.ViewStudentHome.displayStudentHome(ps, user);
-		} else if (user.getNewStaff()) {
+		} else if (session.hasRole(LoginSession.ROLE_STAFF)) {
 			guiStaff.ViewStaffHome.displayStaffHome(ps, user);
 		} else {
 			// Invalid role
@@ -1,6 +1,7 @@
 package guiUserLogin;
 
 import database.Database;
+import entityClasses.LoginSession;
 import entityClasses.User;
 import javafx.stage.Stage;
 
@@ -37,10 +38,11 @@ public class ControllerUserLogin {
 		theStage = ts;
 		String username = ViewUserLogin.text_Username.getText();
 		String password = ViewUserLogin.text_Password.getText();
-    	boolean loginResult = false;
     	
-		// Fetch the user and verify the username
-     	if (theDatabase.getUserAccountDetails(username) == false) {
+		// Verify the username and password (or one-time password) and fetch the account and its
+		// roles, all with one query
+		LoginSession session = theDatabase.authenticate(username, password);
+     	if (session == null) {
      		// Don't provide too much information.  Don't say the username is invalid or the
      		// password is invalid.  Just say the pair is invalid.
     		ViewUserLogin.alertUsernamePasswordError.setContentText(
@@ -48,27 +50,11 @@ public class ControllerUserLogin {
     		ViewUserLogin.alertUsernamePasswordError.showAndWait();
     		return;
     	}
-		System.out.println("*** Username is valid");
-		
-		// Check to see that the login password matches the account password OR the one-time password
-        String actualPassword = theDatabase.getCurrentPassword();
-        String otp = theDatabase.getOneTimePassword(username);
-        boolean usingOtp = (otp != null && otp.length() > 0 && password.compareTo(otp) == 0);
-        boolean usingNormal = (password.compareTo(actualPassword) == 0);
-        if (!usingOtp && !usingNormal) {
-            ViewUserLogin.alertUsernamePasswordError.setContentText(
-                    "Incorrect username/password. Try again!");
-            ViewUserLogin.alertUsernamePasswordError.showAndWait();
-            return;
-        }
+        boolean usingOtp = session.isUsingOneTimePassword();
         System.out.println(usingOtp ? " One-Time Password accepted" : " Password is valid for this user");
 		
 		// Establish this user's details
-    	User user = new User(username, password, theDatabase.getCurrentFirstName(), 
-    			theDatabase.getCurrentMiddleName(), theDatabase.getCurrentLastName(), 
-    			theDatabase.getCurrentPreferredFirstName(), theDatabase.getCurrentEmailAddress(), 
-    			theDatabase.getCurrentAdminRole(), 
-    			theDatabase.getCurrentNewStudent(), theDatabase.getCurrentNewStaff());
+    	User user = session.getUser();
     	
     	// If using OTP, force the user to set a new password, then clear OTP and ret urn to login
         if (usingOtp) {
@@ -118,33 +104,11 @@ public class ControllerUserLogin {
         }
 
         // See which home page dispatch to use (normal login)
-    	
-    	// See which home page dispatch to use
-		int numberOfRoles = theDatabase.getNumberOfRoles(user);		
+		int numberOfRoles = session.getNumberOfRoles();
 		System.out.println("*** The number of roles: "+ numberOfRoles);
 		if (numberOfRoles == 1) {
 			// Single Account Home Page - The user has no choice here
-			
-			// Admin role
-			if (user.getAdminRole()) {
-				loginResult = theDatabase.loginAdmin(user);
-				if (loginResult) {
-					guiAdminHome.ViewAdminHome.displayAdminHome(theStage, user);
-				}
-			} else if (user.getNewStudent()) {
-				loginResult = theDatabase.loginStudent(user);
-				if (loginResult) {
-					guiStudent.ViewStudentHome.displayStudentHome(theStage, user);
-				}
-			} else if (user.getNewStaff()) {
-				loginResult = theDatabase.loginStaff(user);
-				if (loginResult) {
-					guiStaff.ViewStaffHome.displayStaffHome(theStage, user);
-				}
-				// Other roles
-			} else {
-				System.out.println("***** UserLogin goToUserHome request has an invalid role");
-			}
+			guiTools.GUISingleRoleDispatch.doSingleRoleDispatch(theStage, session);
 		} else if (numberOfRoles > 1) {
 			// Multiple Account Home Page - The user chooses which role to play
 			System.out.println("*** Going to displayMultipleRoleDispatch");
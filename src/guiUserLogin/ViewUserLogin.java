@@ -76,8 +76,10 @@ public class ViewUserLogin {
 
 	public static void displayUserLogin(Stage ps) {
 		
-		// Establish the references to the GUI. There is no current user yet.
+		// Establish the references to the GUI. There is no current user yet, so any session
+		// left from the last login is ended.
 		theStage = ps;
+		applicationMain.FoundationsMain.database.endSession();
 		
 		// If not yet established, populate the static aspects of the GUI
 		if (theView == null) theView = new ViewUserLogin();
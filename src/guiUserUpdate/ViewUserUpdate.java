@@ -12,6 +12,7 @@ import javafx.scene.layout.Pane;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import entityClasses.User;
+import entityClasses.UserProfile;
 
 /*******
  * <p> Title: ViewUserUpdate Class. </p>
@@ -112,6 +113,7 @@ public class ViewUserUpdate {
 	private static Stage theStage;				// The Stage that JavaFX has established for us	
 	private static Pane theRootPane;			// The Pane that holds all the GUI widgets
 	private static User theUser;				// The current user of the application
+	private static UserProfile theProfile;		// The user's name and email fields, read in one query
 
 	public static Scene theUserUpdateScene = null;	// The Scene each invocation populates
 
@@ -155,6 +157,12 @@ public class ViewUserUpdate {
 		// singleton instance of this class
 		if (theView == null) theView = new ViewUserUpdate();
 		
+		// Read the name and email fields with one query; fall back on the User if that fails
+		theProfile = theDatabase.getUserProfile(theUser.getUserName());
+		if (theProfile == null) theProfile = new UserProfile(theUser.getUserName(),
+				theUser.getFirstName(), theUser.getMiddleName(), theUser.getLastName(),
+				theUser.getPreferredFirstName(), theUser.getEmailAddress());
+		
 		// Set the widget values that change from use of page to another use of the page.
 		String s = "";
 		
@@ -169,23 +177,23 @@ public class ViewUserUpdate {
     	if (s == null || s.length() < 1)label_CurrentPassword.setText("<none>");
     	else label_CurrentPassword.setText(s);
     	
-		s = theUser.getFirstName();
+		s = theProfile.getFirstName();
     	if (s == null || s.length() < 1)label_CurrentFirstName.setText("<none>");
     	else label_CurrentFirstName.setText(s);
        
-        s = theUser.getMiddleName();
+        s = theProfile.getMiddleName();
     	if (s == null || s.length() < 1)label_CurrentMiddleName.setText("<none>");
     	else label_CurrentMiddleName.setText(s);
         
-        s = theUser.getLastName();
+        s = theProfile.getLastName();
     	if (s == null || s.length() < 1)label_CurrentLastName.setText("<none>");
     	else label_CurrentLastName.setText(s);
         
-		s = theUser.getPreferredFirstName();
+		s = theProfile.getPreferredFirstName();
     	if (s == null || s.length() < 1)label_CurrentPreferredFirstName.setText("<none>");
     	else label_CurrentPreferredFirstName.setText(s);
         
-		s = theUser.getEmailAddress();
+		s = theProfile.getEmailAddress();
     	if (s == null || s.length() < 1)label_CurrentEmailAddress.setText("<none>");
     	else label_CurrentEmailAddress.setText(s);
 
@@ -261,9 +269,8 @@ public class ViewUserUpdate {
         setupLabelUI(label_CurrentFirstName, "Arial", 18, 260, Pos.BASELINE_LEFT, 200, 200);
         setupButtonUI(button_UpdateFirstName, "Dialog", 18, 275, Pos.CENTER, 500, 193);
         button_UpdateFirstName.setOnAction((event) -> {result = dialogUpdateFirstName.showAndWait();
-        	result.ifPresent(name -> theDatabase.updateFirstName(theUser.getUserName(), result.get()));
-        	theDatabase.getUserAccountDetails(theUser.getUserName());
-         	String newName = theDatabase.getCurrentFirstName();
+        	result.ifPresent(name -> { theProfile.setFirstName(name); saveProfile(); });
+         	String newName = theProfile.getFirstName();
            	theUser.setFirstName(newName);
         	if (newName == null || newName.length() < 1)label_CurrentFirstName.setText("<none>");
         	else label_CurrentFirstName.setText(newName);
@@ -274,9 +281,8 @@ public class ViewUserUpdate {
         setupLabelUI(label_CurrentMiddleName, "Arial", 18, 260, Pos.BASELINE_LEFT, 200, 250);
         setupButtonUI(button_UpdateMiddleName, "Dialog", 18, 275, Pos.CENTER, 500, 243);
         button_UpdateMiddleName.setOnAction((event) -> {result = dialogUpdateMiddleName.showAndWait();
-    		result.ifPresent(name -> theDatabase.updateMiddleName(theUser.getUserName(), result.get()));
-    		theDatabase.getUserAccountDetails(theUser.getUserName());
-    		String newName = theDatabase.getCurrentMiddleName();
+    		result.ifPresent(name -> { theProfile.setMiddleName(name); saveProfile(); });
+    		String newName = theProfile.getMiddleName();
            	theUser.setMiddleName(newName);
         	if (newName == null || newName.length() < 1)label_CurrentMiddleName.setText("<none>");
         	else label_CurrentMiddleName.setText(newName);
@@ -287,9 +293,8 @@ public class ViewUserUpdate {
         setupLabelUI(label_CurrentLastName, "Arial", 18, 260, Pos.BASELINE_LEFT, 200, 300);
         setupButtonUI(button_UpdateLastName, "Dialog", 18, 275, Pos.CENTER, 500, 293);
         button_UpdateLastName.setOnAction((event) -> {result = dialogUpdateLastName.showAndWait();
-    		result.ifPresent(name -> theDatabase.updateLastName(theUser.getUserName(), result.get()));
-    		theDatabase.getUserAccountDetails(theUser.getUserName());
-    		String newName = theDatabase.getCurrentLastName();
+    		result.ifPresent(name -> { theProfile.setLastName(name); saveProfile(); });
+    		String newName = theProfile.getLastName();
            	theUser.setLastName(newName);
       	if (newName == null || newName.length() < 1)label_CurrentLastName.setText("<none>");
         	else label_CurrentLastName.setText(newName);
@@ -303,10 +308,8 @@ public class ViewUserUpdate {
         setupButtonUI(button_UpdatePreferredFirstName, "Dialog", 18, 275, Pos.CENTER, 500, 343);
         button_UpdatePreferredFirstName.setOnAction((event) -> 
         	{result = dialogUpdatePreferredFirstName.showAndWait();
-    		result.ifPresent(name -> 
-    		theDatabase.updatePreferredFirstName(theUser.getUserName(), result.get()));
-    		theDatabase.getUserAccountDetails(theUser.getUserName());
-    		String newName = theDatabase.getCurrentPreferredFirstName();
+    		result.ifPresent(name -> { theProfile.setPreferredFirstName(name); saveProfile(); });
+    		String newName = theProfile.getPreferredFirstName();
            	theUser.setPreferredFirstName(newName);
          	if (newName == null || newName.length() < 1)label_CurrentPreferredFirstName.setText("<none>");
         	else label_CurrentPreferredFirstName.setText(newName);
@@ -317,9 +320,8 @@ public class ViewUserUpdate {
         setupLabelUI(label_CurrentEmailAddress, "Arial", 18, 260, Pos.BASELINE_LEFT, 200, 400);
         setupButtonUI(button_UpdateEmailAddress, "Dialog", 18, 275, Pos.CENTER, 500, 393);
         button_UpdateEmailAddress.setOnAction((event) -> {result = dialogUpdateEmailAddresss.showAndWait();
-    		result.ifPresent(name -> theDatabase.updateEmailAddress(theUser.getUserName(), result.get()));
-    		theDatabase.getUserAccountDetails(theUser.getUserName());
-    		String newEmail = theDatabase.getCurrentEmailAddress();
+    		result.ifPresent(name -> { theProfile.setEmailAddress(name); saveProfile(); });
+    		String newEmail = theProfile.getEmailAddress();
            	theUser.setEmailAddress(newEmail);
         	if (newEmail == null || newEmail.length() < 1)label_CurrentEmailAddress.setText("<none>");
         	else label_CurrentEmailAddress.setText(newEmail);
@@ -353,6 +355,17 @@ public class ViewUserUpdate {
 
 	 */
 	
+	/**********
+	 * Private local method to write the profile with one statement and read back what the
+	 * database now holds, so a failed write does not leave an unsaved value on the page
+	 */
+	private static void saveProfile() {
+		theDatabase.updateProfile(theProfile);
+		UserProfile saved = theDatabase.getUserProfile(theUser.getUserName());
+		if (saved != null) theProfile = saved;
+	}
+	
+	
 	/**********
 	 * Private local method to initialize the standard fields for a label
 	 * 
@@ -1,6 +1,7 @@
 module FoundationsF25 {
 	requires javafx.controls;
 	requires java.sql;
+	requires java.management;
 	requires org.junit.jupiter.api;
 	
 	opens applicationMain to javafx.graphics, javafx.fxml;